@@ -0,0 +1,384 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.classification;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeBoolean;
+import org.deckfour.xes.model.XAttributeCollection;
+import org.deckfour.xes.model.XAttributeContinuous;
+import org.deckfour.xes.model.XAttributeDiscrete;
+import org.deckfour.xes.model.XAttributeID;
+import org.deckfour.xes.model.XAttributeLiteral;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XAttributeTimestamp;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+
+/**
+ * Maps events to the integer indices of their classes in a set of event
+ * classes.
+ * 
+ * For attribute classifiers, the encoder hashes the values of the defining
+ * attributes directly. It builds the class identity string only once for each
+ * distinct combination of values, instead of once per event. Other
+ * classifiers, as well as continuous and collection attributes (whose
+ * equality does not imply equal identity strings), fall back to the class
+ * identity string.
+ * 
+ * An encoder caches the indices of the classes it has found, so it must be
+ * created after the indices of the event classes are harmonized. Events whose
+ * class is unknown are not cached, so their classes are found once they are
+ * registered. An encoder is not thread-safe; use one encoder per thread.
+ */
+public class XEventClassEncoder {
+
+	/**
+	 * Index returned for events whose class is not contained in the event
+	 * classes.
+	 */
+	public static final int UNKNOWN = -1;
+
+	/*
+	 * Kinds of attributes, determining how their values are hashed and
+	 * compared.
+	 */
+	private static final int IDENTITY = 0;
+	private static final int LITERAL = 1;
+	private static final int DISCRETE = 2;
+	private static final int BOOLEAN = 3;
+	private static final int TIMESTAMP = 4;
+	private static final int ID = 5;
+	private static final int OTHER = 6;
+
+	/**
+	 * Kinds of attribute classes. Failed interface type checks are slow, so
+	 * kinds are derived only once per class.
+	 */
+	private static final ClassValue<Integer> KINDS = new ClassValue<Integer>() {
+		@Override
+		protected Integer computeValue(Class<?> type) {
+			return kindOf(type);
+		}
+	};
+
+	/**
+	 * The event classes whose indices are returned.
+	 */
+	protected final XEventClasses classes;
+	/**
+	 * Keys of the defining attributes, or <code>null</code> if class
+	 * identities cannot be derived from attribute values.
+	 */
+	private final String[] keys;
+	/**
+	 * Defining attributes of the event currently being encoded.
+	 */
+	private final XAttribute[] probe;
+	/**
+	 * Kinds of the defining attributes of the event currently being encoded.
+	 */
+	private final int[] kinds;
+	/**
+	 * Open-addressing table of value combinations, holding entry numbers
+	 * plus one, so that zero marks a free slot.
+	 */
+	private int[] table;
+	private XAttribute[][] tuples;
+	private int[] hashes;
+	private int[] indices;
+	private int size;
+
+	/**
+	 * Creates a new encoder.
+	 * 
+	 * @param classes
+	 *            The event classes whose indices are returned.
+	 */
+	public XEventClassEncoder(XEventClasses classes) {
+		this.classes = classes;
+		this.keys = definingKeys(classes.getClassifier());
+		this.probe = keys == null ? null : new XAttribute[keys.length];
+		this.kinds = keys == null ? null : new int[keys.length];
+		this.table = new int[64];
+		this.tuples = new XAttribute[32][];
+		this.hashes = new int[32];
+		this.indices = new int[32];
+		this.size = 0;
+	}
+
+	/**
+	 * Returns the event classes whose indices are returned.
+	 * 
+	 * @return The event classes of this encoder.
+	 */
+	public XEventClasses getEventClasses() {
+		return classes;
+	}
+
+	/**
+	 * Returns the index of the class of the given event.
+	 * 
+	 * @param event
+	 *            The event to classify.
+	 * @return The index of the event's class, or {@link #UNKNOWN} if the
+	 *         event classes contain no such class.
+	 */
+	public int getClassIndex(XEvent event) {
+		if (keys == null) {
+			return indexOf(classes.getClassifier().getClassIdentity(event));
+		}
+		XAttributeMap attributes = event.getAttributes();
+		int hash = 1;
+		for (int i = 0; i < keys.length; i++) {
+			XAttribute attribute = attributes.get(keys[i]);
+			int valueHash = 0;
+			if (attribute != null) {
+				kinds[i] = KINDS.get(attribute.getClass());
+				if (kinds[i] == IDENTITY) {
+					Arrays.fill(probe, null);
+					return indexOf(classes.getClassifier().getClassIdentity(event));
+				}
+				valueHash = hashValue(attribute, kinds[i]);
+			}
+			probe[i] = attribute;
+			hash = 31 * hash + valueHash;
+		}
+		int mask = table.length - 1;
+		for (int slot = (hash ^ (hash >>> 16)) & mask;; slot = (slot + 1) & mask) {
+			int entry = table[slot] - 1;
+			if (entry < 0) {
+				break;
+			}
+			if (hashes[entry] == hash && matches(tuples[entry])) {
+				Arrays.fill(probe, null);
+				return indices[entry];
+			}
+		}
+		int index = indexOf(classes.getClassifier().getClassIdentity(event));
+		if (index != UNKNOWN) {
+			// misses are not cached, as the class may be registered later
+			add(hash, probe.clone(), index);
+		}
+		Arrays.fill(probe, null);
+		return index;
+	}
+
+	/**
+	 * Encodes a trace as the sequence of its event class indices.
+	 * 
+	 * @param trace
+	 *            The trace to encode.
+	 * @return The class index of each event, in trace order.
+	 */
+	public int[] encode(XTrace trace) {
+		int[] encoded = new int[trace.size()];
+		int i = 0;
+		for (XEvent event : trace) {
+			encoded[i++] = getClassIndex(event);
+		}
+		return encoded;
+	}
+
+	/**
+	 * Encodes a log as the sequences of its event class indices.
+	 * 
+	 * @param log
+	 *            The log to encode.
+	 * @return For each trace, in log order, the class index of each event.
+	 */
+	public int[][] encode(XLog log) {
+		int[][] encoded = new int[log.size()][];
+		int i = 0;
+		for (XTrace trace : log) {
+			encoded[i++] = encode(trace);
+		}
+		return encoded;
+	}
+
+	private int indexOf(String classIdentity) {
+		XEventClass eventClass = classes.getByIdentity(classIdentity);
+		return eventClass == null ? UNKNOWN : eventClass.getIndex();
+	}
+
+	private boolean matches(XAttribute[] tuple) {
+		for (int i = 0; i < tuple.length; i++) {
+			XAttribute attribute = probe[i];
+			XAttribute other = tuple[i];
+			if (attribute == other) {
+				continue;
+			} else if (attribute == null || other == null) {
+				return false;
+			} else if (attribute.getClass() != other.getClass()) {
+				if (!attribute.equals(other)) {
+					return false;
+				}
+			} else if (!equalValues(attribute, other, kinds[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Compares the values of two attributes of the same class and key.
+	 */
+	private static boolean equalValues(XAttribute a, XAttribute b, int kind) {
+		switch (kind) {
+		case LITERAL:
+			return Objects.equals(((XAttributeLiteral) a).getValue(),
+					((XAttributeLiteral) b).getValue());
+		case DISCRETE:
+			return ((XAttributeDiscrete) a).getValue() == ((XAttributeDiscrete) b)
+					.getValue();
+		case BOOLEAN:
+			return ((XAttributeBoolean) a).getValue() == ((XAttributeBoolean) b)
+					.getValue();
+		case TIMESTAMP:
+			return ((XAttributeTimestamp) a).getValueMillis() == ((XAttributeTimestamp) b)
+					.getValueMillis();
+		case ID:
+			return Objects.equals(((XAttributeID) a).getValue(),
+					((XAttributeID) b).getValue());
+		default:
+			return a.equals(b);
+		}
+	}
+
+	private void add(int hash, XAttribute[] tuple, int index) {
+		if (size == tuples.length) {
+			tuples = Arrays.copyOf(tuples, size * 2);
+			hashes = Arrays.copyOf(hashes, size * 2);
+			indices = Arrays.copyOf(indices, size * 2);
+		}
+		tuples[size] = tuple;
+		hashes[size] = hash;
+		indices[size] = index;
+		size++;
+		if (size * 2 > table.length) {
+			table = new int[table.length * 2];
+			for (int entry = 0; entry < size; entry++) {
+				insert(entry);
+			}
+		} else {
+			insert(size - 1);
+		}
+	}
+
+	private void insert(int entry) {
+		int mask = table.length - 1;
+		int hash = hashes[entry];
+		int slot = (hash ^ (hash >>> 16)) & mask;
+		while (table[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = entry + 1;
+	}
+
+	/**
+	 * Determines how the values of attributes of the given class are hashed.
+	 * Continuous attributes (where <code>0.0 == -0.0</code>) and collections
+	 * (which are equal by key) cannot be told apart by equality, so their
+	 * events are classified by identity string.
+	 */
+	private static int kindOf(Class<?> type) {
+		if (XAttributeContinuous.class.isAssignableFrom(type)
+				|| XAttributeCollection.class.isAssignableFrom(type)) {
+			return IDENTITY;
+		} else if (XAttributeLiteral.class.isAssignableFrom(type)) {
+			return LITERAL;
+		} else if (XAttributeDiscrete.class.isAssignableFrom(type)) {
+			return DISCRETE;
+		} else if (XAttributeBoolean.class.isAssignableFrom(type)) {
+			return BOOLEAN;
+		} else if (XAttributeTimestamp.class.isAssignableFrom(type)) {
+			return TIMESTAMP;
+		} else if (XAttributeID.class.isAssignableFrom(type)) {
+			return ID;
+		} else {
+			return OTHER;
+		}
+	}
+
+	/**
+	 * Hashes the value of an attribute. The key is left out, since all
+	 * attributes hashed at the same position share it.
+	 */
+	private static int hashValue(XAttribute attribute, int kind) {
+		switch (kind) {
+		case LITERAL:
+			return Objects.hashCode(((XAttributeLiteral) attribute).getValue());
+		case DISCRETE:
+			return Long.hashCode(((XAttributeDiscrete) attribute).getValue());
+		case BOOLEAN:
+			return Boolean.hashCode(((XAttributeBoolean) attribute).getValue());
+		case TIMESTAMP:
+			return Long.hashCode(((XAttributeTimestamp) attribute)
+					.getValueMillis());
+		case ID:
+			return Objects.hashCode(((XAttributeID) attribute).getValue());
+		default:
+			return attribute.hashCode();
+		}
+	}
+
+	/**
+	 * Returns the defining keys of classifiers whose class identities are a
+	 * function of the defining attributes, or <code>null</code> for any other
+	 * classifier.
+	 */
+	private static String[] definingKeys(XEventClassifier classifier) {
+		if (!(classifier instanceof XEventAttributeClassifier)) {
+			return null;
+		}
+		try {
+			if (classifier.getClass()
+					.getMethod("getClassIdentity", XEvent.class)
+					.getDeclaringClass() != XEventAttributeClassifier.class) {
+				return null;
+			}
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+		return classifier.getDefiningAttributeKeys().clone();
+	}
+}
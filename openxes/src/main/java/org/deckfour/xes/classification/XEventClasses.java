@@ -39,9 +39,17 @@
 package org.deckfour.xes.classification;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.deckfour.xes.model.XEvent;
 import org.deckfour.xes.model.XLog;
@@ -80,6 +88,60 @@ public class XEventClasses {
 		return nClasses;
 	}
 
+	/**
+	 * Creates a new set of event classes, classifying the traces of the log
+	 * in parallel. Each thread collects the classes of the traces it takes
+	 * into a set of its own; these sets are merged and harmonized, so the
+	 * result equals that of {@link #deriveEventClasses(XEventClassifier, XLog)}.
+	 * 
+	 * @param classifier
+	 *            The classifier to be used for event comparison.
+	 * @param log
+	 *            The log, on which event classes should be imposed.
+	 * @param threads
+	 *            The number of threads classifying traces.
+	 * @return A set of event classes, as an instance of this class.
+	 */
+	public static XEventClasses deriveEventClasses(
+			final XEventClassifier classifier, final XLog log, int threads)
+			throws InterruptedException {
+		threads = Math.min(threads, log.size());
+		if (threads <= 1) {
+			return deriveEventClasses(classifier, log);
+		}
+		final AtomicInteger next = new AtomicInteger();
+		ExecutorService executor = new ForkJoinPool(threads);
+		try {
+			List<Future<XEventClasses>> futures = new ArrayList<Future<XEventClasses>>();
+			for (int t = 0; t < threads; t++) {
+				futures.add(executor.submit(new Callable<XEventClasses>() {
+					public XEventClasses call() {
+						XEventClasses partial = new XEventClasses(classifier);
+						for (int i = next.getAndIncrement(); i < log.size(); i = next
+								.getAndIncrement()) {
+							partial.register(log.get(i));
+						}
+						return partial;
+					}
+				}));
+			}
+			XEventClasses nClasses = futures.get(0).get();
+			for (int t = 1; t < threads; t++) {
+				nClasses.merge(futures.get(t).get());
+			}
+			nClasses.harmonizeIndices();
+			return nClasses;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw (RuntimeException) cause;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
 	/**
 	 * The classifier used for creating the set of event classes.
 	 */
@@ -88,6 +150,10 @@ public class XEventClasses {
 	 * Map holding the event classes, indexed by their unique identifier string.
 	 */
 	protected HashMap<String, XEventClass> classMap;
+	/**
+	 * Array holding the event classes, indexed by their index.
+	 */
+	protected XEventClass[] classArray;
 
 	/**
 	 * Creates a new instance, i.e. an empty set of event classes.
@@ -98,6 +164,7 @@ public class XEventClasses {
 	public XEventClasses(XEventClassifier classifier) {
 		this.classifier = classifier;
 		this.classMap = new HashMap<String, XEventClass>();
+		this.classArray = new XEventClass[16];
 	}
 
 	/**
@@ -163,6 +230,13 @@ public class XEventClasses {
 	 *         this method may return <code>null</code>.
 	 */
 	public XEventClass getByIndex(int index) {
+		XEventClass[] classArray = this.classArray;
+		if (index >= 0 && index < classArray.length) {
+			XEventClass eventClass = classArray[index];
+			if (eventClass != null && eventClass.getIndex() == index) {
+				return eventClass;
+			}
+		}
 		for (XEventClass eventClass : classMap.values()) {
 			if (eventClass.getIndex() == index) {
 				return eventClass;
@@ -228,12 +302,40 @@ public class XEventClasses {
 		if (eventClass == null && classId != null) {
 			eventClass = new XEventClass(classId, classMap.size());
 			classMap.put(classId, eventClass);
+			if (eventClass.getIndex() >= classArray.length) {
+				classArray = Arrays.copyOf(classArray,
+						Math.max(eventClass.getIndex() + 1, classArray.length * 2));
+			}
+			classArray[eventClass.getIndex()] = eventClass;
 		}
 		if (eventClass != null) {
 			eventClass.incrementSize();
 		}
 	}
 
+	/**
+	 * Merges another set of event classes into this one. Classes contained in
+	 * both sets are combined by adding their sizes; classes only contained in
+	 * the other set are added, with the next free indices. Indices should be
+	 * harmonized once merging is complete.
+	 * 
+	 * @param classes
+	 *            The event classes to merge into this set. They are not
+	 *            modified.
+	 */
+	public synchronized void merge(XEventClasses classes) {
+		for (XEventClass other : classes.getClasses()) {
+			XEventClass eventClass = classMap.get(other.getId());
+			if (eventClass == null) {
+				register(other.getId());
+				eventClass = classMap.get(other.getId());
+				eventClass.setSize(other.size());
+			} else {
+				eventClass.setSize(eventClass.size() + other.size());
+			}
+		}
+	}
+
 	/**
 	 * This method harmonizeds the indices of all contained event classes.
 	 * Indices are re-assigned according to the natural order of class
@@ -248,12 +350,40 @@ public class XEventClasses {
 				.values());
 		Collections.sort(classList);
 		classMap.clear();
+		XEventClass[] harmonizedArray = new XEventClass[Math.max(16,
+				classList.size())];
 		for (int i = 0; i < classList.size(); i++) {
 			XEventClass original = classList.get(i);
 			XEventClass harmonized = new XEventClass(original.getId(), i);
 			harmonized.setSize(original.size());
 			classMap.put(harmonized.getId(), harmonized);
+			harmonizedArray[i] = harmonized;
 		}
+		classArray = harmonizedArray;
+	}
+
+	/**
+	 * Creates an encoder mapping events to the indices of their classes in
+	 * this set. Encoders should only be created once the event classes are
+	 * complete and harmonized.
+	 * 
+	 * @return A new encoder for this set of event classes.
+	 */
+	public XEventClassEncoder createEncoder() {
+		return new XEventClassEncoder(this);
+	}
+
+	/**
+	 * Projects a log onto the indices of the event classes in this set.
+	 * Events whose class is not contained in this set are mapped to
+	 * {@link XEventClassEncoder#UNKNOWN}.
+	 * 
+	 * @param log
+	 *            The log to encode.
+	 * @return For each trace, in log order, the class index of each event.
+	 */
+	public int[][] encode(XLog log) {
+		return createEncoder().encode(log);
 	}
 
 	/**
@@ -0,0 +1,255 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.columnar;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.impl.XAttributeMapFrozenImpl;
+
+/**
+ * Read-only view on the attributes of a row of a columnar log, i.e., of a
+ * trace or an event.
+ * 
+ * Looking up a single attribute decodes only its column (or residual
+ * attribute); iterating the map decodes it as a whole, once per view. The
+ * attributes returned are frozen (see
+ * {@link XAttributeMapFrozenImpl#freeze(XAttribute)}), and any attempt to
+ * modify the map or its attributes throws an
+ * <code>UnsupportedOperationException</code>. Cloning the view yields a
+ * modifiable, decoded copy.
+ * 
+ * @see XLogColumnarImpl
+ */
+class XAttributeMapColumnarImpl extends AbstractMap<String, XAttribute>
+		implements XAttributeMap {
+
+	private final XFactory factory;
+	private final Map<String, XColumn> columns;
+	private final XColumn[] columnArray;
+	private final XAttributeMap residual;
+	private final String[] layout;
+	private final int row;
+	/**
+	 * The decoded map, created on first iteration.
+	 */
+	private XAttributeMapFrozenImpl decoded;
+
+	/**
+	 * Creates a view on the attributes of the given row.
+	 * 
+	 * @param factory
+	 *            Factory used for decoding attributes.
+	 * @param columns
+	 *            Columns by attribute key.
+	 * @param columnArray
+	 *            Columns in column order.
+	 * @param residual
+	 *            Residual attributes of the row, may be <code>null</code>.
+	 * @param layout
+	 *            Keys of the row in their original order, or
+	 *            <code>null</code> to order the attributes by column,
+	 *            followed by the residual attributes.
+	 * @param row
+	 *            The row.
+	 */
+	XAttributeMapColumnarImpl(XFactory factory, Map<String, XColumn> columns,
+			XColumn[] columnArray, XAttributeMap residual, String[] layout,
+			int row) {
+		this.factory = factory;
+		this.columns = columns;
+		this.columnArray = columnArray;
+		this.residual = residual;
+		this.layout = layout;
+		this.row = row;
+	}
+
+	private XAttributeMapFrozenImpl decoded() {
+		if (decoded == null) {
+			decoded = XAttributeMapFrozenImpl.freeze(decode());
+		}
+		return decoded;
+	}
+
+	/**
+	 * Decodes the attributes of the row into a new, modifiable map.
+	 */
+	private XAttributeMap decode() {
+		XAttributeMap attributes = factory.createAttributeMap();
+		if (layout != null) {
+			for (String key : layout) {
+				attributes.put(key, decode(key));
+			}
+			return attributes;
+		}
+		for (XColumn column : columnArray) {
+			XAttribute attribute = column.createAttribute(row, factory);
+			if (attribute != null) {
+				attributes.put(attribute.getKey(), attribute);
+			}
+		}
+		if (residual != null) {
+			for (XAttribute attribute : residual.values()) {
+				attributes.put(attribute.getKey(),
+						(XAttribute) attribute.clone());
+			}
+		}
+		return attributes;
+	}
+
+	/**
+	 * Decodes the attribute with the given key into a new attribute.
+	 * 
+	 * @return The attribute, or <code>null</code> if the row has none.
+	 */
+	private XAttribute decode(Object key) {
+		XColumn column = columns.get(key);
+		if (column != null && column.isPresent(row)) {
+			return column.createAttribute(row, factory);
+		}
+		XAttribute attribute = residual == null ? null : residual.get(key);
+		return attribute == null ? null : (XAttribute) attribute.clone();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#size()
+	 */
+	public int size() {
+		if (layout != null) {
+			return layout.length;
+		}
+		int size = residual == null ? 0 : residual.size();
+		for (XColumn column : columnArray) {
+			if (column.isPresent(row)) {
+				size++;
+			}
+		}
+		return size;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#containsKey(java.lang.Object)
+	 */
+	public boolean containsKey(Object key) {
+		XColumn column = columns.get(key);
+		return (column != null && column.isPresent(row))
+				|| (residual != null && residual.containsKey(key));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#get(java.lang.Object)
+	 */
+	public XAttribute get(Object key) {
+		if (decoded != null) {
+			return decoded.get(key);
+		}
+		XAttribute attribute = decode(key);
+		return attribute == null ? null : XAttributeMapFrozenImpl
+				.freeze(attribute);
+	}
+
+	/**
+	 * Columnar attribute maps are read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 */
+	public XAttribute put(String key, XAttribute value) {
+		throw new UnsupportedOperationException(
+				"Columnar attribute maps are read-only");
+	}
+
+	/**
+	 * Columnar attribute maps are read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 */
+	public void putAll(Map<? extends String, ? extends XAttribute> map) {
+		throw new UnsupportedOperationException(
+				"Columnar attribute maps are read-only");
+	}
+
+	/**
+	 * Columnar attribute maps are read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 */
+	public XAttribute remove(Object key) {
+		throw new UnsupportedOperationException(
+				"Columnar attribute maps are read-only");
+	}
+
+	/**
+	 * Columnar attribute maps are read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 */
+	public void clear() {
+		throw new UnsupportedOperationException(
+				"Columnar attribute maps are read-only");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#entrySet()
+	 */
+	public Set<Map.Entry<String, XAttribute>> entrySet() {
+		return decoded().entrySet();
+	}
+
+	/**
+	 * Creates a modifiable, decoded copy of this attribute map.
+	 * 
+	 * @see java.lang.Object#clone()
+	 */
+	public Object clone() {
+		return decode();
+	}
+
+}
@@ -0,0 +1,295 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.columnar;
+
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.id.XID;
+import org.deckfour.xes.model.XAttribute;
+
+/**
+ * In-memory representation of one column of a columnar log store, as
+ * returned by {@link XColumnarLogReader}.
+ * 
+ * Values are kept in primitive arrays, which can be accessed directly for
+ * tight analysis loops: <code>long</code> values for discrete and timestamp
+ * columns, <code>double</code> values for continuous columns, dictionary codes
+ * for literal columns, two <code>long</code> values (most and least
+ * significant bits) per row for ID columns. Boolean values and the presence
+ * of values are stored as bitmaps, with one bit per row. Rows without a value
+ * have a primitive value of zero.
+ * 
+ */
+public class XColumn {
+
+	private final String key;
+	private final XColumnType type;
+	private final XExtension extension;
+	private final int size;
+	private final long[] present;
+	private final long[] longs;
+	private final double[] doubles;
+	private final int[] codes;
+	private final String[] dictionary;
+	private final byte[][] blobs;
+
+	/**
+	 * Creates a new column. Only the value array corresponding to the column
+	 * type needs to be provided, all others should be <code>null</code>.
+	 * 
+	 * @param key
+	 *            Attribute key stored in this column.
+	 * @param type
+	 *            Type of this column.
+	 * @param extension
+	 *            Extension defining the attribute key (may be
+	 *            <code>null</code>).
+	 * @param size
+	 *            Number of rows.
+	 * @param present
+	 *            Presence bitmap.
+	 * @param longs
+	 *            Values of discrete, timestamp and ID columns, or the value
+	 *            bitmap of boolean columns.
+	 * @param doubles
+	 *            Values of continuous columns.
+	 * @param codes
+	 *            Dictionary codes of literal columns.
+	 * @param dictionary
+	 *            Dictionary of literal columns.
+	 * @param blobs
+	 *            Records of binary columns.
+	 */
+	public XColumn(String key, XColumnType type, XExtension extension,
+			int size, long[] present, long[] longs, double[] doubles,
+			int[] codes, String[] dictionary, byte[][] blobs) {
+		this.key = key;
+		this.type = type;
+		this.extension = extension;
+		this.size = size;
+		this.present = present;
+		this.longs = longs;
+		this.doubles = doubles;
+		this.codes = codes;
+		this.dictionary = dictionary;
+		this.blobs = blobs;
+	}
+
+	/**
+	 * @return The attribute key stored in this column.
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * @return The type of this column.
+	 */
+	public XColumnType getType() {
+		return type;
+	}
+
+	/**
+	 * @return The extension defining the key of this column (may be
+	 *         <code>null</code>).
+	 */
+	public XExtension getExtension() {
+		return extension;
+	}
+
+	/**
+	 * @return The number of rows in this column.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks whether a value is present in the given row.
+	 * 
+	 * @param row
+	 *            Row index.
+	 * @return Whether the row has a value.
+	 */
+	public boolean isPresent(int row) {
+		return (present[row >>> 6] & (1L << row)) != 0;
+	}
+
+	/**
+	 * Returns the raw <code>long</code> values of this column. For discrete
+	 * and timestamp columns, this contains one value per row. For ID
+	 * columns, this contains two values per row. For boolean columns, this is
+	 * a bitmap with one bit per row.
+	 * 
+	 * @return The <code>long</code> values.
+	 */
+	public long[] getLongs() {
+		return longs;
+	}
+
+	/**
+	 * @return The <code>double</code> values of a continuous column.
+	 */
+	public double[] getDoubles() {
+		return doubles;
+	}
+
+	/**
+	 * @return The dictionary codes of a literal column, one per row.
+	 */
+	public int[] getCodes() {
+		return codes;
+	}
+
+	/**
+	 * @return The dictionary of a literal column, indexed by code.
+	 */
+	public String[] getDictionary() {
+		return dictionary;
+	}
+
+	/**
+	 * Returns the value of a discrete or timestamp column.
+	 * 
+	 * @param row
+	 *            Row index.
+	 * @return The value in the given row.
+	 */
+	public long getLong(int row) {
+		return longs[row];
+	}
+
+	/**
+	 * Returns the value of a continuous column.
+	 * 
+	 * @param row
+	 *            Row index.
+	 * @return The value in the given row.
+	 */
+	public double getDouble(int row) {
+		return doubles[row];
+	}
+
+	/**
+	 * Returns the value of a boolean column.
+	 * 
+	 * @param row
+	 *            Row index.
+	 * @return The value in the given row.
+	 */
+	public boolean getBoolean(int row) {
+		return (longs[row >>> 6] & (1L << row)) != 0;
+	}
+
+	/**
+	 * Returns the value of a literal column.
+	 * 
+	 * @param row
+	 *            Row index.
+	 * @return The value in the given row, or <code>null</code> if no value is
+	 *         present.
+	 */
+	public String getString(int row) {
+		return isPresent(row) ? dictionary[codes[row]] : null;
+	}
+
+	/**
+	 * Returns the value of an ID column.
+	 * 
+	 * @param row
+	 *            Row index.
+	 * @return The value in the given row, or <code>null</code> if no value is
+	 *         present.
+	 */
+	public XID getID(int row) {
+		return isPresent(row) ? new XID(longs[2 * row], longs[2 * row + 1])
+				: null;
+	}
+
+	/**
+	 * Returns the binary record of a blob column.
+	 * 
+	 * @param row
+	 *            Row index.
+	 * @return The record in the given row, or <code>null</code> if no value is
+	 *         present.
+	 */
+	public byte[] getBlob(int row) {
+		return blobs[row];
+	}
+
+	/**
+	 * Creates an attribute for the value in the given row. Not applicable to
+	 * blob columns.
+	 * 
+	 * @param row
+	 *            Row index.
+	 * @param factory
+	 *            Factory used to create the attribute.
+	 * @return The attribute, or <code>null</code> if no value is present.
+	 */
+	public XAttribute createAttribute(int row, XFactory factory) {
+		if (!isPresent(row)) {
+			return null;
+		}
+		switch (type) {
+		case DISCRETE:
+			return factory.createAttributeDiscrete(key, longs[row],
+					extension);
+		case TIMESTAMP:
+			return factory.createAttributeTimestamp(key, longs[row],
+					extension);
+		case CONTINUOUS:
+			return factory.createAttributeContinuous(key, doubles[row],
+					extension);
+		case BOOLEAN:
+			return factory.createAttributeBoolean(key, getBoolean(row),
+					extension);
+		case LITERAL:
+			return factory.createAttributeLiteral(key,
+					dictionary[codes[row]], extension);
+		case ID:
+			return factory.createAttributeID(key, getID(row), extension);
+		default:
+			throw new IllegalStateException(
+					"Blob columns do not contain attribute values!");
+		}
+	}
+
+}
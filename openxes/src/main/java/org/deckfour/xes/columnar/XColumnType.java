@@ -0,0 +1,152 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.columnar;
+
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeBoolean;
+import org.deckfour.xes.model.XAttributeCollection;
+import org.deckfour.xes.model.XAttributeContinuous;
+import org.deckfour.xes.model.XAttributeDiscrete;
+import org.deckfour.xes.model.XAttributeID;
+import org.deckfour.xes.model.XAttributeLiteral;
+import org.deckfour.xes.model.XAttributeTimestamp;
+
+/**
+ * Physical types of columns in a columnar log store. Each column stores the
+ * values of one attribute key, in one of the following encodings:
+ * <ul>
+ * <li>{@link #DISCRETE} and {@link #TIMESTAMP}: one <code>long</code> per
+ * row (timestamps as milliseconds since the epoch).</li>
+ * <li>{@link #CONTINUOUS}: one <code>double</code> per row.</li>
+ * <li>{@link #BOOLEAN}: one bit per row.</li>
+ * <li>{@link #LITERAL}: one <code>int</code> code per row, referring to a
+ * dictionary of distinct values.</li>
+ * <li>{@link #ID}: two <code>long</code> values per row.</li>
+ * <li>{@link #BLOB}: a variable-length binary record per row, used for
+ * attributes which cannot be stored in a typed column.</li>
+ * </ul>
+ * All columns carry a bitmap flagging the rows in which a value is present.
+ * 
+ */
+public enum XColumnType {
+
+	DISCRETE((byte) 0), TIMESTAMP((byte) 1), CONTINUOUS((byte) 2), BOOLEAN(
+			(byte) 3), LITERAL((byte) 4), ID((byte) 5), BLOB((byte) 6);
+
+	/**
+	 * Code of this type in the column file header.
+	 */
+	private final byte code;
+
+	private XColumnType(byte code) {
+		this.code = code;
+	}
+
+	/**
+	 * Returns the code of this type, as stored in column files.
+	 * 
+	 * @return The type code.
+	 */
+	public byte getCode() {
+		return code;
+	}
+
+	/**
+	 * Resolves a column type from its code.
+	 * 
+	 * @param code
+	 *            The type code, as stored in column files.
+	 * @return The column type.
+	 */
+	public static XColumnType forCode(byte code) {
+		for (XColumnType type : values()) {
+			if (type.code == code) {
+				return type;
+			}
+		}
+		throw new IllegalArgumentException("Unknown column type: " + code);
+	}
+
+	/**
+	 * Determines the column type able to store the given attribute. Lists
+	 * and containers have no typed column, in which case this method returns
+	 * <code>null</code>.
+	 * 
+	 * @param attribute
+	 *            The attribute (or attribute prototype).
+	 * @return The column type, or <code>null</code>.
+	 */
+	public static XColumnType forAttribute(XAttribute attribute) {
+		/*
+		 * Collections need to precede Literal, as they extend Literal.
+		 */
+		if (attribute instanceof XAttributeCollection) {
+			return null;
+		} else if (attribute instanceof XAttributeLiteral) {
+			return LITERAL;
+		} else if (attribute instanceof XAttributeBoolean) {
+			return BOOLEAN;
+		} else if (attribute instanceof XAttributeContinuous) {
+			return CONTINUOUS;
+		} else if (attribute instanceof XAttributeDiscrete) {
+			return DISCRETE;
+		} else if (attribute instanceof XAttributeTimestamp) {
+			return TIMESTAMP;
+		} else if (attribute instanceof XAttributeID) {
+			return ID;
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Checks whether the given attribute can be stored in a column of this
+	 * type. Attributes carrying nested meta-attributes cannot be stored in a
+	 * typed column.
+	 * 
+	 * @param attribute
+	 *            The attribute to check.
+	 * @return Whether the attribute fits into this column type.
+	 */
+	public boolean accepts(XAttribute attribute) {
+		return this != BLOB && forAttribute(attribute) == this
+				&& !attribute.hasAttributes();
+	}
+
+}
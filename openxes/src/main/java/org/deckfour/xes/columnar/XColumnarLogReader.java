@@ -0,0 +1,671 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.columnar;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.deckfour.xes.classification.XEventAttributeClassifier;
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.extension.XExtensionManager;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.id.XID;
+import org.deckfour.xes.logging.XLogging;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.buffered.XAttributeMapPortableSerializerImpl;
+
+/**
+ * Reads logs from a columnar log store, as written by
+ * {@link XColumnarLogWriter}.
+ * 
+ * Creating a reader only loads the metadata of the store. Columns are read
+ * on demand, and only the files of the requested columns are accessed. Thus,
+ * analyses which only require a few attributes can directly work on the
+ * primitive arrays of the respective columns, without reading the complete
+ * log into memory.
+ * 
+ */
+public class XColumnarLogReader {
+
+	/**
+	 * Size of the buffer used for bulk reads.
+	 */
+	private static final int BUFFER_SIZE = 65536;
+
+	private final File directory;
+	private final XFactory factory;
+	private final XAttributeMapPortableSerializerImpl serializer;
+	private final int numberOfTraces;
+	private final int numberOfEvents;
+	private final List<XExtension> extensions;
+	private final List<XEventAttributeClassifier> classifiers;
+	private final XAttributeMap globalTraceAttributes;
+	private final XAttributeMap globalEventAttributes;
+	private final XAttributeMap logAttributes;
+	private final Map<String, ColumnDescriptor> traceColumns;
+	private final Map<String, ColumnDescriptor> eventColumns;
+
+	/**
+	 * Opens a columnar log store, using the current default factory.
+	 * 
+	 * @param directory
+	 *            The store directory.
+	 * @throws IOException
+	 */
+	public XColumnarLogReader(File directory) throws IOException {
+		this(directory, XFactoryRegistry.instance().currentDefault());
+	}
+
+	/**
+	 * Opens a columnar log store.
+	 * 
+	 * @param directory
+	 *            The store directory.
+	 * @param factory
+	 *            The factory used to create log elements and attributes.
+	 * @throws IOException
+	 */
+	public XColumnarLogReader(File directory, XFactory factory)
+			throws IOException {
+		this.directory = directory;
+		this.factory = factory;
+		this.serializer = new XAttributeMapPortableSerializerImpl(factory);
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(new File(directory,
+						XColumnarLogWriter.META_FILE))));
+		try {
+			if (in.readInt() != XColumnarLogWriter.META_MAGIC) {
+				throw new IOException("Not a columnar log store: " + directory);
+			}
+			if (in.readInt() != XColumnarLogWriter.VERSION) {
+				throw new IOException("Unsupported columnar log store version");
+			}
+			numberOfTraces = in.readInt();
+			numberOfEvents = in.readInt();
+			serializer.readExtensionTable(in);
+			int size = in.readInt();
+			extensions = new ArrayList<XExtension>(size);
+			for (int i = 0; i < size; i++) {
+				XExtension extension = resolveExtension(in.readUTF());
+				if (extension != null) {
+					extensions.add(extension);
+				}
+			}
+			size = in.readInt();
+			classifiers = new ArrayList<XEventAttributeClassifier>(size);
+			for (int i = 0; i < size; i++) {
+				String name = in.readUTF();
+				String[] keys = new String[in.readInt()];
+				for (int k = 0; k < keys.length; k++) {
+					keys[k] = in.readUTF();
+				}
+				classifiers.add(new XEventAttributeClassifier(name, keys));
+			}
+			globalTraceAttributes = serializer.deserialize(in);
+			globalEventAttributes = serializer.deserialize(in);
+			logAttributes = serializer.deserialize(in);
+			traceColumns = readColumnDescriptors(in);
+			eventColumns = readColumnDescriptors(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	private Map<String, ColumnDescriptor> readColumnDescriptors(
+			DataInputStream in) throws IOException {
+		int size = in.readInt();
+		Map<String, ColumnDescriptor> columns = new LinkedHashMap<String, ColumnDescriptor>();
+		for (int i = 0; i < size; i++) {
+			String key = in.readUTF();
+			XColumnType type = XColumnType.forCode(in.readByte());
+			String uri = in.readUTF();
+			XExtension extension = uri.length() == 0 ? null
+					: resolveExtension(uri);
+			File file = new File(directory, in.readUTF());
+			columns.put(key, new ColumnDescriptor(key, type, extension, file));
+		}
+		return columns;
+	}
+
+	private XExtension resolveExtension(String uri) {
+		try {
+			return XExtensionManager.instance().getByUri(new URI(uri));
+		} catch (URISyntaxException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * @return The number of traces in the store.
+	 */
+	public int getNumberOfTraces() {
+		return numberOfTraces;
+	}
+
+	/**
+	 * @return The number of events in the store.
+	 */
+	public int getNumberOfEvents() {
+		return numberOfEvents;
+	}
+
+	/**
+	 * @return The keys of all trace attribute columns.
+	 */
+	public Collection<String> getTraceColumnKeys() {
+		return Collections.unmodifiableCollection(traceColumns.keySet());
+	}
+
+	/**
+	 * @return The keys of all event attribute columns.
+	 */
+	public Collection<String> getEventColumnKeys() {
+		return Collections.unmodifiableCollection(eventColumns.keySet());
+	}
+
+	/**
+	 * Returns the type of a trace attribute column.
+	 * 
+	 * @param key
+	 *            The attribute key.
+	 * @return The column type, or <code>null</code> if there is no such
+	 *         column.
+	 */
+	public XColumnType getTraceColumnType(String key) {
+		ColumnDescriptor descriptor = traceColumns.get(key);
+		return descriptor == null ? null : descriptor.type;
+	}
+
+	/**
+	 * Returns the type of an event attribute column.
+	 * 
+	 * @param key
+	 *            The attribute key.
+	 * @return The column type, or <code>null</code> if there is no such
+	 *         column.
+	 */
+	public XColumnType getEventColumnType(String key) {
+		ColumnDescriptor descriptor = eventColumns.get(key);
+		return descriptor == null ? null : descriptor.type;
+	}
+
+	/**
+	 * Reads the trace boundaries of the store. The events of trace
+	 * <code>i</code> are the event rows from <code>offsets[i]</code>
+	 * (inclusive) to <code>offsets[i + 1]</code> (exclusive).
+	 * 
+	 * @return Event row offsets, one per trace plus one.
+	 * @throws IOException
+	 */
+	public int[] readTraceOffsets() throws IOException {
+		FileChannel channel = openChannel(new File(directory,
+				XColumnarLogWriter.TRACE_OFFSETS_FILE));
+		try {
+			int[] offsets = new int[numberOfTraces + 1];
+			readInts(channel, 4, offsets);
+			return offsets;
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Reads the event IDs of the store, as pairs of most and least
+	 * significant bits.
+	 * 
+	 * @return Two values per event row.
+	 * @throws IOException
+	 */
+	public long[] readEventIds() throws IOException {
+		FileChannel channel = openChannel(new File(directory,
+				XColumnarLogWriter.EVENT_IDS_FILE));
+		try {
+			long[] ids = new long[2 * numberOfEvents];
+			readLongs(channel, 4, ids);
+			return ids;
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Reads a trace attribute column.
+	 * 
+	 * @param key
+	 *            The attribute key.
+	 * @return The column, or <code>null</code> if there is no such column.
+	 * @throws IOException
+	 */
+	public XColumn readTraceColumn(String key) throws IOException {
+		ColumnDescriptor descriptor = traceColumns.get(key);
+		return descriptor == null ? null : readColumn(descriptor);
+	}
+
+	/**
+	 * Reads an event attribute column.
+	 * 
+	 * @param key
+	 *            The attribute key.
+	 * @return The column, or <code>null</code> if there is no such column.
+	 * @throws IOException
+	 */
+	public XColumn readEventColumn(String key) throws IOException {
+		ColumnDescriptor descriptor = eventColumns.get(key);
+		return descriptor == null ? null : readColumn(descriptor);
+	}
+
+	/**
+	 * Reads the complete log from the store.
+	 * 
+	 * @return The log.
+	 * @throws IOException
+	 */
+	public XLog readLog() throws IOException {
+		return readLog(null);
+	}
+
+	/**
+	 * Reads a projection of the log from the store. Only the given attribute
+	 * keys are read, for both traces and events. This includes the values of
+	 * these keys kept in the residual columns (e.g., lists, containers, and
+	 * attributes with meta-attributes), for which the residual columns are
+	 * read completely.
+	 * 
+	 * @param keys
+	 *            Keys of the attributes to include, or <code>null</code> to
+	 *            read the complete log.
+	 * @return The log.
+	 * @throws IOException
+	 */
+	public XLog readLog(Collection<String> keys) throws IOException {
+		XLogging.log("start reading columnar log store",
+				XLogging.Importance.DEBUG);
+		long start = System.currentTimeMillis();
+		XLog log = factory.createLog((XAttributeMap) logAttributes.clone());
+		addHeader(log);
+		List<XColumn> traceData = readColumns(traceColumns, keys);
+		List<XColumn> eventData = readColumns(eventColumns, keys);
+		XAttributeMap[] traceResiduals = readResiduals("trace.residual.xco",
+				keys);
+		XAttributeMap[] eventResiduals = readResiduals("event.residual.xco",
+				keys);
+		int[] offsets = readTraceOffsets();
+		long[] ids = readEventIds();
+		for (int t = 0; t < numberOfTraces; t++) {
+			XTrace trace = factory.createTrace(createAttributes(t, traceData,
+					traceResiduals));
+			for (int e = offsets[t]; e < offsets[t + 1]; e++) {
+				XEvent event = factory.createEvent(new XID(ids[2 * e],
+						ids[2 * e + 1]), createAttributes(e, eventData,
+						eventResiduals));
+				trace.add(event);
+			}
+			log.add(trace);
+		}
+		String duration = " (" + (System.currentTimeMillis() - start)
+				+ " msec.)";
+		XLogging.log("finished reading columnar log store" + duration,
+				XLogging.Importance.DEBUG);
+		return log;
+	}
+
+	/**
+	 * Reads the complete log from the store into a columnar in-memory log,
+	 * which keeps the columns as they are stored.
+	 * 
+	 * @return The columnar log.
+	 * @throws IOException
+	 */
+	public XLogColumnarImpl readColumnarLog() throws IOException {
+		return readColumnarLog(null);
+	}
+
+	/**
+	 * Reads a projection of the log from the store into a columnar in-memory
+	 * log. Only the given attribute keys are read, for both traces and
+	 * events, including their values kept in the residual columns (see
+	 * {@link #readLog(Collection)}).
+	 * 
+	 * @param keys
+	 *            Keys of the attributes to include, or <code>null</code> to
+	 *            read the complete log.
+	 * @return The columnar log.
+	 * @throws IOException
+	 */
+	public XLogColumnarImpl readColumnarLog(Collection<String> keys)
+			throws IOException {
+		XLogColumnarImpl log = new XLogColumnarImpl(factory,
+				readTraceOffsets(), readEventIds(), readColumns(traceColumns,
+						keys), readColumns(eventColumns, keys),
+				readResiduals("trace.residual.xco", keys), readResiduals(
+						"event.residual.xco", keys));
+		log.setAttributes((XAttributeMap) logAttributes.clone());
+		addHeader(log);
+		return log;
+	}
+
+	/**
+	 * Adds the extensions, classifiers and global attributes of the store to
+	 * the given log. The global attributes are copied, so that logs read from
+	 * this reader do not share them.
+	 */
+	private void addHeader(XLog log) {
+		log.getExtensions().addAll(extensions);
+		log.getClassifiers().addAll(classifiers);
+		for (XAttribute attribute : globalTraceAttributes.values()) {
+			log.getGlobalTraceAttributes().add((XAttribute) attribute.clone());
+		}
+		for (XAttribute attribute : globalEventAttributes.values()) {
+			log.getGlobalEventAttributes().add((XAttribute) attribute.clone());
+		}
+	}
+
+	/**
+	 * Reads and decodes the given residual column, keeping only the
+	 * attributes with the given keys.
+	 * 
+	 * @param keys
+	 *            Keys of the attributes to keep, or <code>null</code> to keep
+	 *            all attributes.
+	 * @return The residual attributes by row, or <code>null</code> if there
+	 *         are none.
+	 */
+	private XAttributeMap[] readResiduals(String fileName,
+			Collection<String> keys) throws IOException {
+		XColumn residual = readColumn(new ColumnDescriptor(null,
+				XColumnType.BLOB, null, new File(directory, fileName)));
+		XAttributeMap[] residuals = null;
+		for (int row = 0; row < residual.size(); row++) {
+			if (residual.isPresent(row)) {
+				XAttributeMap attributes = serializer
+						.deserialize(new DataInputStream(
+								new ByteArrayInputStream(residual
+										.getBlob(row))));
+				if (keys != null) {
+					attributes.keySet().retainAll(keys);
+				}
+				if (!attributes.isEmpty()) {
+					if (residuals == null) {
+						residuals = new XAttributeMap[residual.size()];
+					}
+					residuals[row] = attributes;
+				}
+			}
+		}
+		return residuals;
+	}
+
+	private List<XColumn> readColumns(Map<String, ColumnDescriptor> columns,
+			Collection<String> keys) throws IOException {
+		List<XColumn> data = new ArrayList<XColumn>();
+		for (ColumnDescriptor descriptor : columns.values()) {
+			if (keys == null || keys.contains(descriptor.key)) {
+				data.add(readColumn(descriptor));
+			}
+		}
+		return data;
+	}
+
+	private XAttributeMap createAttributes(int row, List<XColumn> columns,
+			XAttributeMap[] residuals) {
+		XAttributeMap attributes = factory.createAttributeMap();
+		for (XColumn column : columns) {
+			XAttribute attribute = column.createAttribute(row, factory);
+			if (attribute != null) {
+				attributes.put(attribute.getKey(), attribute);
+			}
+		}
+		if (residuals != null && residuals[row] != null) {
+			attributes.putAll(residuals[row]);
+		}
+		return attributes;
+	}
+
+	/**
+	 * Reads a column file into memory.
+	 */
+	private XColumn readColumn(ColumnDescriptor descriptor) throws IOException {
+		FileChannel channel = openChannel(descriptor.file);
+		try {
+			ByteBuffer header = ByteBuffer
+					.allocate(XColumnarLogWriter.COLUMN_HEADER_SIZE);
+			readFully(channel, 0, header);
+			header.flip();
+			if (header.getInt() != XColumnarLogWriter.COLUMN_MAGIC
+					|| header.get() != descriptor.type.getCode()) {
+				throw new IOException("Corrupt column file: "
+						+ descriptor.file);
+			}
+			int rows = header.getInt();
+			int words = (rows + 63) >>> 6;
+			long position = XColumnarLogWriter.COLUMN_HEADER_SIZE;
+			long[] present = new long[words];
+			long[] longs = null;
+			double[] doubles = null;
+			int[] codes = null;
+			String[] dictionary = null;
+			byte[][] blobs = null;
+			switch (descriptor.type) {
+			case DISCRETE:
+			case TIMESTAMP:
+				longs = new long[rows];
+				position = readLongs(channel, position, longs);
+				readLongs(channel, position, present);
+				break;
+			case ID:
+				longs = new long[2 * rows];
+				position = readLongs(channel, position, longs);
+				readLongs(channel, position, present);
+				break;
+			case BOOLEAN:
+				longs = new long[words];
+				position = readLongs(channel, position, longs);
+				readLongs(channel, position, present);
+				break;
+			case CONTINUOUS:
+				doubles = new double[rows];
+				position = readDoubles(channel, position, doubles);
+				readLongs(channel, position, present);
+				break;
+			case LITERAL:
+				codes = new int[rows];
+				position = readInts(channel, position, codes);
+				position = readLongs(channel, position, present);
+				dictionary = readDictionary(channel, position);
+				break;
+			case BLOB:
+				long[] offsets = new long[rows + 1];
+				long offsetsPosition = channel.size() - 8L * offsets.length;
+				readLongs(channel, offsetsPosition, offsets);
+				readLongs(channel, offsetsPosition - 8L * words, present);
+				blobs = new byte[rows][];
+				for (int i = 0; i < rows; i++) {
+					if ((present[i >>> 6] & (1L << i)) != 0) {
+						ByteBuffer blob = ByteBuffer
+								.allocate((int) (offsets[i + 1] - offsets[i]));
+						readFully(channel, position + offsets[i], blob);
+						blobs[i] = blob.array();
+					}
+				}
+				break;
+			}
+			return new XColumn(descriptor.key, descriptor.type,
+					descriptor.extension, rows, present, longs, doubles,
+					codes, dictionary, blobs);
+		} finally {
+			channel.close();
+		}
+	}
+
+	private String[] readDictionary(FileChannel channel, long position)
+			throws IOException {
+		channel.position(position);
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				Channels.newInputStream(channel), BUFFER_SIZE));
+		String[] dictionary = new String[in.readInt()];
+		for (int i = 0; i < dictionary.length; i++) {
+			byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+		return dictionary;
+	}
+
+	private static FileChannel openChannel(File file) throws IOException {
+		return new RandomAccessFile(file, "r").getChannel();
+	}
+
+	private static void readFully(FileChannel channel, long position,
+			ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				throw new EOFException();
+			}
+			position += read;
+		}
+	}
+
+	/**
+	 * Bulk-reads <code>long</code> values starting at the given position,
+	 * returns the position following the values read.
+	 */
+	private static long readLongs(FileChannel channel, long position,
+			long[] target) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		int offset = 0;
+		while (offset < target.length) {
+			int count = Math.min(target.length - offset, BUFFER_SIZE / 8);
+			buffer.clear();
+			buffer.limit(count * 8);
+			readFully(channel, position, buffer);
+			buffer.flip();
+			buffer.asLongBuffer().get(target, offset, count);
+			offset += count;
+			position += count * 8L;
+		}
+		return position;
+	}
+
+	/**
+	 * Bulk-reads <code>double</code> values starting at the given position,
+	 * returns the position following the values read.
+	 */
+	private static long readDoubles(FileChannel channel, long position,
+			double[] target) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		int offset = 0;
+		while (offset < target.length) {
+			int count = Math.min(target.length - offset, BUFFER_SIZE / 8);
+			buffer.clear();
+			buffer.limit(count * 8);
+			readFully(channel, position, buffer);
+			buffer.flip();
+			buffer.asDoubleBuffer().get(target, offset, count);
+			offset += count;
+			position += count * 8L;
+		}
+		return position;
+	}
+
+	/**
+	 * Bulk-reads <code>int</code> values starting at the given position,
+	 * returns the position following the values read.
+	 */
+	private static long readInts(FileChannel channel, long position,
+			int[] target) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		int offset = 0;
+		while (offset < target.length) {
+			int count = Math.min(target.length - offset, BUFFER_SIZE / 4);
+			buffer.clear();
+			buffer.limit(count * 4);
+			readFully(channel, position, buffer);
+			buffer.flip();
+			buffer.asIntBuffer().get(target, offset, count);
+			offset += count;
+			position += count * 4L;
+		}
+		return position;
+	}
+
+	/**
+	 * Descriptor of a column stored in the log store.
+	 */
+	private static class ColumnDescriptor {
+
+		private final String key;
+		private final XColumnType type;
+		private final XExtension extension;
+		private final File file;
+
+		private ColumnDescriptor(String key, XColumnType type,
+				XExtension extension, File file) {
+			this.key = key;
+			this.type = type;
+			this.extension = extension;
+			this.file = file;
+		}
+	}
+
+}
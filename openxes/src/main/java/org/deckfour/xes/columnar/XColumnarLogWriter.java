@@ -0,0 +1,474 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.columnar;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.deckfour.xes.classification.XEventAttributeClassifier;
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.id.XID;
+import org.deckfour.xes.info.XAttributeInfo;
+import org.deckfour.xes.info.XLogInfo;
+import org.deckfour.xes.info.XLogInfoFactory;
+import org.deckfour.xes.logging.XLogging;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeBoolean;
+import org.deckfour.xes.model.XAttributeContinuous;
+import org.deckfour.xes.model.XAttributeDiscrete;
+import org.deckfour.xes.model.XAttributeID;
+import org.deckfour.xes.model.XAttributeLiteral;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XAttributeTimestamp;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.buffered.XAttributeMapPortableSerializerImpl;
+
+/**
+ * Writes logs to a columnar log store.
+ * 
+ * A columnar log store is a directory, containing one file per attribute key
+ * (separately for trace and event attributes), a file with the trace
+ * boundaries (as offsets into the event rows), a file with the event IDs,
+ * and a metadata file containing the log header (extensions, classifiers,
+ * global and log attributes) and the column descriptors.
+ * 
+ * The type of each column is inferred from the attribute info of the log. All
+ * attributes which cannot be stored in their typed column (lists, containers,
+ * attributes with nested meta-attributes, and values not matching the column
+ * type) are kept in an additional binary residual column, so that the store
+ * represents the complete log.
+ * 
+ * @see XColumnarLogReader
+ */
+public class XColumnarLogWriter {
+
+	/**
+	 * Name of the metadata file.
+	 */
+	public static final String META_FILE = "log.xcm";
+	/**
+	 * Name of the file containing the trace boundaries.
+	 */
+	public static final String TRACE_OFFSETS_FILE = "traces.xco";
+	/**
+	 * Name of the file containing the event IDs.
+	 */
+	public static final String EVENT_IDS_FILE = "events.xco";
+
+	static final int META_MAGIC = 0x58434F4C;
+	static final int COLUMN_MAGIC = 0x58434F43;
+	static final int VERSION = 1;
+	/**
+	 * Size of the column file header, in bytes.
+	 */
+	static final int COLUMN_HEADER_SIZE = 9;
+
+	/**
+	 * Writes the given log to a columnar log store. The store directory is
+	 * created if necessary, existing store files are overwritten.
+	 * 
+	 * @param log
+	 *            The log to write.
+	 * @param directory
+	 *            The store directory.
+	 * @throws IOException
+	 */
+	public void write(XLog log, File directory) throws IOException {
+		XLogging.log("start writing columnar log store",
+				XLogging.Importance.DEBUG);
+		long start = System.currentTimeMillis();
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Cannot create store directory: "
+					+ directory);
+		}
+		XLogInfo info = XLogInfoFactory.createLogInfo(log);
+		int numberOfTraces = log.size();
+		int numberOfEvents = info.getNumberOfEvents();
+		XAttributeMapPortableSerializerImpl serializer = new XAttributeMapPortableSerializerImpl(
+				XFactoryRegistry.instance().currentDefault());
+		Map<String, ColumnWriter> traceColumns = createColumns(
+				info.getTraceAttributeInfo(), directory, "trace",
+				numberOfTraces);
+		Map<String, ColumnWriter> eventColumns = createColumns(
+				info.getEventAttributeInfo(), directory, "event",
+				numberOfEvents);
+		ColumnWriter traceResidual = new ColumnWriter(null, XColumnType.BLOB,
+				null, new File(directory, "trace.residual.xco"),
+				numberOfTraces);
+		ColumnWriter eventResidual = new ColumnWriter(null, XColumnType.BLOB,
+				null, new File(directory, "event.residual.xco"),
+				numberOfEvents);
+		DataOutputStream offsets = openStream(new File(directory,
+				TRACE_OFFSETS_FILE));
+		DataOutputStream ids = openStream(new File(directory, EVENT_IDS_FILE));
+		try {
+			offsets.writeInt(numberOfTraces);
+			ids.writeInt(numberOfEvents);
+			int eventIndex = 0;
+			for (XTrace trace : log) {
+				offsets.writeInt(eventIndex);
+				writeRow(trace.getAttributes(), traceColumns, traceResidual,
+						serializer);
+				for (XEvent event : trace) {
+					XID.write(event.getID(), ids);
+					writeRow(event.getAttributes(), eventColumns,
+							eventResidual, serializer);
+					eventIndex++;
+				}
+			}
+			offsets.writeInt(eventIndex);
+		} finally {
+			offsets.close();
+			ids.close();
+			for (ColumnWriter column : traceColumns.values()) {
+				column.close();
+			}
+			for (ColumnWriter column : eventColumns.values()) {
+				column.close();
+			}
+			traceResidual.close();
+			eventResidual.close();
+		}
+		writeMeta(log, directory, numberOfTraces, numberOfEvents,
+				traceColumns.values(), eventColumns.values(), serializer);
+		String duration = " (" + (System.currentTimeMillis() - start)
+				+ " msec.)";
+		XLogging.log("finished writing columnar log store" + duration,
+				XLogging.Importance.DEBUG);
+	}
+
+	/**
+	 * Creates the column writers for all keys registered in the given
+	 * attribute info, ordered by key.
+	 */
+	private Map<String, ColumnWriter> createColumns(XAttributeInfo info,
+			File directory, String level, int rows) throws IOException {
+		Map<String, XAttribute> prototypes = new TreeMap<String, XAttribute>();
+		for (XAttribute prototype : info.getAttributes()) {
+			if (XColumnType.forAttribute(prototype) != null) {
+				prototypes.put(prototype.getKey(), prototype);
+			}
+		}
+		Map<String, ColumnWriter> columns = new LinkedHashMap<String, ColumnWriter>();
+		int index = 0;
+		for (XAttribute prototype : prototypes.values()) {
+			File file = new File(directory, level + "." + index + ".xco");
+			columns.put(prototype.getKey(), new ColumnWriter(
+					prototype.getKey(), XColumnType.forAttribute(prototype),
+					prototype.getExtension(), file, rows));
+			index++;
+		}
+		return columns;
+	}
+
+	/**
+	 * Writes one row, i.e. the attributes of one trace or event, to the
+	 * given columns.
+	 */
+	private void writeRow(XAttributeMap attributes,
+			Map<String, ColumnWriter> columns, ColumnWriter residual,
+			XAttributeMapPortableSerializerImpl serializer) throws IOException {
+		List<XAttribute> residuals = null;
+		for (XAttribute attribute : attributes.values()) {
+			ColumnWriter column = columns.get(attribute.getKey());
+			if (column == null || !column.offer(attribute)) {
+				if (residuals == null) {
+					residuals = new ArrayList<XAttribute>();
+				}
+				residuals.add(attribute);
+			}
+		}
+		for (ColumnWriter column : columns.values()) {
+			column.endRow();
+		}
+		if (residuals != null) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			serializer.serialize(residuals, out);
+			out.flush();
+			residual.offerBlob(bytes.toByteArray());
+		}
+		residual.endRow();
+	}
+
+	/**
+	 * Writes the metadata file.
+	 */
+	private void writeMeta(XLog log, File directory, int numberOfTraces,
+			int numberOfEvents, Collection<ColumnWriter> traceColumns,
+			Collection<ColumnWriter> eventColumns,
+			XAttributeMapPortableSerializerImpl serializer) throws IOException {
+		DataOutputStream out = openStream(new File(directory, META_FILE));
+		try {
+			out.writeInt(META_MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(numberOfTraces);
+			out.writeInt(numberOfEvents);
+			serializer.writeExtensionTable(out);
+			out.writeInt(log.getExtensions().size());
+			for (XExtension extension : log.getExtensions()) {
+				out.writeUTF(extension.getUri().toString());
+			}
+			List<XEventAttributeClassifier> classifiers = new ArrayList<XEventAttributeClassifier>();
+			for (XEventClassifier classifier : log.getClassifiers()) {
+				if (classifier instanceof XEventAttributeClassifier) {
+					classifiers.add((XEventAttributeClassifier) classifier);
+				}
+			}
+			out.writeInt(classifiers.size());
+			for (XEventAttributeClassifier classifier : classifiers) {
+				out.writeUTF(classifier.name());
+				String[] keys = classifier.getDefiningAttributeKeys();
+				out.writeInt(keys.length);
+				for (String key : keys) {
+					out.writeUTF(key);
+				}
+			}
+			serializer.serialize(log.getGlobalTraceAttributes(), out);
+			serializer.serialize(log.getGlobalEventAttributes(), out);
+			serializer.serialize(log.getAttributes(), out);
+			writeColumnDescriptors(traceColumns, out);
+			writeColumnDescriptors(eventColumns, out);
+		} finally {
+			out.close();
+		}
+	}
+
+	private void writeColumnDescriptors(Collection<ColumnWriter> columns,
+			DataOutputStream out) throws IOException {
+		out.writeInt(columns.size());
+		for (ColumnWriter column : columns) {
+			out.writeUTF(column.key);
+			out.writeByte(column.type.getCode());
+			out.writeUTF(column.extension == null ? "" : column.extension
+					.getUri().toString());
+			out.writeUTF(column.file.getName());
+		}
+	}
+
+	private static DataOutputStream openStream(File file) throws IOException {
+		return new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file), 65536));
+	}
+
+	/**
+	 * Streaming writer for a single column file. Values are written as rows
+	 * are completed, the presence bitmap is buffered in a temporary file and
+	 * appended on close, followed by the dictionary (for literal columns) or
+	 * the record offsets (for blob columns).
+	 */
+	private static class ColumnWriter {
+
+		private final String key;
+		private final XColumnType type;
+		private final XExtension extension;
+		private final File file;
+		private final File presentFile;
+		private final File offsetsFile;
+		private final DataOutputStream values;
+		private final DataOutputStream present;
+		private DataOutputStream offsets;
+		private Map<String, Integer> dictionary;
+		private XAttribute pending;
+		private byte[] pendingBlob;
+		private long presentWord;
+		private long booleanWord;
+		private long blobOffset;
+		private int row;
+
+		private ColumnWriter(String key, XColumnType type,
+				XExtension extension, File file, int rows) throws IOException {
+			this.key = key;
+			this.type = type;
+			this.extension = extension;
+			this.file = file;
+			this.presentFile = new File(file.getPath() + ".present");
+			this.offsetsFile = new File(file.getPath() + ".offsets");
+			this.values = openStream(file);
+			this.present = openStream(presentFile);
+			this.values.writeInt(COLUMN_MAGIC);
+			this.values.writeByte(type.getCode());
+			this.values.writeInt(rows);
+			if (type == XColumnType.LITERAL) {
+				dictionary = new HashMap<String, Integer>();
+			} else if (type == XColumnType.BLOB) {
+				offsets = openStream(offsetsFile);
+				offsets.writeLong(0);
+			}
+			row = 0;
+		}
+
+		private boolean offer(XAttribute attribute) {
+			if (type.accepts(attribute)) {
+				pending = attribute;
+				return true;
+			} else {
+				return false;
+			}
+		}
+
+		private void offerBlob(byte[] blob) {
+			pendingBlob = blob;
+		}
+
+		private void endRow() throws IOException {
+			boolean isPresent = pending != null || pendingBlob != null;
+			switch (type) {
+			case DISCRETE:
+				values.writeLong(isPresent ? ((XAttributeDiscrete) pending)
+						.getValue() : 0L);
+				break;
+			case TIMESTAMP:
+				values.writeLong(isPresent ? ((XAttributeTimestamp) pending)
+						.getValueMillis() : 0L);
+				break;
+			case CONTINUOUS:
+				values.writeDouble(isPresent ? ((XAttributeContinuous) pending)
+						.getValue() : 0.0);
+				break;
+			case BOOLEAN:
+				if (isPresent && ((XAttributeBoolean) pending).getValue()) {
+					booleanWord |= 1L << row;
+				}
+				if ((row & 63) == 63) {
+					values.writeLong(booleanWord);
+					booleanWord = 0L;
+				}
+				break;
+			case LITERAL:
+				int code = 0;
+				if (isPresent) {
+					String value = ((XAttributeLiteral) pending).getValue();
+					Integer existing = dictionary.get(value);
+					if (existing == null) {
+						existing = dictionary.size();
+						dictionary.put(value, existing);
+					}
+					code = existing;
+				}
+				values.writeInt(code);
+				break;
+			case ID:
+				XID.write(isPresent ? ((XAttributeID) pending).getValue()
+						: new XID(0L, 0L), values);
+				break;
+			case BLOB:
+				if (isPresent) {
+					values.write(pendingBlob);
+					blobOffset += pendingBlob.length;
+				}
+				offsets.writeLong(blobOffset);
+				break;
+			}
+			if (isPresent) {
+				presentWord |= 1L << row;
+			}
+			if ((row & 63) == 63) {
+				present.writeLong(presentWord);
+				presentWord = 0L;
+			}
+			pending = null;
+			pendingBlob = null;
+			row++;
+		}
+
+		private void close() throws IOException {
+			if ((row & 63) != 0) {
+				// flush partially filled words
+				present.writeLong(presentWord);
+				if (type == XColumnType.BOOLEAN) {
+					values.writeLong(booleanWord);
+				}
+			}
+			present.close();
+			append(presentFile);
+			if (type == XColumnType.LITERAL) {
+				String[] entries = new String[dictionary.size()];
+				for (Map.Entry<String, Integer> entry : dictionary.entrySet()) {
+					entries[entry.getValue()] = entry.getKey();
+				}
+				values.writeInt(entries.length);
+				for (String entry : entries) {
+					byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+					values.writeInt(bytes.length);
+					values.write(bytes);
+				}
+			} else if (type == XColumnType.BLOB) {
+				offsets.close();
+				append(offsetsFile);
+			}
+			values.close();
+		}
+
+		private void append(File source) throws IOException {
+			InputStream in = new BufferedInputStream(new FileInputStream(
+					source));
+			try {
+				byte[] buffer = new byte[65536];
+				int read;
+				while ((read = in.read(buffer)) >= 0) {
+					values.write(buffer, 0, read);
+				}
+			} finally {
+				in.close();
+			}
+			source.delete();
+		}
+	}
+
+}
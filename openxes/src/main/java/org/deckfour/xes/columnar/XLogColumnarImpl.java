@@ -0,0 +1,733 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.columnar;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.id.XID;
+import org.deckfour.xes.info.XLogInfo;
+import org.deckfour.xes.logging.XLogging;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeBoolean;
+import org.deckfour.xes.model.XAttributeContinuous;
+import org.deckfour.xes.model.XAttributeDiscrete;
+import org.deckfour.xes.model.XAttributeID;
+import org.deckfour.xes.model.XAttributeLiteral;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XAttributeTimestamp;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.XVisitor;
+
+/**
+ * In-memory log implementation which stores the attributes of traces and
+ * events column-wise, in the primitive arrays of {@link XColumn}s: one
+ * column per attribute key, with timestamps and discrete values as
+ * <code>long</code>s, continuous values as <code>double</code>s, and
+ * literals as dictionary codes. Events are rows of the event columns, and
+ * traces are ranges of event rows, given by the trace offsets.
+ * 
+ * Traces and events are lightweight views, which only create attributes on
+ * demand. Analyses can scan the columns directly, e.g.:
+ * 
+ * <pre>
+ * XColumn time = log.getEventColumn(&quot;time:timestamp&quot;);
+ * int[] offsets = log.getTraceOffsets();
+ * for (int t = 0; t &lt; log.size(); t++) {
+ * 	for (int e = offsets[t]; e &lt; offsets[t + 1]; e++) {
+ * 		long millis = time.getLong(e);
+ * 		...
+ * 	}
+ * }
+ * </pre>
+ * 
+ * The type of each column is determined by the first attribute with its
+ * key. Attributes which cannot be stored in their column (lists, containers,
+ * attributes with meta-attributes, and values of another type) are kept in
+ * residual attribute maps, so that the log represents the complete source
+ * log. A columnar copy of a log also records the key order of each trace and
+ * event, so that their attributes are iterated in the order of the source
+ * log; logs read from a columnar store order their attributes by column,
+ * followed by the residual attributes.
+ * 
+ * Like mapped logs, the traces and events of a columnar log are read-only;
+ * any attempt to modify them, or their attribute maps, throws an
+ * <code>UnsupportedOperationException</code>. The attribute maps decode
+ * single attributes on lookup. The log header (attributes, extensions, classifiers,
+ * global attributes) can be modified. Cloning a columnar log (or one of its
+ * traces or events) yields a modifiable in-memory copy, created with the
+ * factory of the log.
+ * 
+ * @see XColumnarLogReader#readColumnarLog()
+ */
+public class XLogColumnarImpl extends AbstractList<XTrace> implements XLog {
+
+	private final XFactory factory;
+	private final int[] offsets;
+	private final long[] ids;
+	private final Map<String, XColumn> traceColumns;
+	private final Map<String, XColumn> eventColumns;
+	private final XColumn[] traceColumnArray;
+	private final XColumn[] eventColumnArray;
+	private final XAttributeMap[] traceResiduals;
+	private final XAttributeMap[] eventResiduals;
+	/**
+	 * Keys of each trace and event in their source order, shared by rows
+	 * with the same order, or <code>null</code> if the order is not known.
+	 */
+	private final String[][] traceLayouts;
+	private final String[][] eventLayouts;
+	private XAttributeMap attributes;
+	private final Set<XExtension> extensions;
+	private final List<XEventClassifier> classifiers;
+	private final List<XAttribute> globalTraceAttributes;
+	private final List<XAttribute> globalEventAttributes;
+	private XEventClassifier cachedClassifier;
+	private XLogInfo cachedInfo;
+
+	/**
+	 * Creates a columnar copy of the given log, using the currently-set
+	 * standard factory for creating attributes on demand.
+	 * 
+	 * @param log
+	 *            The log to copy.
+	 */
+	public XLogColumnarImpl(XLog log) {
+		this(log, XFactoryRegistry.instance().currentDefault());
+	}
+
+	/**
+	 * Creates a columnar copy of the given log.
+	 * 
+	 * @param log
+	 *            The log to copy.
+	 * @param factory
+	 *            Factory used for creating attributes on demand, and for
+	 *            creating in-memory copies.
+	 */
+	public XLogColumnarImpl(XLog log, XFactory factory) {
+		XLogging.log("start building columnar log", XLogging.Importance.DEBUG);
+		long start = System.currentTimeMillis();
+		this.factory = factory;
+		int numberOfTraces = log.size();
+		int numberOfEvents = 0;
+		for (XTrace trace : log) {
+			numberOfEvents += trace.size();
+		}
+		this.offsets = new int[numberOfTraces + 1];
+		this.ids = new long[2 * numberOfEvents];
+		Map<String, ColumnBuilder> traceBuilders = new LinkedHashMap<String, ColumnBuilder>();
+		Map<String, ColumnBuilder> eventBuilders = new LinkedHashMap<String, ColumnBuilder>();
+		XAttributeMap[] traceResiduals = new XAttributeMap[numberOfTraces];
+		XAttributeMap[] eventResiduals = new XAttributeMap[numberOfEvents];
+		this.traceLayouts = new String[numberOfTraces][];
+		this.eventLayouts = new String[numberOfEvents][];
+		Map<List<String>, String[]> layouts = new HashMap<List<String>, String[]>();
+		int t = 0;
+		int e = 0;
+		for (XTrace trace : log) {
+			offsets[t] = e;
+			traceResiduals[t] = addRow(t, trace.getAttributes(),
+					traceBuilders, numberOfTraces);
+			traceLayouts[t] = layout(trace.getAttributes(), layouts);
+			for (XEvent event : trace) {
+				XID id = event.getID();
+				ids[2 * e] = id.getMostSignificantBits();
+				ids[2 * e + 1] = id.getLeastSignificantBits();
+				eventResiduals[e] = addRow(e, event.getAttributes(),
+						eventBuilders, numberOfEvents);
+				eventLayouts[e] = layout(event.getAttributes(), layouts);
+				e++;
+			}
+			t++;
+		}
+		offsets[t] = e;
+		this.traceColumns = build(traceBuilders);
+		this.eventColumns = build(eventBuilders);
+		this.traceColumnArray = traceColumns.values().toArray(
+				new XColumn[traceColumns.size()]);
+		this.eventColumnArray = eventColumns.values().toArray(
+				new XColumn[eventColumns.size()]);
+		this.traceResiduals = trim(traceResiduals);
+		this.eventResiduals = trim(eventResiduals);
+		this.attributes = (XAttributeMap) log.getAttributes().clone();
+		this.extensions = new HashSet<XExtension>(log.getExtensions());
+		this.classifiers = new ArrayList<XEventClassifier>(
+				log.getClassifiers());
+		this.globalTraceAttributes = new ArrayList<XAttribute>(
+				log.getGlobalTraceAttributes());
+		this.globalEventAttributes = new ArrayList<XAttribute>(
+				log.getGlobalEventAttributes());
+		String duration = " (" + (System.currentTimeMillis() - start)
+				+ " msec.)";
+		XLogging.log("finished building columnar log" + duration,
+				XLogging.Importance.DEBUG);
+	}
+
+	/**
+	 * Creates a columnar log from the given columns. The log header is
+	 * empty.
+	 * 
+	 * @param factory
+	 *            Factory used for creating attributes on demand.
+	 * @param offsets
+	 *            The first event row of each trace, followed by the number
+	 *            of events.
+	 * @param ids
+	 *            Most and least significant bits of each event ID.
+	 * @param traceColumns
+	 *            Columns of the trace attributes.
+	 * @param eventColumns
+	 *            Columns of the event attributes.
+	 * @param traceResiduals
+	 *            Residual trace attributes by trace, may be
+	 *            <code>null</code>.
+	 * @param eventResiduals
+	 *            Residual event attributes by event row, may be
+	 *            <code>null</code>.
+	 */
+	XLogColumnarImpl(XFactory factory, int[] offsets, long[] ids,
+			List<XColumn> traceColumns, List<XColumn> eventColumns,
+			XAttributeMap[] traceResiduals, XAttributeMap[] eventResiduals) {
+		this.factory = factory;
+		this.offsets = offsets;
+		this.ids = ids;
+		this.traceColumns = index(traceColumns);
+		this.eventColumns = index(eventColumns);
+		this.traceColumnArray = traceColumns.toArray(new XColumn[traceColumns
+				.size()]);
+		this.eventColumnArray = eventColumns.toArray(new XColumn[eventColumns
+				.size()]);
+		this.traceResiduals = traceResiduals;
+		this.eventResiduals = eventResiduals;
+		this.traceLayouts = null;
+		this.eventLayouts = null;
+		this.attributes = factory.createAttributeMap();
+		this.extensions = new HashSet<XExtension>();
+		this.classifiers = new ArrayList<XEventClassifier>();
+		this.globalTraceAttributes = new ArrayList<XAttribute>();
+		this.globalEventAttributes = new ArrayList<XAttribute>();
+	}
+
+	/**
+	 * @return The factory used for creating attributes on demand.
+	 */
+	public XFactory getFactory() {
+		return factory;
+	}
+
+	/**
+	 * @return The total number of events in this log.
+	 */
+	public int getNumberOfEvents() {
+		return ids.length / 2;
+	}
+
+	/**
+	 * Returns the trace offsets, i.e., the first event row of each trace,
+	 * followed by the number of events. The events of trace <code>t</code>
+	 * are the rows from <code>offsets[t]</code> (inclusive) to
+	 * <code>offsets[t + 1]</code> (exclusive). The returned array must not
+	 * be modified.
+	 * 
+	 * @return The trace offsets.
+	 */
+	public int[] getTraceOffsets() {
+		return offsets;
+	}
+
+	/**
+	 * @return The keys of the trace attribute columns.
+	 */
+	public Collection<String> getTraceColumnKeys() {
+		return Collections.unmodifiableSet(traceColumns.keySet());
+	}
+
+	/**
+	 * @return The keys of the event attribute columns.
+	 */
+	public Collection<String> getEventColumnKeys() {
+		return Collections.unmodifiableSet(eventColumns.keySet());
+	}
+
+	/**
+	 * Returns the column of the given trace attribute, with one row per
+	 * trace.
+	 * 
+	 * @param key
+	 *            The attribute key.
+	 * @return The column, or <code>null</code> if there is none.
+	 */
+	public XColumn getTraceColumn(String key) {
+		return traceColumns.get(key);
+	}
+
+	/**
+	 * Returns the column of the given event attribute, with one row per
+	 * event.
+	 * 
+	 * @param key
+	 *            The attribute key.
+	 * @return The column, or <code>null</code> if there is none.
+	 */
+	public XColumn getEventColumn(String key) {
+		return eventColumns.get(key);
+	}
+
+	/**
+	 * Returns the ID of the event in the given row.
+	 * 
+	 * @param row
+	 *            The event row.
+	 * @return The event ID.
+	 */
+	public XID getEventID(int row) {
+		return new XID(ids[2 * row], ids[2 * row + 1]);
+	}
+
+	/**
+	 * Returns a read-only view on the attributes of the given trace.
+	 * 
+	 * @param index
+	 *            The trace index.
+	 * @return A view on the trace attributes, whose clone is a modifiable
+	 *         copy.
+	 */
+	public XAttributeMap getTraceAttributes(int index) {
+		return new XAttributeMapColumnarImpl(factory, traceColumns,
+				traceColumnArray, traceResiduals == null ? null
+						: traceResiduals[index], traceLayouts == null ? null
+						: traceLayouts[index], index);
+	}
+
+	/**
+	 * Returns a read-only view on the attributes of the event in the given
+	 * row.
+	 * 
+	 * @param row
+	 *            The event row.
+	 * @return A view on the event attributes, whose clone is a modifiable
+	 *         copy.
+	 */
+	public XAttributeMap getEventAttributes(int row) {
+		return new XAttributeMapColumnarImpl(factory, eventColumns,
+				eventColumnArray, eventResiduals == null ? null
+						: eventResiduals[row], eventLayouts == null ? null
+						: eventLayouts[row], row);
+	}
+
+	/**
+	 * Checks whether the given trace has any attributes.
+	 */
+	boolean hasTraceAttributes(int index) {
+		return hasAttributes(index, traceColumnArray, traceResiduals);
+	}
+
+	/**
+	 * Checks whether the event in the given row has any attributes.
+	 */
+	boolean hasEventAttributes(int row) {
+		return hasAttributes(row, eventColumnArray, eventResiduals);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#get(int)
+	 */
+	public XTrace get(int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+					+ size());
+		}
+		return new XTraceColumnarImpl(this, index);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractCollection#size()
+	 */
+	public int size() {
+		return offsets.length - 1;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XAttributable#getAttributes()
+	 */
+	public XAttributeMap getAttributes() {
+		return attributes;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.deckfour.xes.model.XAttributable#setAttributes(org.deckfour.xes.model
+	 * .XAttributeMap)
+	 */
+	public void setAttributes(XAttributeMap attributes) {
+		this.attributes = attributes;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XAttributable#hasAttributes()
+	 */
+	public boolean hasAttributes() {
+		return !attributes.isEmpty();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XAttributable#getExtensions()
+	 */
+	public Set<XExtension> getExtensions() {
+		return extensions;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XLog#getClassifiers()
+	 */
+	public List<XEventClassifier> getClassifiers() {
+		return classifiers;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XLog#getGlobalTraceAttributes()
+	 */
+	public List<XAttribute> getGlobalTraceAttributes() {
+		return globalTraceAttributes;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XLog#getGlobalEventAttributes()
+	 */
+	public List<XAttribute> getGlobalEventAttributes() {
+		return globalEventAttributes;
+	}
+
+	/**
+	 * Creates an in-memory copy of this log, using the factory of this log.
+	 * 
+	 * @see java.lang.Object#clone()
+	 */
+	public Object clone() {
+		XLog clone = factory.createLog((XAttributeMap) attributes.clone());
+		clone.getExtensions().addAll(extensions);
+		clone.getClassifiers().addAll(classifiers);
+		clone.getGlobalTraceAttributes().addAll(globalTraceAttributes);
+		clone.getGlobalEventAttributes().addAll(globalEventAttributes);
+		for (XTrace trace : this) {
+			clone.add((XTrace) trace.clone());
+		}
+		return clone;
+	}
+
+	/*
+	 * Runs the given visitor on this log.
+	 * 
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XLog#accept(org.deckfour.xes.model.XVisitor)
+	 */
+	public boolean accept(XVisitor visitor) {
+		if (visitor.precondition()) {
+			visitor.init(this);
+			visitor.visitLogPre(this);
+			for (XExtension extension : extensions) {
+				extension.accept(visitor, this);
+			}
+			for (XEventClassifier classifier : classifiers) {
+				classifier.accept(visitor, this);
+			}
+			for (XAttribute attribute : attributes.values()) {
+				attribute.accept(visitor, this);
+			}
+			for (XTrace trace : this) {
+				trace.accept(visitor, this);
+			}
+			visitor.visitLogPost(this);
+			return true;
+		}
+		return false;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.deckfour.xes.model.XLog#getInfo(org.deckfour.xes.classification.
+	 * XEventClassifier)
+	 */
+	public XLogInfo getInfo(XEventClassifier classifier) {
+		return classifier.equals(cachedClassifier) ? cachedInfo : null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.deckfour.xes.model.XLog#setInfo(org.deckfour.xes.classification.
+	 * XEventClassifier, org.deckfour.xes.info.XLogInfo)
+	 */
+	public void setInfo(XEventClassifier classifier, XLogInfo info) {
+		cachedClassifier = classifier;
+		cachedInfo = info;
+	}
+
+	private static boolean hasAttributes(int row, XColumn[] columns,
+			XAttributeMap[] residuals) {
+		for (XColumn column : columns) {
+			if (column.isPresent(row)) {
+				return true;
+			}
+		}
+		return residuals != null && residuals[row] != null;
+	}
+
+	/**
+	 * Adds the given attributes as a row to the given columns, creating new
+	 * columns as needed.
+	 * 
+	 * @return The residual attributes, or <code>null</code> if there are
+	 *         none.
+	 */
+	private XAttributeMap addRow(int row, XAttributeMap attributes,
+			Map<String, ColumnBuilder> builders, int rows) {
+		XAttributeMap residual = null;
+		for (XAttribute attribute : attributes.values()) {
+			ColumnBuilder builder = builders.get(attribute.getKey());
+			if (builder == null) {
+				XColumnType type = XColumnType.forAttribute(attribute);
+				if (type != null && type.accepts(attribute)) {
+					builder = new ColumnBuilder(attribute.getKey(), type,
+							attribute.getExtension(), rows);
+					builders.put(attribute.getKey(), builder);
+				}
+			}
+			if (builder == null || !builder.set(row, attribute)) {
+				if (residual == null) {
+					residual = factory.createAttributeMap();
+				}
+				residual.put(attribute.getKey(),
+						(XAttribute) attribute.clone());
+			}
+		}
+		return residual;
+	}
+
+	/**
+	 * Returns the keys of the given attributes in their order, shared with
+	 * earlier rows having the same order.
+	 */
+	private static String[] layout(XAttributeMap attributes,
+			Map<List<String>, String[]> layouts) {
+		String[] keys = attributes.keySet().toArray(
+				new String[attributes.size()]);
+		List<String> order = Arrays.asList(keys);
+		String[] layout = layouts.get(order);
+		if (layout == null) {
+			layouts.put(order, keys);
+			layout = keys;
+		}
+		return layout;
+	}
+
+	private static Map<String, XColumn> build(
+			Map<String, ColumnBuilder> builders) {
+		List<XColumn> columns = new ArrayList<XColumn>(builders.size());
+		for (ColumnBuilder builder : builders.values()) {
+			columns.add(builder.build());
+		}
+		return index(columns);
+	}
+
+	private static Map<String, XColumn> index(List<XColumn> columns) {
+		Map<String, XColumn> index = new LinkedHashMap<String, XColumn>();
+		for (XColumn column : columns) {
+			index.put(column.getKey(), column);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the given residuals, or <code>null</code> if there are none.
+	 */
+	private static XAttributeMap[] trim(XAttributeMap[] residuals) {
+		for (XAttributeMap residual : residuals) {
+			if (residual != null) {
+				return residuals;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Collects the values of one column in primitive arrays sized for all
+	 * rows.
+	 */
+	private static class ColumnBuilder {
+
+		private final String key;
+		private final XColumnType type;
+		private final XExtension extension;
+		private final int rows;
+		private final long[] present;
+		private long[] longs;
+		private double[] doubles;
+		private int[] codes;
+		private Map<String, Integer> dictionary;
+		private List<String> entries;
+
+		private ColumnBuilder(String key, XColumnType type,
+				XExtension extension, int rows) {
+			this.key = key;
+			this.type = type;
+			this.extension = extension;
+			this.rows = rows;
+			this.present = new long[(rows + 63) >>> 6];
+			switch (type) {
+			case DISCRETE:
+			case TIMESTAMP:
+				longs = new long[rows];
+				break;
+			case CONTINUOUS:
+				doubles = new double[rows];
+				break;
+			case BOOLEAN:
+				longs = new long[(rows + 63) >>> 6];
+				break;
+			case LITERAL:
+				codes = new int[rows];
+				dictionary = new HashMap<String, Integer>();
+				entries = new ArrayList<String>();
+				break;
+			case ID:
+				longs = new long[2 * rows];
+				break;
+			default:
+				throw new IllegalArgumentException("Unsupported column type: "
+						+ type);
+			}
+		}
+
+		/**
+		 * Sets the value of the given row to the value of the given attribute,
+		 * if the attribute fits into this column, and has its extension.
+		 * 
+		 * @return Whether the attribute has been stored.
+		 */
+		private boolean set(int row, XAttribute attribute) {
+			if (!type.accepts(attribute)
+					|| attribute.getExtension() != extension) {
+				return false;
+			}
+			switch (type) {
+			case DISCRETE:
+				longs[row] = ((XAttributeDiscrete) attribute).getValue();
+				break;
+			case TIMESTAMP:
+				longs[row] = ((XAttributeTimestamp) attribute)
+						.getValueMillis();
+				break;
+			case CONTINUOUS:
+				doubles[row] = ((XAttributeContinuous) attribute).getValue();
+				break;
+			case BOOLEAN:
+				if (((XAttributeBoolean) attribute).getValue()) {
+					longs[row >>> 6] |= 1L << row;
+				}
+				break;
+			case LITERAL:
+				String value = ((XAttributeLiteral) attribute).getValue();
+				Integer code = dictionary.get(value);
+				if (code == null) {
+					code = entries.size();
+					dictionary.put(value, code);
+					entries.add(value);
+				}
+				codes[row] = code;
+				break;
+			case ID:
+				XID id = ((XAttributeID) attribute).getValue();
+				longs[2 * row] = id.getMostSignificantBits();
+				longs[2 * row + 1] = id.getLeastSignificantBits();
+				break;
+			default:
+				return false;
+			}
+			present[row >>> 6] |= 1L << row;
+			return true;
+		}
+
+		private XColumn build() {
+			String[] dictionary = entries == null ? null : entries
+					.toArray(new String[entries.size()]);
+			return new XColumn(key, type, extension, rows, present, longs,
+					doubles, codes, dictionary, null);
+		}
+	}
+
+}
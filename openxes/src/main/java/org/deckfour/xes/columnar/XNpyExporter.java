@@ -0,0 +1,453 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.columnar;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.info.impl.XLogInfoImpl;
+import org.deckfour.xes.logging.XLogging;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeBoolean;
+import org.deckfour.xes.model.XAttributeContinuous;
+import org.deckfour.xes.model.XAttributeDiscrete;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XAttributeTimestamp;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+
+/**
+ * Exports logs as dense numeric arrays in NumPy's <code>.npy</code> format,
+ * e.g., as input for machine learning.
+ * 
+ * The export is a directory containing:
+ * <ul>
+ * <li><code>classes.npy</code>: the event class index of each event
+ * (int32), with classes numbered in the order of their first occurrence.
+ * The names of the classes are listed line by line in
+ * <code>classes.txt</code>.</li>
+ * <li><code>timestamps.npy</code>: the time of each event in seconds since
+ * the first timestamp of its trace (float64), NaN if unknown.</li>
+ * <li>For each selected attribute (see {@link #addAttribute(String)}),
+ * <code>attribute.&lt;key&gt;.npy</code>: its numeric value per event
+ * (float64), NaN if missing or not numeric. Booleans are exported as 0 and
+ * 1, timestamps as milliseconds since the epoch.</li>
+ * </ul>
+ * By default, the event arrays are ragged, i.e., contain the events of all
+ * traces one after another, with the trace boundaries in
+ * <code>offsets.npy</code> (int64, one more than there are traces). If
+ * padding is enabled, they have one row per trace, as long as the longest
+ * trace, padded with -1 or NaN, and the trace lengths are written to
+ * <code>lengths.npy</code> (int32).
+ * 
+ * The log is exported in a single pass, in which batches of traces are
+ * encoded in parallel, and written in order.
+ * 
+ */
+public class XNpyExporter {
+
+	/**
+	 * Name of the file containing the event class indices.
+	 */
+	public static final String CLASSES_FILE = "classes.npy";
+	/**
+	 * Name of the file containing the event class names.
+	 */
+	public static final String CLASS_NAMES_FILE = "classes.txt";
+	/**
+	 * Name of the file containing the relative timestamps.
+	 */
+	public static final String TIMESTAMPS_FILE = "timestamps.npy";
+	/**
+	 * Name of the file containing the trace offsets, if not padded.
+	 */
+	public static final String OFFSETS_FILE = "offsets.npy";
+	/**
+	 * Name of the file containing the trace lengths, if padded.
+	 */
+	public static final String LENGTHS_FILE = "lengths.npy";
+	/**
+	 * Event class index used for padding.
+	 */
+	public static final int PADDING = -1;
+
+	/**
+	 * Number of traces encoded by one parallel task.
+	 */
+	private static final int BATCH_SIZE = 1024;
+
+	private final XEventClassifier classifier;
+	private final List<String> attributeKeys = new ArrayList<String>();
+	private boolean padded = false;
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Creates a new exporter.
+	 * 
+	 * @param classifier
+	 *            The classifier defining the event classes.
+	 */
+	public XNpyExporter(XEventClassifier classifier) {
+		this.classifier = classifier;
+	}
+
+	/**
+	 * Creates a new exporter, using the standard event classifier.
+	 */
+	public XNpyExporter() {
+		this(XLogInfoImpl.STANDARD_CLASSIFIER);
+	}
+
+	/**
+	 * Selects an event attribute to be exported.
+	 * 
+	 * @param key
+	 *            Key of the attribute.
+	 */
+	public void addAttribute(String key) {
+		if (!attributeKeys.contains(key)) {
+			attributeKeys.add(key);
+		}
+	}
+
+	/**
+	 * Sets whether the event arrays are padded to one row per trace. Off by
+	 * default.
+	 */
+	public void setPadded(boolean padded) {
+		this.padded = padded;
+	}
+
+	/**
+	 * Sets the number of threads encoding traces, by default the number of
+	 * available processors.
+	 */
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Returns the name of the file for the given attribute key, with all
+	 * characters not safe in file names replaced by underscores.
+	 */
+	public static String getAttributeFileName(String key) {
+		return "attribute." + key.replaceAll("[^A-Za-z0-9._-]", "_")
+				+ ".npy";
+	}
+
+	/**
+	 * Exports the given log. The export directory is created if necessary,
+	 * existing files are overwritten.
+	 * 
+	 * @param log
+	 *            The log to export.
+	 * @param directory
+	 *            The export directory.
+	 * @throws IOException
+	 */
+	public void write(final XLog log, File directory) throws IOException {
+		XLogging.log("start exporting log to NPY", XLogging.Importance.DEBUG);
+		long start = System.currentTimeMillis();
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Cannot create export directory: "
+					+ directory);
+		}
+		long events = 0;
+		int maxLength = 0;
+		for (XTrace trace : log) {
+			events += trace.size();
+			maxLength = Math.max(maxLength, trace.size());
+		}
+		long[] shape = padded ? new long[] { log.size(), maxLength }
+				: new long[] { events };
+		List<XNpyFile> files = new ArrayList<XNpyFile>();
+		Map<String, Integer> classIndices = new HashMap<String, Integer>();
+		List<String> classNames = new ArrayList<String>();
+		boolean complete = false;
+		try {
+			Output output = new Output();
+			output.maxLength = maxLength;
+			output.classes = open(files, new File(directory, CLASSES_FILE),
+					XNpyFile.INT32, shape);
+			output.timestamps = open(files, new File(directory,
+					TIMESTAMPS_FILE), XNpyFile.FLOAT64, shape);
+			output.values = new XNpyFile[attributeKeys.size()];
+			for (int i = 0; i < attributeKeys.size(); i++) {
+				output.values[i] = open(files, new File(directory,
+						getAttributeFileName(attributeKeys.get(i))),
+						XNpyFile.FLOAT64, shape);
+			}
+			if (padded) {
+				output.boundaries = open(files, new File(directory,
+						LENGTHS_FILE), XNpyFile.INT32, log.size());
+			} else {
+				output.boundaries = open(files, new File(directory,
+						OFFSETS_FILE), XNpyFile.INT64, log.size() + 1);
+				output.boundaries.writeLong(0);
+			}
+			int batches = (log.size() + BATCH_SIZE - 1) / BATCH_SIZE;
+			if (threads == 1 || batches <= 1) {
+				for (int batch = 0; batch < batches; batch++) {
+					int from = batch * BATCH_SIZE;
+					write(encode(log, from, Math.min(log.size(), from
+							+ BATCH_SIZE)), output, classIndices, classNames);
+				}
+			} else {
+				ExecutorService executor = Executors
+						.newFixedThreadPool(threads);
+				try {
+					Deque<Future<Batch>> pending = new ArrayDeque<Future<Batch>>();
+					for (int batch = 0; batch < batches || !pending.isEmpty();) {
+						if (batch < batches && pending.size() < 2 * threads) {
+							final int from = batch * BATCH_SIZE;
+							final int to = Math.min(log.size(), from
+									+ BATCH_SIZE);
+							pending.add(executor.submit(new Callable<Batch>() {
+								public Batch call() {
+									return encode(log, from, to);
+								}
+							}));
+							batch++;
+						} else {
+							write(pending.poll().get(), output, classIndices,
+									classNames);
+						}
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException(e);
+				} catch (ExecutionException e) {
+					throw new IOException(e.getCause());
+				} finally {
+					executor.shutdownNow();
+				}
+			}
+			complete = true;
+		} finally {
+			IOException error = null;
+			for (XNpyFile file : files) {
+				try {
+					file.close();
+				} catch (IOException e) {
+					error = e;
+				}
+			}
+			// do not mask a preceding exception
+			if (error != null && complete) {
+				throw error;
+			}
+		}
+		Writer names = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(new File(directory, CLASS_NAMES_FILE)),
+				StandardCharsets.UTF_8));
+		try {
+			for (String name : classNames) {
+				names.write(name);
+				names.write('\n');
+			}
+		} finally {
+			names.close();
+		}
+		String duration = " (" + (System.currentTimeMillis() - start)
+				+ " msec.)";
+		XLogging.log("finished exporting log" + duration,
+				XLogging.Importance.DEBUG);
+	}
+
+	private XNpyFile open(List<XNpyFile> files, File file, String descr,
+			long... shape) throws IOException {
+		XNpyFile npy = new XNpyFile(file, descr, shape);
+		files.add(npy);
+		return npy;
+	}
+
+	/**
+	 * Encodes the given range of traces, numbering the event classes in the
+	 * order of their first occurrence within the batch.
+	 */
+	private Batch encode(XLog log, int from, int to) {
+		String timeKey = XTimeExtension.KEY_TIMESTAMP;
+		int events = 0;
+		int[] lengths = new int[to - from];
+		for (int i = from; i < to; i++) {
+			lengths[i - from] = log.get(i).size();
+			events += lengths[i - from];
+		}
+		Batch batch = new Batch();
+		batch.lengths = lengths;
+		batch.classes = new int[events];
+		batch.timestamps = new double[events];
+		batch.values = new double[attributeKeys.size()][events];
+		Map<String, Integer> indices = new HashMap<String, Integer>();
+		int e = 0;
+		for (int i = from; i < to; i++) {
+			long base = Long.MIN_VALUE;
+			for (XEvent event : log.get(i)) {
+				String name = classifier.getClassIdentity(event);
+				Integer index = indices.get(name);
+				if (index == null) {
+					index = batch.classNames.size();
+					indices.put(name, index);
+					batch.classNames.add(name);
+				}
+				batch.classes[e] = index;
+				XAttributeMap attributes = event.getAttributes();
+				XAttribute time = attributes.get(timeKey);
+				if (time instanceof XAttributeTimestamp) {
+					long millis = ((XAttributeTimestamp) time).getValueMillis();
+					if (base == Long.MIN_VALUE) {
+						base = millis;
+					}
+					batch.timestamps[e] = (millis - base) / 1000.0;
+				} else {
+					batch.timestamps[e] = Double.NaN;
+				}
+				for (int k = 0; k < batch.values.length; k++) {
+					batch.values[k][e] = numericValue(attributes
+							.get(attributeKeys.get(k)));
+				}
+				e++;
+			}
+		}
+		return batch;
+	}
+
+	/**
+	 * Writes an encoded batch, mapping its event classes to global indices.
+	 */
+	private void write(Batch batch, Output output,
+			Map<String, Integer> classIndices, List<String> classNames)
+			throws IOException {
+		int[] map = new int[batch.classNames.size()];
+		for (int i = 0; i < map.length; i++) {
+			String name = batch.classNames.get(i);
+			Integer index = classIndices.get(name);
+			if (index == null) {
+				index = classNames.size();
+				classIndices.put(name, index);
+				classNames.add(name);
+			}
+			map[i] = index;
+		}
+		int e = 0;
+		for (int length : batch.lengths) {
+			for (int i = 0; i < length; i++) {
+				output.classes.writeInt(map[batch.classes[e + i]]);
+				output.timestamps.writeDouble(batch.timestamps[e + i]);
+				for (int k = 0; k < output.values.length; k++) {
+					output.values[k].writeDouble(batch.values[k][e + i]);
+				}
+			}
+			e += length;
+			if (padded) {
+				for (int i = length; i < output.maxLength; i++) {
+					output.classes.writeInt(PADDING);
+					output.timestamps.writeDouble(Double.NaN);
+					for (int k = 0; k < output.values.length; k++) {
+						output.values[k].writeDouble(Double.NaN);
+					}
+				}
+				output.boundaries.writeInt(length);
+			} else {
+				output.offset += length;
+				output.boundaries.writeLong(output.offset);
+			}
+		}
+	}
+
+	/**
+	 * Returns the numeric value of the given attribute, or NaN.
+	 */
+	private static double numericValue(XAttribute attribute) {
+		if (attribute instanceof XAttributeDiscrete) {
+			return ((XAttributeDiscrete) attribute).getValue();
+		} else if (attribute instanceof XAttributeContinuous) {
+			return ((XAttributeContinuous) attribute).getValue();
+		} else if (attribute instanceof XAttributeBoolean) {
+			return ((XAttributeBoolean) attribute).getValue() ? 1 : 0;
+		} else if (attribute instanceof XAttributeTimestamp) {
+			return ((XAttributeTimestamp) attribute).getValueMillis();
+		} else {
+			return Double.NaN;
+		}
+	}
+
+	/**
+	 * Encoded events of a batch of traces, with batch-local class indices.
+	 */
+	private static class Batch {
+		int[] lengths;
+		int[] classes;
+		List<String> classNames = new ArrayList<String>();
+		double[] timestamps;
+		double[][] values;
+	}
+
+	/**
+	 * Open array files, and the state of the export.
+	 */
+	private static class Output {
+		XNpyFile classes;
+		XNpyFile timestamps;
+		XNpyFile[] values;
+		XNpyFile boundaries;
+		int maxLength;
+		long offset = 0;
+	}
+
+}
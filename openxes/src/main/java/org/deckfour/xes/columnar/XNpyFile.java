@@ -0,0 +1,163 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.columnar;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sequential writer for a single array in NumPy's <code>.npy</code> format
+ * (version 1.0), in C order and little-endian byte order. The shape has to
+ * be known in advance, since it is part of the header.
+ * 
+ */
+class XNpyFile {
+
+	/**
+	 * NumPy type descriptor of 32-bit integers.
+	 */
+	static final String INT32 = "<i4";
+	/**
+	 * NumPy type descriptor of 64-bit integers.
+	 */
+	static final String INT64 = "<i8";
+	/**
+	 * NumPy type descriptor of 64-bit floats.
+	 */
+	static final String FLOAT64 = "<f8";
+
+	private static final byte[] MAGIC = { (byte) 0x93, 'N', 'U', 'M', 'P',
+			'Y', 1, 0 };
+
+	private final FileOutputStream stream;
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(
+			ByteOrder.LITTLE_ENDIAN);
+	private long remaining;
+	private final int itemSize;
+
+	/**
+	 * Creates the given file, and writes the array header.
+	 * 
+	 * @param file
+	 *            File to write to. Existing files are overwritten.
+	 * @param descr
+	 *            Type descriptor of the elements.
+	 * @param shape
+	 *            Dimensions of the array.
+	 */
+	XNpyFile(File file, String descr, long... shape) throws IOException {
+		StringBuilder header = new StringBuilder();
+		header.append("{'descr': '").append(descr);
+		header.append("', 'fortran_order': False, 'shape': (");
+		remaining = 1;
+		for (int i = 0; i < shape.length; i++) {
+			header.append(i > 0 ? ", " : "").append(shape[i]);
+			remaining *= shape[i];
+		}
+		header.append(shape.length == 1 ? ",), }" : "), }");
+		// pad the header, so that the data is aligned to 64 bytes
+		int length = MAGIC.length + 2 + header.length() + 1;
+		while (length % 64 != 0) {
+			header.append(' ');
+			length++;
+		}
+		header.append('\n');
+		itemSize = descr.equals(INT32) ? 4 : 8;
+		stream = new FileOutputStream(file);
+		channel = stream.getChannel();
+		buffer.put(MAGIC);
+		buffer.putShort((short) header.length());
+		buffer.put(header.toString().getBytes(StandardCharsets.US_ASCII));
+	}
+
+	void writeInt(int value) throws IOException {
+		ensure();
+		buffer.putInt(value);
+	}
+
+	void writeLong(long value) throws IOException {
+		ensure();
+		buffer.putLong(value);
+	}
+
+	void writeDouble(double value) throws IOException {
+		ensure();
+		buffer.putDouble(value);
+	}
+
+	/**
+	 * Flushes the data and closes the file.
+	 * 
+	 * @throws IOException
+	 *             If the number of written elements does not match the
+	 *             shape.
+	 */
+	void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			stream.close();
+		}
+		if (remaining != 0) {
+			throw new IOException("Array size does not match its shape");
+		}
+	}
+
+	private void ensure() throws IOException {
+		if (buffer.remaining() < itemSize) {
+			flush();
+		}
+		remaining--;
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+}
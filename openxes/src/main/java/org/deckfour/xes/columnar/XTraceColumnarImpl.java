@@ -0,0 +1,199 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.columnar;
+
+import java.util.AbstractList;
+import java.util.Set;
+
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.XVisitor;
+import org.deckfour.xes.util.XAttributeUtils;
+
+/**
+ * Read-only view on a trace of a columnar log, i.e., on a range of event
+ * rows.
+ * 
+ * @see XLogColumnarImpl
+ */
+public class XTraceColumnarImpl extends AbstractList<XEvent> implements XTrace {
+
+	private final XLogColumnarImpl log;
+	private final int index;
+	private final int first;
+	private final int size;
+
+	/**
+	 * Creates a view on the given trace.
+	 * 
+	 * @param log
+	 *            Columnar log.
+	 * @param index
+	 *            Index of the trace in the log.
+	 */
+	XTraceColumnarImpl(XLogColumnarImpl log, int index) {
+		int[] offsets = log.getTraceOffsets();
+		this.log = log;
+		this.index = index;
+		this.first = offsets[index];
+		this.size = offsets[index + 1] - first;
+	}
+
+	/**
+	 * @return The row of the first event of this trace in the event columns.
+	 */
+	public int getFirstRow() {
+		return first;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#get(int)
+	 */
+	public XEvent get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+					+ size);
+		}
+		return new XEventColumnarImpl(log, first + index);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractCollection#size()
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns a read-only view on the trace attributes, which decodes single
+	 * attributes on lookup. Use its clone for a modifiable copy.
+	 * 
+	 * @see org.deckfour.xes.model.XAttributable#getAttributes()
+	 */
+	public XAttributeMap getAttributes() {
+		return log.getTraceAttributes(index);
+	}
+
+	/**
+	 * Columnar traces are read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 */
+	public void setAttributes(XAttributeMap attributes) {
+		throw new UnsupportedOperationException("Columnar traces are read-only");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XAttributable#hasAttributes()
+	 */
+	public boolean hasAttributes() {
+		return log.hasTraceAttributes(index);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XAttributable#getExtensions()
+	 */
+	public Set<XExtension> getExtensions() {
+		return XAttributeUtils.extractExtensions(getAttributes());
+	}
+
+	/**
+	 * Columnar traces are read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 */
+	public int insertOrdered(XEvent event) {
+		throw new UnsupportedOperationException("Columnar traces are read-only");
+	}
+
+	/**
+	 * Columnar traces are read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 */
+	public boolean sortByTimestamp() {
+		throw new UnsupportedOperationException("Columnar traces are read-only");
+	}
+
+	/**
+	 * Creates an in-memory copy of this trace, using the factory of the log.
+	 * 
+	 * @see java.lang.Object#clone()
+	 */
+	public Object clone() {
+		XTrace clone = log.getFactory().createTrace(
+				(XAttributeMap) getAttributes().clone());
+		for (XEvent event : this) {
+			clone.add((XEvent) event.clone());
+		}
+		return clone;
+	}
+
+	/*
+	 * Runs the given visitor for the given log on this trace.
+	 * 
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XTrace#accept(org.deckfour.xes.model.XVisitor,
+	 * org.deckfour.xes.model.XLog)
+	 */
+	public void accept(XVisitor visitor, XLog log) {
+		visitor.visitTracePre(this, log);
+		for (XAttribute attribute : getAttributes().values()) {
+			attribute.accept(visitor, this);
+		}
+		for (XEvent event : this) {
+			event.accept(visitor, this);
+		}
+		visitor.visitTracePost(this, log);
+	}
+
+}
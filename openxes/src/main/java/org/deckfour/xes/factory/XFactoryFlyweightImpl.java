@@ -0,0 +1,172 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.factory;
+
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.model.XAttributeBoolean;
+import org.deckfour.xes.model.XAttributeContinuous;
+import org.deckfour.xes.model.XAttributeDiscrete;
+import org.deckfour.xes.model.XAttributeLiteral;
+import org.deckfour.xes.model.impl.XAttributeCache;
+
+/**
+ * This factory hands out shared literal, boolean, discrete and continuous
+ * attributes from a bounded cache (see {@link XAttributeCache}), and
+ * otherwise creates the same elements as the naive factory. Attributes which
+ * are value-identical across events, like the lifecycle transition or the
+ * resource, are thus represented by few instances.
+ * 
+ * Shared attributes cannot be modified. To change an attribute value, put a
+ * modified clone of the attribute into the attribute map instead, as the
+ * standard extensions do.
+ * 
+ */
+public class XFactoryFlyweightImpl extends XFactoryNaiveImpl {
+
+	/**
+	 * Default number of cached attributes.
+	 */
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+
+	private final XAttributeCache cache;
+
+	/**
+	 * Creates a new factory with a cache of the default capacity.
+	 */
+	public XFactoryFlyweightImpl() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a new factory.
+	 * 
+	 * @param capacity
+	 *            The maximal number of cached attributes.
+	 */
+	public XFactoryFlyweightImpl(int capacity) {
+		super();
+		cache = new XAttributeCache(capacity);
+	}
+
+	/**
+	 * Returns the cache of this factory, e.g., for its hit rate.
+	 * 
+	 * @return The attribute cache.
+	 */
+	public XAttributeCache getCache() {
+		return cache;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.deckfour.xes.factory.XFactoryNaiveImpl#getDescription()
+	 */
+	@Override
+	public String getDescription() {
+		return "Creates naive implementations for all available "
+			+ "model hierarchy elements, sharing value-identical "
+			+ "attributes.";
+	}
+
+	/* (non-Javadoc)
+	 * @see org.deckfour.xes.factory.XFactoryNaiveImpl#getName()
+	 */
+	@Override
+	public String getName() {
+		return "Standard / flyweight";
+	}
+
+	/* (non-Javadoc)
+	 * @see org.deckfour.xes.factory.XFactoryNaiveImpl#createAttributeBoolean(java.lang.String, boolean, org.deckfour.xes.extension.XExtension)
+	 */
+	@Override
+	public XAttributeBoolean createAttributeBoolean(String key, boolean value,
+			XExtension extension) {
+		XAttributeBoolean attribute = cache.getBoolean(key, value, extension);
+		if (attribute == null) {
+			attribute = cache.share(super.createAttributeBoolean(key, value,
+					extension));
+		}
+		return attribute;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.deckfour.xes.factory.XFactoryNaiveImpl#createAttributeContinuous(java.lang.String, double, org.deckfour.xes.extension.XExtension)
+	 */
+	@Override
+	public XAttributeContinuous createAttributeContinuous(String key,
+			double value, XExtension extension) {
+		XAttributeContinuous attribute = cache.getContinuous(key, value,
+				extension);
+		if (attribute == null) {
+			attribute = cache.share(super.createAttributeContinuous(key,
+					value, extension));
+		}
+		return attribute;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.deckfour.xes.factory.XFactoryNaiveImpl#createAttributeDiscrete(java.lang.String, long, org.deckfour.xes.extension.XExtension)
+	 */
+	@Override
+	public XAttributeDiscrete createAttributeDiscrete(String key, long value,
+			XExtension extension) {
+		XAttributeDiscrete attribute = cache.getDiscrete(key, value,
+				extension);
+		if (attribute == null) {
+			attribute = cache.share(super.createAttributeDiscrete(key, value,
+					extension));
+		}
+		return attribute;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.deckfour.xes.factory.XFactoryNaiveImpl#createAttributeLiteral(java.lang.String, java.lang.String, org.deckfour.xes.extension.XExtension)
+	 */
+	@Override
+	public XAttributeLiteral createAttributeLiteral(String key, String value,
+			XExtension extension) {
+		XAttributeLiteral attribute = cache.getLiteral(key, value, extension);
+		if (attribute == null) {
+			attribute = cache.share(super.createAttributeLiteral(key, value,
+					extension));
+		}
+		return attribute;
+	}
+
+}
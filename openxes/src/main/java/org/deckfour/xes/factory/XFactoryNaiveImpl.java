@@ -62,8 +62,8 @@ import org.deckfour.xes.model.impl.XAttributeDiscreteImpl;
 import org.deckfour.xes.model.impl.XAttributeIDImpl;
 import org.deckfour.xes.model.impl.XAttributeListImpl;
 import org.deckfour.xes.model.impl.XAttributeLiteralImpl;
-import org.deckfour.xes.model.impl.XAttributeMapImpl;
-import org.deckfour.xes.model.impl.XAttributeMapLazyImpl;
+import org.deckfour.xes.model.impl.XAttributeMapCompactImpl;
+import org.deckfour.xes.model.impl.XAttributeMapLazySuppliedImpl;
 import org.deckfour.xes.model.impl.XAttributeTimestampImpl;
 import org.deckfour.xes.model.impl.XEventImpl;
 import org.deckfour.xes.model.impl.XLogImpl;
@@ -141,7 +141,7 @@ public class XFactoryNaiveImpl implements XFactory {
 	 * @see org.deckfour.xes.model.factory.XModelFactory#createLog()
 	 */
 	public XLog createLog() {
-		return new XLogImpl(new XAttributeMapLazyImpl<XAttributeMapImpl>(XAttributeMapImpl.class));
+		return new XLogImpl(new XAttributeMapLazySuppliedImpl<XAttributeMapCompactImpl>(XAttributeMapLazySuppliedImpl.COMPACT));
 	}
 
 	/* (non-Javadoc)
@@ -155,7 +155,7 @@ public class XFactoryNaiveImpl implements XFactory {
 	 * @see org.deckfour.xes.model.factory.XModelFactory#createTrace()
 	 */
 	public XTrace createTrace() {
-		return new XTraceImpl(new XAttributeMapLazyImpl<XAttributeMapImpl>(XAttributeMapImpl.class));
+		return new XTraceImpl(new XAttributeMapLazySuppliedImpl<XAttributeMapCompactImpl>(XAttributeMapLazySuppliedImpl.COMPACT));
 	}
 	
 	/* (non-Javadoc)
@@ -169,7 +169,7 @@ public class XFactoryNaiveImpl implements XFactory {
 	 * @see org.deckfour.xes.model.factory.XModelFactory#createEvent()
 	 */
 	public XEvent createEvent() {
-		return new XEventImpl();
+		return new XEventImpl(new XAttributeMapCompactImpl());
 	}
 
 	/* (non-Javadoc)
@@ -191,7 +191,7 @@ public class XFactoryNaiveImpl implements XFactory {
 	 * @see org.deckfour.xes.model.factory.XModelFactory#createAttributeMap()
 	 */
 	public XAttributeMap createAttributeMap() {
-		return new XAttributeMapImpl();
+		return new XAttributeMapCompactImpl();
 	}
 
 	/* (non-Javadoc)
@@ -79,6 +79,8 @@ public class XFactoryRegistry extends XRegistry<XFactory> {
 	private XFactoryRegistry() {
 		super();
 //		register(new XFactoryNaiveImpl());
+		register(new XFactoryShapedImpl());
+		register(new XFactoryFlyweightImpl());
 //		setCurrentDefault(new XFactoryBufferedImpl());
 		setCurrentDefault(new XFactoryNaiveImpl());
 	}
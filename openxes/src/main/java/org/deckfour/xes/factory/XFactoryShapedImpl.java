@@ -0,0 +1,89 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.factory;
+
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.impl.XAttributeMapShapedImpl;
+import org.deckfour.xes.model.impl.XEventImpl;
+
+/**
+ * This factory creates events whose attribute maps share their keys through
+ * attribute shapes (see {@link XAttributeMapShapedImpl}), and otherwise the
+ * same elements as the naive factory. Events of a log mostly have the same
+ * keys, so that each event only stores its attribute values.
+ * 
+ */
+public class XFactoryShapedImpl extends XFactoryNaiveImpl {
+
+	/* (non-Javadoc)
+	 * @see org.deckfour.xes.factory.XFactoryNaiveImpl#getDescription()
+	 */
+	@Override
+	public String getDescription() {
+		return "Creates naive implementations for all available "
+			+ "model hierarchy elements, with events sharing the "
+			+ "layout of their attributes.";
+	}
+
+	/* (non-Javadoc)
+	 * @see org.deckfour.xes.factory.XFactoryNaiveImpl#getName()
+	 */
+	@Override
+	public String getName() {
+		return "Standard / shaped";
+	}
+
+	/* (non-Javadoc)
+	 * @see org.deckfour.xes.factory.XFactoryNaiveImpl#createEvent()
+	 */
+	@Override
+	public XEvent createEvent() {
+		return new XEventImpl(new XAttributeMapShapedImpl());
+	}
+
+	/* (non-Javadoc)
+	 * @see org.deckfour.xes.factory.XFactoryNaiveImpl#createAttributeMap()
+	 */
+	@Override
+	public XAttributeMap createAttributeMap() {
+		return new XAttributeMapShapedImpl();
+	}
+
+}
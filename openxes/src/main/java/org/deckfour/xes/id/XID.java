@@ -43,16 +43,34 @@ import java.io.DataInputStream;
 import java.io.DataOutput;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.UUID;
 
 /**
- * Implements a unique ID based on UUID.
+ * Implements a unique ID based on UUID. The 128 bits of the ID are stored
+ * inline, without a separate UUID object.
  * 
  * @author Christian W. Guenther (christian@deckfour.org)
  * 
  */
 public class XID implements Cloneable, Comparable<XID> {
 
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF"
+			.toCharArray();
+
+	/**
+	 * Values of the ASCII hexadecimal digits, -1 for other characters.
+	 */
+	private static final long[] HEX_VALUES = new long[128];
+
+	static {
+		Arrays.fill(HEX_VALUES, -1);
+		for (int i = 0; i < 16; i++) {
+			HEX_VALUES[HEX_DIGITS[i]] = i;
+			HEX_VALUES[Character.toLowerCase(HEX_DIGITS[i])] = i;
+		}
+	}
+
 	/**
 	 * Parses an XID object from its text representation.
 	 * 
@@ -61,10 +79,40 @@ public class XID implements Cloneable, Comparable<XID> {
 	 * @return The parsed XID.
 	 */
 	public static XID parse(String idString) {
+		if (idString.length() == 36 && idString.charAt(8) == '-'
+				&& idString.charAt(13) == '-' && idString.charAt(18) == '-'
+				&& idString.charAt(23) == '-') {
+			// canonical form, as written by toString()
+			long time = parseHex(idString, 0, 8);
+			long mid = parseHex(idString, 9, 13);
+			long high = parseHex(idString, 14, 18);
+			long seq = parseHex(idString, 19, 23);
+			long node = parseHex(idString, 24, 36);
+			if ((time | mid | high | seq | node) >= 0) {
+				return new XID((time << 32) | (mid << 16) | high,
+						(seq << 48) | node);
+			}
+		}
+		// other forms are left to UUID, as are malformed strings
 		UUID uuid = UUID.fromString(idString);
 		return new XID(uuid);
 	}
 
+	/**
+	 * Parses the given range of at most 15 ASCII hexadecimal digits.
+	 * 
+	 * @return The parsed value, or a negative value if the range contains
+	 *         other characters.
+	 */
+	private static long parseHex(String s, int start, int end) {
+		long value = 0;
+		for (int i = start; i < end; i++) {
+			char c = s.charAt(i);
+			value = (value << 4) | (c < 128 ? HEX_VALUES[c] : -1);
+		}
+		return value;
+	}
+
 	/**
 	 * Reads a binary-serialized XID from a data input stream.
 	 * 
@@ -100,8 +148,8 @@ public class XID implements Cloneable, Comparable<XID> {
 	 *            Data output stream to store XID serialization.
 	 */
 	public static void write(XID id, DataOutputStream dos) throws IOException {
-		dos.writeLong(id.uuid.getMostSignificantBits());
-		dos.writeLong(id.uuid.getLeastSignificantBits());
+		dos.writeLong(id.msb);
+		dos.writeLong(id.lsb);
 	}
 
 	/**
@@ -113,20 +161,21 @@ public class XID implements Cloneable, Comparable<XID> {
 	 *            Data output to store XID serialization.
 	 */
 	public static void write(XID id, DataOutput out) throws IOException {
-		out.writeLong(id.uuid.getMostSignificantBits());
-		out.writeLong(id.uuid.getLeastSignificantBits());
+		out.writeLong(id.msb);
+		out.writeLong(id.lsb);
 	}
 
 	/**
-	 * UUID implementation of XID identity.
+	 * Most and least significant bits of the UUID implementing XID identity.
 	 */
-	private final UUID uuid;
+	private final long msb;
+	private final long lsb;
 
 	/**
-	 * Creates a new XID object.
+	 * Creates a new XID object from a random UUID.
 	 */
 	public XID() {
-		this.uuid = UUID.randomUUID();
+		this(UUID.randomUUID());
 	}
 
 	/**
@@ -138,7 +187,8 @@ public class XID implements Cloneable, Comparable<XID> {
 	 *            Least significant bits of an UUID
 	 */
 	public XID(long msb, long lsb) {
-		this.uuid = new UUID(msb, lsb);
+		this.msb = msb;
+		this.lsb = lsb;
 	}
 
 	/**
@@ -148,7 +198,34 @@ public class XID implements Cloneable, Comparable<XID> {
 	 *            The UUID implementing XID uniqueness.
 	 */
 	public XID(UUID uuid) {
-		this.uuid = uuid;
+		this(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+	}
+
+	/**
+	 * Returns the most significant bits of this ID.
+	 * 
+	 * @return The most significant 64 bits.
+	 */
+	public long getMostSignificantBits() {
+		return msb;
+	}
+
+	/**
+	 * Returns the least significant bits of this ID.
+	 * 
+	 * @return The least significant 64 bits.
+	 */
+	public long getLeastSignificantBits() {
+		return lsb;
+	}
+
+	/**
+	 * Returns this ID as UUID.
+	 * 
+	 * @return The UUID implementing this ID.
+	 */
+	public UUID toUUID() {
+		return new UUID(msb, lsb);
 	}
 
 	/**
@@ -157,7 +234,7 @@ public class XID implements Cloneable, Comparable<XID> {
 	public boolean equals(Object obj) {
 		if (obj instanceof XID) {
 			XID other = (XID) obj;
-			return uuid.equals(other.uuid);
+			return msb == other.msb && lsb == other.lsb;
 		} else {
 			return false;
 		}
@@ -167,7 +244,29 @@ public class XID implements Cloneable, Comparable<XID> {
 	 * Returns the string representation of an XID instance.
 	 */
 	public String toString() {
-		return uuid.toString().toUpperCase();
+		char[] chars = new char[36];
+		formatHex(msb >>> 32, chars, 0, 8);
+		chars[8] = '-';
+		formatHex(msb >>> 16, chars, 9, 4);
+		chars[13] = '-';
+		formatHex(msb, chars, 14, 4);
+		chars[18] = '-';
+		formatHex(lsb >>> 48, chars, 19, 4);
+		chars[23] = '-';
+		formatHex(lsb, chars, 24, 12);
+		return new String(chars);
+	}
+
+	/**
+	 * Writes the given number of lowest hexadecimal digits of the given
+	 * value, in upper case.
+	 */
+	private static void formatHex(long value, char[] chars, int offset,
+			int digits) {
+		for (int i = offset + digits - 1; i >= offset; i--) {
+			chars[i] = HEX_DIGITS[(int) value & 0xF];
+			value >>>= 4;
+		}
 	}
 
 	/**
@@ -188,7 +287,9 @@ public class XID implements Cloneable, Comparable<XID> {
 	 * Returns a hash code for this XID.
 	 */
 	public int hashCode() {
-		return uuid.hashCode();
+		// same as UUID
+		long hilo = msb ^ lsb;
+		return ((int) (hilo >> 32)) ^ (int) hilo;
 	}
 
 	/*
@@ -198,7 +299,9 @@ public class XID implements Cloneable, Comparable<XID> {
 	 */
 	@Override
 	public int compareTo(XID o) {
-		return uuid.compareTo(o.uuid);
+		// same (signed) order as UUID
+		int result = Long.compare(msb, o.msb);
+		return result != 0 ? result : Long.compare(lsb, o.lsb);
 	}
 
 }
@@ -38,17 +38,77 @@
  */
 package org.deckfour.xes.id;
 
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * This class is a factory for unique identifiers, as they
  * are used throughout the XES model for element identification.
  * Uses the singleton pattern.
  * 
+ * IDs are created by a pluggable strategy. By default, IDs are random
+ * UUIDs drawn from a secure random number generator. The fast random and
+ * sequential strategies create IDs without any shared state, for workloads
+ * creating many events in parallel. In lazy mode, events are only assigned
+ * an ID once it is requested.
+ * 
  * @author Christian W. Guenther (christian@deckfour.org)
  *
  */
 public class XIDFactory {
 	
+	/**
+	 * Strategy for creating unique IDs. Implementations must be thread-safe.
+	 */
+	public interface Strategy {
+
+		/**
+		 * Creates a new, unique ID.
+		 * 
+		 * @return Unique ID.
+		 */
+		public XID createId();
+
+	}
+
+	/**
+	 * Creates random (version 4) UUIDs from a secure random number generator.
+	 */
+	public static final Strategy SECURE_RANDOM = new Strategy() {
+		public XID createId() {
+			return new XID(UUID.randomUUID());
+		}
+	};
+
+	/**
+	 * Creates random (version 4) UUIDs from the thread-local random number
+	 * generator. These IDs are unique, but not unpredictable.
+	 */
+	public static final Strategy FAST_RANDOM = new Strategy() {
+		public XID createId() {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			return createVersion4Id(random.nextLong(), random.nextLong());
+		}
+	};
+
+	/**
+	 * Creates sequential IDs, which consist of a random prefix per thread
+	 * and a counter per thread, formatted as version 4 UUIDs.
+	 */
+	public static final Strategy SEQUENTIAL = new Strategy() {
+		private final ThreadLocal<long[]> state = new ThreadLocal<long[]>() {
+			protected long[] initialValue() {
+				UUID prefix = UUID.randomUUID();
+				return new long[] { prefix.getMostSignificantBits(), 0 };
+			}
+		};
+
+		public XID createId() {
+			long[] state = this.state.get();
+			return createVersion4Id(state[0], state[1]++);
+		}
+	};
+
 	/**
 	 * Singleton instance.
 	 */
@@ -62,6 +122,16 @@ public class XIDFactory {
 		return singleton;
 	}
 	
+	/**
+	 * Strategy used to create IDs.
+	 */
+	private volatile Strategy strategy = SECURE_RANDOM;
+
+	/**
+	 * Whether events are only assigned an ID once it is requested.
+	 */
+	private volatile boolean lazy = false;
+
 	/**
 	 * Creates a new ID factory (hidden constructor).
 	 */
@@ -73,8 +143,62 @@ public class XIDFactory {
 	 * 
 	 * @return Unique ID.
 	 */
-	public synchronized XID createId() {
-		return new XID();
+	public XID createId() {
+		return strategy.createId();
+	}
+
+	/**
+	 * Returns the strategy used to create IDs.
+	 * 
+	 * @return The strategy.
+	 */
+	public Strategy getStrategy() {
+		return strategy;
+	}
+
+	/**
+	 * Sets the strategy used to create IDs, e.g., {@link #FAST_RANDOM} or
+	 * {@link #SEQUENTIAL}.
+	 * 
+	 * @param strategy
+	 *            The strategy.
+	 */
+	public void setStrategy(Strategy strategy) {
+		if (strategy == null) {
+			throw new NullPointerException("No null strategy allowed");
+		}
+		this.strategy = strategy;
+	}
+
+	/**
+	 * Returns whether events are only assigned an ID once it is requested.
+	 * 
+	 * @return Whether IDs are assigned lazily.
+	 */
+	public boolean isLazy() {
+		return lazy;
+	}
+
+	/**
+	 * Sets whether events are only assigned an ID once it is requested,
+	 * which saves creating IDs which are never used. This affects events
+	 * created afterwards.
+	 * 
+	 * @param lazy
+	 *            Whether IDs are assigned lazily.
+	 */
+	public void setLazy(boolean lazy) {
+		this.lazy = lazy;
+	}
+
+	/**
+	 * Creates an ID from the given bits, with the version and variant bits of
+	 * a random UUID.
+	 */
+	private static XID createVersion4Id(long msb, long lsb) {
+		msb = (msb & 0xFFFFFFFFFFFF0FFFL) | 0x0000000000004000L;
+		lsb = (lsb & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+		return new XID(msb, lsb);
 	}
 
 }
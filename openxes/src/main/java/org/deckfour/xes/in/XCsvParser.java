@@ -0,0 +1,733 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.in;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.deckfour.xes.columnar.XColumnType;
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.extension.XExtensionManager;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryBufferedImpl;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.id.XID;
+import org.deckfour.xes.logging.XLogging;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.buffered.XTraceBufferedImpl;
+import org.deckfour.xes.model.impl.XAttributeShape;
+
+/**
+ * Parser for event tables in delimited text files (CSV, TSV), with one event
+ * per row and a header row naming the columns.
+ * 
+ * Rows are grouped into traces by the case column (by default
+ * <code>case:concept:name</code>), in the order of their first occurrence;
+ * the events of a trace keep the order of their rows. Each other column is
+ * mapped to an attribute, configurable by {@link #setColumn(String, String,
+ * XColumnType)}. Unconfigured columns are mapped to literal attributes named
+ * like the column, except for <code>time:timestamp</code>, which is read as
+ * timestamp. Columns prefixed with <code>case:</code> are mapped to trace
+ * attributes without the prefix, taken from the first row of each case.
+ * Empty fields yield no attribute.
+ * 
+ * Files are split into chunks of whole records, which are parsed in
+ * parallel; quoted fields may contain line breaks. Inputs which are not
+ * sorted by case, and do not fit into memory, can be parsed with
+ * {@link #setSpillToDisk(boolean)}, which buffers the events of all traces on
+ * disk.
+ * 
+ */
+public class XCsvParser extends XParser {
+
+	/**
+	 * Default name of the case column.
+	 */
+	public static final String DEFAULT_CASE_COLUMN = "case:concept:name";
+
+	/**
+	 * Prefix of columns holding trace attributes.
+	 */
+	public static final String CASE_PREFIX = "case:";
+
+	/**
+	 * Minimum size of a chunk parsed by one thread.
+	 */
+	private static final long MIN_CHUNK_SIZE = 4 * 1024 * 1024;
+
+	/**
+	 * XES model factory used to build model.
+	 */
+	protected XFactory factory;
+
+	private char delimiter = 0;
+	private char quote = '"';
+	private Charset charset = StandardCharsets.UTF_8;
+	private String caseColumn = DEFAULT_CASE_COLUMN;
+	private final Map<String, String> columnKeys = new HashMap<String, String>();
+	private final Map<String, XColumnType> columnTypes = new HashMap<String, XColumnType>();
+	private final Set<String> ignoredColumns = new HashSet<String>();
+	private DateTimeFormatter timestampFormat = null;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private boolean spillToDisk = false;
+
+	/**
+	 * Creates a new parser instance.
+	 * 
+	 * @param factory
+	 *            The XES model factory instance used to build the model.
+	 */
+	public XCsvParser(XFactory factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * Creates a new parser instance, using the currently-set standard factory
+	 * for building the model.
+	 */
+	public XCsvParser() {
+		this(XFactoryRegistry.instance().currentDefault());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.in.XParser#author()
+	 */
+	@Override
+	public String author() {
+		return "Christian W. Günther";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.in.XParser#canParse(java.io.File)
+	 */
+	@Override
+	public boolean canParse(File file) {
+		String filename = file.getName();
+		return endsWithIgnoreCase(filename, ".csv")
+				|| endsWithIgnoreCase(filename, ".tsv");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.in.XParser#description()
+	 */
+	@Override
+	public String description() {
+		return "Reads event tables from delimited text files";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.in.XParser#name()
+	 */
+	@Override
+	public String name() {
+		return "CSV";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.in.XParser#getFactory()
+	 */
+	@Override
+	protected XFactory getFactory() {
+		return factory;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.in.XParser#getConfiguration()
+	 */
+	@Override
+	protected String getConfiguration() {
+		return super.getConfiguration() + ";delimiter=" + (int) delimiter
+				+ ";quote=" + (int) quote + ";charset=" + charset.name()
+				+ ";caseColumn=" + caseColumn + ";columnKeys="
+				+ new TreeMap<String, String>(columnKeys) + ";columnTypes="
+				+ new TreeMap<String, XColumnType>(columnTypes)
+				+ ";ignoredColumns=" + new TreeSet<String>(ignoredColumns)
+				+ ";timestampFormat=" + timestampFormat + ";spillToDisk="
+				+ spillToDisk;
+	}
+
+	/**
+	 * Sets the field delimiter. By default, tabs are used for files ending in
+	 * <code>.tsv</code>, and commas otherwise.
+	 * 
+	 * @param delimiter
+	 *            The delimiter, or 0 to choose by file name.
+	 * @throws IllegalArgumentException
+	 *             If the delimiter is not an ASCII character.
+	 */
+	public void setDelimiter(char delimiter) {
+		checkAscii("Delimiter", delimiter);
+		this.delimiter = delimiter;
+	}
+
+	/**
+	 * Sets the quote character, <code>"</code> by default.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the quote is not an ASCII character.
+	 */
+	public void setQuote(char quote) {
+		checkAscii("Quote", quote);
+		this.quote = quote;
+	}
+
+	/**
+	 * Ensures that the given character is matched by a single byte of the
+	 * input.
+	 */
+	private static void checkAscii(String name, char c) {
+		if (c > 0x7F) {
+			throw new IllegalArgumentException(name
+					+ " must be an ASCII character: " + c);
+		}
+	}
+
+	/**
+	 * Sets the character set of parsed files, UTF-8 by default. Only
+	 * character sets which encode the delimiter, quote and line breaks as
+	 * single ASCII bytes are supported.
+	 */
+	public void setCharset(Charset charset) {
+		this.charset = charset;
+	}
+
+	/**
+	 * Sets the name of the column holding the case identifier, which becomes
+	 * the <code>concept:name</code> of the traces.
+	 */
+	public void setCaseColumn(String caseColumn) {
+		this.caseColumn = caseColumn;
+	}
+
+	/**
+	 * Maps the given column to an attribute.
+	 * 
+	 * @param column
+	 *            Name of the column in the header row.
+	 * @param key
+	 *            Key of the attribute. Keys of columns prefixed with
+	 *            <code>case:</code> are trace attribute keys.
+	 * @param type
+	 *            Type of the attribute. {@link XColumnType#BLOB} is read as
+	 *            literal.
+	 */
+	public void setColumn(String column, String key, XColumnType type) {
+		columnKeys.put(column, key);
+		columnTypes.put(column, type);
+		ignoredColumns.remove(column);
+	}
+
+	/**
+	 * Excludes the given column from parsing.
+	 */
+	public void ignoreColumn(String column) {
+		ignoredColumns.add(column);
+	}
+
+	/**
+	 * Sets the format of timestamp columns, as pattern of
+	 * {@link DateTimeFormatter}. By default, ISO 8601 timestamps are read,
+	 * optionally with a space instead of the <code>T</code>. Timestamps
+	 * without time zone are taken as UTC.
+	 * 
+	 * @param pattern
+	 *            The pattern, or <code>null</code> for ISO 8601.
+	 */
+	public void setTimestampFormat(String pattern) {
+		this.timestampFormat = pattern == null ? null : DateTimeFormatter
+				.ofPattern(pattern);
+	}
+
+	/**
+	 * Sets the number of threads used to parse files, by default the number
+	 * of available processors.
+	 */
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Sets whether the events of traces are buffered on disk while parsing,
+	 * using the traces of the buffered factory. Off by default.
+	 */
+	public void setSpillToDisk(boolean spillToDisk) {
+		this.spillToDisk = spillToDisk;
+	}
+
+	/**
+	 * Parses an event table from the given input stream, using a single
+	 * thread and the configured delimiter (comma by default).
+	 * 
+	 * @see org.deckfour.xes.in.XParser#parse(java.io.InputStream)
+	 */
+	@Override
+	public List<XLog> parse(InputStream is) throws Exception {
+		try {
+			char delimiter = this.delimiter == 0 ? ',' : this.delimiter;
+			XCsvTokenizer tokenizer = new XCsvTokenizer(is, -1, delimiter,
+					quote, charset);
+			Column[] columns = readHeader(tokenizer);
+			return wrap(createLog(columns, parseRecords(tokenizer, columns, 0)));
+		} finally {
+			is.close();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.in.XParser#parseFile(java.io.File)
+	 */
+	@Override
+	protected List<XLog> parseFile(final File file) throws Exception {
+		XLogging.log("start parsing " + file.getName(),
+				XLogging.Importance.DEBUG);
+		long start = System.currentTimeMillis();
+		final char delimiter = this.delimiter != 0 ? this.delimiter
+				: endsWithIgnoreCase(file.getName(), ".tsv") ? '\t' : ',';
+		InputStream is = new FileInputStream(file);
+		final Column[] columns;
+		final long headerEnd;
+		try {
+			XCsvTokenizer tokenizer = new XCsvTokenizer(is, -1, delimiter,
+					quote, charset);
+			columns = readHeader(tokenizer);
+			headerEnd = tokenizer.getPosition();
+		} finally {
+			is.close();
+		}
+		long[] bounds = split(file, headerEnd, delimiter);
+		List<Map<String, XTrace>> chunks = new ArrayList<Map<String, XTrace>>();
+		if (bounds.length == 2) {
+			chunks.add(parseChunk(file, delimiter, columns, bounds[0],
+					bounds[1]));
+		} else {
+			ExecutorService executor = Executors.newFixedThreadPool(Math.min(
+					threads, bounds.length - 1));
+			try {
+				List<Future<Map<String, XTrace>>> futures = new ArrayList<Future<Map<String, XTrace>>>();
+				for (int i = 0; i < bounds.length - 1; i++) {
+					final long from = bounds[i];
+					final long to = bounds[i + 1];
+					futures.add(executor
+							.submit(new Callable<Map<String, XTrace>>() {
+								public Map<String, XTrace> call()
+										throws Exception {
+									return parseChunk(file, delimiter,
+											columns, from, to);
+								}
+							}));
+				}
+				for (Future<Map<String, XTrace>> future : futures) {
+					chunks.add(future.get());
+				}
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof Exception) {
+					throw (Exception) e.getCause();
+				}
+				throw e;
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+		XLog log = createLog(columns, merge(chunks));
+		XConceptExtension.instance().assignName(log, file.getName());
+		String duration = " (" + (System.currentTimeMillis() - start)
+				+ " msec.)";
+		XLogging.log("finished parsing " + log.size() + " traces" + duration,
+				XLogging.Importance.DEBUG);
+		return wrap(log);
+	}
+
+	/**
+	 * Splits the records of the given file into chunks of whole records. The
+	 * file is scanned once, tracking quoted fields like
+	 * {@link XCsvTokenizer}, so that line breaks in quoted fields do not end
+	 * a chunk.
+	 * 
+	 * @return The chunk boundaries, starting with the end of the header.
+	 */
+	private long[] split(File file, long headerEnd, char delimiter)
+			throws IOException {
+		long length = file.length();
+		int count = (int) Math.max(1, Math.min(threads,
+				(length - headerEnd) / MIN_CHUNK_SIZE));
+		List<Long> bounds = new ArrayList<Long>();
+		bounds.add(headerEnd);
+		if (count > 1) {
+			long size = (length - headerEnd) / count;
+			long next = headerEnd + size;
+			FileInputStream is = new FileInputStream(file);
+			try {
+				is.getChannel().position(headerEnd);
+				byte[] buffer = new byte[65536];
+				long position = headerEnd;
+				boolean fieldStart = true;
+				boolean inQuotes = false;
+				// quote in a quoted field, closing it unless doubled
+				boolean closing = false;
+				int read;
+				while (bounds.size() < count
+						&& (read = is.read(buffer)) >= 0) {
+					for (int i = 0; i < read; i++) {
+						byte b = buffer[i];
+						if (closing) {
+							closing = false;
+							if (b == quote) {
+								continue;
+							}
+							inQuotes = false;
+						}
+						if (inQuotes) {
+							closing = b == quote;
+						} else if (b == quote && fieldStart) {
+							inQuotes = true;
+							fieldStart = false;
+						} else if (b == delimiter) {
+							fieldStart = true;
+						} else if (b == '\n') {
+							fieldStart = true;
+							if (position + i + 1 >= next
+									&& position + i + 1 < length) {
+								bounds.add(position + i + 1);
+								next = position + i + 1 + size;
+								if (bounds.size() == count) {
+									break;
+								}
+							}
+						} else {
+							fieldStart = false;
+						}
+					}
+					position += read;
+				}
+			} finally {
+				is.close();
+			}
+		}
+		bounds.add(length);
+		long[] result = new long[bounds.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = bounds.get(i);
+		}
+		return result;
+	}
+
+	private Map<String, XTrace> parseChunk(File file, char delimiter,
+			Column[] columns, long from, long to) throws IOException {
+		FileInputStream is = new FileInputStream(file);
+		try {
+			is.getChannel().position(from);
+			XCsvTokenizer tokenizer = new XCsvTokenizer(is, to - from,
+					delimiter, quote, charset);
+			return parseRecords(tokenizer, columns, from);
+		} finally {
+			is.close();
+		}
+	}
+
+	/**
+	 * Reads the header row and resolves the column mapping.
+	 */
+	private Column[] readHeader(XCsvTokenizer tokenizer) throws IOException {
+		if (!tokenizer.next()) {
+			throw new IOException("Missing header row");
+		}
+		Column[] columns = new Column[tokenizer.getFieldCount()];
+		boolean hasCase = false;
+		for (int i = 0; i < columns.length; i++) {
+			String name = tokenizer.getString(i).trim();
+			if (i == 0 && name.startsWith("\uFEFF")) {
+				// byte order mark
+				name = name.substring(1);
+			}
+			if (name.equals(caseColumn)) {
+				hasCase = true;
+				columns[i] = new Column(XConceptExtension.KEY_NAME,
+						XColumnType.LITERAL, true, true);
+			} else if (!ignoredColumns.contains(name)) {
+				String key = columnKeys.containsKey(name) ? columnKeys
+						.get(name) : name;
+				boolean trace = key.startsWith(CASE_PREFIX);
+				if (trace) {
+					key = key.substring(CASE_PREFIX.length());
+				}
+				XColumnType type = columnTypes.get(name);
+				if (type == null) {
+					type = key.equals("time:timestamp") ? XColumnType.TIMESTAMP
+							: XColumnType.LITERAL;
+				}
+				columns[i] = new Column(key, type, trace, false);
+			}
+		}
+		if (!hasCase) {
+			throw new IOException("Missing case column: " + caseColumn);
+		}
+		return columns;
+	}
+
+	/**
+	 * Parses all records from the given tokenizer into traces by case.
+	 * 
+	 * @param offset
+	 *            Position of the tokenizer input in the file, for error
+	 *            messages.
+	 */
+	private Map<String, XTrace> parseRecords(XCsvTokenizer tokenizer,
+			Column[] columns, long offset) throws IOException {
+		/*
+		 * When spilling, only the events of traces are buffered on disk, the
+		 * attribute maps stay in memory, as provided by the factory.
+		 */
+		XFactory traceFactory = spillToDisk ? new XFactoryBufferedImpl()
+				: factory;
+		Map<String, XTrace> traces = new LinkedHashMap<String, XTrace>();
+		int caseIndex = 0;
+		while (!columns[caseIndex].isCase) {
+			caseIndex++;
+		}
+		int eventSize = 0;
+		XAttributeShape eventShape = XAttributeShape.EMPTY;
+		for (Column column : columns) {
+			if (column != null && !column.isCase && !column.isTrace) {
+				eventShape = eventShape.with(column.key);
+			}
+		}
+		while (tokenizer.next()) {
+			String caseId = tokenizer.getString(caseIndex);
+			XTrace trace = traces.get(caseId);
+			boolean newTrace = trace == null;
+			if (newTrace) {
+				trace = traceFactory.createTrace(factory.createAttributeMap());
+				traces.put(caseId, trace);
+			}
+			XEvent event = factory.createEvent();
+			XAttributeMap attributes = event.getAttributes();
+			presize(attributes, eventSize, eventShape);
+			for (int i = 0; i < columns.length; i++) {
+				Column column = columns[i];
+				if (column == null || column.isCase || tokenizer.isEmpty(i)
+						|| (column.isTrace && !newTrace)) {
+					continue;
+				}
+				XAttribute attribute;
+				try {
+					attribute = createAttribute(factory, column, tokenizer, i);
+				} catch (RuntimeException e) {
+					throw new IOException("Invalid value for " + column.key
+							+ " in record ending at byte "
+							+ (offset + tokenizer.getPosition()) + ": "
+							+ e.getMessage(), e);
+				}
+				if (column.isTrace) {
+					trace.getAttributes().put(column.key, attribute);
+				} else {
+					attributes.put(column.key, attribute);
+				}
+			}
+			eventSize = attributes.size();
+			trace.add(event);
+		}
+		return traces;
+	}
+
+	private XAttribute createAttribute(XFactory factory, Column column,
+			XCsvTokenizer tokenizer, int field) {
+		switch (column.type) {
+		case DISCRETE:
+			return factory.createAttributeDiscrete(column.key,
+					tokenizer.getLong(field), column.extension);
+		case CONTINUOUS:
+			return factory.createAttributeContinuous(column.key,
+					Double.parseDouble(tokenizer.getString(field).trim()),
+					column.extension);
+		case BOOLEAN:
+			String bool = tokenizer.getString(field).trim();
+			return factory.createAttributeBoolean(column.key,
+					bool.equalsIgnoreCase("true") || bool.equals("1"),
+					column.extension);
+		case TIMESTAMP:
+			long millis;
+			if (timestampFormat == null) {
+				millis = tokenizer.getTimestamp(field);
+			} else {
+				TemporalAccessor parsed = timestampFormat.parse(tokenizer
+						.getString(field).trim());
+				if (parsed.isSupported(ChronoField.OFFSET_SECONDS)) {
+					millis = OffsetDateTime.from(parsed).toInstant()
+							.toEpochMilli();
+				} else {
+					millis = LocalDateTime.from(parsed)
+							.toInstant(ZoneOffset.UTC).toEpochMilli();
+				}
+			}
+			return factory.createAttributeTimestamp(column.key, millis,
+					column.extension);
+		case ID:
+			return factory.createAttributeID(column.key,
+					XID.parse(tokenizer.getString(field).trim()),
+					column.extension);
+		default:
+			return factory.createAttributeLiteral(column.key,
+					tokenizer.getString(field), column.extension);
+		}
+	}
+
+	/**
+	 * Merges the traces of all chunks, in chunk order.
+	 */
+	private Map<String, XTrace> merge(List<Map<String, XTrace>> chunks) {
+		if (chunks.size() == 1) {
+			return chunks.get(0);
+		}
+		Map<String, XTrace> traces = new LinkedHashMap<String, XTrace>();
+		for (Map<String, XTrace> chunk : chunks) {
+			for (Map.Entry<String, XTrace> entry : chunk.entrySet()) {
+				XTrace trace = traces.get(entry.getKey());
+				if (trace == null) {
+					traces.put(entry.getKey(), entry.getValue());
+				} else {
+					trace.addAll(entry.getValue());
+				}
+			}
+		}
+		return traces;
+	}
+
+	/**
+	 * Creates the log holding the given traces.
+	 */
+	private XLog createLog(Column[] columns, Map<String, XTrace> traces) {
+		XLog log = factory.createLog();
+		log.getExtensions().add(XConceptExtension.instance());
+		for (Column column : columns) {
+			if (column != null && column.extension != null) {
+				log.getExtensions().add(column.extension);
+			}
+		}
+		if (log instanceof ArrayList) {
+			((ArrayList<?>) log).ensureCapacity(traces.size());
+		}
+		for (Map.Entry<String, XTrace> entry : traces.entrySet()) {
+			XTrace trace = entry.getValue();
+			XConceptExtension.instance().assignName(trace, entry.getKey());
+			if (trace instanceof XTraceBufferedImpl) {
+				((XTraceBufferedImpl) trace).consolidate();
+			}
+			log.add(trace);
+		}
+		return log;
+	}
+
+	private List<XLog> wrap(XLog log) {
+		List<XLog> logs = new ArrayList<XLog>(1);
+		logs.add(log);
+		return logs;
+	}
+
+	/**
+	 * Mapping of a column to an attribute.
+	 */
+	private static class Column {
+
+		private final String key;
+		private final XColumnType type;
+		private final XExtension extension;
+		private final boolean isTrace;
+		private final boolean isCase;
+
+		private Column(String key, XColumnType type, boolean isTrace,
+				boolean isCase) {
+			this.key = key;
+			this.type = type;
+			this.isTrace = isTrace;
+			this.isCase = isCase;
+			XExtension extension = null;
+			int colonIndex = key.indexOf(':');
+			if (colonIndex > 0 && colonIndex < (key.length() - 1)) {
+				extension = XExtensionManager.instance().getByPrefix(
+						key.substring(0, colonIndex));
+			}
+			this.extension = extension;
+		}
+
+	}
+
+}
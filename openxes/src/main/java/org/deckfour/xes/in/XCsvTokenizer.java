@@ -0,0 +1,480 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.in;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Streaming tokenizer for delimited text files (CSV, TSV). Records are read
+ * into a reusable buffer and split into fields in place; field values are
+ * only decoded on request, and short strings are deduplicated through a
+ * small cache, so that repeated values (activities, resources) share one
+ * instance and cause no allocation.
+ * 
+ * Quoted fields may contain delimiters, line breaks and doubled quotes.
+ * 
+ */
+class XCsvTokenizer {
+
+	private static final int CACHE_SIZE = 4096;
+	private static final int MAX_CACHED_LENGTH = 64;
+
+	private final InputStream in;
+	private final byte delimiter;
+	private final byte quote;
+	private final Charset charset;
+
+	private long remaining;
+	private byte[] buffer;
+	private int start;
+	private int end;
+	private int limit;
+	private long position;
+	private boolean eof;
+
+	private int fieldCount;
+	private int[] fieldStart;
+	private int[] fieldEnd;
+	private boolean[] fieldEscaped;
+
+	private final byte[][] cacheKeys;
+	private final String[] cacheValues;
+
+	/**
+	 * Creates a new tokenizer.
+	 * 
+	 * @param in
+	 *            Stream positioned at the start of a record.
+	 * @param length
+	 *            Number of bytes to read from the stream, or a negative value
+	 *            to read until its end.
+	 * @param delimiter
+	 *            Field delimiter.
+	 * @param quote
+	 *            Quote character.
+	 * @param charset
+	 *            Character set of the file.
+	 */
+	XCsvTokenizer(InputStream in, long length, char delimiter, char quote,
+			Charset charset) {
+		this.in = in;
+		this.remaining = length < 0 ? Long.MAX_VALUE : length;
+		this.delimiter = (byte) delimiter;
+		this.quote = (byte) quote;
+		this.charset = charset;
+		this.buffer = new byte[65536];
+		this.start = 0;
+		this.end = 0;
+		this.limit = 0;
+		this.position = 0;
+		this.eof = false;
+		this.fieldStart = new int[32];
+		this.fieldEnd = new int[32];
+		this.fieldEscaped = new boolean[32];
+		this.cacheKeys = new byte[CACHE_SIZE][];
+		this.cacheValues = new String[CACHE_SIZE];
+	}
+
+	/**
+	 * Returns the number of bytes consumed up to the end of the current
+	 * record.
+	 */
+	long getPosition() {
+		return position;
+	}
+
+	/**
+	 * Reads the next non-empty record.
+	 * 
+	 * @return Whether a record has been read.
+	 */
+	boolean next() throws IOException {
+		while (true) {
+			start = end;
+			fieldCount = 0;
+			int i = start;
+			int fieldBegin = i;
+			boolean quoted = false;
+			boolean inQuotes = false;
+			boolean escaped = false;
+			while (true) {
+				if (i == limit || (inQuotes && i + 1 == limit && buffer[i] == quote)) {
+					// need more data, keep the current record
+					int offset = compact();
+					i -= offset;
+					fieldBegin -= offset;
+					if (!fill()) {
+						if (i == limit && i > start) {
+							// last record without line break
+							int fieldStop = i;
+							if (fieldStop > fieldBegin
+									&& buffer[fieldStop - 1] == '\r') {
+								fieldStop--;
+							}
+							addField(fieldBegin - start, fieldStop - start,
+									quoted, escaped);
+							end = i;
+							position += end - start;
+							return true;
+						} else if (i == limit) {
+							return false;
+						}
+						// closing quote at the end of the input
+						inQuotes = false;
+						i++;
+						continue;
+					}
+					continue;
+				}
+				byte b = buffer[i];
+				if (inQuotes) {
+					if (b == quote) {
+						if (buffer[i + 1] == quote) {
+							escaped = true;
+							i++;
+						} else {
+							inQuotes = false;
+						}
+					}
+				} else if (b == quote && i == fieldBegin) {
+					quoted = true;
+					inQuotes = true;
+				} else if (b == delimiter) {
+					addField(fieldBegin - start, i - start, quoted, escaped);
+					fieldBegin = i + 1;
+					quoted = false;
+					escaped = false;
+				} else if (b == '\n') {
+					int fieldStop = i;
+					if (fieldStop > fieldBegin && buffer[fieldStop - 1] == '\r') {
+						fieldStop--;
+					}
+					end = i + 1;
+					position += end - start;
+					if (fieldCount == 0 && fieldStop == fieldBegin && !quoted) {
+						// empty line
+						break;
+					}
+					addField(fieldBegin - start, fieldStop - start, quoted,
+							escaped);
+					return true;
+				}
+				i++;
+			}
+		}
+	}
+
+	/**
+	 * Moves the current record to the start of the buffer.
+	 * 
+	 * @return The distance the record has been moved by.
+	 */
+	private int compact() {
+		int offset = start;
+		if (offset > 0) {
+			System.arraycopy(buffer, start, buffer, 0, limit - start);
+			limit -= offset;
+			start = 0;
+			end = 0;
+		}
+		return offset;
+	}
+
+	/**
+	 * Reads more data into the buffer, growing it if necessary.
+	 * 
+	 * @return Whether data has been read.
+	 */
+	private boolean fill() throws IOException {
+		if (eof || remaining == 0) {
+			return false;
+		}
+		if (limit == buffer.length) {
+			byte[] grown = new byte[buffer.length * 2];
+			System.arraycopy(buffer, 0, grown, 0, limit);
+			buffer = grown;
+		}
+		int read = in.read(buffer, limit,
+				(int) Math.min(buffer.length - limit, remaining));
+		if (read < 0) {
+			eof = true;
+			return false;
+		}
+		limit += read;
+		remaining -= read;
+		return true;
+	}
+
+	private void addField(int from, int to, boolean quoted, boolean escaped) {
+		if (fieldCount == fieldStart.length) {
+			int size = fieldCount * 2;
+			int[] grownStart = new int[size];
+			int[] grownEnd = new int[size];
+			boolean[] grownEscaped = new boolean[size];
+			System.arraycopy(fieldStart, 0, grownStart, 0, fieldCount);
+			System.arraycopy(fieldEnd, 0, grownEnd, 0, fieldCount);
+			System.arraycopy(fieldEscaped, 0, grownEscaped, 0, fieldCount);
+			fieldStart = grownStart;
+			fieldEnd = grownEnd;
+			fieldEscaped = grownEscaped;
+		}
+		if (quoted) {
+			from++;
+			if (to > from && buffer[start + to - 1] == quote) {
+				to--;
+			}
+		}
+		fieldStart[fieldCount] = from;
+		fieldEnd[fieldCount] = to;
+		fieldEscaped[fieldCount] = escaped;
+		fieldCount++;
+	}
+
+	/**
+	 * Returns the number of fields in the current record.
+	 */
+	int getFieldCount() {
+		return fieldCount;
+	}
+
+	/**
+	 * Checks whether the given field is missing or empty.
+	 */
+	boolean isEmpty(int field) {
+		return field >= fieldCount || fieldStart[field] == fieldEnd[field];
+	}
+
+	/**
+	 * Returns the value of the given field as a string. Short values are
+	 * served from a cache of recently decoded strings.
+	 */
+	String getString(int field) {
+		if (field >= fieldCount) {
+			return "";
+		}
+		int from = start + fieldStart[field];
+		int length = fieldEnd[field] - fieldStart[field];
+		if (fieldEscaped[field]) {
+			byte[] unescaped = new byte[length];
+			int j = 0;
+			for (int i = from; i < from + length; i++) {
+				unescaped[j++] = buffer[i];
+				if (buffer[i] == quote && i + 1 < from + length
+						&& buffer[i + 1] == quote) {
+					i++;
+				}
+			}
+			return new String(unescaped, 0, j, charset);
+		}
+		if (length > MAX_CACHED_LENGTH) {
+			return new String(buffer, from, length, charset);
+		}
+		int hash = 0x811c9dc5;
+		for (int i = from; i < from + length; i++) {
+			hash = (hash ^ buffer[i]) * 0x01000193;
+		}
+		int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+		byte[] key = cacheKeys[slot];
+		if (key != null && key.length == length) {
+			int i = 0;
+			while (i < length && key[i] == buffer[from + i]) {
+				i++;
+			}
+			if (i == length) {
+				return cacheValues[slot];
+			}
+		}
+		key = new byte[length];
+		System.arraycopy(buffer, from, key, 0, length);
+		String value = new String(key, charset);
+		cacheKeys[slot] = key;
+		cacheValues[slot] = value;
+		return value;
+	}
+
+	/**
+	 * Parses the given field as a decimal integer.
+	 * 
+	 * @throws NumberFormatException
+	 *             If the field is not an integer.
+	 */
+	long getLong(int field) {
+		int from = start + fieldStart[field];
+		int to = start + fieldEnd[field];
+		while (from < to && buffer[from] == ' ') {
+			from++;
+		}
+		while (to > from && buffer[to - 1] == ' ') {
+			to--;
+		}
+		boolean negative = false;
+		if (from < to && (buffer[from] == '-' || buffer[from] == '+')) {
+			negative = buffer[from] == '-';
+			from++;
+		}
+		if (from == to || to - from > 18) {
+			return Long.parseLong(getString(field).trim());
+		}
+		long value = 0;
+		for (int i = from; i < to; i++) {
+			int digit = buffer[i] - '0';
+			if (digit < 0 || digit > 9) {
+				throw new NumberFormatException("Not an integer: "
+						+ getString(field));
+			}
+			value = value * 10 + digit;
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Parses the given field as an ISO 8601 date and time, like
+	 * <code>2021-03-04T10:15:30.250+01:00</code>. A space may be used instead
+	 * of the <code>T</code>, seconds, fractions and the time zone are
+	 * optional, and times without time zone are taken as UTC. Dates without
+	 * time denote midnight.
+	 * 
+	 * @return Milliseconds since 01/01/1970 0:00 UTC.
+	 * @throws NumberFormatException
+	 *             If the field is not in this format.
+	 */
+	long getTimestamp(int field) {
+		int from = start + fieldStart[field];
+		int to = start + fieldEnd[field];
+		while (to > from && buffer[to - 1] == ' ') {
+			to--;
+		}
+		int length = to - from;
+		if (length < 10 || buffer[from + 4] != '-' || buffer[from + 7] != '-') {
+			throw invalidTimestamp(field);
+		}
+		int year = digits(from, 4, field);
+		int month = digits(from + 5, 2, field);
+		int day = digits(from + 8, 2, field);
+		int hour = 0, minute = 0, second = 0, millis = 0;
+		int offsetMinutes = 0;
+		int i = from + 10;
+		if (i < to) {
+			if ((buffer[i] != 'T' && buffer[i] != ' ') || i + 6 > to
+					|| buffer[i + 3] != ':') {
+				throw invalidTimestamp(field);
+			}
+			hour = digits(i + 1, 2, field);
+			minute = digits(i + 4, 2, field);
+			i += 6;
+			if (i < to && buffer[i] == ':') {
+				second = digits(i + 1, 2, field);
+				i += 3;
+				if (i < to && (buffer[i] == '.' || buffer[i] == ',')) {
+					i++;
+					int scale = 100;
+					while (i < to && buffer[i] >= '0' && buffer[i] <= '9') {
+						millis += (buffer[i] - '0') * scale;
+						scale /= 10;
+						i++;
+					}
+				}
+			}
+			if (i < to) {
+				if (buffer[i] == 'Z' && i + 1 == to) {
+					i++;
+				} else if ((buffer[i] == '+' || buffer[i] == '-')
+						&& i + 3 <= to) {
+					int sign = buffer[i] == '-' ? -1 : 1;
+					int offsetHours = digits(i + 1, 2, field);
+					int j = i + 3;
+					if (j < to && buffer[j] == ':') {
+						j++;
+					}
+					int offsetMins = j < to ? digits(j, 2, field) : 0;
+					offsetMinutes = sign * (offsetHours * 60 + offsetMins);
+					i = j < to ? j + 2 : j;
+				}
+				if (i != to) {
+					throw invalidTimestamp(field);
+				}
+			}
+		}
+		if (month < 1 || month > 12 || day < 1 || day > 31 || hour > 23
+				|| minute > 59 || second > 60) {
+			throw invalidTimestamp(field);
+		}
+		long days = epochDays(year, month, day);
+		return (((days * 24 + hour) * 60 + minute - offsetMinutes) * 60 + second)
+				* 1000 + millis;
+	}
+
+	private int digits(int from, int count, int field) {
+		if (from + count > start + fieldEnd[field]) {
+			throw invalidTimestamp(field);
+		}
+		int value = 0;
+		for (int i = from; i < from + count; i++) {
+			int digit = buffer[i] - '0';
+			if (digit < 0 || digit > 9) {
+				throw invalidTimestamp(field);
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+	private NumberFormatException invalidTimestamp(int field) {
+		return new NumberFormatException("Not a timestamp: "
+				+ getString(field));
+	}
+
+	/**
+	 * Returns the number of days since 01/01/1970 of the given date in the
+	 * proleptic Gregorian calendar.
+	 */
+	private static long epochDays(int year, int month, int day) {
+		long y = month <= 2 ? year - 1 : year;
+		long era = (y >= 0 ? y : y - 399) / 400;
+		long yearOfEra = y - era * 400;
+		long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day
+				- 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100
+				+ dayOfYear;
+		return era * 146097 + dayOfEra - 719468;
+	}
+
+}
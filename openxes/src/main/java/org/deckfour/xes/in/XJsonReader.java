@@ -0,0 +1,467 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.in;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Incremental (pull) tokenizer for JSON documents. Values are read one token
+ * at a time, so that documents are never held in memory as a whole.
+ * 
+ * Short strings are deduplicated through a small cache, since attribute keys
+ * and many values recur throughout event logs.
+ * 
+ */
+class XJsonReader {
+
+	static final int BEGIN_OBJECT = 1;
+	static final int END_OBJECT = 2;
+	static final int BEGIN_ARRAY = 3;
+	static final int END_ARRAY = 4;
+	static final int NAME = 5;
+	static final int STRING = 6;
+	static final int NUMBER = 7;
+	static final int TRUE = 8;
+	static final int FALSE = 9;
+	static final int NULL = 10;
+	static final int END_DOCUMENT = 11;
+
+	private static final int NONE = 0;
+
+	/*
+	 * Scopes on the nesting stack.
+	 */
+	private static final int EMPTY_ARRAY = 1;
+	private static final int NONEMPTY_ARRAY = 2;
+	private static final int EMPTY_OBJECT = 3;
+	private static final int DANGLING_NAME = 4;
+	private static final int NONEMPTY_OBJECT = 5;
+	private static final int EMPTY_DOCUMENT = 6;
+	private static final int NONEMPTY_DOCUMENT = 7;
+
+	private static final int CACHE_SIZE = 4096;
+	private static final int MAX_CACHED_LENGTH = 32;
+
+	private final Reader reader;
+	private final char[] buffer = new char[16 * 1024];
+	private int pos = 0;
+	private int limit = 0;
+	private long offset = 0;
+
+	private int[] stack = new int[32];
+	private int depth = 0;
+	private int peeked = NONE;
+
+	private final StringBuilder builder = new StringBuilder();
+	private final String[] cache = new String[CACHE_SIZE];
+
+	/**
+	 * Creates a new tokenizer.
+	 * 
+	 * @param reader
+	 *            Reader to tokenize.
+	 */
+	XJsonReader(Reader reader) {
+		this.reader = reader;
+		stack[depth++] = EMPTY_DOCUMENT;
+	}
+
+	/**
+	 * Returns the type of the next token, without consuming it.
+	 */
+	int peek() throws IOException {
+		if (peeked == NONE) {
+			peeked = doPeek();
+		}
+		return peeked;
+	}
+
+	/**
+	 * Checks whether the current object or array has another element.
+	 */
+	boolean hasNext() throws IOException {
+		int p = peek();
+		return p != END_OBJECT && p != END_ARRAY && p != END_DOCUMENT;
+	}
+
+	void beginObject() throws IOException {
+		expect(BEGIN_OBJECT);
+		push(EMPTY_OBJECT);
+	}
+
+	void endObject() throws IOException {
+		expect(END_OBJECT);
+		depth--;
+	}
+
+	void beginArray() throws IOException {
+		expect(BEGIN_ARRAY);
+		push(EMPTY_ARRAY);
+	}
+
+	void endArray() throws IOException {
+		expect(END_ARRAY);
+		depth--;
+	}
+
+	/**
+	 * Returns the next member name of the current object.
+	 */
+	String nextName() throws IOException {
+		expect(NAME);
+		return readString();
+	}
+
+	/**
+	 * Returns the next value as string. Numbers are returned as written,
+	 * booleans as <code>true</code> or <code>false</code>, and null as
+	 * <code>null</code>.
+	 */
+	String nextString() throws IOException {
+		int p = peek();
+		peeked = NONE;
+		switch (p) {
+		case STRING:
+			return readString();
+		case NUMBER:
+			return readNumber();
+		case TRUE:
+			return "true";
+		case FALSE:
+			return "false";
+		case NULL:
+			return null;
+		default:
+			throw syntaxError("Expected a value");
+		}
+	}
+
+	/**
+	 * Skips the next value, including nested objects and arrays.
+	 */
+	void skipValue() throws IOException {
+		int p = peek();
+		if (p == BEGIN_OBJECT) {
+			beginObject();
+			while (hasNext()) {
+				nextName();
+				skipValue();
+			}
+			endObject();
+		} else if (p == BEGIN_ARRAY) {
+			beginArray();
+			while (hasNext()) {
+				skipValue();
+			}
+			endArray();
+		} else {
+			nextString();
+		}
+	}
+
+	/**
+	 * Returns the number of characters consumed so far.
+	 */
+	long getPosition() {
+		return offset + pos;
+	}
+
+	private void expect(int token) throws IOException {
+		if (peek() != token) {
+			throw syntaxError("Unexpected token");
+		}
+		peeked = NONE;
+	}
+
+	private void push(int scope) {
+		if (depth == stack.length) {
+			int[] grown = new int[depth * 2];
+			System.arraycopy(stack, 0, grown, 0, depth);
+			stack = grown;
+		}
+		stack[depth++] = scope;
+	}
+
+	private int doPeek() throws IOException {
+		int scope = stack[depth - 1];
+		int c;
+		switch (scope) {
+		case EMPTY_ARRAY:
+			stack[depth - 1] = NONEMPTY_ARRAY;
+			c = nextNonWhitespace();
+			if (c == ']') {
+				return END_ARRAY;
+			}
+			pos--;
+			return readValue();
+		case NONEMPTY_ARRAY:
+			c = nextNonWhitespace();
+			if (c == ']') {
+				return END_ARRAY;
+			} else if (c != ',') {
+				throw syntaxError("Expected ',' or ']'");
+			}
+			return readValue();
+		case EMPTY_OBJECT:
+		case NONEMPTY_OBJECT:
+			c = nextNonWhitespace();
+			if (c == '}') {
+				return END_OBJECT;
+			} else if (scope == NONEMPTY_OBJECT) {
+				if (c != ',') {
+					throw syntaxError("Expected ',' or '}'");
+				}
+				c = nextNonWhitespace();
+			}
+			if (c != '"') {
+				throw syntaxError("Expected name");
+			}
+			stack[depth - 1] = DANGLING_NAME;
+			return NAME;
+		case DANGLING_NAME:
+			stack[depth - 1] = NONEMPTY_OBJECT;
+			if (nextNonWhitespace() != ':') {
+				throw syntaxError("Expected ':'");
+			}
+			return readValue();
+		case EMPTY_DOCUMENT:
+			stack[depth - 1] = NONEMPTY_DOCUMENT;
+			return readValue();
+		default:
+			if (nextNonWhitespace() != -1) {
+				throw syntaxError("Unexpected content after document");
+			}
+			return END_DOCUMENT;
+		}
+	}
+
+	/**
+	 * Reads the first character of a value, and returns its token type.
+	 */
+	private int readValue() throws IOException {
+		int c = nextNonWhitespace();
+		switch (c) {
+		case '{':
+			return BEGIN_OBJECT;
+		case '[':
+			return BEGIN_ARRAY;
+		case '"':
+			return STRING;
+		case 't':
+			readLiteral("rue");
+			return TRUE;
+		case 'f':
+			readLiteral("alse");
+			return FALSE;
+		case 'n':
+			readLiteral("ull");
+			return NULL;
+		default:
+			if (c == '-' || (c >= '0' && c <= '9')) {
+				pos--;
+				return NUMBER;
+			}
+			throw syntaxError("Expected value");
+		}
+	}
+
+	private void readLiteral(String rest) throws IOException {
+		for (int i = 0; i < rest.length(); i++) {
+			if (pos == limit && !fill()) {
+				throw syntaxError("Unexpected end of document");
+			}
+			if (buffer[pos++] != rest.charAt(i)) {
+				throw syntaxError("Invalid literal");
+			}
+		}
+	}
+
+	private String readNumber() throws IOException {
+		builder.setLength(0);
+		while (pos < limit || fill()) {
+			char c = buffer[pos];
+			if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.'
+					|| c == 'e' || c == 'E') {
+				builder.append(c);
+				pos++;
+			} else {
+				break;
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Reads a string, whose opening quote has been consumed.
+	 */
+	private String readString() throws IOException {
+		// fast path: string without escapes within the buffer
+		for (int i = pos; i < limit; i++) {
+			char c = buffer[i];
+			if (c == '"') {
+				String result = cached(pos, i - pos);
+				pos = i + 1;
+				return result;
+			} else if (c == '\\') {
+				break;
+			}
+		}
+		builder.setLength(0);
+		while (true) {
+			if (pos == limit && !fill()) {
+				throw syntaxError("Unterminated string");
+			}
+			char c = buffer[pos++];
+			if (c == '"') {
+				return builder.toString();
+			} else if (c == '\\') {
+				if (pos == limit && !fill()) {
+					throw syntaxError("Unterminated escape sequence");
+				}
+				char e = buffer[pos++];
+				switch (e) {
+				case 'b':
+					builder.append('\b');
+					break;
+				case 'f':
+					builder.append('\f');
+					break;
+				case 'n':
+					builder.append('\n');
+					break;
+				case 'r':
+					builder.append('\r');
+					break;
+				case 't':
+					builder.append('\t');
+					break;
+				case 'u':
+					int value = 0;
+					for (int i = 0; i < 4; i++) {
+						if (pos == limit && !fill()) {
+							throw syntaxError("Unterminated escape sequence");
+						}
+						int digit = Character.digit(buffer[pos++], 16);
+						if (digit < 0) {
+							throw syntaxError("Invalid escape sequence");
+						}
+						value = (value << 4) | digit;
+					}
+					builder.append((char) value);
+					break;
+				default:
+					builder.append(e);
+				}
+			} else {
+				builder.append(c);
+			}
+		}
+	}
+
+	/**
+	 * Returns a string for the given buffer region, from the cache if it is
+	 * short.
+	 */
+	private String cached(int from, int length) {
+		if (length > MAX_CACHED_LENGTH) {
+			return new String(buffer, from, length);
+		}
+		int hash = 0;
+		for (int i = from; i < from + length; i++) {
+			hash = 31 * hash + buffer[i];
+		}
+		int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+		String cachedString = cache[slot];
+		if (cachedString != null && cachedString.length() == length) {
+			int i = 0;
+			while (i < length && cachedString.charAt(i) == buffer[from + i]) {
+				i++;
+			}
+			if (i == length) {
+				return cachedString;
+			}
+		}
+		String result = new String(buffer, from, length);
+		cache[slot] = result;
+		return result;
+	}
+
+	/**
+	 * Returns the next non-whitespace character, consuming it, or -1 at the
+	 * end of input.
+	 */
+	private int nextNonWhitespace() throws IOException {
+		while (pos < limit || fill()) {
+			char c = buffer[pos++];
+			if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+				return c;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Refills the buffer, keeping no consumed characters.
+	 * 
+	 * @return Whether characters are available.
+	 */
+	private boolean fill() throws IOException {
+		offset += pos;
+		limit -= pos;
+		System.arraycopy(buffer, pos, buffer, 0, limit);
+		pos = 0;
+		while (limit < buffer.length) {
+			int read = reader.read(buffer, limit, buffer.length - limit);
+			if (read < 0) {
+				break;
+			}
+			limit += read;
+			if (read > 0) {
+				return true;
+			}
+		}
+		return limit > 0;
+	}
+
+	private IOException syntaxError(String message) {
+		return new IOException(message + " at character " + getPosition());
+	}
+
+}
@@ -0,0 +1,473 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.in;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.deckfour.xes.classification.XEventAttributeClassifier;
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.logging.XLogging;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.out.XesBinarySerializer;
+import org.deckfour.xes.util.XRuntimeUtils;
+
+/**
+ * Cache for binary snapshots of parsed logs.
+ * 
+ * When enabled, {@link XParser#parse(File)} (and thus also
+ * {@link XUniversalParser}) stores a binary snapshot of every log parsed from
+ * a file, and loads later requests for the same file from that snapshot
+ * instead of parsing it again. Snapshots are keyed by the canonical path of
+ * the source file and the parser used, and are valid as long as size and
+ * modification time of the source file are unchanged. Optionally, a content
+ * hash of the source file is also verified.
+ * 
+ * Snapshots are kept in the snapshot cache folder within the OpenXES support
+ * folder. When the total size of all snapshots exceeds the configured
+ * budget, the least recently used snapshots are evicted.
+ * 
+ * The cache is disabled by default.
+ * 
+ */
+public class XLogSnapshotCache {
+
+	/**
+	 * Magic number identifying snapshot files ("XSNP").
+	 */
+	private static final int MAGIC = 0x58534E50;
+	/**
+	 * Suffix of snapshot files.
+	 */
+	private static final String SUFFIX = ".xsnap";
+
+	/**
+	 * Singleton instance.
+	 */
+	private static XLogSnapshotCache singleton = null;
+
+	/**
+	 * Accesses the singleton instance.
+	 * 
+	 * @return Singleton cache.
+	 */
+	public static synchronized XLogSnapshotCache instance() {
+		if (singleton == null) {
+			singleton = new XLogSnapshotCache();
+		}
+		return singleton;
+	}
+
+	private volatile boolean enabled;
+	private volatile boolean useContentHash;
+	private volatile long maxSize;
+	private volatile File folder;
+
+	/**
+	 * Creates the singleton.
+	 */
+	private XLogSnapshotCache() {
+		enabled = false;
+		useContentHash = false;
+		maxSize = 1024L * 1024L * 1024L;
+		folder = null;
+	}
+
+	/**
+	 * @return Whether the cache is enabled.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Enables or disables the cache.
+	 * 
+	 * @param enabled
+	 *            Whether snapshots are stored and loaded.
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * @return Whether snapshots are also validated by a content hash of the
+	 *         source file.
+	 */
+	public boolean isUseContentHash() {
+		return useContentHash;
+	}
+
+	/**
+	 * Sets whether snapshots are also validated by a content hash of the
+	 * source file. This detects changes which preserve size and modification
+	 * time, at the price of reading the complete source file on each access.
+	 * 
+	 * @param useContentHash
+	 *            Whether to validate snapshots by content hash.
+	 */
+	public void setUseContentHash(boolean useContentHash) {
+		this.useContentHash = useContentHash;
+	}
+
+	/**
+	 * @return The size budget of the cache, in bytes.
+	 */
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Sets the size budget of the cache. If the total size of all snapshots
+	 * exceeds this budget, the least recently used snapshots are evicted.
+	 * 
+	 * @param maxSize
+	 *            Size budget, in bytes.
+	 */
+	public void setMaxSize(long maxSize) {
+		this.maxSize = maxSize;
+		evict();
+	}
+
+	/**
+	 * Returns the folder holding the snapshots. Defaults to
+	 * {@link XRuntimeUtils#getSnapshotCacheFolder()}.
+	 * 
+	 * @return The snapshot folder.
+	 */
+	public File getFolder() {
+		File result = folder;
+		if (result == null) {
+			result = XRuntimeUtils.getSnapshotCacheFolder();
+			folder = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Sets the folder holding the snapshots.
+	 * 
+	 * @param folder
+	 *            The snapshot folder, or <code>null</code> for the default
+	 *            folder.
+	 */
+	public void setFolder(File folder) {
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		this.folder = folder;
+	}
+
+	/**
+	 * Removes all snapshots from the cache.
+	 */
+	public synchronized void clear() {
+		for (File snapshot : listSnapshots()) {
+			snapshot.delete();
+		}
+	}
+
+	/**
+	 * Loads the logs parsed from the given file from the cache.
+	 * 
+	 * @param source
+	 *            The parsed file.
+	 * @param parser
+	 *            The parser requesting the logs.
+	 * @return The logs, or <code>null</code> if no valid snapshot exists.
+	 */
+	public List<XLog> load(File source, XParser parser) {
+		File snapshot = getSnapshotFile(source, parser);
+		if (!snapshot.isFile()) {
+			return null;
+		}
+		long start = System.currentTimeMillis();
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(snapshot), 65536));
+			try {
+				if (in.readInt() != MAGIC
+						|| in.readInt() != XesBinarySerializer.VERSION
+						|| !in.readUTF().equals(source.getCanonicalPath())
+						|| in.readLong() != source.length()
+						|| in.readLong() != source.lastModified()) {
+					in.close();
+					snapshot.delete();
+					return null;
+				}
+				String hash = in.readUTF();
+				if (useContentHash && !hash.equals(computeHash(source))) {
+					in.close();
+					snapshot.delete();
+					return null;
+				}
+				XesBinaryParser reader = new XesBinaryParser(
+						parser.getFactory());
+				int size = in.readInt();
+				List<XLog> logs = new ArrayList<XLog>(size);
+				for (int i = 0; i < size; i++) {
+					logs.add(reader.read(in));
+				}
+				// mark as recently used
+				snapshot.setLastModified(System.currentTimeMillis());
+				XLogging.log("loaded log snapshot of " + source.getName()
+						+ " (" + (System.currentTimeMillis() - start)
+						+ " msec.)", XLogging.Importance.DEBUG);
+				return logs;
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			// broken snapshot, fall back to parsing
+			return discard(snapshot, e);
+		} catch (RuntimeException e) {
+			// corrupt snapshot (e.g., garbled lengths or URIs), fall back to
+			// parsing
+			return discard(snapshot, e);
+		}
+	}
+
+	/**
+	 * Deletes a snapshot which could not be loaded.
+	 * 
+	 * @return <code>null</code>, so that the caller parses the source file.
+	 */
+	private List<XLog> discard(File snapshot, Exception e) {
+		XLogging.log("discarding broken log snapshot " + snapshot.getName()
+				+ ": " + e, XLogging.Importance.WARNING);
+		snapshot.delete();
+		return null;
+	}
+
+	/**
+	 * Stores a snapshot of the logs parsed from the given file, in its
+	 * current state. Failures are logged, but not propagated, as the cache is
+	 * only an optimization.
+	 * 
+	 * @param source
+	 *            The parsed file.
+	 * @param parser
+	 *            The parser used.
+	 * @param logs
+	 *            The parsed logs.
+	 */
+	public void store(File source, XParser parser, List<XLog> logs) {
+		store(source, source.length(), source.lastModified(), parser, logs);
+	}
+
+	/**
+	 * Stores a snapshot of the logs parsed from the given file, given size and
+	 * modification time of the file before parsing. If the file has changed
+	 * since, or if the logs use classifiers which cannot be stored, no
+	 * snapshot is stored. Failures are logged, but not propagated, as the
+	 * cache is only an optimization.
+	 * 
+	 * @param source
+	 *            The parsed file.
+	 * @param length
+	 *            Size of the file before parsing.
+	 * @param lastModified
+	 *            Modification time of the file before parsing.
+	 * @param parser
+	 *            The parser used.
+	 * @param logs
+	 *            The parsed logs.
+	 */
+	public void store(File source, long length, long lastModified,
+			XParser parser, List<XLog> logs) {
+		for (XLog log : logs) {
+			for (XEventClassifier classifier : log.getClassifiers()) {
+				if (!(classifier instanceof XEventAttributeClassifier)) {
+					XLogging.log("not storing log snapshot of "
+							+ source.getName() + ", classifier "
+							+ classifier.name() + " cannot be stored",
+							XLogging.Importance.DEBUG);
+					return;
+				}
+			}
+		}
+		File snapshot = getSnapshotFile(source, parser);
+		File temp = null;
+		try {
+			String hash = useContentHash ? computeHash(source) : "";
+			if (source.length() != length
+					|| source.lastModified() != lastModified) {
+				XLogging.log("not storing log snapshot of "
+						+ source.getName() + ", file changed while parsing",
+						XLogging.Importance.DEBUG);
+				return;
+			}
+			temp = File.createTempFile("snapshot", ".tmp", getFolder());
+			DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(temp), 65536));
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(XesBinarySerializer.VERSION);
+				out.writeUTF(source.getCanonicalPath());
+				out.writeLong(length);
+				out.writeLong(lastModified);
+				out.writeUTF(hash);
+				out.writeInt(logs.size());
+				XesBinarySerializer serializer = new XesBinarySerializer();
+				for (XLog log : logs) {
+					serializer.serialize(log, out);
+				}
+			} finally {
+				out.close();
+			}
+			Files.move(temp.toPath(), snapshot.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			evict();
+		} catch (Exception e) {
+			XLogging.log("could not store log snapshot: " + e.getMessage(),
+					XLogging.Importance.WARNING);
+			if (temp != null) {
+				temp.delete();
+			}
+		}
+	}
+
+	/**
+	 * Evicts the least recently used snapshots until the cache fits its size
+	 * budget.
+	 */
+	private synchronized void evict() {
+		File[] snapshots = listSnapshots();
+		long total = 0;
+		for (File snapshot : snapshots) {
+			total += snapshot.length();
+		}
+		if (total <= maxSize) {
+			return;
+		}
+		Arrays.sort(snapshots, new Comparator<File>() {
+			public int compare(File a, File b) {
+				return Long.compare(a.lastModified(), b.lastModified());
+			}
+		});
+		for (File snapshot : snapshots) {
+			if (total <= maxSize) {
+				break;
+			}
+			long length = snapshot.length();
+			if (snapshot.delete()) {
+				total -= length;
+			}
+		}
+	}
+
+	private File[] listSnapshots() {
+		File[] snapshots = getFolder().listFiles(new FilenameFilter() {
+			public boolean accept(File dir, String name) {
+				return name.endsWith(SUFFIX);
+			}
+		});
+		return snapshots == null ? new File[0] : snapshots;
+	}
+
+	/**
+	 * Determines the snapshot file for the given source file and parser,
+	 * including the configuration of the parser.
+	 */
+	private File getSnapshotFile(File source, XParser parser) {
+		String key;
+		try {
+			key = source.getCanonicalPath();
+		} catch (IOException e) {
+			key = source.getAbsolutePath();
+		}
+		key = key + "\n" + parser.getClass().getName() + "\n"
+				+ parser.getConfiguration();
+		return new File(getFolder(), toHex(digest().digest(
+				key.getBytes(StandardCharsets.UTF_8)))
+				+ SUFFIX);
+	}
+
+	private static String computeHash(File file) throws IOException {
+		MessageDigest digest = digest();
+		InputStream in = new FileInputStream(file);
+		try {
+			byte[] buffer = new byte[65536];
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				digest.update(buffer, 0, read);
+			}
+		} finally {
+			in.close();
+		}
+		return toHex(digest.digest());
+	}
+
+	private static MessageDigest digest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// SHA-256 is required to be supported by every Java platform
+			throw new AssertionError(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder sb = new StringBuilder(2 * bytes.length);
+		for (byte b : bytes) {
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+			sb.append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+
+}
@@ -52,6 +52,7 @@ import org.deckfour.xes.classification.XEventAttributeClassifier;
 import org.deckfour.xes.classification.XEventClassifier;
 import org.deckfour.xes.classification.XEventNameClassifier;
 import org.deckfour.xes.classification.XEventResourceClassifier;
+import org.deckfour.xes.extension.XExtension;
 import org.deckfour.xes.extension.std.XConceptExtension;
 import org.deckfour.xes.extension.std.XLifecycleExtension;
 import org.deckfour.xes.extension.std.XOrganizationalExtension;
@@ -164,6 +165,14 @@ public class XMxmlParser extends XParser {
 //		}
 	}
 	
+	/* (non-Javadoc)
+	 * @see org.deckfour.xes.in.XParser#getFactory()
+	 */
+	@Override
+	protected XFactory getFactory() {
+		return factory;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.deckfour.xes.in.XParser#description()
 	 */
@@ -221,9 +230,13 @@ public class XMxmlParser extends XParser {
 		protected XTrace currentInstance = null;
 		protected XEvent entry = null;
 		protected XAttributeLiteral sourceAttribute = null;
-		protected XAttributeLiteral genericAttribute = null;
-		protected XAttributeLiteral eventTypeAttribute = null;
-		protected XAttributeLiteral originatorAttribute = null;
+		// attributes of entries are created once their value is known, so
+		// that the factory may share them
+		protected String genericKey = null;
+		protected String genericReferences = null;
+		protected String eventType = null;
+		protected String eventTypeReferences = null;
+		protected String originatorReferences = null;
 		protected boolean sourceOpen = false;
 		protected Date timestamp = null;
 		protected Date lastTimestamp = null;
@@ -264,7 +277,8 @@ public class XMxmlParser extends XParser {
 				// start source
 				sourceOpen = true;
 				String program = attributes.getValue(attributes.getIndex("program"));
-				sourceAttribute = factory.createAttributeLiteral("source", program, null);
+				// source receives the generic attributes, keep it private
+				sourceAttribute = (XAttributeLiteral) unshare(factory.createAttributeLiteral("source", program, null));
 				addModelReferences(attributes, sourceAttribute);
 			} else if (tagName.equalsIgnoreCase("Process")) {
 				// check if process is already contained
@@ -301,25 +315,23 @@ public class XMxmlParser extends XParser {
 				entry = factory.createEvent();
 			} else if (tagName.equalsIgnoreCase("Attribute")) {
 				// set current attribute name
-				genericAttribute = factory.createAttributeLiteral(attributes.getValue("name").trim(), "DEFAULT_VALUE", null);
-				addModelReferences(attributes, genericAttribute);
+				genericKey = attributes.getValue("name").trim();
+				genericReferences = attributes.getValue("modelReference");
 			} else if (tagName.equalsIgnoreCase("EventType")) {
-				eventTypeAttribute = (XAttributeLiteral)XLifecycleExtension.ATTR_TRANSITION.clone();
 				// set current unknown event type
 				if (attributes.getIndex("unknowntype") >= 0) {
-					eventTypeAttribute.setValue(attributes.getValue("unknowntype"));
+					eventType = attributes.getValue("unknowntype");
 				} else {
 					// reset event type value
-					eventTypeAttribute.setValue("__INVALID__");
+					eventType = null;
 				}
-				addModelReferences(attributes, eventTypeAttribute);
+				eventTypeReferences = attributes.getValue("modelReference");
 			} else if (tagName.equalsIgnoreCase("WorkflowModelElement")) {
 				// started workflow model element
 				addModelReferences(attributes, entry);
 			} else if (tagName.equalsIgnoreCase("Originator")) {
 				// started originator
-				originatorAttribute = (XAttributeLiteral)XOrganizationalExtension.ATTR_RESOURCE.clone();
-				addModelReferences(attributes, originatorAttribute);
+				originatorReferences = attributes.getValue("modelReference");
 			}
 		}
 
@@ -397,8 +409,8 @@ public class XMxmlParser extends XParser {
 			} else if (tagName.equalsIgnoreCase("Attribute")) {
 				String value = buffer.toString().trim();
 				if(value.length() > 0) {
-					// set generic attribute value
-					genericAttribute.setValue(buffer.toString().trim());
+					// create generic attribute
+					XAttributeLiteral genericAttribute = createLiteral(genericKey, value, null, genericReferences);
 					// check where to put this attribute,
 					// proceed bottom-up:
 					if (entry != null) {
@@ -412,53 +424,80 @@ public class XMxmlParser extends XParser {
 					}
 				}
 				// reset attribute
-				genericAttribute = null;
+				genericKey = null;
+				genericReferences = null;
 			} else if (tagName.equalsIgnoreCase("EventType")) {
 				// finished event type
-				if(eventTypeAttribute.getValue().equals("__INVALID__")) {
+				if(eventType == null) {
 					String type = buffer.toString().trim();
 					if(type.length() > 0) {
-						eventTypeAttribute.setValue(type);
-						entry.getAttributes().put(eventTypeAttribute.getKey(), eventTypeAttribute);
+						eventType = type;
 					}
-				} else {
-					entry.getAttributes().put(eventTypeAttribute.getKey(), eventTypeAttribute);
 				}
-				eventTypeAttribute = null;
+				if(eventType != null) {
+					entry.getAttributes().put(XLifecycleExtension.KEY_TRANSITION,
+							createLiteral(XLifecycleExtension.KEY_TRANSITION, eventType,
+									XLifecycleExtension.instance(), eventTypeReferences));
+				}
+				eventType = null;
+				eventTypeReferences = null;
 			} else if (tagName.equalsIgnoreCase("WorkflowModelElement")) {
 				// finished workflow model element
-				XConceptExtension.instance().assignName(entry, buffer.toString().trim());
+				String name = buffer.toString().trim();
+				if (name.length() > 0) {
+					entry.getAttributes().put(XConceptExtension.KEY_NAME,
+							factory.createAttributeLiteral(XConceptExtension.KEY_NAME, name,
+									XConceptExtension.instance()));
+				}
 			} else if (tagName.equalsIgnoreCase("Timestamp")) {
 				// finished timestamp)
 				String tsString = buffer.toString().trim();
 				timestamp = xsDateTimeConversion.parseXsDateTime(tsString);
 				if (timestamp != null) {
-					XAttributeTimestamp timestampAttribute = (XAttributeTimestamp)XTimeExtension.ATTR_TIMESTAMP.clone();
-					timestampAttribute.setValue(timestamp);
+					XAttributeTimestamp timestampAttribute = factory.createAttributeTimestamp(XTimeExtension.KEY_TIMESTAMP,
+							timestamp, XTimeExtension.instance());
 					entry.getAttributes().put(timestampAttribute.getKey(), timestampAttribute);
 				}
 			} else if (tagName.equalsIgnoreCase("Originator")) {
 				// finished originator
 				String originator = buffer.toString().trim();
-				if (originator.length() > 0) {
-					originatorAttribute.setValue(originator);
+				if (originator.length() == 0) {
+					originator = XOrganizationalExtension.ATTR_RESOURCE.getValue();
 				}
-				entry.getAttributes().put(originatorAttribute.getKey(), originatorAttribute);
-				originatorAttribute = null;
+				entry.getAttributes().put(XOrganizationalExtension.KEY_RESOURCE,
+						createLiteral(XOrganizationalExtension.KEY_RESOURCE, originator,
+								XOrganizationalExtension.instance(), originatorReferences));
+				originatorReferences = null;
 			}
 			// reset character buffer
 			buffer.delete(0, buffer.length());
 		}
 
 		private void addModelReferences(Attributes attrs, XAttributable subject) {
-			String refs = attrs.getValue("modelReference");
+			addModelReferences(attrs.getValue("modelReference"), subject);
+		}
+
+		private void addModelReferences(String refs, XAttributable subject) {
 			if (refs != null) {
-				XAttributeLiteral attribute = (XAttributeLiteral)XSemanticExtension.ATTR_MODELREFERENCE.clone();
-				attribute.setValue(refs);
+				XAttributeLiteral attribute = factory.createAttributeLiteral(XSemanticExtension.KEY_MODELREFERENCE,
+						refs, XSemanticExtension.instance());
 				subject.getAttributes().put(attribute.getKey(), attribute);
 			} 
 		}
 
+		/**
+		 * Creates a literal attribute through the factory, with the given
+		 * model references, if any.
+		 */
+		private XAttributeLiteral createLiteral(String key, String value, XExtension extension, String refs) {
+			XAttributeLiteral attribute = factory.createAttributeLiteral(key, value, extension);
+			if (refs != null) {
+				attribute = (XAttributeLiteral) unshare(attribute);
+				addModelReferences(refs, attribute);
+			}
+			return attribute;
+		}
+
 		/* (non-Javadoc)
 		 * @see org.xml.sax.helpers.DefaultHandler#characters(char[], int, int)
 		 */
@@ -43,7 +43,16 @@ import java.io.FileInputStream;
 import java.io.InputStream;
 import java.util.List;
 
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
 import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.impl.XAttributeImpl;
+import org.deckfour.xes.model.impl.XAttributeMapCompactImpl;
+import org.deckfour.xes.model.impl.XAttributeMapShapedImpl;
+import org.deckfour.xes.model.impl.XAttributeShape;
+import org.deckfour.xes.util.XAttributeUtils;
 
 /**
  * This abstract class describes a parser for reading
@@ -95,6 +104,9 @@ public abstract class XParser {
 	 * to check whether it can be handled. If the parser cannot
 	 * handle the given file, or the extraction itself fails,
 	 * the parser should raise an <code>IOException</code>.
+	 * If the snapshot cache is enabled, the logs are loaded
+	 * from a valid snapshot of the file if present, and a
+	 * snapshot is stored after parsing otherwise.
 	 * 
 	 * @param file The file to be parsed.
 	 * @return List of XLog instances parsed from the given
@@ -104,13 +116,63 @@ public abstract class XParser {
 	 */
 	public List<XLog> parse(File file) throws Exception {
 		if(canParse(file)) {
-			InputStream is = new FileInputStream(file);
-			return parse(is);
+			XLogSnapshotCache cache = XLogSnapshotCache.instance();
+			if(cache.isEnabled()) {
+				List<XLog> logs = cache.load(file, this);
+				if(logs != null) {
+					return logs;
+				}
+			}
+			// the snapshot describes the file as it was before parsing
+			long length = file.length();
+			long lastModified = file.lastModified();
+			List<XLog> logs = parseFile(file);
+			if(cache.isEnabled()) {
+				cache.store(file, length, lastModified, this, logs);
+			}
+			return logs;
 		} else {
 			throw new IllegalArgumentException("Parser cannot handle this file!");
 		}
 	}
 	
+	/**
+	 * Parses the given file, which has already been checked against
+	 * this parser, bypassing the snapshot cache. Defaults to parsing
+	 * an input stream on the file; parsers may override this to access
+	 * the file directly.
+	 * 
+	 * @param file The file to be parsed.
+	 * @return List of XLog instances parsed from the given
+	 * 	file.
+	 */
+	protected List<XLog> parseFile(File file) throws Exception {
+		InputStream is = new FileInputStream(file);
+		return parse(is);
+	}
+	
+	/**
+	 * Returns the factory used by this parser to build the model.
+	 * Defaults to the currently-set standard factory.
+	 * 
+	 * @return The factory used to build the model.
+	 */
+	protected XFactory getFactory() {
+		return XFactoryRegistry.instance().currentDefault();
+	}
+	
+	/**
+	 * Returns a description of the options of this parser which affect the
+	 * parsed logs. Snapshots of parsed logs are kept per configuration (see
+	 * {@link XLogSnapshotCache}). Defaults to the name of the factory class;
+	 * parsers with options extend this.
+	 * 
+	 * @return The configuration of this parser.
+	 */
+	protected String getConfiguration() {
+		return getFactory().getClass().getName();
+	}
+
 	/**
 	 * toString() defaults to name().
 	 */
@@ -140,4 +202,58 @@ public abstract class XParser {
 		}
 		return name.substring(i).equalsIgnoreCase(suffix);
 	}
+
+	/**
+	 * Pre-sizes the given attribute map for the given number of attributes,
+	 * if its implementation supports this. Parsers use the size of the
+	 * previous event, since the events of a log mostly have the same
+	 * attributes.
+	 * 
+	 * @param attributes
+	 *            The attribute map to pre-size.
+	 * @param size
+	 *            The expected number of attributes.
+	 */
+	protected static void presize(XAttributeMap attributes, int size) {
+		presize(attributes, size, null);
+	}
+
+	/**
+	 * Pre-sizes the given, empty attribute map for the given number of
+	 * attributes, or, for shaped maps, seeds it with the given shape, if its
+	 * implementation supports this. Parsers use the size of the previous
+	 * event, and the shape of the global event attributes.
+	 * 
+	 * @param attributes
+	 *            The attribute map to pre-size.
+	 * @param size
+	 *            The expected number of attributes.
+	 * @param shape
+	 *            The expected shape, may be <code>null</code>.
+	 */
+	protected static void presize(XAttributeMap attributes, int size,
+			XAttributeShape shape) {
+		if (size > 0 && attributes instanceof XAttributeMapCompactImpl) {
+			((XAttributeMapCompactImpl) attributes).ensureCapacity(size);
+		} else if (shape != null
+				&& attributes instanceof XAttributeMapShapedImpl
+				&& attributes.isEmpty()) {
+			((XAttributeMapShapedImpl) attributes).setShape(shape);
+		}
+	}
+
+	/**
+	 * Returns a modifiable version of the given attribute, i.e., a private
+	 * clone if the attribute is shared (see
+	 * {@link XAttributeImpl#isShared()}), and the attribute itself otherwise.
+	 * Parsers use this before adding meta-attributes to an attribute created
+	 * by the factory.
+	 * 
+	 * @param attribute
+	 *            The attribute.
+	 * @return The attribute or its clone.
+	 */
+	protected static XAttribute unshare(XAttribute attribute) {
+		return XAttributeUtils.unshare(attribute);
+	}
 }
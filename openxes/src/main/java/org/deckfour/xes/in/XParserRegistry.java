@@ -73,6 +73,9 @@ public class XParserRegistry extends XRegistry<XParser> {
 		register(new XMxmlParser());
 		register(new XMxmlGZIPParser());
 		register(new XesXmlParser());
+		register(new XesBinaryParser());
+		register(new XCsvParser());
+		register(new XesJsonParser());
 		setCurrentDefault(new XesXmlGZIPParser());
 	}
 
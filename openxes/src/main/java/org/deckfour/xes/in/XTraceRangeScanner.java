@@ -0,0 +1,329 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.in;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.deckfour.xes.util.XSourceRange;
+
+/**
+ * Input filter recording the byte ranges of all trace elements in an XES XML
+ * document while it is read by the XML parser. The ranges are queued in
+ * document order, so that the parser can retrieve the range of each trace
+ * once it has seen its end tag.
+ * 
+ * The scanner understands just enough XML to find trace tags, i.e., it skips
+ * comments, CDATA sections, processing instructions and quoted attribute
+ * values.
+ * 
+ */
+class XTraceRangeScanner extends FilterInputStream {
+
+	private static final int TEXT = 0;
+	private static final int MARKUP = 1;
+	private static final int NAME = 2;
+	private static final int TAG = 3;
+	private static final int QUOTED = 4;
+	private static final int BANG = 5;
+	private static final int BANG_DASH = 6;
+	private static final int COMMENT = 7;
+	private static final int CDATA = 8;
+	private static final int PI = 9;
+
+	private static final byte[] START_NAME = { 't', 'r', 'a', 'c', 'e' };
+	private static final byte[] END_NAME = { '/', 't', 'r', 'a', 'c', 'e' };
+
+	private final File file;
+	private final long fileLength;
+	private final long fileModified;
+
+	private long position;
+	private int state;
+	private long tagStart;
+	private long traceStart;
+	private int nameLength;
+	private boolean startMatches;
+	private boolean endMatches;
+	private byte quote;
+	private byte previous;
+	private int count;
+
+	private long[] ranges;
+	private int head;
+	private int tail;
+
+	/**
+	 * Creates a new scanner.
+	 * 
+	 * @param in
+	 *            Stream reading the given file from its start.
+	 * @param file
+	 *            The source file.
+	 */
+	XTraceRangeScanner(InputStream in, File file) {
+		super(in);
+		this.file = file;
+		this.fileLength = file.length();
+		this.fileModified = file.lastModified();
+		this.position = 0;
+		this.state = TEXT;
+		this.traceStart = -1;
+		this.ranges = new long[256];
+		this.head = 0;
+		this.tail = 0;
+	}
+
+	/**
+	 * Returns the range of the next trace in document order, or
+	 * <code>null</code> if no further trace has been read completely.
+	 * 
+	 * @param fingerprint
+	 *            Fingerprint of the parsed trace.
+	 * @param globalsFingerprint
+	 *            Fingerprint of the global attributes of the parsed log.
+	 * @param globalDefaultsShared
+	 *            Whether the parser filled in global defaults.
+	 */
+	XSourceRange nextRange(long fingerprint, long globalsFingerprint,
+			boolean globalDefaultsShared) {
+		if (head == tail) {
+			return null;
+		}
+		XSourceRange range = new XSourceRange(file, fileLength, fileModified,
+				ranges[head], ranges[head + 1], fingerprint,
+				globalsFingerprint, globalDefaultsShared);
+		head += 2;
+		return range;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.FilterInputStream#read()
+	 */
+	public int read() throws IOException {
+		int b = in.read();
+		if (b >= 0) {
+			scan((byte) b);
+		}
+		return b;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.FilterInputStream#read(byte[], int, int)
+	 */
+	public int read(byte[] b, int off, int len) throws IOException {
+		int read = in.read(b, off, len);
+		for (int i = 0; i < read; i++) {
+			scan(b[off + i]);
+		}
+		return read;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.FilterInputStream#skip(long)
+	 */
+	public long skip(long n) throws IOException {
+		byte[] buffer = new byte[(int) Math.min(n, 8192)];
+		long skipped = 0;
+		while (skipped < n) {
+			int read = read(buffer, 0,
+					(int) Math.min(buffer.length, n - skipped));
+			if (read < 0) {
+				break;
+			}
+			skipped += read;
+		}
+		return skipped;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.FilterInputStream#markSupported()
+	 */
+	public boolean markSupported() {
+		return false;
+	}
+
+	private void scan(byte b) {
+		switch (state) {
+		case TEXT:
+			if (b == '<') {
+				tagStart = position;
+				state = MARKUP;
+			}
+			break;
+		case MARKUP:
+			if (b == '!') {
+				state = BANG;
+			} else if (b == '?') {
+				count = 0;
+				state = PI;
+			} else {
+				nameLength = 0;
+				startMatches = true;
+				endMatches = true;
+				state = NAME;
+				scanName(b);
+			}
+			break;
+		case NAME:
+			scanName(b);
+			break;
+		case TAG:
+			scanTag(b);
+			break;
+		case QUOTED:
+			if (b == quote) {
+				state = TAG;
+			}
+			break;
+		case BANG:
+			if (b == '-') {
+				state = BANG_DASH;
+			} else if (b == '[') {
+				count = 0;
+				state = CDATA;
+			} else {
+				state = TAG;
+				scanTag(b);
+			}
+			break;
+		case BANG_DASH:
+			count = 0;
+			state = b == '-' ? COMMENT : TAG;
+			break;
+		case COMMENT:
+			if (b == '-') {
+				count++;
+			} else if (b == '>' && count >= 2) {
+				state = TEXT;
+			} else {
+				count = 0;
+			}
+			break;
+		case CDATA:
+			if (b == ']') {
+				count++;
+			} else if (b == '>' && count >= 2) {
+				state = TEXT;
+			} else {
+				count = 0;
+			}
+			break;
+		case PI:
+			if (b == '>' && count > 0) {
+				state = TEXT;
+			} else {
+				count = b == '?' ? 1 : 0;
+			}
+			break;
+		default:
+			break;
+		}
+		position++;
+	}
+
+	private void scanName(byte b) {
+		if (b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '>'
+				|| (b == '/' && nameLength > 0)) {
+			startMatches &= nameLength == START_NAME.length;
+			endMatches &= nameLength == END_NAME.length;
+			previous = 0;
+			state = TAG;
+			scanTag(b);
+		} else {
+			byte lower = (byte) Character.toLowerCase((char) (b & 0xff));
+			startMatches &= nameLength < START_NAME.length
+					&& START_NAME[nameLength] == lower;
+			endMatches &= nameLength < END_NAME.length
+					&& END_NAME[nameLength] == lower;
+			nameLength++;
+		}
+	}
+
+	private void scanTag(byte b) {
+		if (b == '"' || b == '\'') {
+			quote = b;
+			state = QUOTED;
+		} else if (b == '>') {
+			if (startMatches) {
+				if (previous == '/') {
+					addRange(tagStart, position + 1);
+				} else {
+					traceStart = tagStart;
+				}
+			} else if (endMatches && traceStart >= 0) {
+				addRange(traceStart, position + 1);
+				traceStart = -1;
+			}
+			startMatches = false;
+			endMatches = false;
+			state = TEXT;
+		} else if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+			previous = b;
+		}
+	}
+
+	private void addRange(long start, long end) {
+		if (tail == ranges.length) {
+			if (head > 0) {
+				System.arraycopy(ranges, head, ranges, 0, tail - head);
+				tail -= head;
+				head = 0;
+			}
+			if (tail == ranges.length) {
+				long[] grown = new long[ranges.length * 2];
+				System.arraycopy(ranges, 0, grown, 0, tail);
+				ranges = grown;
+			}
+		}
+		ranges[tail++] = start;
+		ranges[tail++] = end;
+	}
+
+}
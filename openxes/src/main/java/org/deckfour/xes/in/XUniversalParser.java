@@ -48,6 +48,9 @@ import org.deckfour.xes.model.XLog;
  * registry to find an appropriate parser for extracting an
  * XES model from any given file. May be used as a convenience
  * method for applications.
+ * Parsing goes through {@link XParser#parse(File)}, so that
+ * logs are transparently loaded from the snapshot cache
+ * (see {@link XLogSnapshotCache}) when it is enabled.
  * 
  * @author Christian W. Guenther (christian@deckfour.org)
  */
@@ -0,0 +1,295 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.in;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.deckfour.xes.classification.XEventAttributeClassifier;
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.extension.XExtensionManager;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.id.XID;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.buffered.XAttributeMapPortableSerializerImpl;
+import org.deckfour.xes.model.buffered.XTraceBufferedImpl;
+import org.deckfour.xes.out.XesBinarySerializer;
+
+/**
+ * Parser for the binary XES serialization, as written by
+ * {@link XesBinarySerializer}.
+ * 
+ */
+public class XesBinaryParser extends XParser {
+
+	/**
+	 * XES model factory used to build model.
+	 */
+	protected XFactory factory;
+
+	/**
+	 * Creates a new parser instance.
+	 * 
+	 * @param factory
+	 *            The XES model factory instance used to build the model from
+	 *            the serialization.
+	 */
+	public XesBinaryParser(XFactory factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * Creates a new parser instance, using the currently-set standard factory
+	 * for building the model.
+	 */
+	public XesBinaryParser() {
+		this(XFactoryRegistry.instance().currentDefault());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.in.XParser#author()
+	 */
+	@Override
+	public String author() {
+		return "Christian W. Günther";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.in.XParser#canParse(java.io.File)
+	 */
+	@Override
+	public boolean canParse(File file) {
+		return endsWithIgnoreCase(file.getName(), ".xesb");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.in.XParser#description()
+	 */
+	@Override
+	public String description() {
+		return "Reads XES models from binary serializations";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.in.XParser#name()
+	 */
+	@Override
+	public String name() {
+		return "XES Binary";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.in.XParser#getFactory()
+	 */
+	@Override
+	protected XFactory getFactory() {
+		return factory;
+	}
+
+	/**
+	 * Parses the given file. Binary files are read directly, bypassing the
+	 * snapshot cache.
+	 * 
+	 * @see org.deckfour.xes.in.XParser#parse(java.io.File)
+	 */
+	@Override
+	public List<XLog> parse(File file) throws Exception {
+		if (canParse(file)) {
+			return parse(new FileInputStream(file));
+		} else {
+			throw new IllegalArgumentException("Parser cannot handle this file!");
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.in.XParser#parse(java.io.InputStream)
+	 */
+	@Override
+	public List<XLog> parse(InputStream is) throws Exception {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(is,
+				65536));
+		try {
+			ArrayList<XLog> wrapper = new ArrayList<XLog>();
+			wrapper.add(read(in));
+			return wrapper;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads a single log from the given input, which has to be positioned at
+	 * the start of a binary serialization. The input is left positioned
+	 * after the serialized log.
+	 * 
+	 * @param in
+	 *            Data input to read from.
+	 * @return The log read.
+	 * @throws IOException
+	 */
+	public XLog read(DataInput in) throws IOException {
+		XAttributeMapPortableSerializerImpl serializer = readHeader(in);
+		XLog log = factory.createLog();
+		readLogHeader(in, serializer, log);
+		int traces = in.readInt();
+		for (int t = 0; t < traces; t++) {
+			int events = in.readInt();
+			// event offsets are only needed for random access
+			skipFully(in, 4L * events);
+			XTrace trace = factory.createTrace(serializer.deserialize(in));
+			for (int e = 0; e < events; e++) {
+				XID id = XID.read(in);
+				XAttributeMap attributes = serializer.deserialize(in);
+				XEvent event = factory.createEvent(id, attributes);
+				trace.add(event);
+			}
+			if (trace instanceof XTraceBufferedImpl) {
+				((XTraceBufferedImpl) trace).consolidate();
+			}
+			log.add(trace);
+		}
+		// skip index and trailer
+		skipFully(in, 8L * (traces + 1) + XesBinarySerializer.TRAILER_SIZE);
+		return log;
+	}
+
+	private static void skipFully(DataInput in, long bytes) throws IOException {
+		while (bytes > 0) {
+			int skipped = in.skipBytes((int) Math.min(bytes, Integer.MAX_VALUE));
+			if (skipped <= 0) {
+				// skipping not supported here, read instead
+				in.readByte();
+				skipped = 1;
+			}
+			bytes -= skipped;
+		}
+	}
+
+	/**
+	 * Reads and checks the magic number and version of a binary
+	 * serialization, followed by its extension table.
+	 * 
+	 * @param in
+	 *            Data input to read from.
+	 * @return An attribute map serializer prepared for reading the attribute
+	 *         maps of this serialization.
+	 * @throws IOException
+	 */
+	public XAttributeMapPortableSerializerImpl readHeader(DataInput in)
+			throws IOException {
+		if (in.readInt() != XesBinarySerializer.MAGIC) {
+			throw new IOException("Not a binary XES serialization!");
+		}
+		int version = in.readInt();
+		if (version != XesBinarySerializer.VERSION) {
+			throw new IOException("Unsupported binary XES version: "
+					+ version);
+		}
+		XAttributeMapPortableSerializerImpl serializer = new XAttributeMapPortableSerializerImpl(
+				factory);
+		serializer.readExtensionTable(in);
+		return serializer;
+	}
+
+	/**
+	 * Reads the log header (extensions, classifiers, global and log
+	 * attributes) into the given log.
+	 * 
+	 * @param in
+	 *            Data input to read from.
+	 * @param serializer
+	 *            Attribute map serializer, as returned by
+	 *            {@link #readHeader(DataInput)}.
+	 * @param log
+	 *            The log to read the header into.
+	 * @throws IOException
+	 */
+	public static void readLogHeader(DataInput in,
+			XAttributeMapPortableSerializerImpl serializer, XLog log)
+			throws IOException {
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			String uri = in.readUTF();
+			XExtension extension = XExtensionManager.instance().getByUri(
+					URI.create(uri));
+			if (extension != null) {
+				log.getExtensions().add(extension);
+			}
+		}
+		size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			String name = in.readUTF();
+			String[] keys = new String[in.readInt()];
+			for (int k = 0; k < keys.length; k++) {
+				keys[k] = in.readUTF();
+			}
+			log.getClassifiers().add(new XEventAttributeClassifier(name, keys));
+		}
+		log.getGlobalTraceAttributes().addAll(
+				serializer.deserialize(in).values());
+		log.getGlobalEventAttributes().addAll(
+				serializer.deserialize(in).values());
+		log.getAttributes().putAll(serializer.deserialize(in));
+	}
+
+}
@@ -0,0 +1,475 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.in;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.deckfour.xes.classification.XEventAttributeClassifier;
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.extension.XExtensionManager;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.id.XID;
+import org.deckfour.xes.logging.XLogging;
+import org.deckfour.xes.model.XAttributable;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeCollection;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.buffered.XTraceBufferedImpl;
+import org.deckfour.xes.model.impl.XAttributeShape;
+import org.deckfour.xes.util.XsDateTimeConversion;
+import org.deckfour.xes.util.XsDateTimeConversionJava7;
+
+/**
+ * Parser for the JSON serialization of the XES format, as written by
+ * {@link org.deckfour.xes.out.XesJsonSerializer}.
+ * 
+ * The document is tokenized incrementally, and the model is built while
+ * reading, without an intermediate document tree. Members may appear in any
+ * order, and unknown members are skipped.
+ * 
+ */
+public class XesJsonParser extends XParser {
+
+	/**
+	 * XES model factory used to build model.
+	 */
+	protected XFactory factory;
+
+	protected XsDateTimeConversion xsDateTimeConversion = new XsDateTimeConversionJava7();
+
+	/**
+	 * Creates a new parser instance.
+	 * 
+	 * @param factory
+	 *            The XES model factory instance used to build the model.
+	 */
+	public XesJsonParser(XFactory factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * Creates a new parser instance, using the currently-set standard factory
+	 * for building the model.
+	 */
+	public XesJsonParser() {
+		this(XFactoryRegistry.instance().currentDefault());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.in.XParser#author()
+	 */
+	@Override
+	public String author() {
+		return "Christian W. Günther";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.in.XParser#canParse(java.io.File)
+	 */
+	@Override
+	public boolean canParse(File file) {
+		return endsWithIgnoreCase(file.getName(), ".json");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.in.XParser#description()
+	 */
+	@Override
+	public String description() {
+		return "Reads XES models from JSON serializations";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.in.XParser#name()
+	 */
+	@Override
+	public String name() {
+		return "XES JSON";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.in.XParser#getFactory()
+	 */
+	@Override
+	protected XFactory getFactory() {
+		return factory;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.in.XParser#parse(java.io.InputStream)
+	 */
+	@Override
+	public List<XLog> parse(InputStream is) throws Exception {
+		XLogging.log("start parsing XES.JSON", XLogging.Importance.DEBUG);
+		long start = System.currentTimeMillis();
+		XLog log;
+		try {
+			XJsonReader json = new XJsonReader(new BufferedReader(
+					new InputStreamReader(is, StandardCharsets.UTF_8),
+					64 * 1024));
+			log = new LogReader(json).readLog();
+		} finally {
+			is.close();
+		}
+		String duration = " (" + (System.currentTimeMillis() - start)
+				+ " msec.)";
+		XLogging.log("finished parsing " + log.size() + " traces" + duration,
+				XLogging.Importance.DEBUG);
+		ArrayList<XLog> wrapper = new ArrayList<XLog>();
+		wrapper.add(log);
+		return wrapper;
+	}
+
+	/**
+	 * Reader for a single XES log in JSON representation, holding the state
+	 * of the parse, so that a parser can be used by several threads at once.
+	 */
+	private class LogReader {
+
+		/**
+		 * JSON token reader.
+		 */
+		private final XJsonReader json;
+		/**
+		 * Number of attributes of the previously parsed event.
+		 */
+		private int eventSize;
+		/**
+		 * Shape of the global event attributes of the log being parsed,
+		 * seeding the attribute maps of events.
+		 */
+		private XAttributeShape eventShape;
+
+		/**
+		 * Creates a new reader instance.
+		 * 
+		 * @param json
+		 *            JSON token reader positioned at the start of the log.
+		 */
+		LogReader(XJsonReader json) {
+			this.json = json;
+			eventSize = 0;
+			eventShape = null;
+		}
+
+		private XLog readLog() throws IOException {
+			XLog log = factory.createLog();
+			json.beginObject();
+			while (json.hasNext()) {
+				String name = json.nextName();
+				if (name.equals("extensions")) {
+					json.beginArray();
+					while (json.hasNext()) {
+						readExtension(log);
+					}
+					json.endArray();
+				} else if (name.equals("globals")) {
+					json.beginObject();
+					while (json.hasNext()) {
+						String scope = json.nextName();
+						if (scope.equalsIgnoreCase("trace")) {
+							readAttributes(log.getGlobalTraceAttributes());
+						} else if (scope.equalsIgnoreCase("event")) {
+							readAttributes(log.getGlobalEventAttributes());
+						} else {
+							json.skipValue();
+						}
+					}
+					json.endObject();
+				} else if (name.equals("classifiers")) {
+					json.beginArray();
+					while (json.hasNext()) {
+						readClassifier(log);
+					}
+					json.endArray();
+				} else if (name.equals("attributes")) {
+					readAttributes(log);
+				} else if (name.equals("traces")) {
+					eventShape = XAttributeShape.of(log.getGlobalEventAttributes());
+					json.beginArray();
+					while (json.hasNext()) {
+						log.add(readTrace());
+					}
+					json.endArray();
+				} else {
+					json.skipValue();
+				}
+			}
+			json.endObject();
+			return log;
+		}
+
+		private void readExtension(XLog log) throws IOException {
+			String prefix = null;
+			String uri = null;
+			json.beginObject();
+			while (json.hasNext()) {
+				String name = json.nextName();
+				if (name.equals("prefix")) {
+					prefix = json.nextString();
+				} else if (name.equals("uri")) {
+					uri = json.nextString();
+				} else {
+					json.skipValue();
+				}
+			}
+			json.endObject();
+			XExtension extension = null;
+			if (uri != null) {
+				extension = XExtensionManager.instance().getByUri(URI.create(uri));
+			} else if (prefix != null) {
+				extension = XExtensionManager.instance().getByPrefix(prefix);
+			}
+			if (extension != null) {
+				log.getExtensions().add(extension);
+			} else {
+				System.err.println("Unknown extension: " + uri);
+			}
+		}
+
+		private void readClassifier(XLog log) throws IOException {
+			String name = null;
+			List<String> keys = new ArrayList<String>();
+			json.beginObject();
+			while (json.hasNext()) {
+				String member = json.nextName();
+				if (member.equals("name")) {
+					name = json.nextString();
+				} else if (member.equals("keys")) {
+					json.beginArray();
+					while (json.hasNext()) {
+						keys.add(json.nextString());
+					}
+					json.endArray();
+				} else {
+					json.skipValue();
+				}
+			}
+			json.endObject();
+			if (name != null && name.length() > 0 && keys.size() > 0) {
+				log.getClassifiers().add(
+						new XEventAttributeClassifier(name, keys
+								.toArray(new String[keys.size()])));
+			}
+		}
+
+		private XTrace readTrace() throws IOException {
+			XTrace trace = factory.createTrace();
+			json.beginObject();
+			while (json.hasNext()) {
+				String name = json.nextName();
+				if (name.equals("attributes")) {
+					readAttributes(trace);
+				} else if (name.equals("events")) {
+					json.beginArray();
+					while (json.hasNext()) {
+						XEvent event = factory.createEvent();
+						presize(event.getAttributes(), eventSize, eventShape);
+						json.beginObject();
+						while (json.hasNext()) {
+							if (json.nextName().equals("attributes")) {
+								readAttributes(event);
+							} else {
+								json.skipValue();
+							}
+						}
+						json.endObject();
+						eventSize = event.getAttributes().size();
+						trace.add(event);
+					}
+					json.endArray();
+				} else {
+					json.skipValue();
+				}
+			}
+			json.endObject();
+			if (trace instanceof XTraceBufferedImpl) {
+				((XTraceBufferedImpl) trace).consolidate();
+			}
+			return trace;
+		}
+
+		/**
+		 * Reads an array of attributes into the given attributable. Attributes of
+		 * collections are added to the collection as well.
+		 */
+		private void readAttributes(XAttributable parent)
+				throws IOException {
+			json.beginArray();
+			while (json.hasNext()) {
+				XAttribute attribute = readAttribute();
+				if (attribute != null) {
+					parent.getAttributes().put(attribute.getKey(), attribute);
+					if (parent instanceof XAttributeCollection) {
+						((XAttributeCollection) parent).addToCollection(attribute);
+					}
+				}
+			}
+			json.endArray();
+		}
+
+		/**
+		 * Reads an array of attributes into the given collection.
+		 */
+		private void readAttributes(Collection<XAttribute> attributes) throws IOException {
+			json.beginArray();
+			while (json.hasNext()) {
+				XAttribute attribute = readAttribute();
+				if (attribute != null) {
+					attributes.add(attribute);
+				}
+			}
+			json.endArray();
+		}
+
+		/**
+		 * Reads an attribute object, including its nested attributes.
+		 * 
+		 * @return The attribute, or <code>null</code> if it has an unknown type
+		 *         or unparseable date.
+		 */
+		private XAttribute readAttribute() throws IOException {
+			String key = "";
+			String type = null;
+			String value = "";
+			List<XAttribute> children = null;
+			json.beginObject();
+			while (json.hasNext()) {
+				String name = json.nextName();
+				if (name.equals("key")) {
+					key = json.nextString();
+				} else if (name.equals("type")) {
+					type = json.nextString();
+				} else if (name.equals("value")) {
+					value = json.nextString();
+				} else if (name.equals("attributes")) {
+					children = new ArrayList<XAttribute>();
+					readAttributes(children);
+				} else {
+					json.skipValue();
+				}
+			}
+			json.endObject();
+			if (type == null || key == null || value == null) {
+				return null;
+			}
+			// derive extension, if attribute key hints that
+			XExtension extension = null;
+			int colonIndex = key.indexOf(':');
+			if (colonIndex > 0 && colonIndex < (key.length() - 1)) {
+				extension = XExtensionManager.instance().getByPrefix(
+						key.substring(0, colonIndex));
+			}
+			// create attribute of correct type
+			XAttribute attribute;
+			try {
+				if (type.equals("string")) {
+					attribute = factory.createAttributeLiteral(key, value,
+							extension);
+				} else if (type.equals("date")) {
+					Date date = xsDateTimeConversion.parseXsDateTime(value);
+					if (date == null) {
+						return null;
+					}
+					attribute = factory.createAttributeTimestamp(key, date,
+							extension);
+				} else if (type.equals("int")) {
+					attribute = factory.createAttributeDiscrete(key,
+							Long.parseLong(value), extension);
+				} else if (type.equals("float")) {
+					attribute = factory.createAttributeContinuous(key,
+							Double.parseDouble(value), extension);
+				} else if (type.equals("boolean")) {
+					attribute = factory.createAttributeBoolean(key,
+							Boolean.parseBoolean(value), extension);
+				} else if (type.equals("id")) {
+					attribute = factory.createAttributeID(key, XID.parse(value),
+							extension);
+				} else if (type.equals("list")) {
+					attribute = factory.createAttributeList(key, extension);
+				} else if (type.equals("container")) {
+					attribute = factory.createAttributeContainer(key, extension);
+				} else {
+					return null;
+				}
+			} catch (NumberFormatException e) {
+				throw new IOException("Invalid " + type + " value '" + value
+						+ "' of attribute " + key + " before character "
+						+ json.getPosition(), e);
+			}
+			if (children != null) {
+				attribute = unshare(attribute);
+				for (XAttribute child : children) {
+					attribute.getAttributes().put(child.getKey(), child);
+					if (attribute instanceof XAttributeCollection) {
+						((XAttributeCollection) attribute).addToCollection(child);
+					}
+				}
+			}
+			return attribute;
+		}
+
+	}
+
+}
@@ -123,6 +123,16 @@ public class XesXmlGZIPParser extends XesXmlParser {
 		is = new GZIPInputStream(new BufferedInputStream(is));
 		return super.parse(is);
 	}
+
+	/**
+	 * Source ranges cannot be recorded for compressed files.
+	 * 
+	 * @see org.deckfour.xes.in.XesXmlParser#canRecordSourceRanges(java.io.File)
+	 */
+	@Override
+	protected boolean canRecordSourceRanges(File file) {
+		return false;
+	}
 	
 	
 
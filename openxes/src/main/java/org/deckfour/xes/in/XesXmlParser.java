@@ -40,13 +40,18 @@ package org.deckfour.xes.in;
 
 import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Stack;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
@@ -61,16 +66,22 @@ import org.deckfour.xes.id.XID;
 import org.deckfour.xes.model.XAttributable;
 import org.deckfour.xes.model.XAttribute;
 import org.deckfour.xes.model.XAttributeCollection;
+import org.deckfour.xes.model.XAttributeMap;
 import org.deckfour.xes.model.XEvent;
 import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XSourceTracked;
 import org.deckfour.xes.model.XTrace;
 import org.deckfour.xes.model.buffered.XTraceBufferedImpl;
+import org.deckfour.xes.model.impl.XAttributeMapFrozenImpl;
+import org.deckfour.xes.model.impl.XAttributeShape;
+import org.deckfour.xes.util.XAttributeUtils;
+import org.deckfour.xes.util.XSourceRange;
 import org.deckfour.xes.util.XTokenHelper;
 import org.deckfour.xes.util.XsDateTimeConversion;
 import org.deckfour.xes.util.XsDateTimeConversionJava7;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
-import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.ext.DefaultHandler2;
 
 /**
  * Parser for the XES XML serialization.
@@ -88,11 +99,34 @@ public class XesXmlParser extends XParser {
 	protected static final URI XES_URI = URI
 			.create("http://www.xes-standard.org/");
 
+	/**
+	 * Maximum size hint used to pre-size the trace list of a log or the
+	 * event list of a trace, so that hostile or corrupt hints cannot exhaust
+	 * the memory.
+	 */
+	protected static final int MAX_SIZE_HINT = 1 << 20;
+
+	/**
+	 * SAX property for the handler of comments.
+	 */
+	private static final String LEXICAL_HANDLER = "http://xml.org/sax/properties/lexical-handler";
+
 	/**
 	 * XES model factory used to build model.
 	 */
 	protected XFactory factory;
 
+	/**
+	 * Whether the source byte ranges of traces are recorded when parsing
+	 * files.
+	 */
+	protected boolean recordSourceRanges = false;
+
+	/**
+	 * Whether global attribute defaults are shared by traces and events.
+	 */
+	protected boolean shareGlobalDefaults = false;
+
 	/**
 	 * Creates a new parser instance.
 	 * 
@@ -155,6 +189,136 @@ public class XesXmlParser extends XParser {
 		return "XES XML";
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.in.XParser#getFactory()
+	 */
+	@Override
+	protected XFactory getFactory() {
+		return factory;
+	}
+
+	/**
+	 * Returns whether the source byte ranges of traces are recorded when
+	 * parsing files.
+	 */
+	public boolean isRecordSourceRanges() {
+		return recordSourceRanges;
+	}
+
+	/**
+	 * Sets whether the source byte ranges of traces are recorded when parsing
+	 * files. Off by default. If enabled, traces implementing
+	 * {@link XSourceTracked} remember their range in the source file and a
+	 * fingerprint of their content, which allows serializers to copy
+	 * unmodified traces verbatim. Recording is skipped (and the snapshot
+	 * cache bypassed) for sources which cannot be accessed by byte position,
+	 * like compressed files or files not encoded in UTF-8.
+	 * 
+	 * @param recordSourceRanges
+	 *            Whether to record source ranges.
+	 */
+	public void setRecordSourceRanges(boolean recordSourceRanges) {
+		this.recordSourceRanges = recordSourceRanges;
+	}
+
+	/**
+	 * Returns whether global attribute defaults are shared by traces and
+	 * events.
+	 */
+	public boolean isShareGlobalDefaults() {
+		return shareGlobalDefaults;
+	}
+
+	/**
+	 * Sets whether global attribute defaults are shared by traces and events.
+	 * Off by default. If enabled, trace and event attributes which are
+	 * missing, or which are equal to the default declared by the
+	 * corresponding global attribute, are served by a single, frozen copy of
+	 * the global attribute. This restores attributes omitted by
+	 * {@link org.deckfour.xes.out.XesXmlSerializer#setElideGlobalDefaults(boolean)}
+	 * and avoids holding a copy of the default per trace or event. Shared
+	 * attributes cannot be modified in place; to change the value for a
+	 * single trace or event, put a new attribute instead. The global
+	 * attributes of the log itself are not shared, and remain modifiable.
+	 * 
+	 * @param shareGlobalDefaults
+	 *            Whether to share global attribute defaults.
+	 */
+	public void setShareGlobalDefaults(boolean shareGlobalDefaults) {
+		this.shareGlobalDefaults = shareGlobalDefaults;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.in.XParser#getConfiguration()
+	 */
+	@Override
+	protected String getConfiguration() {
+		return super.getConfiguration() + ";shareGlobalDefaults="
+				+ shareGlobalDefaults + ";xsDateTimeConversion="
+				+ xsDateTimeConversion.getClass().getName();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.in.XParser#parse(java.io.File)
+	 */
+	@Override
+	public List<XLog> parse(File file) throws Exception {
+		if (recordSourceRanges && canParse(file)
+				&& canRecordSourceRanges(file)) {
+			XesXmlHandler handler = new XesXmlHandler();
+			handler.scanner = new XTraceRangeScanner(new FileInputStream(
+					file), file);
+			return parse(handler.scanner, handler);
+		} else {
+			return super.parse(file);
+		}
+	}
+
+	/**
+	 * Checks whether source ranges can be recorded for the given file. This
+	 * requires an uncompressed file encoded in UTF-8 (or ASCII).
+	 * 
+	 * @param file
+	 *            The file to be parsed.
+	 */
+	protected boolean canRecordSourceRanges(File file) throws IOException {
+		byte[] head = new byte[256];
+		int length = 0;
+		InputStream is = new FileInputStream(file);
+		try {
+			int read;
+			while (length < head.length
+					&& (read = is.read(head, length, head.length - length)) > 0) {
+				length += read;
+			}
+		} finally {
+			is.close();
+		}
+		String prolog = new String(head, 0, length, StandardCharsets.ISO_8859_1);
+		if (prolog.startsWith("\u00EF\u00BB\u00BF")) {
+			// UTF-8 byte order mark
+			prolog = prolog.substring(3);
+		}
+		if (!prolog.startsWith("<")) {
+			return false;
+		}
+		Matcher encoding = Pattern.compile(
+				"^<\\?xml[^>]*encoding\\s*=\\s*[\"']([^\"']*)").matcher(prolog);
+		if (encoding.find()) {
+			String name = encoding.group(1).trim();
+			return name.equalsIgnoreCase("UTF-8")
+					|| name.equalsIgnoreCase("UTF8")
+					|| name.equalsIgnoreCase("US-ASCII");
+		}
+		return true;
+	}
+
 	/**
 	 * Parses a log from the given input stream, which is supposed to deliver an
 	 * XES log in XML representation.
@@ -165,13 +329,18 @@ public class XesXmlParser extends XParser {
 	 * @return The parsed log.
 	 */
 	public List<XLog> parse(InputStream is) throws Exception {
-		BufferedInputStream bis = new BufferedInputStream(is);
 		// set up a specialized SAX2 handler to fill the container
-		XesXmlHandler handler = new XesXmlHandler();
+		return parse(is, new XesXmlHandler());
+	}
+
+	private List<XLog> parse(InputStream is, XesXmlHandler handler)
+			throws Exception {
+		BufferedInputStream bis = new BufferedInputStream(is);
 		// set up SAX parser and parse provided log file into the container
 		SAXParserFactory parserFactory = SAXParserFactory.newInstance();
 		parserFactory.setNamespaceAware(false);
 		SAXParser parser = parserFactory.newSAXParser();
+		parser.setProperty(LEXICAL_HANDLER, handler);
 		parser.parse(bis, handler);
 		bis.close();
 		ArrayList<XLog> wrapper = new ArrayList<XLog>();
@@ -179,13 +348,51 @@ public class XesXmlParser extends XParser {
 		return wrapper;
 	}
 
+	/**
+	 * Parses only the header of an XES log in XML representation, i.e., its
+	 * extensions, global attributes, classifiers and log attributes. Parsing
+	 * stops at the first trace, so the cost is independent of the log size.
+	 * The stream is closed afterwards.
+	 * 
+	 * @param is
+	 *            Input stream, which is supposed to deliver an XES log in XML
+	 *            representation.
+	 * @return The log header, as a log without traces.
+	 */
+	public XLog parseHeader(InputStream is) throws Exception {
+		BufferedInputStream bis = new BufferedInputStream(is);
+		XesXmlHandler handler = new XesXmlHandler();
+		handler.headerOnly = true;
+		SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+		parserFactory.setNamespaceAware(false);
+		SAXParser parser = parserFactory.newSAXParser();
+		parser.setProperty(LEXICAL_HANDLER, handler);
+		try {
+			parser.parse(bis, handler);
+		} catch (HeaderEndException e) {
+			// reached the first trace
+		} finally {
+			bis.close();
+		}
+		return handler.getLog();
+	}
+
+	/**
+	 * Signals the end of the header to abort parsing in header-only mode.
+	 */
+	protected static class HeaderEndException extends SAXException {
+
+		private static final long serialVersionUID = 1L;
+
+	}
+
 	/**
 	 * SAX handler class for XES in XML representation.
 	 * 
 	 * @author Christian W. Guenther (christian@deckfour.org)
 	 * 
 	 */
-	protected class XesXmlHandler extends DefaultHandler {
+	protected class XesXmlHandler extends DefaultHandler2 {
 
 		/**
 		 * Buffer log.
@@ -215,6 +422,36 @@ public class XesXmlParser extends XParser {
 		 * Buffer for globals.
 		 */
 		protected List<XAttribute> globals;
+		/**
+		 * Whether to stop parsing at the first trace.
+		 */
+		protected boolean headerOnly;
+		/**
+		 * Number of attributes of the previous event.
+		 */
+		protected int eventSize;
+		/**
+		 * Shape of the global event attributes, seeding the attribute maps
+		 * of events.
+		 */
+		protected XAttributeShape eventShape;
+		/**
+		 * Frozen copies of the global trace attributes, shared by traces.
+		 */
+		protected List<XAttribute> sharedTraceDefaults;
+		/**
+		 * Frozen copies of the global event attributes, shared by events.
+		 */
+		protected List<XAttribute> sharedEventDefaults;
+		/**
+		 * Scanner providing the source ranges of traces, if recorded.
+		 */
+		XTraceRangeScanner scanner;
+		/**
+		 * Fingerprint of the global attributes, recorded with the source
+		 * ranges of traces, or <code>null</code> if not computed yet.
+		 */
+		Long globalsFingerprint;
 
 		/**
 		 * Creates a new handler instance.
@@ -227,6 +464,9 @@ public class XesXmlParser extends XParser {
 			attributableStack = new Stack<XAttributable>();
 			extensions = new HashSet<XExtension>();
 			globals = null;
+			headerOnly = false;
+			eventSize = 0;
+			eventShape = null;
 		}
 
 		/**
@@ -321,9 +561,17 @@ public class XesXmlParser extends XParser {
 			} else if (tagName.equalsIgnoreCase("event")) {
 				// event element
 				event = factory.createEvent();
+				if (eventShape == null) {
+					eventShape = XAttributeShape.of(log
+							.getGlobalEventAttributes());
+				}
+				XParser.presize(event.getAttributes(), eventSize, eventShape);
 				attributableStack.push(event);
 			} else if (tagName.equalsIgnoreCase("trace")) {
 				// trace element
+				if (headerOnly) {
+					throw new HeaderEndException();
+				}
 				trace = factory.createTrace();
 				attributableStack.push(trace);
 			} else if (tagName.equalsIgnoreCase("log")) {
@@ -408,6 +656,14 @@ public class XesXmlParser extends XParser {
 				if (globals != null) {
 					globals.add(attribute);
 				} else {
+					if (!attributeStack.isEmpty()) {
+						// parent attribute receives a meta-attribute
+						XAttribute parent = unshare(attributeStack.peek());
+						if (parent != attributeStack.peek()) {
+							attributeStack.set(attributeStack.size() - 1, parent);
+							attributableStack.set(attributableStack.size() - 1, parent);
+						}
+					}
 					attributableStack.peek().getAttributes()
 							.put(attribute.getKey(), attribute);
 					if (!attributeStack.isEmpty() && attributeStack.peek() instanceof XAttributeCollection) {
@@ -417,13 +673,43 @@ public class XesXmlParser extends XParser {
 					}
 				}
 			} else if (tagName.equalsIgnoreCase("event")) {
+				if (shareGlobalDefaults) {
+					if (sharedEventDefaults == null) {
+						sharedEventDefaults = freeze(log
+								.getGlobalEventAttributes());
+					}
+					applyGlobalDefaults(event, sharedEventDefaults);
+				}
+				eventSize = event.getAttributes().size();
 				trace.add(event);
 				event = null;
 				attributableStack.pop(); // remove self from top
 			} else if (tagName.equalsIgnoreCase("trace")) {
+				if (shareGlobalDefaults) {
+					if (sharedTraceDefaults == null) {
+						sharedTraceDefaults = freeze(log
+								.getGlobalTraceAttributes());
+					}
+					applyGlobalDefaults(trace, sharedTraceDefaults);
+				}
 				if (trace instanceof XTraceBufferedImpl) {
 					((XTraceBufferedImpl) trace).consolidate();
 				}
+				if (scanner != null) {
+					if (globalsFingerprint == null) {
+						globalsFingerprint = XSourceRange.fingerprint(
+								log.getGlobalTraceAttributes(),
+								log.getGlobalEventAttributes());
+					}
+					if (trace instanceof XSourceTracked) {
+						((XSourceTracked) trace).setSourceRange(scanner
+								.nextRange(XSourceRange.fingerprint(trace),
+										globalsFingerprint,
+										shareGlobalDefaults));
+					} else {
+						scanner.nextRange(0, 0, false);
+					}
+				}
 				log.add(trace);
 				trace = null;
 				attributableStack.pop(); // remove self from top
@@ -436,6 +722,119 @@ public class XesXmlParser extends XParser {
 			}
 		}
 
+		/**
+		 * Returns frozen copies of the given global attributes, which can be
+		 * shared by traces or events.
+		 * 
+		 * @param globals
+		 *            The global attributes of the log.
+		 * @return The frozen copies.
+		 */
+		protected List<XAttribute> freeze(List<XAttribute> globals) {
+			List<XAttribute> frozen = new ArrayList<XAttribute>(
+					globals.size());
+			for (XAttribute global : globals) {
+				frozen.add(XAttributeMapFrozenImpl.freeze(global));
+			}
+			return frozen;
+		}
+
+		/**
+		 * Makes the given element refer to the given global attributes for all
+		 * attributes which are missing or equal to their default.
+		 * 
+		 * @param element
+		 *            The trace or event.
+		 * @param globals
+		 *            Frozen copies of the global attributes of its scope.
+		 */
+		protected void applyGlobalDefaults(XAttributable element,
+				List<XAttribute> globals) {
+			if (globals.isEmpty()) {
+				return;
+			}
+			XAttributeMap attributes = element.getAttributes();
+			for (XAttribute global : globals) {
+				XAttribute attribute = attributes.get(global.getKey());
+				if (attribute == null
+						|| (attribute != global && XAttributeUtils
+								.isGlobalDefault(attribute, global))) {
+					attributes.put(global.getKey(), global);
+				}
+			}
+		}
+
+		/**
+		 * Reads the size hints written by
+		 * {@link org.deckfour.xes.out.XesXmlSerializer} as a comment at the
+		 * start of the log and trace elements. Other comments are ignored.
+		 * 
+		 * (non-Javadoc)
+		 * 
+		 * @see org.xml.sax.ext.DefaultHandler2#comment(char[], int, int)
+		 */
+		@Override
+		public void comment(char[] ch, int start, int length)
+				throws SAXException {
+			if (attributableStack.isEmpty()) {
+				return;
+			}
+			XAttributable element = attributableStack.peek();
+			if (element == log && log.isEmpty()) {
+				presize(log, getSizeHint(ch, start, length, "openxes.traces="));
+			} else if (element == trace && trace.isEmpty()) {
+				presize(trace, getSizeHint(ch, start, length, "openxes.events="));
+			}
+		}
+
+		/**
+		 * Pre-sizes the given list according to the given size hint, as
+		 * written by {@link org.deckfour.xes.out.XesXmlSerializer}. Missing or
+		 * malformed hints, and lists that cannot be pre-sized, are ignored.
+		 * Hints are capped at {@link #MAX_SIZE_HINT}, as the list grows as
+		 * needed anyway.
+		 * 
+		 * @param list
+		 *            The list to pre-size.
+		 * @param hint
+		 *            The size hint, may be <code>null</code>.
+		 */
+		protected void presize(List<?> list, String hint) {
+			if (hint == null || !(list instanceof ArrayList)) {
+				return;
+			}
+			try {
+				int size = Integer.parseInt(hint.trim());
+				if (size > 0) {
+					((ArrayList<?>) list).ensureCapacity(Math.min(size,
+							MAX_SIZE_HINT));
+				}
+			} catch (NumberFormatException e) {
+				// ignore malformed hint
+			}
+		}
+
+	}
+
+	/**
+	 * Extracts the value of a size hint from a comment, e.g. the number
+	 * following <code>openxes.traces=</code>.
+	 * 
+	 * @return The value, or <code>null</code> if the comment does not contain
+	 *         the hint.
+	 */
+	private static String getSizeHint(char[] ch, int start, int length,
+			String name) {
+		int i = new String(ch, start, length).indexOf(name);
+		if (i < 0) {
+			return null;
+		}
+		int from = start + i + name.length();
+		int to = from;
+		while (to < start + length && Character.isDigit(ch[to])) {
+			to++;
+		}
+		return new String(ch, from, to - from);
 	}
 
 	private List<String> fixKeys(XLog log, List<String> keys) {
@@ -49,6 +49,31 @@ import org.deckfour.xes.model.XLog;
  */
 public class XLogInfoFactory {
 	
+	/**
+	 * Number of threads scanning a log when creating its info.
+	 */
+	private static volatile int parallelism = 1;
+	
+	/**
+	 * Sets the number of threads scanning a log when creating its info.
+	 * Logs are scanned on a single thread by default.
+	 * 
+	 * @param parallelism The number of threads; values below one are
+	 * treated as one.
+	 */
+	public static void setParallelism(int parallelism) {
+		XLogInfoFactory.parallelism = Math.max(1, parallelism);
+	}
+	
+	/**
+	 * Returns the number of threads scanning a log when creating its info.
+	 * 
+	 * @return The number of threads.
+	 */
+	public static int getParallelism() {
+		return parallelism;
+	}
+	
 	/**
 	 * Creates a new log info with the standard event classifier.
 	 * 
@@ -75,7 +100,7 @@ public class XLogInfoFactory {
 			/*
 			 * Info not cached. Create it.
 			 */
-			info = XLogInfoImpl.create(log, classifier);
+			info = XLogInfoImpl.create(log, classifier, null, parallelism);
 			/*
 			 * Cache it.
 			 */
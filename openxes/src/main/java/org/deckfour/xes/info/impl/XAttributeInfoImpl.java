@@ -212,31 +212,7 @@ public class XAttributeInfoImpl implements XAttributeInfo {
 	public void register(XAttribute attribute) {
 		if(keyMap.containsKey(attribute.getKey()) == false) {
 			// create new attribute prototype
-			XAttribute prototype = XAttributeUtils.derivePrototype(attribute);
-			// add to main map
-			keyMap.put(attribute.getKey(), prototype);
-			// initialize frequency
-			frequencies.put(attribute.getKey(), 1);
-			// register with type map
-			Set<XAttribute> typeSet = typeMap.get(XAttributeUtils.getType(prototype));
-			if(typeSet == null) {
-				typeSet = new HashSet<XAttribute>();
-				typeMap.put(XAttributeUtils.getType(prototype), typeSet);
-			}
-			typeSet.add(prototype);
-			// register with extension map
-			if(attribute.getExtension() == null) {
-				// non-extension attribute
-				noExtensionSet.add(prototype);
-			} else {
-				// register with extension map
-				Set<XAttribute> extensionSet = extensionMap.get(attribute.getExtension());
-				if(extensionSet == null) {
-					extensionSet = new HashSet<XAttribute>();
-					extensionMap.put(attribute.getExtension(), extensionSet);
-				}
-				extensionSet.add(prototype);
-			}
+			register(XAttributeUtils.derivePrototype(attribute), 1);
 		} else {
 			// adjust frequency
 			frequencies.put(attribute.getKey(), frequencies.get(attribute.getKey()) + 1);
@@ -244,5 +220,60 @@ public class XAttributeInfoImpl implements XAttributeInfo {
 		// adjust total frequency
 		totalFrequency++;
 	}
+	
+	/**
+	 * Merges another registry into this one. Frequencies are added up; for
+	 * keys known to both registries, the prototype of this registry is kept.
+	 * Registering attributes in two registries and merging the second into
+	 * the first thus has the same result as registering all attributes in
+	 * the first one.
+	 * 
+	 * @param info Attribute info registry to merge into this one.
+	 */
+	public void merge(XAttributeInfoImpl info) {
+		for(Map.Entry<String, XAttribute> entry : info.keyMap.entrySet()) {
+			Integer frequency = frequencies.get(entry.getKey());
+			int otherFrequency = info.frequencies.get(entry.getKey());
+			if(frequency == null) {
+				register(entry.getValue(), otherFrequency);
+			} else {
+				frequencies.put(entry.getKey(), frequency + otherFrequency);
+			}
+		}
+		totalFrequency += info.totalFrequency;
+	}
+	
+	/**
+	 * Registers a new attribute prototype with the given frequency.
+	 * 
+	 * @param prototype Prototype of an attribute key not yet registered.
+	 * @param frequency Absolute frequency of the attribute key.
+	 */
+	private void register(XAttribute prototype, int frequency) {
+		// add to main map
+		keyMap.put(prototype.getKey(), prototype);
+		// initialize frequency
+		frequencies.put(prototype.getKey(), frequency);
+		// register with type map
+		Set<XAttribute> typeSet = typeMap.get(XAttributeUtils.getType(prototype));
+		if(typeSet == null) {
+			typeSet = new HashSet<XAttribute>();
+			typeMap.put(XAttributeUtils.getType(prototype), typeSet);
+		}
+		typeSet.add(prototype);
+		// register with extension map
+		if(prototype.getExtension() == null) {
+			// non-extension attribute
+			noExtensionSet.add(prototype);
+		} else {
+			// register with extension map
+			Set<XAttribute> extensionSet = extensionMap.get(prototype.getExtension());
+			if(extensionSet == null) {
+				extensionSet = new HashSet<XAttribute>();
+				extensionMap.put(prototype.getExtension(), extensionSet);
+			}
+			extensionSet.add(prototype);
+		}
+	}
 
 }
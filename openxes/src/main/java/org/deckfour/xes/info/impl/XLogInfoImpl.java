@@ -42,6 +42,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import org.deckfour.xes.classification.XEventAttributeClassifier;
 import org.deckfour.xes.classification.XEventClasses;
@@ -146,6 +148,23 @@ public class XLogInfoImpl implements XLogInfo {
 		return new XLogInfoImpl(log, defaultClassifier, classifiers);
 	}
 	
+	/**
+	 * Creates a new log info summary with a collection of custom 
+	 * event classifiers, scanning the log with the given number of
+	 * threads.
+	 * 
+	 * @param log The event log to create an info summary for.
+	 * @param defaultClassifier The default event classifier to be used.
+	 * @param classifiers A collection of additional event classifiers to
+	 * be covered by the created log info instance.
+	 * @param parallelism The number of threads scanning the log.
+	 * @return The log info summary for this log.
+	 */
+	public static XLogInfo create(XLog log, XEventClassifier defaultClassifier, 
+			Collection<XEventClassifier> classifiers, int parallelism) {
+		return new XLogInfoImpl(log, defaultClassifier, classifiers, parallelism);
+	}
+	
 	/**
 	 * The event log which is summarized.
 	 */
@@ -193,6 +212,11 @@ public class XLogInfoImpl implements XLogInfo {
 	 * Attribute information registry on the meta level.
 	 */
 	protected XAttributeInfoImpl metaAttributeInfo;
+	/**
+	 * Meta-attribute info registry of the range of traces the current
+	 * thread summarizes in {@link #setup(int)}, unset otherwise.
+	 */
+	private final ThreadLocal<XAttributeInfoImpl> rangeMetaAttributeInfo = new ThreadLocal<XAttributeInfoImpl>();
 	
 	/**
 	 * Creates a new log summary.
@@ -201,6 +225,19 @@ public class XLogInfoImpl implements XLogInfo {
 	 * @param classifier The event classifier to be used.
 	 */
 	public XLogInfoImpl(XLog log, XEventClassifier defaultClassifier, Collection<XEventClassifier> classifiers) {
+		this(log, defaultClassifier, classifiers, 1);
+	}
+	
+	/**
+	 * Creates a new log summary, scanning the log with the given number
+	 * of threads. With more than one thread, the summary is built by
+	 * {@link #setup(int)} instead of {@link #setup()}.
+	 * 
+	 * @param log The log to create a summary of.
+	 * @param classifier The event classifier to be used.
+	 * @param parallelism The number of threads scanning the log.
+	 */
+	public XLogInfoImpl(XLog log, XEventClassifier defaultClassifier, Collection<XEventClassifier> classifiers, int parallelism) {
 		this.log = log;
 		this.defaultClassifier = defaultClassifier;
 		if(classifiers == null) {
@@ -222,7 +259,11 @@ public class XLogInfoImpl implements XLogInfo {
 		this.traceAttributeInfo = new XAttributeInfoImpl();
 		this.eventAttributeInfo = new XAttributeInfoImpl();
 		this.metaAttributeInfo = new XAttributeInfoImpl();
-		setup();
+		if(parallelism > 1 && log.size() > 1) {
+			setup(parallelism);
+		} else {
+			setup();
+		}
 	}
 
 	/**
@@ -252,15 +293,60 @@ public class XLogInfoImpl implements XLogInfo {
 		}
 	}
 	
+	/**
+	 * Creates the internal data structures of this summary on setup
+	 * from the log, using the given number of threads. The traces are
+	 * split recursively into ranges; each range is summarized on its own,
+	 * and the summaries of adjacent ranges are merged in log order. The
+	 * result equals that of {@link #setup()}.
+	 * 
+	 * @param parallelism The number of threads scanning the log.
+	 */
+	protected synchronized void setup(int parallelism) {
+		registerAttributes(logAttributeInfo, log);
+		XTimeBoundsImpl[] bounds = new XTimeBoundsImpl[log.size()];
+		int threshold = Math.max(1, log.size() / (parallelism * 8));
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		Summary summary;
+		try {
+			summary = pool.invoke(new SummaryTask(0, log.size(), threshold, bounds));
+		} finally {
+			pool.shutdownNow();
+		}
+		numberOfTraces = log.size();
+		numberOfEvents = summary.numberOfEvents;
+		int i = 0;
+		for(XTrace trace : log) {
+			this.traceBoundaries.put(trace, bounds[i++]);
+		}
+		this.logBoundaries.register(summary.logBoundaries);
+		this.traceAttributeInfo.merge(summary.traceAttributeInfo);
+		this.eventAttributeInfo.merge(summary.eventAttributeInfo);
+		this.metaAttributeInfo.merge(summary.metaAttributeInfo);
+		for(Map.Entry<XEventClassifier, XEventClasses> entry : this.eventClasses.entrySet()) {
+			XEventClasses classes = entry.getValue();
+			classes.merge(summary.eventClasses.get(entry.getKey()));
+			// harmonize event class indices
+			classes.harmonizeIndices();
+		}
+	}
+	
 	/**
 	 * Registers all attributes of a given attributable, i.e.
 	 * model type hierarchy element, in the given attribute info registry.
+	 * Both {@link #setup()} and {@link #setup(int)} register attributes
+	 * through this method; the latter calls it from several threads, with
+	 * registries private to the range of traces being summarized.
 	 * 
 	 * @param attributeInfo Attribute info registry to use for registration.
 	 * @param attributable Attributable whose attributes to register.
 	 */
 	protected void registerAttributes(XAttributeInfoImpl attributeInfo, XAttributable attributable) {
 		if (attributable.hasAttributes()) {
+			XAttributeInfoImpl metaAttributeInfo = rangeMetaAttributeInfo.get();
+			if (metaAttributeInfo == null) {
+				metaAttributeInfo = this.metaAttributeInfo;
+			}
 			for(XAttribute attribute : attributable.getAttributes().values()) {
 				// register attribute in appropriate map
 				attributeInfo.register(attribute);
@@ -270,6 +356,96 @@ public class XLogInfoImpl implements XLogInfo {
 		}
 	}
 	
+	/**
+	 * Partial summary of a range of traces.
+	 */
+	private static class Summary {
+		private int numberOfEvents = 0;
+		private final Map<XEventClassifier, XEventClasses> eventClasses;
+		private final XTimeBoundsImpl logBoundaries = new XTimeBoundsImpl();
+		private final XAttributeInfoImpl traceAttributeInfo = new XAttributeInfoImpl();
+		private final XAttributeInfoImpl eventAttributeInfo = new XAttributeInfoImpl();
+		private final XAttributeInfoImpl metaAttributeInfo = new XAttributeInfoImpl();
+		
+		private Summary(Collection<XEventClassifier> classifiers) {
+			eventClasses = new HashMap<XEventClassifier, XEventClasses>(classifiers.size() * 2);
+			for(XEventClassifier classifier : classifiers) {
+				eventClasses.put(classifier, new XEventClasses(classifier));
+			}
+		}
+		
+		/**
+		 * Merges the summary of the traces following those of this
+		 * summary into this one.
+		 */
+		private void merge(Summary next) {
+			numberOfEvents += next.numberOfEvents;
+			logBoundaries.register(next.logBoundaries);
+			traceAttributeInfo.merge(next.traceAttributeInfo);
+			eventAttributeInfo.merge(next.eventAttributeInfo);
+			metaAttributeInfo.merge(next.metaAttributeInfo);
+			for(Map.Entry<XEventClassifier, XEventClasses> entry : eventClasses.entrySet()) {
+				entry.getValue().merge(next.eventClasses.get(entry.getKey()));
+			}
+		}
+	}
+	
+	/**
+	 * Summarizes a range of traces, splitting it in halves above the
+	 * threshold.
+	 */
+	private class SummaryTask extends RecursiveTask<Summary> {
+		private static final long serialVersionUID = 1L;
+		
+		private final int from;
+		private final int to;
+		private final int threshold;
+		private final XTimeBoundsImpl[] bounds;
+		
+		private SummaryTask(int from, int to, int threshold, XTimeBoundsImpl[] bounds) {
+			this.from = from;
+			this.to = to;
+			this.threshold = threshold;
+			this.bounds = bounds;
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.RecursiveTask#compute()
+		 */
+		protected Summary compute() {
+			if(to - from > threshold) {
+				int middle = (from + to) >>> 1;
+				SummaryTask tail = new SummaryTask(middle, to, threshold, bounds);
+				tail.fork();
+				Summary summary = new SummaryTask(from, middle, threshold, bounds).compute();
+				summary.merge(tail.join());
+				return summary;
+			}
+			Summary summary = new Summary(eventClasses.keySet());
+			rangeMetaAttributeInfo.set(summary.metaAttributeInfo);
+			try {
+				for(int i = from; i < to; i++) {
+					XTrace trace = log.get(i);
+					registerAttributes(summary.traceAttributeInfo, trace);
+					XTimeBoundsImpl traceBounds = new XTimeBoundsImpl();
+					for(XEvent event : trace) {
+						registerAttributes(summary.eventAttributeInfo, event);
+						for(XEventClasses classes : summary.eventClasses.values()) {
+							classes.register(event);
+						}
+						traceBounds.register(event);
+						summary.numberOfEvents++;
+					}
+					bounds[i] = traceBounds;
+					summary.logBoundaries.register(traceBounds);
+				}
+			} finally {
+				rangeMetaAttributeInfo.remove();
+			}
+			return summary;
+		}
+	}
+	
 	/* (non-Javadoc)
 	 * @see org.deckfour.xes.summary.XLogSummary#getLog()
 	 */
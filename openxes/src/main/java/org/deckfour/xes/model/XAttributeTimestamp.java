@@ -52,6 +52,9 @@ public interface XAttributeTimestamp extends XAttribute {
 	/**
 	 * Formatter to be used for formatting dates. This formatter is locale
 	 * independent, to allow for serialized files to be moved between locales.
+	 * It is thread-safe; code converting many timestamps should use
+	 * {@link XsDateTimeFormat#formatMillis(long)} and
+	 * {@link XsDateTimeFormat#parseMillis(String)} directly.
 	 */
 	public static final XsDateTimeFormat FORMATTER = new XsDateTimeFormat();
 
@@ -0,0 +1,67 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.model;
+
+import org.deckfour.xes.util.XSourceRange;
+
+/**
+ * Elements implementing this interface can remember the range of the source
+ * file they have been parsed from. Serializers may copy the source bytes of
+ * such elements verbatim, as long as the element has not been modified since
+ * parsing.
+ * 
+ */
+public interface XSourceTracked {
+
+	/**
+	 * Returns the source range this element has been parsed from.
+	 * 
+	 * @return The source range, or <code>null</code> if not known.
+	 */
+	public XSourceRange getSourceRange();
+
+	/**
+	 * Sets the source range this element has been parsed from.
+	 * 
+	 * @param range
+	 *            The source range, or <code>null</code> to forget it.
+	 */
+	public void setSourceRange(XSourceRange range);
+
+}
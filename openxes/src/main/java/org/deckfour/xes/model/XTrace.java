@@ -40,6 +40,8 @@ package org.deckfour.xes.model;
 
 import java.util.List;
 
+import org.deckfour.xes.util.XTimestampSorter;
+
 /**
  * A trace is an element of an XES event log structure.
  * Traces are contained in logs.
@@ -64,5 +66,21 @@ public interface XTrace extends XElement, List<XEvent> {
 	 */
 	public int insertOrdered(XEvent event);
 
+	/**
+	 * Sorts the events of this trace stably by their timestamps, in bulk.
+	 * Events without timestamp stay behind their preceding event. Sorting
+	 * a trace once is much faster than inserting each of its events with
+	 * {@link #insertOrdered(XEvent)}.
+	 * 
+	 * By default, this sets each event once through {@link #set(int, Object)}
+	 * (see {@link XTimestampSorter#sort(List)}); implementations override it
+	 * if they can sort more efficiently.
+	 * 
+	 * @return Whether the order of the events has changed.
+	 */
+	public default boolean sortByTimestamp() {
+		return XTimestampSorter.sort(this);
+	}
+
 	public void accept(XVisitor visitor, XLog log);
 }
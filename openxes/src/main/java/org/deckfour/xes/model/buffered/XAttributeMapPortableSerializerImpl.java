@@ -0,0 +1,153 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.model.buffered;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.net.URI;
+
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.extension.XExtensionManager;
+import org.deckfour.xes.factory.XFactory;
+
+/**
+ * Binary attribute map serialization suitable for persistent storage.
+ * 
+ * The default serializer encodes extensions by their index in the extension
+ * manager, which is only valid within the current session. This variant
+ * writes an extension table (mapping indices to extension URIs) which has to
+ * precede the serialized attribute maps, and which is used to map the stored
+ * indices back to the extensions registered in the reading session.
+ * Extensions unknown to the reading session are dropped from their
+ * attributes, the attributes themselves are retained.
+ * 
+ */
+public class XAttributeMapPortableSerializerImpl extends
+		XAttributeMapSerializerImpl {
+
+	/**
+	 * Factory used for deserialization.
+	 */
+	private final XFactory factory;
+	/**
+	 * Extensions of the reading session, indexed by their stored index.
+	 */
+	private XExtension[] extensionTable;
+
+	/**
+	 * Creates a new portable serializer.
+	 * 
+	 * @param factory
+	 *            Factory used to create deserialized attributes.
+	 */
+	public XAttributeMapPortableSerializerImpl(XFactory factory) {
+		this.factory = factory;
+		this.extensionTable = new XExtension[0];
+	}
+
+	/**
+	 * Writes the extension table of the current session. This has to be
+	 * written before any attribute map serialized with this instance.
+	 * 
+	 * @param out
+	 *            Data output interface.
+	 * @throws IOException
+	 */
+	public void writeExtensionTable(DataOutput out) throws IOException {
+		XExtensionManager manager = XExtensionManager.instance();
+		int size = 0;
+		while (manager.getByIndex(size) != null) {
+			size++;
+		}
+		out.writeInt(size);
+		for (int i = 0; i < size; i++) {
+			out.writeUTF(manager.getByIndex(i).getUri().toString());
+		}
+	}
+
+	/**
+	 * Reads an extension table previously written by
+	 * {@link #writeExtensionTable(DataOutput)}. This has to be done before
+	 * any attribute map is deserialized with this instance.
+	 * 
+	 * @param in
+	 *            Data input interface to read from.
+	 * @throws IOException
+	 */
+	public void readExtensionTable(DataInput in) throws IOException {
+		int size = in.readInt();
+		XExtension[] table = new XExtension[size];
+		for (int i = 0; i < size; i++) {
+			String uri = in.readUTF();
+			try {
+				table[i] = XExtensionManager.instance().getByUri(new URI(uri));
+			} catch (Exception e) {
+				// unknown or malformed extension, drop it
+				table[i] = null;
+			}
+		}
+		extensionTable = table;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.deckfour.xes.model.buffered.XAttributeMapSerializerImpl#decodeExtension
+	 * (int)
+	 */
+	protected XExtension decodeExtension(int code) {
+		if (code < 0 || code >= extensionTable.length) {
+			return null;
+		} else {
+			return extensionTable[code];
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.buffered.XAttributeMapSerializerImpl#getFactory()
+	 */
+	protected XFactory getFactory() {
+		return factory;
+	}
+
+}
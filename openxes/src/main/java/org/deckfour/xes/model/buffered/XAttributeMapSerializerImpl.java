@@ -40,6 +40,7 @@ package org.deckfour.xes.model.buffered;
 
 import java.io.DataInput;
 import java.io.DataOutput;
+import java.io.EOFException;
 import java.io.IOException;
 import java.util.Collection;
 
@@ -60,6 +61,7 @@ import org.deckfour.xes.model.XAttributeLiteral;
 import org.deckfour.xes.model.XAttributeMap;
 import org.deckfour.xes.model.XAttributeTimestamp;
 import org.deckfour.xes.model.impl.XAttributeMapImpl;
+import org.deckfour.xes.util.XAttributeUtils;
 
 /**
  * This class provides binary serialization of XAttributeMap instances, based on
@@ -81,18 +83,21 @@ public class XAttributeMapSerializerImpl implements XAttributeMapSerializer {
 		serialize(map.values(), out);
 	}
 	
-	private void serialize(Collection<XAttribute> attributes, DataOutput out) throws IOException {
+	/**
+	 * Serializes a collection of attributes to the given output, in the
+	 * same encoding used for attribute maps.
+	 * 
+	 * @param attributes Attributes to be serialized.
+	 * @param out Data output interface.
+	 * @throws IOException
+	 */
+	public void serialize(Collection<XAttribute> attributes, DataOutput out) throws IOException {
 		out.writeInt(attributes.size());
 		for (XAttribute attribute : attributes) {
 			// encode attribute key
 			out.writeUTF(attribute.getKey());
 			// encode attribute extension
-			XExtension extension = attribute.getExtension();
-			if (extension == null) {
-				out.writeInt(-1);
-			} else {
-				out.writeInt(XExtensionManager.instance().getIndex(extension));
-			}
+			out.writeInt(encodeExtension(attribute.getExtension()));
 			// encode attribute type and value
 			/*
 			 * List and Container need to precede Literal, as they both extend Literal
@@ -129,8 +134,10 @@ public class XAttributeMapSerializerImpl implements XAttributeMapSerializer {
 			if (attribute instanceof XAttributeCollection) {
 				Collection<XAttribute> childAttributes = ((XAttributeCollection) attribute).getCollection();
 				serialize(childAttributes, out);
-			} else {
+			} else if (attribute.hasAttributes()) {
 				serialize(attribute.getAttributes(), out);
+			} else {
+				out.writeInt(0);
 			}
 		}
 	}
@@ -147,62 +154,190 @@ public class XAttributeMapSerializerImpl implements XAttributeMapSerializer {
 	}
 	
 	private XAttributeMap deserialize(DataInput in, XAttribute parent) throws IOException {
-		XFactory factory = XFactoryRegistry.instance().currentDefault();
 		int size = in.readInt();
 		XAttributeMapImpl map = new XAttributeMapImpl(size * 2);
 		for (int i = 0; i < size; i++) {
 			// read attribute key
 			String key = in.readUTF();
-			// decode attribute extension
-			int ext = in.readInt();
-			XExtension extension = null;
-			if (ext >= 0) {
-				extension = XExtensionManager.instance().getByIndex(ext);
-			}
-			// assemble according to type and read value
-			XAttribute attribute;
-			byte type = in.readByte();
-			if (type == 0) {
-				boolean value = in.readBoolean();
-				attribute = factory.createAttributeBoolean(key, value,
-						extension);
-			} else if (type == 1) {
-				double value = in.readDouble();
-				attribute = factory.createAttributeContinuous(key, value,
-						extension);
-			} else if (type == 2) {
-				long value = in.readLong();
-				attribute = factory.createAttributeDiscrete(key, value,
-						extension);
-			} else if (type == 3) {
-				String value = in.readUTF();
-				attribute = factory.createAttributeLiteral(key, value,
-						extension);
-			} else if (type == 4) {
-				long value = in.readLong();
-				attribute = factory.createAttributeTimestamp(key, value,
-						extension);
-			} else if (type == 5) {
-				XID value = XID.read(in);
-				attribute = factory.createAttributeID(key, value, extension);
-			} else if (type == 6) {
-				attribute = factory.createAttributeList(key, extension);
-			} else if (type == 7) {
-				attribute = factory.createAttributeContainer(key, extension);
-			} else {
-				throw new AssertionError(
-						"Unknown attribute type, cannot deserialize!");
-			}
-			if (parent != null && parent instanceof XAttributeCollection) {
-				((XAttributeCollection) parent).addToCollection(attribute);
-			}
-			// read meta-attribute map
-			XAttributeMap metamap = deserialize(in, attribute);
-			attribute.setAttributes(metamap);
 			// add to map
-			map.put(key, attribute);
+			map.put(key, deserialize(in, key, parent));
 		}
 		return map;
 	}
 
+	/**
+	 * Reads a serialized attribute map, decoding only the attribute with the
+	 * given key. The attributes preceding it are skipped without being
+	 * decoded.
+	 * 
+	 * @param in
+	 *            Data input interface, positioned at the start of a map.
+	 * @param key
+	 *            Key of the attribute to decode.
+	 * @return The decoded attribute, or <code>null</code> if the map holds
+	 *         no attribute with the given key.
+	 * @throws IOException
+	 */
+	public XAttribute deserializeAttribute(DataInput in, String key)
+			throws IOException {
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			if (in.readUTF().equals(key)) {
+				return deserialize(in, key, null);
+			}
+			// skip extension, then type and value, then meta-attributes
+			in.readInt();
+			skipValue(in, in.readByte());
+			skip(in);
+		}
+		return null;
+	}
+
+	/**
+	 * Reads a single attribute, following its key.
+	 */
+	private XAttribute deserialize(DataInput in, String key, XAttribute parent)
+			throws IOException {
+		XFactory factory = getFactory();
+		// decode attribute extension
+		XExtension extension = decodeExtension(in.readInt());
+		// assemble according to type and read value
+		XAttribute attribute;
+		byte type = in.readByte();
+		if (type == 0) {
+			boolean value = in.readBoolean();
+			attribute = factory.createAttributeBoolean(key, value,
+					extension);
+		} else if (type == 1) {
+			double value = in.readDouble();
+			attribute = factory.createAttributeContinuous(key, value,
+					extension);
+		} else if (type == 2) {
+			long value = in.readLong();
+			attribute = factory.createAttributeDiscrete(key, value,
+					extension);
+		} else if (type == 3) {
+			String value = in.readUTF();
+			attribute = factory.createAttributeLiteral(key, value,
+					extension);
+		} else if (type == 4) {
+			long value = in.readLong();
+			attribute = factory.createAttributeTimestamp(key, value,
+					extension);
+		} else if (type == 5) {
+			XID value = XID.read(in);
+			attribute = factory.createAttributeID(key, value, extension);
+		} else if (type == 6) {
+			attribute = factory.createAttributeList(key, extension);
+		} else if (type == 7) {
+			attribute = factory.createAttributeContainer(key, extension);
+		} else {
+			throw new AssertionError(
+					"Unknown attribute type, cannot deserialize!");
+		}
+		// read meta-attribute map; factories may return shared attributes,
+		// which are replaced by a private copy before the map is set
+		XAttributeMap metamap = deserialize(in, attribute);
+		if (!metamap.isEmpty()) {
+			attribute = XAttributeUtils.unshare(attribute);
+			attribute.setAttributes(metamap);
+		}
+		if (parent != null && parent instanceof XAttributeCollection) {
+			((XAttributeCollection) parent).addToCollection(attribute);
+		}
+		return attribute;
+	}
+
+	/**
+	 * Skips a serialized attribute map.
+	 */
+	private void skip(DataInput in) throws IOException {
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			skipFully(in, in.readUnsignedShort());
+			in.readInt();
+			skipValue(in, in.readByte());
+			skip(in);
+		}
+	}
+
+	/**
+	 * Skips a serialized attribute value of the given type.
+	 */
+	private void skipValue(DataInput in, byte type) throws IOException {
+		switch (type) {
+		case 0:
+			skipFully(in, 1);
+			break;
+		case 1:
+		case 2:
+		case 4:
+			skipFully(in, 8);
+			break;
+		case 3:
+			skipFully(in, in.readUnsignedShort());
+			break;
+		case 5:
+			skipFully(in, 16);
+			break;
+		case 6:
+		case 7:
+			break;
+		default:
+			throw new AssertionError(
+					"Unknown attribute type, cannot deserialize!");
+		}
+	}
+
+	private static void skipFully(DataInput in, int n) throws IOException {
+		while (n > 0) {
+			int skipped = in.skipBytes(n);
+			if (skipped <= 0) {
+				throw new EOFException();
+			}
+			n -= skipped;
+		}
+	}
+
+	/**
+	 * Encodes the extension of an attribute as an integer. By default, this
+	 * is the index assigned by the extension manager of this session, or
+	 * <code>-1</code> for attributes without an extension.
+	 * 
+	 * @param extension The extension to encode (may be <code>null</code>).
+	 * @return The encoded extension.
+	 */
+	protected int encodeExtension(XExtension extension) {
+		if (extension == null) {
+			return -1;
+		} else {
+			return XExtensionManager.instance().getIndex(extension);
+		}
+	}
+
+	/**
+	 * Decodes an extension previously encoded by
+	 * {@link #encodeExtension(XExtension)}.
+	 * 
+	 * @param code The encoded extension.
+	 * @return The extension, or <code>null</code> if none.
+	 */
+	protected XExtension decodeExtension(int code) {
+		if (code < 0) {
+			return null;
+		} else {
+			return XExtensionManager.instance().getByIndex(code);
+		}
+	}
+
+	/**
+	 * Returns the factory used to create deserialized attributes. By
+	 * default, this is the current default factory of the registry.
+	 * 
+	 * @return The factory to use for deserialization.
+	 */
+	protected XFactory getFactory() {
+		return XFactoryRegistry.instance().currentDefault();
+	}
+
 }
@@ -47,6 +47,7 @@ import org.deckfour.xes.model.XAttribute;
 import org.deckfour.xes.model.XAttributeTimestamp;
 import org.deckfour.xes.model.XEvent;
 import org.deckfour.xes.nikefs2.NikeFS2VirtualFileSystem;
+import org.deckfour.xes.util.XTimestampSorter;
 
 /**
  * Implements a fast list of events stored in disk buffers, by using the means
@@ -296,6 +297,60 @@ public class XFastEventList implements Cloneable {
 		return 0;
 	}
 
+	/**
+	 * Sorts the events of this list stably by timestamp (see
+	 * {@link XTimestampSorter}). Each event is read once to extract its
+	 * timestamp, and once more, directly from its remembered position, to
+	 * write the sorted list to a new buffer, which consolidates the list.
+	 * 
+	 * @return Whether the order of the events has changed.
+	 */
+	public synchronized boolean sortByTimestamp() throws IOException {
+		long[] keys = new long[size];
+		// location of each event: its index in the file buffer, or the
+		// complement of its index in the overflow set
+		int[] locations = new int[size];
+		long[] positions = new long[size];
+		int overflowIndex = 0;
+		int fileBufferIndex = 0;
+		long key = Long.MIN_VALUE;
+		for (int i = 0; i < size; i++) {
+			XEvent event;
+			if (overflowIndex < overflowSize
+					&& overflowIndices[overflowIndex] == i) {
+				event = overflowEntries[overflowIndex];
+				locations[i] = ~overflowIndex;
+				overflowIndex++;
+			} else {
+				while (holeFlags.get(fileBufferIndex) == true) {
+					fileBufferIndex++;
+				}
+				positions[i] = buffer.positionOf(fileBufferIndex);
+				event = buffer.get(fileBufferIndex);
+				locations[i] = fileBufferIndex;
+				fileBufferIndex++;
+			}
+			key = XTimestampSorter.keyOf(event, key);
+			keys[i] = key;
+		}
+		int[] order = XTimestampSorter.order(keys);
+		if (order == null) {
+			return false;
+		}
+		XSequentialEventBuffer nBuffer = new XSequentialEventBuffer(buffer
+				.getProvider(), this.attributeMapSerializer);
+		for (int i = 0; i < size; i++) {
+			int location = locations[order[i]];
+			nBuffer.append(location < 0 ? overflowEntries[~location] : buffer
+					.get(location, positions[order[i]]));
+		}
+		buffer.cleanup();
+		buffer = nBuffer;
+		overflowSize = 0;
+		holeFlags.clear();
+		return true;
+	}
+
 	/**
 	 * Checks whether this list needs consolidation, i.e. whether the overflow
 	 * and skipping structures have any content.
@@ -302,6 +302,36 @@ public class XSequentialEventBuffer implements Cloneable {
 		return read();
 	}
 
+	/**
+	 * Returns the position of the event at the specified index in the
+	 * storage, for retrieving it later without navigation.
+	 * 
+	 * @param eventIndex
+	 *            Index of the event.
+	 * @return The position of the event.
+	 */
+	synchronized long positionOf(int eventIndex) throws IOException {
+		navigateToIndex(eventIndex);
+		return position;
+	}
+
+	/**
+	 * Retrieves the event recorded at the specified index, at the given
+	 * position in the storage (see {@link #positionOf(int)}).
+	 * 
+	 * @param eventIndex
+	 *            Index of the requested event.
+	 * @param eventPosition
+	 *            Position of the requested event.
+	 * @return The requested event.
+	 */
+	synchronized XEvent get(int eventIndex, long eventPosition)
+			throws IOException {
+		index = eventIndex;
+		position = eventPosition;
+		return read();
+	}
+
 	/**
 	 * Cleans up any non-volatile resources (e.g. temporary files) associated
 	 * with this instance and resets the instance to an initial state.
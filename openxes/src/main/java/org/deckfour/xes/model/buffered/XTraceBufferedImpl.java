@@ -558,6 +558,20 @@ public class XTraceBufferedImpl implements XTrace {
 		}
 	}
 
+	/**
+	 * Sorts the events of this trace by timestamp, consolidating it once.
+	 * 
+	 * @see org.deckfour.xes.model.XTrace#sortByTimestamp()
+	 */
+	public boolean sortByTimestamp() {
+		try {
+			return events.sortByTimestamp();
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -104,6 +104,7 @@ public class XAttributeBooleanImpl extends XAttributeImpl implements
 	 * @see org.deckfour.xes.model.XAttributeBoolean#setValue(boolean)
 	 */
 	public void setValue(boolean value) {
+		checkModifiable();
 		this.value = value;
 	}
 
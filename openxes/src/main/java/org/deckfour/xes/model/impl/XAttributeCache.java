@@ -0,0 +1,300 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.model.impl;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeBoolean;
+import org.deckfour.xes.model.XAttributeCollection;
+import org.deckfour.xes.model.XAttributeContinuous;
+import org.deckfour.xes.model.XAttributeDiscrete;
+import org.deckfour.xes.model.XAttributeLiteral;
+
+/**
+ * Bounded cache of shared attribute instances, keyed by attribute key, type,
+ * value and extension. Value-identical attributes, like
+ * <code>lifecycle:transition=complete</code>, can thus be represented by one
+ * instance across all events of a log.
+ * 
+ * The cache is direct-mapped: every key and value hashes to one slot, and a
+ * newly shared attribute replaces whatever the slot held before. Lookups and
+ * updates are lock-free. Cached attributes are shared (see
+ * {@link XAttributeImpl#isShared()}), i.e., they cannot be modified, and
+ * their clones are private, modifiable copies.
+ * 
+ */
+public final class XAttributeCache {
+
+	/**
+	 * The slots of the cache, whose number is a power of two.
+	 */
+	private final AtomicReferenceArray<XAttributeImpl> slots;
+	private final int mask;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Creates a new cache.
+	 * 
+	 * @param capacity
+	 *            The maximal number of cached attributes, rounded up to the
+	 *            next power of two.
+	 */
+	public XAttributeCache(int capacity) {
+		if (capacity < 1 || capacity > (1 << 30)) {
+			throw new IllegalArgumentException("Invalid capacity: " + capacity);
+		}
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size <<= 1;
+		}
+		slots = new AtomicReferenceArray<XAttributeImpl>(size);
+		mask = size - 1;
+	}
+
+	/**
+	 * Retrieves the cached literal attribute with the given key, value and
+	 * extension.
+	 * 
+	 * @return The cached attribute, or <code>null</code> if there is none.
+	 */
+	public XAttributeLiteral getLiteral(String key, String value,
+			XExtension extension) {
+		XAttributeImpl candidate = slots.get(slot(key, value.hashCode(), extension));
+		if (candidate instanceof XAttributeLiteral
+				&& matches(candidate, key, extension)
+				&& value.equals(((XAttributeLiteral) candidate).getValue())) {
+			hits.increment();
+			return (XAttributeLiteral) candidate;
+		}
+		misses.increment();
+		return null;
+	}
+
+	/**
+	 * Retrieves the cached boolean attribute with the given key, value and
+	 * extension.
+	 * 
+	 * @return The cached attribute, or <code>null</code> if there is none.
+	 */
+	public XAttributeBoolean getBoolean(String key, boolean value,
+			XExtension extension) {
+		XAttributeImpl candidate = slots.get(slot(key, Boolean.hashCode(value), extension));
+		if (candidate instanceof XAttributeBoolean
+				&& matches(candidate, key, extension)
+				&& value == ((XAttributeBoolean) candidate).getValue()) {
+			hits.increment();
+			return (XAttributeBoolean) candidate;
+		}
+		misses.increment();
+		return null;
+	}
+
+	/**
+	 * Retrieves the cached discrete attribute with the given key, value and
+	 * extension.
+	 * 
+	 * @return The cached attribute, or <code>null</code> if there is none.
+	 */
+	public XAttributeDiscrete getDiscrete(String key, long value,
+			XExtension extension) {
+		XAttributeImpl candidate = slots.get(slot(key, Long.hashCode(value), extension));
+		if (candidate instanceof XAttributeDiscrete
+				&& matches(candidate, key, extension)
+				&& value == ((XAttributeDiscrete) candidate).getValue()) {
+			hits.increment();
+			return (XAttributeDiscrete) candidate;
+		}
+		misses.increment();
+		return null;
+	}
+
+	/**
+	 * Retrieves the cached continuous attribute with the given key, value and
+	 * extension.
+	 * 
+	 * @return The cached attribute, or <code>null</code> if there is none.
+	 */
+	public XAttributeContinuous getContinuous(String key, double value,
+			XExtension extension) {
+		XAttributeImpl candidate = slots.get(slot(key, Double.hashCode(value), extension));
+		if (candidate instanceof XAttributeContinuous
+				&& matches(candidate, key, extension)
+				&& Double.compare(value,
+						((XAttributeContinuous) candidate).getValue()) == 0) {
+			hits.increment();
+			return (XAttributeContinuous) candidate;
+		}
+		misses.increment();
+		return null;
+	}
+
+	/**
+	 * Retrieves the cached attribute which equals the given attribute in key,
+	 * type, value and extension.
+	 * 
+	 * @return The cached attribute, or <code>null</code> if there is none, or
+	 *         if the given attribute cannot be shared.
+	 */
+	public XAttribute get(XAttribute attribute) {
+		if (attribute instanceof XAttributeCollection
+				|| attribute.hasAttributes()) {
+			return null;
+		}
+		String key = attribute.getKey();
+		XExtension extension = attribute.getExtension();
+		if (attribute instanceof XAttributeLiteral) {
+			return getLiteral(key, ((XAttributeLiteral) attribute).getValue(),
+					extension);
+		} else if (attribute instanceof XAttributeBoolean) {
+			return getBoolean(key, ((XAttributeBoolean) attribute).getValue(),
+					extension);
+		} else if (attribute instanceof XAttributeDiscrete) {
+			return getDiscrete(key,
+					((XAttributeDiscrete) attribute).getValue(), extension);
+		} else if (attribute instanceof XAttributeContinuous) {
+			return getContinuous(key,
+					((XAttributeContinuous) attribute).getValue(), extension);
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Shares the given attribute and adds it to the cache. Only literal,
+	 * boolean, discrete and continuous attributes without meta-attributes can
+	 * be shared; other attributes (including lists and containers) are
+	 * returned as they are.
+	 * 
+	 * @param attribute
+	 *            The attribute to share. It must not be referenced
+	 *            elsewhere, as it cannot be modified afterwards.
+	 * @return The given attribute.
+	 */
+	public <T extends XAttribute> T share(T attribute) {
+		if (!(attribute instanceof XAttributeImpl)
+				|| attribute instanceof XAttributeCollection
+				|| attribute.hasAttributes()) {
+			return attribute;
+		}
+		int valueHash;
+		if (attribute instanceof XAttributeLiteral) {
+			valueHash = ((XAttributeLiteral) attribute).getValue().hashCode();
+		} else if (attribute instanceof XAttributeBoolean) {
+			valueHash = Boolean.hashCode(((XAttributeBoolean) attribute)
+					.getValue());
+		} else if (attribute instanceof XAttributeDiscrete) {
+			valueHash = Long.hashCode(((XAttributeDiscrete) attribute)
+					.getValue());
+		} else if (attribute instanceof XAttributeContinuous) {
+			valueHash = Double.hashCode(((XAttributeContinuous) attribute)
+					.getValue());
+		} else {
+			return attribute;
+		}
+		XAttributeImpl impl = (XAttributeImpl) attribute;
+		impl.share();
+		slots.set(slot(impl.getKey(), valueHash, impl.getExtension()), impl);
+		return attribute;
+	}
+
+	/**
+	 * Returns the number of lookups which found a cached attribute.
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of lookups which found no cached attribute.
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the fraction of lookups which found a cached attribute, or 0 if
+	 * there have been no lookups.
+	 */
+	public double getHitRate() {
+		long hits = getHits();
+		long lookups = hits + getMisses();
+		return lookups == 0 ? 0.0 : (double) hits / lookups;
+	}
+
+	/**
+	 * Removes all attributes from the cache, and resets its statistics.
+	 * Attributes handed out before stay shared.
+	 */
+	public void clear() {
+		for (int i = 0; i < slots.length(); i++) {
+			slots.set(i, null);
+		}
+		hits.reset();
+		misses.reset();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "XAttributeCache[capacity=" + slots.length() + ", hits="
+				+ getHits() + ", misses=" + getMisses() + "]";
+	}
+
+	private int slot(String key, int valueHash, XExtension extension) {
+		int hash = (key.hashCode() * 31 + valueHash) * 31
+				+ System.identityHashCode(extension);
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	private static boolean matches(XAttributeImpl candidate, String key,
+			XExtension extension) {
+		String candidateKey = candidate.getKey();
+		return (candidateKey == key || candidateKey.equals(key))
+				&& candidate.getExtension() == extension;
+	}
+}
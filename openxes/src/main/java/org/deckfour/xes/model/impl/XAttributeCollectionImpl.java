@@ -38,7 +38,10 @@
  */
 package org.deckfour.xes.model.impl;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 import org.deckfour.xes.extension.XExtension;
 import org.deckfour.xes.model.XAttribute;
@@ -76,10 +79,12 @@ public abstract class XAttributeCollectionImpl extends XAttributeLiteralImpl
 
 
 	public void addToCollection(XAttribute attribute) {
+		checkModifiable();
 	    getCollection().add(attribute);
 	}
 
 	public void removeFromCollection(XAttribute attribute) {
+		checkModifiable();
 		if (collection != null) {
 			collection.remove(attribute);
 		}
@@ -106,6 +111,22 @@ public abstract class XAttributeCollectionImpl extends XAttributeLiteralImpl
 		return buf.toString();
 	}
 
+	/**
+	 * Freezes this collection together with its elements.
+	 */
+	@Override
+	void freeze() {
+		super.freeze();
+		if (collection != null) {
+			List<XAttribute> elements = new ArrayList<XAttribute>(
+					collection.size());
+			for (XAttribute attribute : collection) {
+				elements.add(XAttributeMapFrozenImpl.freeze(attribute));
+			}
+			collection = Collections.unmodifiableList(elements);
+		}
+	}
+
 	@Override
 	public Object clone() {
 		XAttributeCollectionImpl clone = (XAttributeCollectionImpl) super
@@ -83,6 +83,7 @@ public class XAttributeContainerImpl extends XAttributeCollectionImpl implements
 
     @Override
     public void addToCollection(XAttribute attribute) {
+        checkModifiable();
         if(getAttributes().size() == 0){
             getAttributes().put(attribute.getKey(), attribute);
         }
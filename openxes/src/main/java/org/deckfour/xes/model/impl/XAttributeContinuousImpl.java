@@ -105,6 +105,7 @@ public class XAttributeContinuousImpl extends XAttributeImpl implements
 	 * @see org.deckfour.xes.model.XAttributeContinuous#setValue(boolean)
 	 */
 	public void setValue(double value) {
+		checkModifiable();
 		this.value = value;
 	}
 
@@ -104,6 +104,7 @@ public class XAttributeDiscreteImpl extends XAttributeImpl implements
 	 * @see org.deckfour.xes.model.XAttributeDiscrete#setValue(long)
 	 */
 	public void setValue(long value) {
+		checkModifiable();
 		this.value = value;
 	}
 
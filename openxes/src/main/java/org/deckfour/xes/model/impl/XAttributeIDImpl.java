@@ -103,6 +103,7 @@ public class XAttributeIDImpl extends XAttributeImpl implements XAttributeID {
 	 * @see org.deckfour.xes.model.XAttributeLiteral#setValue(java.lang.String)
 	 */
 	public void setValue(XID value) {
+		checkModifiable();
 		if (value == null) {
 			throw new NullPointerException(
 					"No null value allowed in ID attribute!");
@@ -41,6 +41,8 @@ package org.deckfour.xes.model.impl;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.deckfour.xes.extension.XExtension;
 import org.deckfour.xes.model.XAttributable;
@@ -62,7 +64,7 @@ public abstract class XAttributeImpl implements XAttribute {
 	/**
 	 * 
 	 */
-	private static final long serialVersionUID = 2570374546119649178L;
+	private static final long serialVersionUID = 2570374546119649179L;
 	
 	/**
 	 * Key, i.e. unique name, of this attribute. If the attribute is defined in
@@ -71,14 +73,15 @@ public abstract class XAttributeImpl implements XAttribute {
 	 */
 	private final String key;
 	/**
-	 * The extension defining this attribute. May be <code>null</code>, if this
-	 * attribute is not defined by an extension.
+	 * The extension defining this attribute, and the map of meta-attributes,
+	 * sharing one field to keep attributes small: <code>null</code>, the
+	 * extension, the map of meta-attributes (if there is no extension), or
+	 * both as {@link ExtensionAndAttributes}. Attributes rarely have
+	 * meta-attributes, so most instances never hold a map. Shared attributes
+	 * hold their extension as {@link Shared}, or, if they have been frozen
+	 * with meta-attributes, both as {@link Frozen}.
 	 */
-	private final XExtension extension;
-	/**
-	 * Map of meta-attributes, i.e. attributes of this attribute.
-	 */
-	private XAttributeMap attributes;
+	private Object meta;
 
 	/**
 	 * Creates a new, empty attribute.
@@ -100,7 +103,7 @@ public abstract class XAttributeImpl implements XAttribute {
 	 */
 	protected XAttributeImpl(String key, XExtension extension) {
 		this.key = key;
-		this.extension = extension;
+		this.meta = extension;
 	}
 
 	/*
@@ -118,19 +121,132 @@ public abstract class XAttributeImpl implements XAttribute {
 	 * @see org.deckfour.xes.model.impl.XAttribute#getExtension()
 	 */
 	public XExtension getExtension() {
-		return extension;
+		Object meta = this.meta;
+		if (meta instanceof XExtension) {
+			return (XExtension) meta;
+		} else if (meta instanceof ExtensionAndAttributes) {
+			return ((ExtensionAndAttributes) meta).extension;
+		} else if (meta instanceof Shared) {
+			return ((Shared) meta).extension;
+		} else if (meta instanceof Frozen) {
+			return ((Frozen) meta).extension;
+		} else {
+			return null;
+		}
 	}
 
-	/*
-	 * (non-Javadoc)
+	/**
+	 * Returns the map of meta-attributes, or <code>null</code> if it has not
+	 * been created yet.
+	 */
+	private XAttributeMap getAttributesIfPresent() {
+		Object meta = this.meta;
+		if (meta instanceof XAttributeMap) {
+			return (XAttributeMap) meta;
+		} else if (meta instanceof ExtensionAndAttributes) {
+			return ((ExtensionAndAttributes) meta).attributes;
+		} else if (meta instanceof Frozen) {
+			return ((Frozen) meta).attributes;
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns whether this attribute is shared, i.e., whether it may be
+	 * referenced by any number of elements. Shared attributes cannot be
+	 * modified; their clones are private, modifiable copies. Only frozen
+	 * attributes may have (frozen) meta-attributes.
+	 * 
+	 * @return Whether this attribute is shared.
+	 */
+	public boolean isShared() {
+		return meta instanceof Shared || meta instanceof Frozen;
+	}
+
+	/**
+	 * Marks this attribute as shared. Only attributes without
+	 * meta-attributes can be shared.
+	 */
+	void share() {
+		if (!isShared()) {
+			XAttributeMap attributes = getAttributesIfPresent();
+			if (attributes != null && !attributes.isEmpty()) {
+				throw new IllegalStateException(
+						"Attributes with meta-attributes cannot be shared");
+			}
+			meta = Shared.of(getExtension());
+		}
+	}
+
+	/**
+	 * Freezes this attribute, i.e., marks it as shared together with its
+	 * meta-attributes, which are replaced by a frozen copy. Only private
+	 * copies should be frozen.
+	 * 
+	 * @see XAttributeMapFrozenImpl#freeze(XAttribute)
+	 */
+	void freeze() {
+		if (!isShared()) {
+			XAttributeMap attributes = getAttributesIfPresent();
+			if (attributes == null || attributes.isEmpty()) {
+				meta = Shared.of(getExtension());
+			} else {
+				meta = new Frozen(getExtension(),
+						XAttributeMapFrozenImpl.freeze(attributes));
+			}
+		}
+	}
+
+	/**
+	 * Returns a copy of the given attribute for the clone of a map holding
+	 * it. Shared attributes cannot be modified, so they are referenced by
+	 * both maps; all other attributes are cloned.
+	 *
+	 * @param attribute
+	 *            Attribute of the original map.
+	 * @return Attribute for the clone.
+	 */
+	static XAttribute copy(XAttribute attribute) {
+		if (attribute instanceof XAttributeImpl
+				&& ((XAttributeImpl) attribute).isShared()) {
+			return attribute;
+		}
+		return (XAttribute) attribute.clone();
+	}
+
+	/**
+	 * Ensures that this attribute may be modified.
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             If this attribute is shared.
+	 */
+	protected void checkModifiable() {
+		if (isShared()) {
+			throw new UnsupportedOperationException("Attribute " + key
+					+ " is shared; modify a clone instead");
+		}
+	}
+
+	/**
+	 * Returns the meta-attributes of this attribute. For shared attributes,
+	 * this is a frozen map, which is empty unless the attribute has been
+	 * frozen with meta-attributes, and which throws an
+	 * <code>UnsupportedOperationException</code> on modification; add
+	 * meta-attributes to a clone instead.
 	 * 
 	 * @see org.deckfour.xes.model.impl.XAttribute#getAttributes()
 	 */
 	public XAttributeMap getAttributes() {
+		if (meta instanceof Shared) {
+			return XAttributeMapFrozenImpl.EMPTY;
+		}
 		// This is not thread-safe, but we don't give any thread safety guarantee anyway
+		XAttributeMap attributes = getAttributesIfPresent();
 		if (attributes == null) {
-			this.attributes = new XAttributeMapLazyImpl<XAttributeMapImpl>(
-					XAttributeMapImpl.class); // uses lazy implementation by default
+			attributes = new XAttributeMapLazySuppliedImpl<XAttributeMapCompactImpl>(
+					XAttributeMapLazySuppliedImpl.COMPACT); // uses lazy implementation by default
+			setAttributes(attributes);
 		}
 		return attributes;
 	}
@@ -143,7 +259,15 @@ public abstract class XAttributeImpl implements XAttribute {
 	 * .model.XAttributeMap)
 	 */
 	public void setAttributes(XAttributeMap attributes) {
-		this.attributes = attributes;
+		checkModifiable();
+		XExtension extension = getExtension();
+		if (extension == null) {
+			meta = attributes;
+		} else if (attributes == null) {
+			meta = extension;
+		} else {
+			meta = new ExtensionAndAttributes(extension, attributes);
+		}
 	}
 	
 	/* (non-Javadoc)
@@ -151,6 +275,7 @@ public abstract class XAttributeImpl implements XAttribute {
 	 */
 	@Override
 	public boolean hasAttributes() {
+		XAttributeMap attributes = getAttributesIfPresent();
 		return attributes != null && !attributes.isEmpty();
 	}
 
@@ -160,7 +285,7 @@ public abstract class XAttributeImpl implements XAttribute {
 	 * @see org.deckfour.xes.model.impl.XAttribute#getExtensions()
 	 */
 	public Set<XExtension> getExtensions() {
-		if (attributes != null) {
+		if (getAttributesIfPresent() != null) {
 			return XAttributeUtils.extractExtensions(getAttributes());	
 		} else {
 			return Collections.emptySet();
@@ -180,8 +305,13 @@ public abstract class XAttributeImpl implements XAttribute {
 			e.printStackTrace();
 			return null;
 		}
+		if (isShared()) {
+			// clones are private to their owner
+			clone.meta = getExtension();
+		}
+		XAttributeMap attributes = getAttributesIfPresent();
 		if (attributes != null) {
-			clone.attributes = (XAttributeMap) getAttributes().clone();
+			clone.setAttributes((XAttributeMap) attributes.clone());
 		}
 		return clone;
 	}
@@ -242,8 +372,9 @@ public abstract class XAttributeImpl implements XAttribute {
 			/*
 			 * Visit the (meta) attributes.
 			 */
+			XAttributeMap attributes = getAttributesIfPresent();
 			if (attributes != null) {
-				for (XAttribute attribute: getAttributes().values()) {
+				for (XAttribute attribute: attributes.values()) {
 					attribute.accept(visitor, this);
 				}
 			}
@@ -253,4 +384,68 @@ public abstract class XAttributeImpl implements XAttribute {
 		 */
 		visitor.visitAttributePost(this, parent);
 	}
+
+	/**
+	 * Extension and meta-attributes of an attribute having both.
+	 */
+	private static final class ExtensionAndAttributes implements Serializable {
+
+		private static final long serialVersionUID = -3021735128834542096L;
+
+		private final XExtension extension;
+		private final XAttributeMap attributes;
+
+		ExtensionAndAttributes(XExtension extension, XAttributeMap attributes) {
+			this.extension = extension;
+			this.attributes = attributes;
+		}
+	}
+
+	/**
+	 * Extension of a shared attribute. There is one instance per extension.
+	 */
+	private static final class Shared implements Serializable {
+
+		private static final long serialVersionUID = 6437129816150360841L;
+
+		private static final Shared NONE = new Shared(null);
+		private static final ConcurrentMap<XExtension, Shared> INSTANCES = new ConcurrentHashMap<XExtension, Shared>();
+
+		private final XExtension extension;
+
+		private Shared(XExtension extension) {
+			this.extension = extension;
+		}
+
+		static Shared of(XExtension extension) {
+			if (extension == null) {
+				return NONE;
+			}
+			Shared shared = INSTANCES.get(extension);
+			if (shared == null) {
+				shared = new Shared(extension);
+				Shared previous = INSTANCES.putIfAbsent(extension, shared);
+				if (previous != null) {
+					shared = previous;
+				}
+			}
+			return shared;
+		}
+	}
+
+	/**
+	 * Extension and frozen meta-attributes of a frozen attribute.
+	 */
+	private static final class Frozen implements Serializable {
+
+		private static final long serialVersionUID = -1542207638314526025L;
+
+		private final XExtension extension;
+		private final XAttributeMapFrozenImpl attributes;
+
+		Frozen(XExtension extension, XAttributeMapFrozenImpl attributes) {
+			this.extension = extension;
+			this.attributes = attributes;
+		}
+	}
 }
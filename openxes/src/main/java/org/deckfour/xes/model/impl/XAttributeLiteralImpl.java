@@ -104,6 +104,7 @@ public class XAttributeLiteralImpl extends XAttributeImpl implements
 	 * @see org.deckfour.xes.model.XAttributeLiteral#setValue(java.lang.String)
 	 */
 	public void setValue(String value) {
+		checkModifiable();
 		//#251 An empty trimmed string should not be treated as a null value.
 		if (value == null) { //#251 || value.trim().length() == 0) {
 			throw new NullPointerException(
@@ -122,12 +123,6 @@ public class XAttributeLiteralImpl extends XAttributeImpl implements
 		return this.value;
 	}
 
-	public Object clone() {
-		XAttributeLiteralImpl clone = (XAttributeLiteralImpl) super.clone();
-		clone.value = new String(this.value);
-		return clone;
-	}
-
 	@Override
 	public boolean equals(Object obj) {
 		if (obj == this)
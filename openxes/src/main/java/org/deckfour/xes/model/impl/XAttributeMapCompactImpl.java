@@ -0,0 +1,614 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.model.impl;
+
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
+
+/**
+ * Compact implementation of the XAttributeMap interface, backed by parallel
+ * arrays of keys and values in insertion order.
+ * 
+ * Small maps, like those of most events, are searched linearly. Keys are
+ * compared by identity first, which makes lookups cheapest for interned keys,
+ * as created by {@link org.deckfour.xes.factory.XFactoryNaiveImpl}; on
+ * insertion, the key of the attribute is stored if it equals the given key.
+ * Maps with more than {@link #HASH_THRESHOLD} entries additionally maintain
+ * an open-addressing hash table of array indices.
+ * 
+ * Compared to {@link XAttributeMapImpl}, this saves the hash table and one
+ * node object per entry, and iterates in insertion order.
+ * 
+ * Clones copy the attributes, but share the key array and the hash table of
+ * this map until either map adds or removes a key. Reading a map never
+ * modifies it, so maps which are not modified may be read by any number of
+ * threads, also after they have been cloned.
+ * 
+ */
+public class XAttributeMapCompactImpl extends AbstractMap<String, XAttribute>
+		implements XAttributeMap, Serializable {
+
+	/**
+	 * serial version UID.
+	 */
+	private static final long serialVersionUID = -6472396407431871845L;
+
+	/**
+	 * Size above which lookups go through a hash table.
+	 */
+	public static final int HASH_THRESHOLD = 12;
+
+	private static final String[] EMPTY_KEYS = new String[0];
+	private static final XAttribute[] EMPTY_VALUES = new XAttribute[0];
+
+	private String[] keys;
+	private XAttribute[] values;
+	private int size = 0;
+
+	/**
+	 * Hash table of indices (plus one) into the arrays, or <code>null</code>
+	 * while the map is small.
+	 */
+	private transient int[] table = null;
+
+	/**
+	 * Number of structural modifications, for fail-fast iteration.
+	 */
+	private transient int modCount = 0;
+
+	/**
+	 * Whether the key array and the hash table may be shared with a clone,
+	 * and have to be copied before keys are added or removed.
+	 */
+	private transient boolean shared = false;
+
+	/**
+	 * Creates a new attribute map.
+	 */
+	public XAttributeMapCompactImpl() {
+		this(0);
+	}
+
+	/**
+	 * Creates a new attribute map.
+	 * 
+	 * @param size
+	 *            Initial capacity of the map.
+	 */
+	public XAttributeMapCompactImpl(int size) {
+		if (size > 0) {
+			keys = new String[size];
+			values = new XAttribute[size];
+		} else {
+			keys = EMPTY_KEYS;
+			values = EMPTY_VALUES;
+		}
+	}
+
+	/**
+	 * Creates a new attribute map.
+	 * 
+	 * @param template
+	 *            Copy the contents of this attribute map to the new attribute
+	 *            map.
+	 */
+	public XAttributeMapCompactImpl(Map<String, XAttribute> template) {
+		this(template.size());
+		for (Map.Entry<String, XAttribute> entry : template.entrySet()) {
+			put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Ensures that the map can hold the given number of entries without
+	 * growing.
+	 */
+	public void ensureCapacity(int capacity) {
+		if (capacity > keys.length) {
+			resize(capacity);
+		}
+	}
+
+	/**
+	 * Shrinks the arrays to the size of the map.
+	 */
+	public void trimToSize() {
+		if (size < keys.length) {
+			resize(size);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#size()
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#containsKey(java.lang.Object)
+	 */
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#containsValue(java.lang.Object)
+	 */
+	@Override
+	public boolean containsValue(Object value) {
+		for (int i = 0; i < size; i++) {
+			if (value == null ? values[i] == null : value.equals(values[i])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#get(java.lang.Object)
+	 */
+	@Override
+	public XAttribute get(Object key) {
+		int index = indexOf(key);
+		return index >= 0 ? values[index] : null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public XAttribute put(String key, XAttribute value) {
+		int index = indexOf(key);
+		if (index >= 0) {
+			XAttribute previous = values[index];
+			values[index] = value;
+			return previous;
+		}
+		if (key == null) {
+			throw new NullPointerException("Attribute keys must not be null");
+		}
+		ensureExclusive();
+		if (value != null && value.getKey() != key
+				&& key.equals(value.getKey())) {
+			// share the (usually interned) key of the attribute
+			key = value.getKey();
+		}
+		if (size == keys.length) {
+			resize(size < 4 ? 4 : size + (size >> 1));
+		}
+		keys[size] = key;
+		values[size] = value;
+		size++;
+		modCount++;
+		if (table != null) {
+			if (size * 2 > table.length) {
+				rehash();
+			} else {
+				insert(size - 1);
+			}
+		} else if (size > HASH_THRESHOLD) {
+			rehash();
+		}
+		return null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#remove(java.lang.Object)
+	 */
+	@Override
+	public XAttribute remove(Object key) {
+		int index = indexOf(key);
+		if (index < 0) {
+			return null;
+		}
+		XAttribute previous = values[index];
+		removeAt(index);
+		return previous;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#clear()
+	 */
+	@Override
+	public void clear() {
+		ensureExclusive();
+		for (int i = 0; i < size; i++) {
+			keys[i] = null;
+			values[i] = null;
+		}
+		size = 0;
+		table = null;
+		modCount++;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#keySet()
+	 */
+	@Override
+	public Set<String> keySet() {
+		return new AbstractSet<String>() {
+			public Iterator<String> iterator() {
+				return new ArrayIterator<String>() {
+					protected String get(int index) {
+						return keys[index];
+					}
+				};
+			}
+
+			public int size() {
+				return size;
+			}
+
+			public boolean contains(Object o) {
+				return containsKey(o);
+			}
+
+			public boolean remove(Object o) {
+				int index = indexOf(o);
+				if (index < 0) {
+					return false;
+				}
+				removeAt(index);
+				return true;
+			}
+
+			public void clear() {
+				XAttributeMapCompactImpl.this.clear();
+			}
+		};
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#values()
+	 */
+	@Override
+	public Collection<XAttribute> values() {
+		return new AbstractCollection<XAttribute>() {
+			public Iterator<XAttribute> iterator() {
+				return new ArrayIterator<XAttribute>() {
+					protected XAttribute get(int index) {
+						return values[index];
+					}
+				};
+			}
+
+			public int size() {
+				return size;
+			}
+
+			public void clear() {
+				XAttributeMapCompactImpl.this.clear();
+			}
+		};
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#entrySet()
+	 */
+	@Override
+	public Set<Map.Entry<String, XAttribute>> entrySet() {
+		return new AbstractSet<Map.Entry<String, XAttribute>>() {
+			public Iterator<Map.Entry<String, XAttribute>> iterator() {
+				return new ArrayIterator<Map.Entry<String, XAttribute>>() {
+					protected Map.Entry<String, XAttribute> get(int index) {
+						return new Entry(index);
+					}
+				};
+			}
+
+			public int size() {
+				return size;
+			}
+
+			public void clear() {
+				XAttributeMapCompactImpl.this.clear();
+			}
+		};
+	}
+
+	/**
+	 * Creates a clone of this attribute map, with copies of its attributes
+	 * (see {@link XAttributeImpl#copy(XAttribute)}). The clone shares the key
+	 * array and the hash table of this map until either map adds or removes
+	 * a key.
+	 */
+	@Override
+	public Object clone() {
+		XAttributeMapCompactImpl clone = new XAttributeMapCompactImpl();
+		XAttribute[] copies = values.length == 0 ? EMPTY_VALUES
+				: new XAttribute[values.length];
+		for (int i = 0; i < size; i++) {
+			copies[i] = XAttributeImpl.copy(values[i]);
+		}
+		clone.keys = keys;
+		clone.values = copies;
+		clone.size = size;
+		clone.table = table;
+		clone.shared = true;
+		shared = true;
+		return clone;
+	}
+
+	/**
+	 * Copies the key array and the hash table if they may be shared with a
+	 * clone.
+	 */
+	private void ensureExclusive() {
+		if (shared) {
+			keys = keys.clone();
+			if (table != null) {
+				table = table.clone();
+			}
+			shared = false;
+		}
+	}
+
+	/**
+	 * Returns the array index of the given key, or -1.
+	 */
+	private int indexOf(Object key) {
+		if (table != null) {
+			if (key == null) {
+				return -1;
+			}
+			int mask = table.length - 1;
+			for (int slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+				int index = table[slot] - 1;
+				if (index < 0) {
+					return -1;
+				}
+				Object candidate = keys[index];
+				if (candidate == key || candidate.equals(key)) {
+					return index;
+				}
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			if (keys[i] == key) {
+				return i;
+			}
+		}
+		if (key != null) {
+			int hash = key.hashCode();
+			for (int i = 0; i < size; i++) {
+				if (keys[i].hashCode() == hash && keys[i].equals(key)) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private void removeAt(int index) {
+		ensureExclusive();
+		int moved = size - index - 1;
+		if (moved > 0) {
+			System.arraycopy(keys, index + 1, keys, index, moved);
+			System.arraycopy(values, index + 1, values, index, moved);
+		}
+		size--;
+		keys[size] = null;
+		values[size] = null;
+		modCount++;
+		if (table != null) {
+			if (size > HASH_THRESHOLD) {
+				rehash();
+			} else {
+				table = null;
+			}
+		}
+	}
+
+	private void resize(int capacity) {
+		ensureExclusive();
+		String[] newKeys = new String[capacity];
+		XAttribute[] newValues = new XAttribute[capacity];
+		System.arraycopy(keys, 0, newKeys, 0, size);
+		System.arraycopy(values, 0, newValues, 0, size);
+		keys = newKeys;
+		values = newValues;
+	}
+
+	/**
+	 * Rebuilds the hash table, with a load factor of at most one half.
+	 */
+	private void rehash() {
+		int capacity = Integer.highestOneBit(Math.max(size, HASH_THRESHOLD)) * 4;
+		table = new int[capacity];
+		for (int i = 0; i < size; i++) {
+			insert(i);
+		}
+	}
+
+	private void insert(int index) {
+		int mask = table.length - 1;
+		int slot = hash(keys[index]) & mask;
+		while (table[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = index + 1;
+	}
+
+	private static int hash(Object key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	private void readObject(java.io.ObjectInputStream in)
+			throws java.io.IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		if (size > HASH_THRESHOLD) {
+			rehash();
+		}
+	}
+
+	/**
+	 * Iterator over the arrays, supporting removal.
+	 */
+	private abstract class ArrayIterator<E> implements Iterator<E> {
+
+		private int next = 0;
+		private int last = -1;
+		private int expectedModCount = modCount;
+
+		protected abstract E get(int index);
+
+		public boolean hasNext() {
+			return next < size;
+		}
+
+		public E next() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (next >= size) {
+				throw new NoSuchElementException();
+			}
+			last = next++;
+			return get(last);
+		}
+
+		public void remove() {
+			if (last < 0) {
+				throw new IllegalStateException();
+			}
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			removeAt(last);
+			next = last;
+			last = -1;
+			expectedModCount = modCount;
+		}
+	}
+
+	/**
+	 * Entry view of an array index.
+	 */
+	private class Entry implements Map.Entry<String, XAttribute> {
+
+		private final int index;
+
+		Entry(int index) {
+			this.index = index;
+		}
+
+		public String getKey() {
+			return keys[index];
+		}
+
+		public XAttribute getValue() {
+			return values[index];
+		}
+
+		public XAttribute setValue(XAttribute value) {
+			XAttribute previous = values[index];
+			values[index] = value;
+			return previous;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			Object value = getValue();
+			return getKey().equals(e.getKey())
+					&& (value == null ? e.getValue() == null : value.equals(e
+							.getValue()));
+		}
+
+		@Override
+		public int hashCode() {
+			Object value = getValue();
+			return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+		}
+
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+	}
+
+}
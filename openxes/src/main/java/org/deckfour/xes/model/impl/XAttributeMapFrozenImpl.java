@@ -0,0 +1,421 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.model.impl;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
+
+/**
+ * Immutable implementation of the XAttributeMap interface, backed by an
+ * exactly sized array of values, in the order of the template map, and a
+ * shared {@link XAttributeShape} holding their keys.
+ * 
+ * Frozen maps hold frozen attributes (see
+ * {@link #freeze(XAttribute, XAttributeCache)}), so
+ * neither the map nor its attributes can be modified; any attempt to do so
+ * throws an <code>UnsupportedOperationException</code>. Since there is no
+ * mutable state, frozen maps need no synchronization and may be read by any
+ * number of threads. Cloning a frozen map yields a modifiable
+ * {@link XAttributeMapCompactImpl} with modifiable copies of the attributes.
+ */
+public class XAttributeMapFrozenImpl extends AbstractMap<String, XAttribute>
+		implements XAttributeMap, Serializable {
+
+	/**
+	 * serial version UID.
+	 */
+	private static final long serialVersionUID = 3874128945709184411L;
+
+	/**
+	 * The empty frozen map.
+	 */
+	static final XAttributeMapFrozenImpl EMPTY = new XAttributeMapFrozenImpl(
+			new XAttributeMapCompactImpl());
+
+	private transient XAttributeShape shape;
+	private transient XAttribute[] values;
+
+	/**
+	 * Creates a frozen copy of the given map, holding frozen copies of its
+	 * attributes.
+	 * 
+	 * @param template
+	 *            The map to copy.
+	 */
+	public XAttributeMapFrozenImpl(Map<String, XAttribute> template) {
+		this(template, null);
+	}
+
+	/**
+	 * Creates a frozen copy of the given map, holding frozen copies of its
+	 * attributes, which are shared with other elements through the given
+	 * cache.
+	 * 
+	 * @param template
+	 *            The map to copy.
+	 * @param cache
+	 *            Cache of shared attributes, may be <code>null</code>.
+	 */
+	public XAttributeMapFrozenImpl(Map<String, XAttribute> template,
+			XAttributeCache cache) {
+		XAttributeShape shape = XAttributeShape.EMPTY;
+		XAttribute[] values = new XAttribute[template.size()];
+		int i = 0;
+		for (Map.Entry<String, XAttribute> entry : template.entrySet()) {
+			shape = shape.with(entry.getKey());
+			values[i++] = freeze(entry.getValue(), cache);
+		}
+		this.shape = shape;
+		this.values = values;
+	}
+
+	/**
+	 * Returns a frozen version of the given map. Empty maps are frozen into a
+	 * shared instance, and frozen maps are returned as they are.
+	 * 
+	 * @param map
+	 *            The map to freeze.
+	 * @return The frozen map.
+	 */
+	public static XAttributeMapFrozenImpl freeze(Map<String, XAttribute> map) {
+		return freeze(map, null);
+	}
+
+	/**
+	 * Returns a frozen version of the given map, sharing attributes through
+	 * the given cache. Empty maps are frozen into a shared instance, and
+	 * frozen maps are returned as they are.
+	 * 
+	 * @param map
+	 *            The map to freeze.
+	 * @param cache
+	 *            Cache of shared attributes, may be <code>null</code>.
+	 * @return The frozen map.
+	 */
+	public static XAttributeMapFrozenImpl freeze(Map<String, XAttribute> map,
+			XAttributeCache cache) {
+		if (map instanceof XAttributeMapFrozenImpl) {
+			return (XAttributeMapFrozenImpl) map;
+		} else if (map.isEmpty()) {
+			return EMPTY;
+		} else {
+			return new XAttributeMapFrozenImpl(map, cache);
+		}
+	}
+
+	/**
+	 * Returns a frozen version of the given attribute, i.e., a shared
+	 * attribute whose meta-attributes (and collection elements) are frozen as
+	 * well. Shared attributes are returned as they are; other attributes are
+	 * copied before freezing, so the given attribute is not affected.
+	 * Attributes which do not extend {@link XAttributeImpl} cannot be frozen,
+	 * and are copied only.
+	 * 
+	 * @param attribute
+	 *            The attribute to freeze.
+	 * @return The frozen attribute.
+	 */
+	public static XAttribute freeze(XAttribute attribute) {
+		return freeze(attribute, null);
+	}
+
+	/**
+	 * Returns a frozen version of the given attribute, like
+	 * {@link #freeze(XAttribute)}. If the given cache holds an equal
+	 * attribute, that attribute is returned instead of a new copy, and new
+	 * copies are added to the cache.
+	 * 
+	 * @param attribute
+	 *            The attribute to freeze.
+	 * @param cache
+	 *            Cache of shared attributes, may be <code>null</code>.
+	 * @return The frozen attribute.
+	 */
+	public static XAttribute freeze(XAttribute attribute, XAttributeCache cache) {
+		if (attribute instanceof XAttributeImpl) {
+			XAttributeImpl impl = (XAttributeImpl) attribute;
+			if (impl.isShared()) {
+				return impl;
+			}
+			if (cache != null) {
+				XAttribute cached = cache.get(impl);
+				if (cached != null) {
+					return cached;
+				}
+			}
+			impl = (XAttributeImpl) impl.clone();
+			impl.freeze();
+			if (cache != null) {
+				cache.share(impl);
+			}
+			return impl;
+		} else {
+			return (XAttribute) attribute.clone();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#size()
+	 */
+	@Override
+	public int size() {
+		return values.length;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty() {
+		return values.length == 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#containsKey(java.lang.Object)
+	 */
+	@Override
+	public boolean containsKey(Object key) {
+		return shape.indexOf(key) >= 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#get(java.lang.Object)
+	 */
+	@Override
+	public XAttribute get(Object key) {
+		int index = shape.indexOf(key);
+		return index < 0 ? null : values[index];
+	}
+
+	/**
+	 * Frozen maps are read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 */
+	@Override
+	public XAttribute put(String key, XAttribute value) {
+		throw new UnsupportedOperationException(
+				"Frozen attribute maps are read-only");
+	}
+
+	/**
+	 * Frozen maps are read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 */
+	@Override
+	public void putAll(Map<? extends String, ? extends XAttribute> map) {
+		throw new UnsupportedOperationException(
+				"Frozen attribute maps are read-only");
+	}
+
+	/**
+	 * Frozen maps are read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 */
+	@Override
+	public XAttribute remove(Object key) {
+		throw new UnsupportedOperationException(
+				"Frozen attribute maps are read-only");
+	}
+
+	/**
+	 * Frozen maps are read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 */
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException(
+				"Frozen attribute maps are read-only");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#keySet()
+	 */
+	@Override
+	public Set<String> keySet() {
+		return new AbstractSet<String>() {
+			public Iterator<String> iterator() {
+				return new ArrayIterator<String>() {
+					protected String get(int index) {
+						return shape.getKey(index);
+					}
+				};
+			}
+
+			public int size() {
+				return values.length;
+			}
+
+			public boolean contains(Object o) {
+				return containsKey(o);
+			}
+		};
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#values()
+	 */
+	@Override
+	public Collection<XAttribute> values() {
+		return new AbstractCollection<XAttribute>() {
+			public Iterator<XAttribute> iterator() {
+				return new ArrayIterator<XAttribute>() {
+					protected XAttribute get(int index) {
+						return values[index];
+					}
+				};
+			}
+
+			public int size() {
+				return values.length;
+			}
+		};
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#entrySet()
+	 */
+	@Override
+	public Set<Map.Entry<String, XAttribute>> entrySet() {
+		return new AbstractSet<Map.Entry<String, XAttribute>>() {
+			public Iterator<Map.Entry<String, XAttribute>> iterator() {
+				return new ArrayIterator<Map.Entry<String, XAttribute>>() {
+					protected Map.Entry<String, XAttribute> get(int index) {
+						return new AbstractMap.SimpleImmutableEntry<String, XAttribute>(
+								shape.getKey(index), values[index]);
+					}
+				};
+			}
+
+			public int size() {
+				return values.length;
+			}
+		};
+	}
+
+	/**
+	 * Creates a modifiable clone, i.e. deep copy, of this attribute map.
+	 */
+	@Override
+	public Object clone() {
+		XAttributeMapCompactImpl clone = new XAttributeMapCompactImpl(
+				values.length);
+		for (int i = 0; i < values.length; i++) {
+			clone.put(shape.getKey(i), (XAttribute) values[i].clone());
+		}
+		return clone;
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(values.length);
+		for (int i = 0; i < values.length; i++) {
+			out.writeObject(shape.getKey(i));
+			out.writeObject(values[i]);
+		}
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		shape = XAttributeShape.EMPTY;
+		values = new XAttribute[in.readInt()];
+		for (int i = 0; i < values.length; i++) {
+			shape = shape.with((String) in.readObject());
+			values[i] = (XAttribute) in.readObject();
+		}
+	}
+
+	/**
+	 * Read-only iterator over the slots.
+	 */
+	private abstract class ArrayIterator<E> implements Iterator<E> {
+
+		private int next = 0;
+
+		protected abstract E get(int index);
+
+		public boolean hasNext() {
+			return next < values.length;
+		}
+
+		public E next() {
+			if (next >= values.length) {
+				throw new NoSuchElementException();
+			}
+			return get(next++);
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException(
+					"Frozen attribute maps are read-only");
+		}
+	}
+
+}
@@ -0,0 +1,314 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.model.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
+
+/**
+ * Lazy implementation of the XAttributeMap interface, which creates its
+ * backing store with a {@link Supplier} on the first insertion.
+ * 
+ * Unlike {@link XAttributeMapLazyImpl}, this map takes no locks and creates
+ * its backing store without reflection. It follows a single-writer,
+ * many-reader contract: one thread may modify the map, and any number of
+ * threads may read it once modifications are finished. The backing store is
+ * published through a volatile field only after it has received its first
+ * entries, so readers never see a partially initialized store. Concurrent
+ * modifications by several threads must be synchronized externally.
+ * 
+ * As long as the map is empty, reads return shared immutable empty
+ * collections and allocate nothing.
+ */
+public class XAttributeMapLazySuppliedImpl<T extends XAttributeMap> implements
+		XAttributeMap {
+
+	/**
+	 * Supplier of compact attribute maps, the default backing store.
+	 */
+	public static final Supplier<XAttributeMapCompactImpl> COMPACT = new Supplier<XAttributeMapCompactImpl>() {
+		public XAttributeMapCompactImpl get() {
+			return new XAttributeMapCompactImpl();
+		}
+	};
+
+	/**
+	 * Supplier of hash-based attribute maps.
+	 */
+	public static final Supplier<XAttributeMapImpl> HASHED = new Supplier<XAttributeMapImpl>() {
+		public XAttributeMapImpl get() {
+			return new XAttributeMapImpl();
+		}
+	};
+
+	/**
+	 * Supplier of the backing store.
+	 */
+	private final Supplier<T> supplier;
+
+	/**
+	 * Backing store, created lazily and published once filled.
+	 */
+	private volatile T backingStore = null;
+
+	/**
+	 * Creates a new lazy attribute map instance.
+	 * 
+	 * @param supplier
+	 *            Supplier of the backing store.
+	 */
+	public XAttributeMapLazySuppliedImpl(Supplier<T> supplier) {
+		this.supplier = supplier;
+	}
+
+	/**
+	 * Returns the supplier of the backing store.
+	 * 
+	 * @return The supplier of the backing store.
+	 */
+	public Supplier<T> getSupplier() {
+		return supplier;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.Map#clear()
+	 */
+	public void clear() {
+		backingStore = null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.Map#containsKey(java.lang.Object)
+	 */
+	public boolean containsKey(Object key) {
+		T store = backingStore;
+		return store != null && store.containsKey(key);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.Map#containsValue(java.lang.Object)
+	 */
+	public boolean containsValue(Object value) {
+		T store = backingStore;
+		return store != null && store.containsValue(value);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.Map#entrySet()
+	 */
+	public Set<Map.Entry<String, XAttribute>> entrySet() {
+		T store = backingStore;
+		if (store != null) {
+			return store.entrySet();
+		} else {
+			return Collections.emptySet();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.Map#get(java.lang.Object)
+	 */
+	public XAttribute get(Object key) {
+		T store = backingStore;
+		return store != null ? store.get(key) : null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.Map#isEmpty()
+	 */
+	public boolean isEmpty() {
+		T store = backingStore;
+		return store == null || store.isEmpty();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.Map#keySet()
+	 */
+	public Set<String> keySet() {
+		T store = backingStore;
+		if (store != null) {
+			return store.keySet();
+		} else {
+			return Collections.emptySet();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.Map#put(java.lang.Object, java.lang.Object)
+	 */
+	public XAttribute put(String key, XAttribute value) {
+		T store = backingStore;
+		if (store == null) {
+			// fill before publishing
+			store = supplier.get();
+			XAttribute previous = store.put(key, value);
+			backingStore = store;
+			return previous;
+		}
+		return store.put(key, value);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.Map#putAll(java.util.Map)
+	 */
+	public void putAll(Map<? extends String, ? extends XAttribute> t) {
+		if (t.size() > 0) {
+			T store = backingStore;
+			if (store == null) {
+				// fill before publishing
+				store = supplier.get();
+				store.putAll(t);
+				backingStore = store;
+			} else {
+				store.putAll(t);
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.Map#remove(java.lang.Object)
+	 */
+	public XAttribute remove(Object key) {
+		T store = backingStore;
+		return store != null ? store.remove(key) : null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.Map#size()
+	 */
+	public int size() {
+		T store = backingStore;
+		return store != null ? store.size() : 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.Map#values()
+	 */
+	public Collection<XAttribute> values() {
+		T store = backingStore;
+		if (store != null) {
+			return store.values();
+		} else {
+			return Collections.emptyList();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		} else if (!(o instanceof Map)) {
+			return false;
+		}
+		T store = backingStore;
+		return store != null ? store.equals(o) : ((Map<?, ?>) o).isEmpty();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		T store = backingStore;
+		return store != null ? store.hashCode() : 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		T store = backingStore;
+		return store != null ? store.toString() : "{}";
+	}
+
+	/**
+	 * Creates a clone, i.e. deep copy, of this lazy attribute map.
+	 */
+	@SuppressWarnings("unchecked")
+	public Object clone() {
+		XAttributeMapLazySuppliedImpl<T> clone = new XAttributeMapLazySuppliedImpl<T>(
+				supplier);
+		T store = backingStore;
+		if (store != null) {
+			clone.backingStore = (T) store.clone();
+		}
+		return clone;
+	}
+
+}
@@ -0,0 +1,510 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.model.impl;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
+
+/**
+ * Implementation of the XAttributeMap interface storing only an array of
+ * values, whose keys are given by a shared {@link XAttributeShape}.
+ * 
+ * Looking up a key yields its slot in the shape, and thus its index in the
+ * value array. Adding a key the shape does not have switches the map to the
+ * child shape with this key; removing a key only clears its slot. Once at
+ * least half of the slots have been cleared by removals, the next new key
+ * compacts the map to the shape of its remaining keys, so that maps whose
+ * keys change do not grow their shapes indefinitely. Entries are iterated
+ * in slot order. Null values are not supported.
+ * 
+ * Since events of a log mostly have the same keys, a map of this type takes
+ * little more memory than its values.
+ * 
+ * Clones share the shape, which cannot be modified, and copy the attributes
+ * of this map. Reading a map never modifies it, so maps which are not
+ * modified may be read by any number of threads.
+ * 
+ */
+public class XAttributeMapShapedImpl extends AbstractMap<String, XAttribute>
+		implements XAttributeMap, Serializable {
+
+	/**
+	 * serial version UID.
+	 */
+	private static final long serialVersionUID = 3312164436893207410L;
+
+	private static final XAttribute[] EMPTY_VALUES = new XAttribute[0];
+
+	private transient XAttributeShape shape;
+	/**
+	 * Values by slot, <code>null</code> for absent keys. May be longer than
+	 * the shape.
+	 */
+	private transient XAttribute[] values;
+	private transient int size = 0;
+	private transient int modCount = 0;
+	/**
+	 * Number of empty slots which have been cleared by removals.
+	 */
+	private transient int vacated = 0;
+
+	/**
+	 * Creates a new attribute map with the empty shape.
+	 */
+	public XAttributeMapShapedImpl() {
+		this(XAttributeShape.EMPTY);
+	}
+
+	/**
+	 * Creates a new, empty attribute map.
+	 * 
+	 * @param shape
+	 *            Initial shape of the map, whose keys are expected to be
+	 *            added.
+	 */
+	public XAttributeMapShapedImpl(XAttributeShape shape) {
+		this.shape = shape;
+		this.values = shape.size() == 0 ? EMPTY_VALUES
+				: new XAttribute[shape.size()];
+	}
+
+	/**
+	 * Returns the current shape of this map.
+	 */
+	public XAttributeShape getShape() {
+		return shape;
+	}
+
+	/**
+	 * Sets the shape of this map, which has to be empty.
+	 * 
+	 * @param shape
+	 *            The shape, whose keys are expected to be added.
+	 */
+	public void setShape(XAttributeShape shape) {
+		if (size > 0) {
+			throw new IllegalStateException(
+					"Cannot change the shape of a non-empty map");
+		}
+		this.shape = shape;
+		if (values.length < shape.size()) {
+			values = new XAttribute[shape.size()];
+		}
+		vacated = 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#size()
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#containsKey(java.lang.Object)
+	 */
+	@Override
+	public boolean containsKey(Object key) {
+		int slot = shape.indexOf(key);
+		return slot >= 0 && values[slot] != null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#get(java.lang.Object)
+	 */
+	@Override
+	public XAttribute get(Object key) {
+		int slot = shape.indexOf(key);
+		return slot >= 0 ? values[slot] : null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public XAttribute put(String key, XAttribute value) {
+		if (key == null || value == null) {
+			throw new NullPointerException(
+					"Attribute keys and values must not be null");
+		}
+		int slot = shape.indexOf(key);
+		if (slot < 0) {
+			if (vacated > 0 && vacated * 2 >= shape.size()) {
+				compact();
+			}
+			if (!key.equals(value.getKey())) {
+				shape = shape.with(key);
+			} else {
+				// share the (usually interned) key of the attribute
+				shape = shape.with(value.getKey());
+			}
+			slot = shape.size() - 1;
+			if (slot >= values.length) {
+				XAttribute[] grown = new XAttribute[Math.max(shape.size(),
+						values.length + (values.length >> 1) + 1)];
+				System.arraycopy(values, 0, grown, 0, values.length);
+				values = grown;
+			}
+		}
+		XAttribute previous = values[slot];
+		values[slot] = value;
+		if (previous == null) {
+			size++;
+			vacated = Math.min(vacated, shape.size() - size);
+			modCount++;
+		}
+		return previous;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#remove(java.lang.Object)
+	 */
+	@Override
+	public XAttribute remove(Object key) {
+		int slot = shape.indexOf(key);
+		if (slot < 0 || values[slot] == null) {
+			return null;
+		}
+		XAttribute previous = values[slot];
+		removeAt(slot);
+		return previous;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#clear()
+	 */
+	@Override
+	public void clear() {
+		for (int i = 0; i < values.length; i++) {
+			values[i] = null;
+		}
+		vacated += size;
+		size = 0;
+		modCount++;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#keySet()
+	 */
+	@Override
+	public Set<String> keySet() {
+		return new AbstractSet<String>() {
+			public Iterator<String> iterator() {
+				return new SlotIterator<String>() {
+					protected String get(int slot) {
+						return shape.getKey(slot);
+					}
+				};
+			}
+
+			public int size() {
+				return size;
+			}
+
+			public boolean contains(Object o) {
+				return containsKey(o);
+			}
+
+			public boolean remove(Object o) {
+				return XAttributeMapShapedImpl.this.remove(o) != null;
+			}
+
+			public void clear() {
+				XAttributeMapShapedImpl.this.clear();
+			}
+		};
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#values()
+	 */
+	@Override
+	public Collection<XAttribute> values() {
+		return new AbstractCollection<XAttribute>() {
+			public Iterator<XAttribute> iterator() {
+				return new SlotIterator<XAttribute>() {
+					protected XAttribute get(int slot) {
+						return values[slot];
+					}
+				};
+			}
+
+			public int size() {
+				return size;
+			}
+
+			public void clear() {
+				XAttributeMapShapedImpl.this.clear();
+			}
+		};
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#entrySet()
+	 */
+	@Override
+	public Set<Map.Entry<String, XAttribute>> entrySet() {
+		return new AbstractSet<Map.Entry<String, XAttribute>>() {
+			public Iterator<Map.Entry<String, XAttribute>> iterator() {
+				return new SlotIterator<Map.Entry<String, XAttribute>>() {
+					protected Map.Entry<String, XAttribute> get(int slot) {
+						return new Entry(slot);
+					}
+				};
+			}
+
+			public int size() {
+				return size;
+			}
+
+			public void clear() {
+				XAttributeMapShapedImpl.this.clear();
+			}
+		};
+	}
+
+	/**
+	 * Creates a clone of this attribute map, which shares the shape of this
+	 * map and holds copies of its attributes (see
+	 * {@link XAttributeImpl#copy(XAttribute)}).
+	 */
+	@Override
+	public Object clone() {
+		XAttributeMapShapedImpl clone = new XAttributeMapShapedImpl();
+		clone.shape = shape;
+		clone.values = values.length == 0 ? EMPTY_VALUES
+				: new XAttribute[values.length];
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null) {
+				clone.values[i] = XAttributeImpl.copy(values[i]);
+			}
+		}
+		clone.size = size;
+		return clone;
+	}
+
+	private void removeAt(int slot) {
+		values[slot] = null;
+		vacated++;
+		size--;
+		modCount++;
+	}
+
+	/**
+	 * Switches this map to the shape of its remaining keys, in slot order.
+	 */
+	private void compact() {
+		XAttributeShape compacted = XAttributeShape.EMPTY;
+		XAttribute[] remaining = size == 0 ? EMPTY_VALUES
+				: new XAttribute[size + 1];
+		for (int i = 0; i < shape.size(); i++) {
+			if (values[i] != null) {
+				remaining[compacted.size()] = values[i];
+				compacted = compacted.with(shape.getKey(i));
+			}
+		}
+		shape = compacted;
+		values = remaining;
+		vacated = 0;
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(size);
+		for (int i = 0; i < shape.size(); i++) {
+			if (values[i] != null) {
+				out.writeObject(shape.getKey(i));
+				out.writeObject(values[i]);
+			}
+		}
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		shape = XAttributeShape.EMPTY;
+		values = EMPTY_VALUES;
+		int entries = in.readInt();
+		for (int i = 0; i < entries; i++) {
+			put((String) in.readObject(), (XAttribute) in.readObject());
+		}
+	}
+
+	/**
+	 * Iterator over the occupied slots, supporting removal.
+	 */
+	private abstract class SlotIterator<E> implements Iterator<E> {
+
+		private int next = advance(0);
+		private int last = -1;
+		private int expectedModCount = modCount;
+
+		protected abstract E get(int slot);
+
+		private int advance(int slot) {
+			int limit = shape.size();
+			while (slot < limit && values[slot] == null) {
+				slot++;
+			}
+			return slot;
+		}
+
+		public boolean hasNext() {
+			return next < shape.size();
+		}
+
+		public E next() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (next >= shape.size()) {
+				throw new NoSuchElementException();
+			}
+			last = next;
+			next = advance(next + 1);
+			return get(last);
+		}
+
+		public void remove() {
+			if (last < 0) {
+				throw new IllegalStateException();
+			}
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			removeAt(last);
+			last = -1;
+			expectedModCount = modCount;
+		}
+	}
+
+	/**
+	 * Entry view of a slot.
+	 */
+	private class Entry implements Map.Entry<String, XAttribute> {
+
+		private final int slot;
+
+		Entry(int slot) {
+			this.slot = slot;
+		}
+
+		public String getKey() {
+			return shape.getKey(slot);
+		}
+
+		public XAttribute getValue() {
+			return values[slot];
+		}
+
+		public XAttribute setValue(XAttribute value) {
+			if (value == null) {
+				throw new NullPointerException(
+						"Attribute values must not be null");
+			}
+			XAttribute previous = values[slot];
+			values[slot] = value;
+			return previous;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return getKey().equals(e.getKey())
+					&& getValue().equals(e.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return getKey().hashCode() ^ getValue().hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+	}
+
+}
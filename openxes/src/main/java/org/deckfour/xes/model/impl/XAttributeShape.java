@@ -0,0 +1,254 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.model.impl;
+
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.deckfour.xes.model.XAttribute;
+
+/**
+ * Shared layout of attribute maps, i.e., an ordered array of attribute keys
+ * which assigns each key a slot. Maps with a shape (see
+ * {@link XAttributeMapShapedImpl}) only store their values by slot.
+ * 
+ * Shapes are immutable and interned: adding a key to a shape yields the
+ * child shape for this key, which is shared by all maps taking the same
+ * transition while any of them is alive. Starting from the {@link #EMPTY}
+ * shape, maps which receive the same keys in the same order thus share one
+ * shape. Parsers seed events with the shape of the global event attributes
+ * (see {@link #of(Collection)}), so that all events declaring them share a
+ * shape regardless of their attribute order.
+ * 
+ * Shapes only reference their children weakly, so that the shapes of
+ * discarded logs are garbage collected. A child shape appends its key to the
+ * key array of its parent where possible, so that a chain of shapes shares
+ * one key array.
+ * 
+ */
+public final class XAttributeShape {
+
+	/**
+	 * The shape without keys, root of all shared shapes.
+	 */
+	public static final XAttributeShape EMPTY = new XAttributeShape(null,
+			new String[0], 0, null);
+
+	/**
+	 * Maximum number of distinct live child shapes per shape. Beyond that,
+	 * new shapes are not shared, to bound the memory held by the shape tree.
+	 */
+	private static final int MAX_TRANSITIONS = 256;
+
+	/**
+	 * Size up to which slots are looked up by linear search.
+	 */
+	private static final int LINEAR_SEARCH_SIZE = 8;
+
+	/**
+	 * Parent shape, which is kept alive as long as this shape is.
+	 */
+	private final XAttributeShape parent;
+	/**
+	 * Keys by slot. Only the first {@link #size} keys belong to this shape,
+	 * the array may be shared with its descendants.
+	 */
+	private final String[] keys;
+	private final int size;
+	/**
+	 * Slots by key, shared with all shapes sharing the key array, or
+	 * <code>null</code> for small shapes. Slots beyond the size of a shape
+	 * belong to its descendants.
+	 */
+	private final Map<String, Integer> slots;
+	private volatile ConcurrentMap<String, WeakReference<XAttributeShape>> transitions;
+
+	private XAttributeShape(XAttributeShape parent, String[] keys, int size,
+			Map<String, Integer> slots) {
+		this.parent = parent;
+		this.keys = keys;
+		this.size = size;
+		this.slots = slots;
+	}
+
+	/**
+	 * Returns the shared shape with the keys of the given attributes, in
+	 * their order.
+	 */
+	public static XAttributeShape of(Collection<XAttribute> attributes) {
+		XAttributeShape shape = EMPTY;
+		for (XAttribute attribute : attributes) {
+			shape = shape.with(attribute.getKey());
+		}
+		return shape;
+	}
+
+	/**
+	 * Returns the number of slots of this shape.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the key of the given slot.
+	 */
+	public String getKey(int slot) {
+		if (slot >= size) {
+			throw new ArrayIndexOutOfBoundsException(slot);
+		}
+		return keys[slot];
+	}
+
+	/**
+	 * Returns the slot of the given key, or -1 if this shape does not have
+	 * it.
+	 */
+	public int indexOf(Object key) {
+		if (slots != null) {
+			Integer slot = slots.get(key);
+			return slot == null || slot >= size ? -1 : slot;
+		}
+		for (int i = 0; i < size; i++) {
+			if (keys[i] == key) {
+				return i;
+			}
+		}
+		if (key != null) {
+			for (int i = 0; i < size; i++) {
+				if (keys[i].equals(key)) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the shape with the given key added as last slot, or this shape
+	 * if it has the key already.
+	 */
+	public XAttributeShape with(String key) {
+		if (indexOf(key) >= 0) {
+			return this;
+		}
+		ConcurrentMap<String, WeakReference<XAttributeShape>> transitions = this.transitions;
+		if (transitions == null) {
+			synchronized (this) {
+				transitions = this.transitions;
+				if (transitions == null) {
+					transitions = new ConcurrentHashMap<String, WeakReference<XAttributeShape>>();
+					this.transitions = transitions;
+				}
+			}
+		}
+		WeakReference<XAttributeShape> reference = transitions.get(key);
+		XAttributeShape child = reference == null ? null : reference.get();
+		if (child != null) {
+			return child;
+		}
+		synchronized (this) {
+			reference = transitions.get(key);
+			child = reference == null ? null : reference.get();
+			if (child == null) {
+				child = createChild(key);
+				if (transitions.size() >= MAX_TRANSITIONS) {
+					purge(transitions);
+				}
+				if (transitions.size() < MAX_TRANSITIONS) {
+					transitions.put(key,
+							new WeakReference<XAttributeShape>(child));
+				}
+			}
+			return child;
+		}
+	}
+
+	/**
+	 * Creates the child shape with the given key, which claims the next slot
+	 * of the shared key array unless another descendant has claimed it for
+	 * another key.
+	 */
+	private XAttributeShape createChild(String key) {
+		if (slots != null || size < LINEAR_SEARCH_SIZE) {
+			synchronized (keys) {
+				if (size < keys.length
+						&& (keys[size] == null || keys[size].equals(key))) {
+					keys[size] = key;
+					if (slots != null) {
+						slots.put(key, size);
+					}
+					return new XAttributeShape(this, keys, size + 1, slots);
+				}
+			}
+		}
+		String[] childKeys = new String[size + 1 + (size >> 1)];
+		System.arraycopy(keys, 0, childKeys, 0, size);
+		childKeys[size] = key;
+		Map<String, Integer> childSlots = null;
+		if (size + 1 > LINEAR_SEARCH_SIZE) {
+			childSlots = new ConcurrentHashMap<String, Integer>(
+					childKeys.length * 2);
+			for (int i = 0; i <= size; i++) {
+				childSlots.put(childKeys[i], i);
+			}
+		}
+		return new XAttributeShape(this, childKeys, size + 1, childSlots);
+	}
+
+	/**
+	 * Removes the transitions to child shapes which have been garbage
+	 * collected.
+	 */
+	private static void purge(
+			ConcurrentMap<String, WeakReference<XAttributeShape>> transitions) {
+		Iterator<WeakReference<XAttributeShape>> iterator = transitions
+				.values().iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().get() == null) {
+				iterator.remove();
+			}
+		}
+	}
+
+}
@@ -55,12 +55,13 @@ public class XAttributeTimestampImpl extends XAttributeImpl implements
 	/**
 	 * 
 	 */
-	private static final long serialVersionUID = -4627152242051009472L;
+	private static final long serialVersionUID = -4627152242051009473L;
 	
 	/**
-	 * Value of the attribute.
+	 * Value of the attribute, in milliseconds since the epoch. Dates are only
+	 * created on demand, by {@link #getValue()}.
 	 */
-	private Date value;
+	private long value;
 
 	/**
 	 * Creates a new instance.
@@ -112,16 +113,19 @@ public class XAttributeTimestampImpl extends XAttributeImpl implements
 	 *            The extension of the attribute.
 	 */
 	public XAttributeTimestampImpl(String key, long millis, XExtension extension) {
-		this(key, new Date(millis), extension);
+		super(key, extension);
+		this.value = millis;
 	}
 
-	/*
-	 * (non-Javadoc)
+	/**
+	 * Returns the value of this attribute as a new date. Modifying the
+	 * returned date does not affect the attribute; use
+	 * {@link #setValue(Date)} or {@link #setValueMillis(long)} instead.
 	 * 
 	 * @see org.deckfour.xes.model.XAttributeTimestamp#getValue()
 	 */
 	public Date getValue() {
-		return this.value;
+		return new Date(this.value);
 	}
 
 	/*
@@ -130,7 +134,7 @@ public class XAttributeTimestampImpl extends XAttributeImpl implements
 	 * @see org.deckfour.xes.model.XAttributeTimestamp#getValueMillis()
 	 */
 	public long getValueMillis() {
-		return this.value.getTime();
+		return this.value;
 	}
 
 	/*
@@ -139,11 +143,12 @@ public class XAttributeTimestampImpl extends XAttributeImpl implements
 	 * @see org.deckfour.xes.model.XAttributeTimestamp#setValue(java.util.Date)
 	 */
 	public void setValue(Date value) {
+		checkModifiable();
 		if (value == null) {
 			throw new NullPointerException(
 					"No null value allowed in timestamp attribute!");
 		}
-		this.value = value;
+		this.value = value.getTime();
 	}
 
 	/*
@@ -152,7 +157,8 @@ public class XAttributeTimestampImpl extends XAttributeImpl implements
 	 * @see org.deckfour.xes.model.XAttributeTimestamp#setValueMillis(long)
 	 */
 	public void setValueMillis(long value) {
-		this.value.setTime(value);
+		checkModifiable();
+		this.value = value;
 	}
 
 	/*
@@ -162,15 +168,7 @@ public class XAttributeTimestampImpl extends XAttributeImpl implements
 	 */
 	@Override
 	public String toString() {
-		synchronized (FORMATTER) {
-			return FORMATTER.format(this.value);
-		}
-	}
-
-	public Object clone() {
-		XAttributeTimestampImpl clone = (XAttributeTimestampImpl) super.clone();
-		clone.value = new Date(clone.value.getTime());
-		return clone;
+		return XsDateTimeFormat.formatMillis(this.value);
 	}
 
 	public boolean equals(Object obj) {
@@ -179,7 +177,7 @@ public class XAttributeTimestampImpl extends XAttributeImpl implements
 		if (obj instanceof XAttributeTimestamp) { // compares types
 			XAttributeTimestamp other = (XAttributeTimestamp) obj;
 			return super.equals(other) // compares keys
-					&& value.equals(other.getValue()); // compares values
+					&& value == other.getValueMillis(); // compares values
 		} else {
 			return false;
 		}
@@ -194,6 +192,6 @@ public class XAttributeTimestampImpl extends XAttributeImpl implements
 		if (result != 0) {
 			return result;
 		}
-		return value.compareTo(((XAttributeTimestamp)other).getValue());
+		return Long.compare(value, ((XAttributeTimestamp)other).getValueMillis());
 	}
 }
@@ -0,0 +1,211 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.model.impl;
+
+import java.util.Set;
+
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.id.XID;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.XVisitor;
+import org.deckfour.xes.util.XAttributeUtils;
+
+/**
+ * Immutable implementation of the XEvent interface, holding a frozen
+ * attribute map. Frozen events carry no synchronization and may be shared by
+ * any number of threads; any attempt to modify them throws an
+ * <code>UnsupportedOperationException</code>.
+ * 
+ * @see XLogFrozenImpl
+ */
+public class XEventFrozenImpl implements XEvent {
+
+	private final XID id;
+	private final XAttributeMapFrozenImpl attributes;
+
+	/**
+	 * Creates a frozen copy of the given event, with the same ID.
+	 * 
+	 * @param event
+	 *            The event to copy.
+	 */
+	public XEventFrozenImpl(XEvent event) {
+		this(event, null);
+	}
+
+	/**
+	 * Creates a frozen copy of the given event, with the same ID, sharing
+	 * attributes through the given cache.
+	 * 
+	 * @param event
+	 *            The event to copy.
+	 * @param cache
+	 *            Cache of shared attributes, may be <code>null</code>.
+	 */
+	public XEventFrozenImpl(XEvent event, XAttributeCache cache) {
+		this.id = event.getID();
+		this.attributes = XAttributeMapFrozenImpl.freeze(event.getAttributes(),
+				cache);
+	}
+
+	/**
+	 * Returns a frozen version of the given event. Frozen events are returned
+	 * as they are.
+	 * 
+	 * @param event
+	 *            The event to freeze.
+	 * @return The frozen event.
+	 */
+	public static XEventFrozenImpl freeze(XEvent event) {
+		return freeze(event, null);
+	}
+
+	/**
+	 * Returns a frozen version of the given event, sharing attributes through
+	 * the given cache. Frozen events are returned as they are.
+	 * 
+	 * @param event
+	 *            The event to freeze.
+	 * @param cache
+	 *            Cache of shared attributes, may be <code>null</code>.
+	 * @return The frozen event.
+	 */
+	public static XEventFrozenImpl freeze(XEvent event, XAttributeCache cache) {
+		if (event instanceof XEventFrozenImpl) {
+			return (XEventFrozenImpl) event;
+		}
+		return new XEventFrozenImpl(event, cache);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XEvent#getID()
+	 */
+	public XID getID() {
+		return id;
+	}
+
+	/**
+	 * Returns the frozen attributes of this event.
+	 * 
+	 * @see org.deckfour.xes.model.XAttributable#getAttributes()
+	 */
+	public XAttributeMap getAttributes() {
+		return attributes;
+	}
+
+	/**
+	 * Frozen events are read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 */
+	public void setAttributes(XAttributeMap attributes) {
+		throw new UnsupportedOperationException("Frozen events are read-only");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XAttributable#hasAttributes()
+	 */
+	public boolean hasAttributes() {
+		return !attributes.isEmpty();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XAttributable#getExtensions()
+	 */
+	public Set<XExtension> getExtensions() {
+		return XAttributeUtils.extractExtensions(attributes);
+	}
+
+	/**
+	 * Creates a modifiable in-memory copy of this event, with a new ID.
+	 * 
+	 * @see java.lang.Object#clone()
+	 */
+	public Object clone() {
+		return new XEventImpl((XAttributeMap) attributes.clone());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	public boolean equals(Object o) {
+		if (o instanceof XEvent) {
+			return id.equals(((XEvent) o).getID());
+		} else {
+			return false;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#hashCode()
+	 */
+	public int hashCode() {
+		return id.hashCode();
+	}
+
+	/*
+	 * Runs the given visitor for the given trace on this event.
+	 * 
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XEvent#accept(org.deckfour.xes.model.XVisitor,
+	 * org.deckfour.xes.model.XTrace)
+	 */
+	public void accept(XVisitor visitor, XTrace trace) {
+		visitor.visitEventPre(this, trace);
+		for (XAttribute attribute : attributes.values()) {
+			attribute.accept(visitor, this);
+		}
+		visitor.visitEventPost(this, trace);
+	}
+
+}
@@ -59,7 +59,8 @@ import org.deckfour.xes.util.XAttributeUtils;
 public class XEventImpl implements XEvent {
 
 	/**
-	 * ID of this event.
+	 * ID of this event, or <code>null</code> if it has not been assigned yet
+	 * (see {@link XIDFactory#isLazy()}).
 	 */
 	private XID id;
 
@@ -72,7 +73,7 @@ public class XEventImpl implements XEvent {
 	 * Creates a new event.
 	 */
 	public XEventImpl() {
-		this(XIDFactory.instance().createId(), new XAttributeMapImpl());
+		this(createDefaultId(), new XAttributeMapImpl());
 	}
 
 	/**
@@ -92,7 +93,7 @@ public class XEventImpl implements XEvent {
 	 *            Map of attribute for the event.
 	 */
 	public XEventImpl(XAttributeMap attributes) {
-		this(XIDFactory.instance().createId(), attributes);
+		this(createDefaultId(), attributes);
 	}
 
 	/**
@@ -144,8 +145,9 @@ public class XEventImpl implements XEvent {
 	}
 
 	/**
-	 * Clones this event, i.e. creates a deep copy, but with a new ID, so equals
-	 * does not hold between this and the clone
+	 * Clones this event, i.e. creates a copy, but with a new ID, so equals
+	 * does not hold between this and the clone. The new ID is only created
+	 * when it is first requested.
 	 */
 	public Object clone() {
 		XEventImpl clone;
@@ -155,7 +157,7 @@ public class XEventImpl implements XEvent {
 			e.printStackTrace();
 			return null;
 		}
-		clone.id = XIDFactory.instance().createId();
+		clone.id = null;
 		clone.attributes = (XAttributeMap) attributes.clone();
 		return clone;
 	}
@@ -165,7 +167,7 @@ public class XEventImpl implements XEvent {
 	 */
 	public boolean equals(Object o) {
 		if (o instanceof XEventImpl) {
-			return ((XEventImpl) o).id.equals(id);
+			return ((XEventImpl) o).getID().equals(getID());
 		} else {
 			return false;
 		}
@@ -175,7 +177,7 @@ public class XEventImpl implements XEvent {
 	 * Returns the hashCode of the id
 	 */
 	public int hashCode() {
-		return id.hashCode();
+		return getID().hashCode();
 	}
 
 	/*
@@ -183,6 +185,17 @@ public class XEventImpl implements XEvent {
 	 * @see org.deckfour.xes.model.XEvent#getID()
 	 */
 	public XID getID() {
+		XID id = this.id;
+		if (id == null) {
+			// lazily assigned, once (IDs are immutable, hence safely published)
+			synchronized (this) {
+				id = this.id;
+				if (id == null) {
+					id = XIDFactory.instance().createId();
+					this.id = id;
+				}
+			}
+		}
 		return id;
 	}
 
@@ -196,6 +209,15 @@ public class XEventImpl implements XEvent {
 		this.id = id;
 	}
 
+	/**
+	 * Creates the ID of a new event, or returns <code>null</code> if IDs are
+	 * assigned lazily.
+	 */
+	private static XID createDefaultId() {
+		XIDFactory factory = XIDFactory.instance();
+		return factory.isLazy() ? null : factory.createId();
+	}
+
 	/*
 	 * Runs the given visitor for the given trace on this event.
 	 * 
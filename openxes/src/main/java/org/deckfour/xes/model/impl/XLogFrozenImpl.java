@@ -0,0 +1,323 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.model.impl;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.info.XLogInfo;
+import org.deckfour.xes.logging.XLogging;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.XVisitor;
+
+/**
+ * Immutable implementation of the XLog interface, for logs which are only
+ * analyzed after they have been read. A frozen log holds frozen traces,
+ * events and attribute maps (see {@link XTraceFrozenImpl},
+ * {@link XEventFrozenImpl} and {@link XAttributeMapFrozenImpl}), which are
+ * compacted to their exact sizes and carry no synchronization, so that any
+ * number of threads can read one frozen log without contention and without
+ * defensive copies. Any attempt to modify the log, its header, or its
+ * contents throws an <code>UnsupportedOperationException</code>.
+ * 
+ * While freezing, value-identical attributes are shared through an
+ * {@link XAttributeCache}, so a frozen log usually takes less memory than
+ * its source. The only mutable state is the cache of log infos, which is
+ * thread-safe.
+ * Cloning a frozen log yields a modifiable {@link XLogImpl}.
+ * 
+ * <pre>
+ * XLog frozen = XLogFrozenImpl.freeze(log);
+ * </pre>
+ */
+public class XLogFrozenImpl extends AbstractList<XTrace> implements XLog,
+		RandomAccess {
+
+	private final XTrace[] traces;
+	private final XAttributeMapFrozenImpl attributes;
+	private final Set<XExtension> extensions;
+	private final List<XEventClassifier> classifiers;
+	private final List<XAttribute> globalTraceAttributes;
+	private final List<XAttribute> globalEventAttributes;
+	private final ConcurrentMap<XEventClassifier, XLogInfo> infos = new ConcurrentHashMap<XEventClassifier, XLogInfo>();
+
+	/**
+	 * Default capacity of the attribute cache used while freezing.
+	 */
+	public static final int DEFAULT_CACHE_CAPACITY = 1 << 16;
+
+	/**
+	 * Creates a frozen copy of the given log. The given log is not affected.
+	 * 
+	 * @param log
+	 *            The log to copy.
+	 */
+	public XLogFrozenImpl(XLog log) {
+		this(log, new XAttributeCache(DEFAULT_CACHE_CAPACITY));
+	}
+
+	/**
+	 * Creates a frozen copy of the given log, sharing attributes through the
+	 * given cache. The given log is not affected.
+	 * 
+	 * @param log
+	 *            The log to copy.
+	 * @param cache
+	 *            Cache of shared attributes, may be <code>null</code>.
+	 */
+	public XLogFrozenImpl(XLog log, XAttributeCache cache) {
+		XLogging.log("start freezing log", XLogging.Importance.DEBUG);
+		long start = System.currentTimeMillis();
+		this.traces = new XTrace[log.size()];
+		int i = 0;
+		for (XTrace trace : log) {
+			traces[i++] = XTraceFrozenImpl.freeze(trace, cache);
+		}
+		this.attributes = XAttributeMapFrozenImpl.freeze(log.getAttributes(),
+				cache);
+		this.extensions = Collections.unmodifiableSet(new HashSet<XExtension>(
+				log.getExtensions()));
+		this.classifiers = Collections
+				.unmodifiableList(new ArrayList<XEventClassifier>(log
+						.getClassifiers()));
+		this.globalTraceAttributes = freeze(log.getGlobalTraceAttributes(),
+				cache);
+		this.globalEventAttributes = freeze(log.getGlobalEventAttributes(),
+				cache);
+		String duration = " (" + (System.currentTimeMillis() - start)
+				+ " msec.)";
+		XLogging.log("finished freezing log" + duration,
+				XLogging.Importance.DEBUG);
+	}
+
+	/**
+	 * Returns a frozen version of the given log. Frozen logs are returned as
+	 * they are.
+	 * 
+	 * @param log
+	 *            The log to freeze.
+	 * @return The frozen log.
+	 */
+	public static XLogFrozenImpl freeze(XLog log) {
+		if (log instanceof XLogFrozenImpl) {
+			return (XLogFrozenImpl) log;
+		}
+		return new XLogFrozenImpl(log);
+	}
+
+	private static List<XAttribute> freeze(List<XAttribute> attributes,
+			XAttributeCache cache) {
+		List<XAttribute> frozen = new ArrayList<XAttribute>(attributes.size());
+		for (XAttribute attribute : attributes) {
+			frozen.add(XAttributeMapFrozenImpl.freeze(attribute, cache));
+		}
+		return Collections.unmodifiableList(frozen);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#get(int)
+	 */
+	public XTrace get(int index) {
+		return traces[index];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractCollection#size()
+	 */
+	public int size() {
+		return traces.length;
+	}
+
+	/**
+	 * Returns the frozen attributes of this log.
+	 * 
+	 * @see org.deckfour.xes.model.XAttributable#getAttributes()
+	 */
+	public XAttributeMap getAttributes() {
+		return attributes;
+	}
+
+	/**
+	 * Frozen logs are read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 */
+	public void setAttributes(XAttributeMap attributes) {
+		throw new UnsupportedOperationException("Frozen logs are read-only");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XAttributable#hasAttributes()
+	 */
+	public boolean hasAttributes() {
+		return !attributes.isEmpty();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XAttributable#getExtensions()
+	 */
+	public Set<XExtension> getExtensions() {
+		return extensions;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XLog#getClassifiers()
+	 */
+	public List<XEventClassifier> getClassifiers() {
+		return classifiers;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XLog#getGlobalTraceAttributes()
+	 */
+	public List<XAttribute> getGlobalTraceAttributes() {
+		return globalTraceAttributes;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XLog#getGlobalEventAttributes()
+	 */
+	public List<XAttribute> getGlobalEventAttributes() {
+		return globalEventAttributes;
+	}
+
+	/**
+	 * Creates a modifiable in-memory copy of this log.
+	 * 
+	 * @see java.lang.Object#clone()
+	 */
+	public Object clone() {
+		XLogImpl clone = new XLogImpl((XAttributeMap) attributes.clone());
+		clone.getExtensions().addAll(extensions);
+		clone.getClassifiers().addAll(classifiers);
+		for (XAttribute attribute : globalTraceAttributes) {
+			clone.getGlobalTraceAttributes().add(
+					(XAttribute) attribute.clone());
+		}
+		for (XAttribute attribute : globalEventAttributes) {
+			clone.getGlobalEventAttributes().add(
+					(XAttribute) attribute.clone());
+		}
+		for (XTrace trace : traces) {
+			clone.add((XTrace) trace.clone());
+		}
+		return clone;
+	}
+
+	/*
+	 * Runs the given visitor on this log.
+	 * 
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XLog#accept(org.deckfour.xes.model.XVisitor)
+	 */
+	public boolean accept(XVisitor visitor) {
+		if (visitor.precondition()) {
+			visitor.init(this);
+			visitor.visitLogPre(this);
+			for (XExtension extension : extensions) {
+				extension.accept(visitor, this);
+			}
+			for (XEventClassifier classifier : classifiers) {
+				classifier.accept(visitor, this);
+			}
+			for (XAttribute attribute : attributes.values()) {
+				attribute.accept(visitor, this);
+			}
+			for (XTrace trace : traces) {
+				trace.accept(visitor, this);
+			}
+			visitor.visitLogPost(this);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the cached info for the given classifier. Infos are cached per
+	 * classifier, and may be retrieved concurrently.
+	 * 
+	 * @see org.deckfour.xes.model.XLog#getInfo(org.deckfour.xes.classification.XEventClassifier)
+	 */
+	public XLogInfo getInfo(XEventClassifier classifier) {
+		return infos.get(classifier);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.deckfour.xes.model.XLog#setInfo(org.deckfour.xes.classification.
+	 * XEventClassifier, org.deckfour.xes.info.XLogInfo)
+	 */
+	public void setInfo(XEventClassifier classifier, XLogInfo info) {
+		if (info == null) {
+			infos.remove(classifier);
+		} else {
+			infos.put(classifier, info);
+		}
+	}
+
+}
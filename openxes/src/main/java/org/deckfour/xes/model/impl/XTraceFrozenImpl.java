@@ -0,0 +1,230 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.model.impl;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.XVisitor;
+import org.deckfour.xes.util.XAttributeUtils;
+
+/**
+ * Immutable implementation of the XTrace interface, holding frozen events in
+ * an exactly sized array, and a frozen attribute map. Frozen traces carry no
+ * synchronization and may be shared by any number of threads; any attempt to
+ * modify them throws an <code>UnsupportedOperationException</code>.
+ * 
+ * @see XLogFrozenImpl
+ */
+public class XTraceFrozenImpl extends AbstractList<XEvent> implements XTrace,
+		RandomAccess {
+
+	private final XEvent[] events;
+	private final XAttributeMapFrozenImpl attributes;
+
+	/**
+	 * Creates a frozen copy of the given trace.
+	 * 
+	 * @param trace
+	 *            The trace to copy.
+	 */
+	public XTraceFrozenImpl(XTrace trace) {
+		this(trace, null);
+	}
+
+	/**
+	 * Creates a frozen copy of the given trace, sharing attributes through the
+	 * given cache.
+	 * 
+	 * @param trace
+	 *            The trace to copy.
+	 * @param cache
+	 *            Cache of shared attributes, may be <code>null</code>.
+	 */
+	public XTraceFrozenImpl(XTrace trace, XAttributeCache cache) {
+		this.events = new XEvent[trace.size()];
+		int i = 0;
+		for (XEvent event : trace) {
+			events[i++] = XEventFrozenImpl.freeze(event, cache);
+		}
+		this.attributes = XAttributeMapFrozenImpl.freeze(trace.getAttributes(),
+				cache);
+	}
+
+	/**
+	 * Returns a frozen version of the given trace. Frozen traces are returned
+	 * as they are.
+	 * 
+	 * @param trace
+	 *            The trace to freeze.
+	 * @return The frozen trace.
+	 */
+	public static XTraceFrozenImpl freeze(XTrace trace) {
+		return freeze(trace, null);
+	}
+
+	/**
+	 * Returns a frozen version of the given trace, sharing attributes through
+	 * the given cache. Frozen traces are returned as they are.
+	 * 
+	 * @param trace
+	 *            The trace to freeze.
+	 * @param cache
+	 *            Cache of shared attributes, may be <code>null</code>.
+	 * @return The frozen trace.
+	 */
+	public static XTraceFrozenImpl freeze(XTrace trace, XAttributeCache cache) {
+		if (trace instanceof XTraceFrozenImpl) {
+			return (XTraceFrozenImpl) trace;
+		}
+		return new XTraceFrozenImpl(trace, cache);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#get(int)
+	 */
+	public XEvent get(int index) {
+		return events[index];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractCollection#size()
+	 */
+	public int size() {
+		return events.length;
+	}
+
+	/**
+	 * Returns the frozen attributes of this trace.
+	 * 
+	 * @see org.deckfour.xes.model.XAttributable#getAttributes()
+	 */
+	public XAttributeMap getAttributes() {
+		return attributes;
+	}
+
+	/**
+	 * Frozen traces are read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 */
+	public void setAttributes(XAttributeMap attributes) {
+		throw new UnsupportedOperationException("Frozen traces are read-only");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XAttributable#hasAttributes()
+	 */
+	public boolean hasAttributes() {
+		return !attributes.isEmpty();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XAttributable#getExtensions()
+	 */
+	public Set<XExtension> getExtensions() {
+		return XAttributeUtils.extractExtensions(attributes);
+	}
+
+	/**
+	 * Frozen traces are read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 */
+	public int insertOrdered(XEvent event) {
+		throw new UnsupportedOperationException("Frozen traces are read-only");
+	}
+
+	/**
+	 * Frozen traces are read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 */
+	public boolean sortByTimestamp() {
+		throw new UnsupportedOperationException("Frozen traces are read-only");
+	}
+
+	/**
+	 * Creates a modifiable in-memory copy of this trace.
+	 * 
+	 * @see java.lang.Object#clone()
+	 */
+	public Object clone() {
+		XTrace clone = new XTraceImpl((XAttributeMap) attributes.clone());
+		for (XEvent event : events) {
+			clone.add((XEvent) event.clone());
+		}
+		return clone;
+	}
+
+	/*
+	 * Runs the given visitor for the given log on this trace.
+	 * 
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XTrace#accept(org.deckfour.xes.model.XVisitor,
+	 * org.deckfour.xes.model.XLog)
+	 */
+	public void accept(XVisitor visitor, XLog log) {
+		visitor.visitTracePre(this, log);
+		for (XAttribute attribute : attributes.values()) {
+			attribute.accept(visitor, this);
+		}
+		for (XEvent event : events) {
+			event.accept(visitor, this);
+		}
+		visitor.visitTracePost(this, log);
+	}
+
+}
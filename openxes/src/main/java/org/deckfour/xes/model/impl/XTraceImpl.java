@@ -49,9 +49,12 @@ import org.deckfour.xes.model.XAttributeMap;
 import org.deckfour.xes.model.XAttributeTimestamp;
 import org.deckfour.xes.model.XEvent;
 import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XSourceTracked;
 import org.deckfour.xes.model.XTrace;
 import org.deckfour.xes.model.XVisitor;
 import org.deckfour.xes.util.XAttributeUtils;
+import org.deckfour.xes.util.XSourceRange;
+import org.deckfour.xes.util.XTimestampSorter;
 
 /**
  * Memory-based implementation for the XTrace interface.
@@ -59,7 +62,8 @@ import org.deckfour.xes.util.XAttributeUtils;
  * @author Christian W. Guenther (christian@deckfour.org)
  * 
  */
-public class XTraceImpl extends ArrayList<XEvent> implements XTrace {
+public class XTraceImpl extends ArrayList<XEvent> implements XTrace,
+		XSourceTracked {
 
 	/**
 	 * Serial version UID.
@@ -71,6 +75,11 @@ public class XTraceImpl extends ArrayList<XEvent> implements XTrace {
 	 */
 	private XAttributeMap attributes;
 
+	/**
+	 * Source range this trace has been parsed from, if recorded.
+	 */
+	private transient XSourceRange sourceRange;
+
 	/**
 	 * Creates a new trace.
 	 * 
@@ -127,6 +136,26 @@ public class XTraceImpl extends ArrayList<XEvent> implements XTrace {
 		return !attributes.isEmpty();
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XSourceTracked#getSourceRange()
+	 */
+	public XSourceRange getSourceRange() {
+		return sourceRange;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.deckfour.xes.model.XSourceTracked#setSourceRange(org.deckfour.xes
+	 * .util.XSourceRange)
+	 */
+	public void setSourceRange(XSourceRange range) {
+		this.sourceRange = range;
+	}
+
 	/**
 	 * Creates a clone, i.e. deep copy, of this trace.
 	 */
@@ -172,6 +201,16 @@ public class XTraceImpl extends ArrayList<XEvent> implements XTrace {
 		return 0;
 	}
 
+	/**
+	 * Sorts the events of this trace by timestamp, holding the same lock as
+	 * {@link #insertOrdered(XEvent)}.
+	 * 
+	 * @see org.deckfour.xes.model.XTrace#sortByTimestamp()
+	 */
+	public synchronized boolean sortByTimestamp() {
+		return XTimestampSorter.sort(this);
+	}
+
 	/*
 	 * Runs the given visitor for the given log on this trace.
 	 * 
@@ -51,11 +51,268 @@ import java.util.TimeZone;
  * An instance of java.text.Format, which may be used to parse and format
  * <code>xs:dateTime</code> values.
  * </p>
+ * <p>
+ * Instances hold no state and are thread-safe. Timestamps between the years
+ * 1583 and 9999 are formatted and parsed arithmetically, without allocating
+ * a <code>Calendar</code>; {@link #formatMillis(long)} and
+ * {@link #parseMillis(String)} additionally avoid the intermediate
+ * <code>Date</code>.
+ * </p>
  */
 public class XsDateTimeFormat extends Format {
 	private static final long serialVersionUID = 3258131340871479609L;
 
-	private int parseInt(String pString, int pOffset, StringBuffer pDigits) {
+	private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+	/**
+	 * First instant of the Gregorian calendar in <code>Calendar</code>'s
+	 * default cutover (1582-10-15T00:00:00Z); earlier dates are Julian.
+	 */
+	private static final long GREGORIAN_CUTOVER = -12219292800000L;
+
+	/**
+	 * First instant of the year 10000 (UTC), the first one not formatted with
+	 * four year digits.
+	 */
+	private static final long YEAR_10000 = 253402300800000L;
+
+	/**
+	 * Length of the longest timestamp produced by the arithmetic formatter,
+	 * as in <code>2005-10-24T11:57:31.123+01:00</code>.
+	 */
+	private static final int MAX_LENGTH = 29;
+
+	/**
+	 * Marks timestamps the arithmetic parser leaves to the
+	 * <code>Calendar</code>-based one.
+	 */
+	private static final long NOT_PARSED = Long.MIN_VALUE;
+
+	/**
+	 * Formats the given time in the <code>xs:dateTime</code> format, using the
+	 * default time zone. Equivalent to <code>format(new Date(millis))</code>,
+	 * but safe to call concurrently without synchronization.
+	 * 
+	 * @param millis
+	 *            Milliseconds since 01/01/1970 00:00:00 GMT.
+	 * @return The formatted timestamp.
+	 */
+	public static String formatMillis(long millis) {
+		char[] chars = new char[MAX_LENGTH];
+		int length = format(millis, chars);
+		if (length >= 0) {
+			return new String(chars, 0, length);
+		}
+		return formatCalendar(new Date(millis), new StringBuffer()).toString();
+	}
+
+	/**
+	 * Parses the given <code>xs:dateTime</code> string. Equivalent to
+	 * <code>parseObject(xsDateTime).getTime()</code>, but safe to call
+	 * concurrently without synchronization.
+	 * 
+	 * @param xsDateTime
+	 *            The timestamp to parse.
+	 * @return Milliseconds since 01/01/1970 00:00:00 GMT.
+	 * @throws ParseException
+	 *             If no timestamp could be parsed from the start of the
+	 *             string.
+	 */
+	public static long parseMillis(String xsDateTime) throws ParseException {
+		ParsePosition position = new ParsePosition(0);
+		long millis = parseFast(xsDateTime, position);
+		if (millis != NOT_PARSED) {
+			return millis;
+		}
+		Date date = parseCalendar(xsDateTime, position);
+		if (position.getIndex() == 0) {
+			throw new ParseException("Unparseable date: \"" + xsDateTime
+					+ "\"", position.getErrorIndex());
+		}
+		return date.getTime();
+	}
+
+	/**
+	 * Writes the given time into the given buffer, which must hold at least
+	 * {@link #MAX_LENGTH} characters.
+	 * 
+	 * @return The number of characters written, or -1 if the time lies
+	 *         outside the years 1583 to 9999 in the default time zone.
+	 */
+	private static int format(long millis, char[] chars) {
+		int offset = TimeZone.getDefault().getOffset(millis);
+		long local = millis + offset;
+		if (local < GREGORIAN_CUTOVER || local >= YEAR_10000) {
+			return -1;
+		}
+		long days = Math.floorDiv(local, MILLIS_PER_DAY);
+		int time = (int) Math.floorMod(local, MILLIS_PER_DAY);
+		// civil date from days since the epoch; the year-of-era arithmetic
+		// restarts every 400 years (146097 days), with eras starting on March 1
+		long shifted = days + 719468;
+		long era = Math.floorDiv(shifted, 146097);
+		int dayOfEra = (int) (shifted - era * 146097);
+		int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524
+				- dayOfEra / 146096) / 365;
+		int dayOfYear = dayOfEra
+				- (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		int shiftedMonth = (5 * dayOfYear + 2) / 153;
+		int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+		int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+		int year = (int) (yearOfEra + era * 400) + (month <= 2 ? 1 : 0);
+
+		put(chars, 0, year, 4);
+		chars[4] = '-';
+		put(chars, 5, month, 2);
+		chars[7] = '-';
+		put(chars, 8, day, 2);
+		chars[10] = 'T';
+		put(chars, 11, time / 3600000, 2);
+		chars[13] = ':';
+		put(chars, 14, (time / 60000) % 60, 2);
+		chars[16] = ':';
+		put(chars, 17, (time / 1000) % 60, 2);
+		int length = 19;
+		int millisOfSecond = time % 1000;
+		if (millisOfSecond > 0) {
+			chars[length] = '.';
+			put(chars, length + 1, millisOfSecond, 3);
+			length += 4;
+		}
+		if (offset == 0) {
+			chars[length++] = 'Z';
+		} else {
+			if (offset < 0) {
+				chars[length] = '-';
+				offset = -offset;
+			} else {
+				chars[length] = '+';
+			}
+			int minutes = offset / (60 * 1000);
+			put(chars, length + 1, minutes / 60, 2);
+			chars[length + 3] = ':';
+			put(chars, length + 4, minutes % 60, 2);
+			length += 6;
+		}
+		return length;
+	}
+
+	private static void put(char[] chars, int index, int value, int length) {
+		for (int i = index + length - 1; i >= index; i--) {
+			chars[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+	}
+
+	/**
+	 * Parses timestamps of the common shape
+	 * <code>yyyy-MM-ddTHH:mm:ss[.S[S[S]]][Z|(+|-)hh:mm]</code> with ASCII
+	 * digits, a year from 1583 on and valid month and zone fields. Lenient
+	 * day and time fields overflow exactly as they would in a lenient
+	 * <code>Calendar</code>.
+	 * 
+	 * @return The parsed time, or {@link #NOT_PARSED} if the string needs
+	 *         the <code>Calendar</code>-based parser; the position is only
+	 *         updated on success.
+	 */
+	private static long parseFast(String pString, ParsePosition pParsePosition) {
+		int offset = pParsePosition.getIndex();
+		int length = pString.length();
+		if (offset + 19 > length || pString.charAt(offset + 4) != '-'
+				|| pString.charAt(offset + 7) != '-'
+				|| pString.charAt(offset + 10) != 'T'
+				|| pString.charAt(offset + 13) != ':'
+				|| pString.charAt(offset + 16) != ':') {
+			return NOT_PARSED;
+		}
+		int year = digits(pString, offset, 4);
+		int month = digits(pString, offset + 5, 2);
+		int mday = digits(pString, offset + 8, 2);
+		int hour = digits(pString, offset + 11, 2);
+		int minute = digits(pString, offset + 14, 2);
+		int second = digits(pString, offset + 17, 2);
+		if (year < 1583 || month < 1 || month > 12 || mday < 0 || hour < 0
+				|| minute < 0 || second < 0) {
+			return NOT_PARSED;
+		}
+		offset += 19;
+
+		int millis = 0;
+		if (offset < length && pString.charAt(offset) == '.') {
+			int start = ++offset;
+			while (offset < length && offset - start < 4) {
+				char c = pString.charAt(offset);
+				if (!Character.isDigit(c)) {
+					break;
+				} else if (c < '0' || c > '9') {
+					return NOT_PARSED;
+				}
+				millis = millis * 10 + (c - '0');
+				++offset;
+			}
+			int count = offset - start;
+			if (count > 3) {
+				return NOT_PARSED;
+			}
+			for (int i = count; count > 0 && i < 3; i++) {
+				millis *= 10;
+			}
+		}
+
+		int zone = 0;
+		if (offset < length) {
+			char c = pString.charAt(offset);
+			if (c == 'Z') {
+				++offset;
+			} else if (c == '+' || c == '-') {
+				if (offset + 6 > length || pString.charAt(offset + 3) != ':') {
+					return NOT_PARSED;
+				}
+				int hours = digits(pString, offset + 1, 2);
+				int minutes = digits(pString, offset + 4, 2);
+				if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) {
+					return NOT_PARSED;
+				}
+				zone = (hours * 60 + minutes) * 60 * 1000;
+				if (c == '-') {
+					zone = -zone;
+				}
+				offset += 6;
+			}
+		}
+
+		// days since the epoch from the civil date, counting years from March
+		// so that leap days come last
+		int shiftedYear = month <= 2 ? year - 1 : year;
+		int era = shiftedYear / 400;
+		int yearOfEra = shiftedYear - era * 400;
+		int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5
+				+ mday - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100
+				+ dayOfYear;
+		long days = era * 146097L + dayOfEra - 719468;
+		pParsePosition.setIndex(offset);
+		return days * MILLIS_PER_DAY + hour * 3600000L + minute * 60000L
+				+ second * 1000L + millis - zone;
+	}
+
+	/**
+	 * @return The value of the given number of ASCII digits, or -1 if any
+	 *         other character is found.
+	 */
+	private static int digits(String pString, int pOffset, int pCount) {
+		int value = 0;
+		for (int i = pOffset; i < pOffset + pCount; i++) {
+			char c = pString.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	private static int parseInt(String pString, int pOffset, StringBuffer pDigits) {
 		int length = pString.length();
 		pDigits.setLength(0);
 		while (pOffset < length) {
@@ -83,6 +340,15 @@ public class XsDateTimeFormat extends Format {
 			throw new NullPointerException(
 					"The ParsePosition argument must not be null.");
 		}
+		long millis = parseFast(pString, pParsePosition);
+		if (millis != NOT_PARSED) {
+			return new Date(millis);
+		}
+		return parseCalendar(pString, pParsePosition);
+	}
+
+	private static Date parseCalendar(String pString,
+			ParsePosition pParsePosition) {
 		int offset = pParsePosition.getIndex();
 		int length = pString.length();
 
@@ -233,7 +499,7 @@ public class XsDateTimeFormat extends Format {
 		return cal.getTime();
 	}
 
-	private void append(StringBuffer pBuffer, int pNum, int pMinLen) {
+	private static void append(StringBuffer pBuffer, int pNum, int pMinLen) {
 		String s = Integer.toString(pNum);
 		for (int i = s.length(); i < pMinLen; i++) {
 			pBuffer.append('0');
@@ -256,8 +522,17 @@ public class XsDateTimeFormat extends Format {
 					"The FieldPosition argument must not be null.");
 		}
 
+		char[] chars = new char[MAX_LENGTH];
+		int length = format(((Date) pCalendar).getTime(), chars);
+		if (length >= 0) {
+			return pBuffer.append(chars, 0, length);
+		}
+		return formatCalendar((Date) pCalendar, pBuffer);
+	}
+
+	private static StringBuffer formatCalendar(Date pDate, StringBuffer pBuffer) {
 		Calendar cal = Calendar.getInstance();
-		cal.setTime((Date) pCalendar);
+		cal.setTime(pDate);
 		int year = cal.get(Calendar.YEAR);
 		if (year < 0) {
 			pBuffer.append('-');
@@ -0,0 +1,200 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.model.mapped;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.impl.XAttributeMapFrozenImpl;
+
+/**
+ * Read-only view on an attribute map of a memory-mapped binary XES file.
+ * 
+ * Looking up a single attribute decodes only that attribute; iterating the
+ * map decodes it as a whole, once per view. The attributes returned are
+ * frozen (see {@link XAttributeMapFrozenImpl#freeze(XAttribute)}), and any
+ * attempt to modify the map or its attributes throws an
+ * <code>UnsupportedOperationException</code>. Cloning the view yields a
+ * modifiable, decoded copy.
+ */
+class XAttributeMapMappedImpl extends AbstractMap<String, XAttribute>
+		implements XAttributeMap {
+
+	private final XMappedLogFile source;
+	private final ByteBuffer segment;
+	private final int position;
+	/**
+	 * The decoded map, created on first iteration.
+	 */
+	private XAttributeMapFrozenImpl decoded;
+
+	/**
+	 * Creates a view on the attribute map at the given position.
+	 * 
+	 * @param source
+	 *            Mapped file.
+	 * @param segment
+	 *            Mapped segment holding the map.
+	 * @param position
+	 *            Position of the map in the segment.
+	 */
+	XAttributeMapMappedImpl(XMappedLogFile source, ByteBuffer segment,
+			int position) {
+		this.source = source;
+		this.segment = segment;
+		this.position = position;
+	}
+
+	private XAttributeMapFrozenImpl decoded() {
+		if (decoded == null) {
+			decoded = XAttributeMapFrozenImpl.freeze(source.readAttributes(
+					segment, position));
+		}
+		return decoded;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#size()
+	 */
+	public int size() {
+		// the attribute map starts with its size
+		return segment.getInt(position);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#isEmpty()
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#containsKey(java.lang.Object)
+	 */
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#get(java.lang.Object)
+	 */
+	public XAttribute get(Object key) {
+		if (decoded != null) {
+			return decoded.get(key);
+		} else if (key instanceof String) {
+			XAttribute attribute = source.readAttribute(segment, position,
+					(String) key);
+			return attribute == null ? null : XAttributeMapFrozenImpl
+					.freeze(attribute);
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Mapped attribute maps are read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 */
+	public XAttribute put(String key, XAttribute value) {
+		throw new UnsupportedOperationException(
+				"Mapped attribute maps are read-only");
+	}
+
+	/**
+	 * Mapped attribute maps are read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 */
+	public void putAll(Map<? extends String, ? extends XAttribute> map) {
+		throw new UnsupportedOperationException(
+				"Mapped attribute maps are read-only");
+	}
+
+	/**
+	 * Mapped attribute maps are read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 */
+	public XAttribute remove(Object key) {
+		throw new UnsupportedOperationException(
+				"Mapped attribute maps are read-only");
+	}
+
+	/**
+	 * Mapped attribute maps are read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 */
+	public void clear() {
+		throw new UnsupportedOperationException(
+				"Mapped attribute maps are read-only");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractMap#entrySet()
+	 */
+	public Set<Map.Entry<String, XAttribute>> entrySet() {
+		return decoded().entrySet();
+	}
+
+	/**
+	 * Creates a modifiable, decoded copy of this attribute map.
+	 * 
+	 * @see java.lang.Object#clone()
+	 */
+	public Object clone() {
+		return source.readAttributes(segment, position);
+	}
+
+}
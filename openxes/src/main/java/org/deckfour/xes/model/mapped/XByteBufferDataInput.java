@@ -0,0 +1,152 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.model.mapped;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * DataInput view on a region of a byte buffer. Reads use absolute access
+ * only, so that any number of instances may concurrently read from the same
+ * (read-only) buffer.
+ * 
+ */
+class XByteBufferDataInput implements DataInput {
+
+	private final ByteBuffer buffer;
+	private int position;
+
+	/**
+	 * Creates a new input, starting at the given position.
+	 * 
+	 * @param buffer
+	 *            Buffer to read from.
+	 * @param position
+	 *            Initial read position.
+	 */
+	XByteBufferDataInput(ByteBuffer buffer, int position) {
+		this.buffer = buffer;
+		this.position = position;
+	}
+
+	/**
+	 * @return The current read position.
+	 */
+	int getPosition() {
+		return position;
+	}
+
+	private int advance(int bytes) throws EOFException {
+		int current = position;
+		if (current + bytes > buffer.limit()) {
+			throw new EOFException();
+		}
+		position = current + bytes;
+		return current;
+	}
+
+	public void readFully(byte[] b) throws IOException {
+		readFully(b, 0, b.length);
+	}
+
+	public void readFully(byte[] b, int off, int len) throws IOException {
+		int start = advance(len);
+		for (int i = 0; i < len; i++) {
+			b[off + i] = buffer.get(start + i);
+		}
+	}
+
+	public int skipBytes(int n) {
+		int skipped = Math.max(0, Math.min(n, buffer.limit() - position));
+		position += skipped;
+		return skipped;
+	}
+
+	public boolean readBoolean() throws IOException {
+		return buffer.get(advance(1)) != 0;
+	}
+
+	public byte readByte() throws IOException {
+		return buffer.get(advance(1));
+	}
+
+	public int readUnsignedByte() throws IOException {
+		return buffer.get(advance(1)) & 0xFF;
+	}
+
+	public short readShort() throws IOException {
+		return buffer.getShort(advance(2));
+	}
+
+	public int readUnsignedShort() throws IOException {
+		return buffer.getShort(advance(2)) & 0xFFFF;
+	}
+
+	public char readChar() throws IOException {
+		return buffer.getChar(advance(2));
+	}
+
+	public int readInt() throws IOException {
+		return buffer.getInt(advance(4));
+	}
+
+	public long readLong() throws IOException {
+		return buffer.getLong(advance(8));
+	}
+
+	public float readFloat() throws IOException {
+		return buffer.getFloat(advance(4));
+	}
+
+	public double readDouble() throws IOException {
+		return buffer.getDouble(advance(8));
+	}
+
+	public String readLine() throws IOException {
+		throw new UnsupportedOperationException();
+	}
+
+	public String readUTF() throws IOException {
+		return DataInputStream.readUTF(this);
+	}
+
+}
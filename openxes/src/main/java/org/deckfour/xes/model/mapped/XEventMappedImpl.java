@@ -0,0 +1,178 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.model.mapped;
+
+import java.nio.ByteBuffer;
+import java.util.Set;
+
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.id.XID;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.XVisitor;
+import org.deckfour.xes.util.XAttributeUtils;
+
+/**
+ * Read-only flyweight view on an event of a memory-mapped binary XES file.
+ * The event ID and attributes are decoded from the mapped file on each
+ * access.
+ * 
+ * @see XLogMappedImpl
+ */
+public class XEventMappedImpl implements XEvent {
+
+	private final XMappedLogFile source;
+	private final ByteBuffer segment;
+	private final int position;
+
+	/**
+	 * Creates a view on the event at the given position.
+	 * 
+	 * @param source
+	 *            Mapped file.
+	 * @param segment
+	 *            Mapped segment holding the event.
+	 * @param position
+	 *            Position of the event in the segment.
+	 */
+	XEventMappedImpl(XMappedLogFile source, ByteBuffer segment, int position) {
+		this.source = source;
+		this.segment = segment;
+		this.position = position;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XEvent#getID()
+	 */
+	public XID getID() {
+		return source.readID(segment, position);
+	}
+
+	/**
+	 * Returns a read-only view on the event attributes, which decodes single
+	 * attributes on lookup. Use its clone for a modifiable copy.
+	 * 
+	 * @see org.deckfour.xes.model.XAttributable#getAttributes()
+	 */
+	public XAttributeMap getAttributes() {
+		return new XAttributeMapMappedImpl(source, segment, position + 16);
+	}
+
+	/**
+	 * Mapped events are read-only.
+	 * 
+	 * @throws UnsupportedOperationException
+	 */
+	public void setAttributes(XAttributeMap attributes) {
+		throw new UnsupportedOperationException("Mapped events are read-only");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XAttributable#hasAttributes()
+	 */
+	public boolean hasAttributes() {
+		// the attribute map starts with its size
+		return segment.getInt(position + 16) > 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XAttributable#getExtensions()
+	 */
+	public Set<XExtension> getExtensions() {
+		return XAttributeUtils.extractExtensions(getAttributes());
+	}
+
+	/**
+	 * Creates an in-memory copy of this event, with a new ID, using the
+	 * factory of the log.
+	 * 
+	 * @see java.lang.Object#clone()
+	 */
+	public Object clone() {
+		return source.getFactory().createEvent(
+				(XAttributeMap) getAttributes().clone());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	public boolean equals(Object o) {
+		if (o instanceof XEvent) {
+			return getID().equals(((XEvent) o).getID());
+		} else {
+			return false;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#hashCode()
+	 */
+	public int hashCode() {
+		return getID().hashCode();
+	}
+
+	/*
+	 * Runs the given visitor for the given trace on this event.
+	 * 
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XEvent#accept(org.deckfour.xes.model.XVisitor,
+	 * org.deckfour.xes.model.XTrace)
+	 */
+	public void accept(XVisitor visitor, XTrace trace) {
+		visitor.visitEventPre(this, trace);
+		for (XAttribute attribute : getAttributes().values()) {
+			attribute.accept(visitor, this);
+		}
+		visitor.visitEventPost(this, trace);
+	}
+
+}
@@ -0,0 +1,297 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.model.mapped;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.info.XLogInfo;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.XVisitor;
+import org.deckfour.xes.out.XesBinarySerializer;
+
+/**
+ * Log implementation backed by a memory-mapped binary XES file, as written
+ * by {@link XesBinarySerializer}.
+ * 
+ * Opening a log only reads the header and the trace index of the file.
+ * Traces and events are lightweight views, which decode their attributes from
+ * the mapped file on access. Thus, very large logs can be read with little
+ * heap, and the operating system can share the mapped pages among all
+ * processes reading the same file.
+ * 
+ * The traces and events of a mapped log are read-only; any attempt to modify
+ * them throws an <code>UnsupportedOperationException</code>, and attribute
+ * maps returned by them are decoded copies. The log header (attributes,
+ * extensions, classifiers, global attributes) is held in memory and can be
+ * modified. Cloning a mapped log (or one of its traces or events) yields a
+ * modifiable in-memory copy, created with the factory of the log.
+ * 
+ */
+public class XLogMappedImpl extends AbstractList<XTrace> implements XLog {
+
+	private final XMappedLogFile source;
+	private XAttributeMap attributes;
+	private final Set<XExtension> extensions;
+	private final List<XEventClassifier> classifiers;
+	private final List<XAttribute> globalTraceAttributes;
+	private final List<XAttribute> globalEventAttributes;
+	private XEventClassifier cachedClassifier;
+	private XLogInfo cachedInfo;
+
+	/**
+	 * Opens the given binary XES file, using the currently-set standard
+	 * factory for decoding.
+	 * 
+	 * @param file
+	 *            Binary XES file.
+	 * @throws IOException
+	 */
+	public XLogMappedImpl(File file) throws IOException {
+		this(file, XFactoryRegistry.instance().currentDefault());
+	}
+
+	/**
+	 * Opens the given binary XES file.
+	 * 
+	 * @param file
+	 *            Binary XES file.
+	 * @param factory
+	 *            Factory used for decoding attributes, and for creating
+	 *            in-memory copies.
+	 * @throws IOException
+	 */
+	public XLogMappedImpl(File file, XFactory factory) throws IOException {
+		this.attributes = factory.createAttributeMap();
+		this.extensions = new HashSet<XExtension>();
+		this.classifiers = new ArrayList<XEventClassifier>();
+		this.globalTraceAttributes = new ArrayList<XAttribute>();
+		this.globalEventAttributes = new ArrayList<XAttribute>();
+		this.cachedClassifier = null;
+		this.cachedInfo = null;
+		this.source = new XMappedLogFile(file, factory, this);
+	}
+
+	/**
+	 * @return The mapped binary XES file.
+	 */
+	public File getFile() {
+		return source.getFile();
+	}
+
+	/**
+	 * Closes the mapped file. Traces and events may remain accessible until
+	 * the mapping is garbage collected, but should no longer be used.
+	 * 
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		source.close();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractList#get(int)
+	 */
+	public XTrace get(int index) {
+		if (index < 0 || index >= source.getNumberOfTraces()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+					+ source.getNumberOfTraces());
+		}
+		return new XTraceMappedImpl(source, index);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.AbstractCollection#size()
+	 */
+	public int size() {
+		return source.getNumberOfTraces();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XAttributable#getAttributes()
+	 */
+	public XAttributeMap getAttributes() {
+		return attributes;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.deckfour.xes.model.XAttributable#setAttributes(org.deckfour.xes.model
+	 * .XAttributeMap)
+	 */
+	public void setAttributes(XAttributeMap attributes) {
+		this.attributes = attributes;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XAttributable#hasAttributes()
+	 */
+	public boolean hasAttributes() {
+		return !attributes.isEmpty();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XAttributable#getExtensions()
+	 */
+	public Set<XExtension> getExtensions() {
+		return extensions;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XLog#getClassifiers()
+	 */
+	public List<XEventClassifier> getClassifiers() {
+		return classifiers;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XLog#getGlobalTraceAttributes()
+	 */
+	public List<XAttribute> getGlobalTraceAttributes() {
+		return globalTraceAttributes;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XLog#getGlobalEventAttributes()
+	 */
+	public List<XAttribute> getGlobalEventAttributes() {
+		return globalEventAttributes;
+	}
+
+	/**
+	 * Creates an in-memory copy of this log, using the factory of this log.
+	 * 
+	 * @see java.lang.Object#clone()
+	 */
+	public Object clone() {
+		XFactory factory = source.getFactory();
+		XLog clone = factory.createLog((XAttributeMap) attributes.clone());
+		clone.getExtensions().addAll(extensions);
+		clone.getClassifiers().addAll(classifiers);
+		clone.getGlobalTraceAttributes().addAll(globalTraceAttributes);
+		clone.getGlobalEventAttributes().addAll(globalEventAttributes);
+		for (XTrace trace : this) {
+			clone.add((XTrace) trace.clone());
+		}
+		return clone;
+	}
+
+	/*
+	 * Runs the given visitor on this log.
+	 * 
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.model.XLog#accept(org.deckfour.xes.model.XVisitor)
+	 */
+	public boolean accept(XVisitor visitor) {
+		if (visitor.precondition()) {
+			visitor.init(this);
+			visitor.visitLogPre(this);
+			for (XExtension extension : extensions) {
+				extension.accept(visitor, this);
+			}
+			for (XEventClassifier classifier : classifiers) {
+				classifier.accept(visitor, this);
+			}
+			for (XAttribute attribute : attributes.values()) {
+				attribute.accept(visitor, this);
+			}
+			for (XTrace trace : this) {
+				trace.accept(visitor, this);
+			}
+			visitor.visitLogPost(this);
+			return true;
+		}
+		return false;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.deckfour.xes.model.XLog#getInfo(org.deckfour.xes.classification.
+	 * XEventClassifier)
+	 */
+	public XLogInfo getInfo(XEventClassifier classifier) {
+		return classifier.equals(cachedClassifier) ? cachedInfo : null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.deckfour.xes.model.XLog#setInfo(org.deckfour.xes.classification.
+	 * XEventClassifier, org.deckfour.xes.info.XLogInfo)
+	 */
+	public void setInfo(XEventClassifier classifier, XLogInfo info) {
+		cachedClassifier = classifier;
+		cachedInfo = info;
+	}
+
+}
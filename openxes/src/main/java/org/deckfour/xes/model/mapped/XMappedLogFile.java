@@ -0,0 +1,248 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.model.mapped;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.id.XID;
+import org.deckfour.xes.in.XesBinaryParser;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.buffered.XAttributeMapPortableSerializerImpl;
+import org.deckfour.xes.out.XesBinarySerializer;
+
+/**
+ * Read-only memory mapping of a binary XES file, as written by
+ * {@link XesBinarySerializer}.
+ * 
+ * The file is mapped in segments of whole trace records, so that every trace
+ * can be decoded from a single buffer. Segments are limited to
+ * {@link #MAX_SEGMENT_SIZE} bytes, except for single traces exceeding this
+ * size.
+ * 
+ */
+class XMappedLogFile {
+
+	/**
+	 * Preferred maximum size of a mapped segment.
+	 */
+	static final long MAX_SEGMENT_SIZE = 1L << 30;
+
+	private final File file;
+	private final FileChannel channel;
+	private final XFactory factory;
+	private final XAttributeMapPortableSerializerImpl serializer;
+	private final ByteBuffer[] segments;
+	private final int[] traceSegments;
+	private final int[] traceOffsets;
+
+	/**
+	 * Maps the given file.
+	 * 
+	 * @param file
+	 *            Binary XES file.
+	 * @param factory
+	 *            Factory used to create decoded attributes.
+	 * @param log
+	 *            Log to read the header (extensions, classifiers, global and
+	 *            log attributes) into.
+	 * @throws IOException
+	 */
+	XMappedLogFile(File file, XFactory factory, XLog log) throws IOException {
+		this.file = file;
+		this.factory = factory;
+		this.channel = new RandomAccessFile(file, "r").getChannel();
+		try {
+			long size = channel.size();
+			ByteBuffer trailer = read(size - XesBinarySerializer.TRAILER_SIZE,
+					XesBinarySerializer.TRAILER_SIZE);
+			long indexPosition = trailer.getLong();
+			if (trailer.getInt() != XesBinarySerializer.MAGIC) {
+				throw new IOException("Not a binary XES file: " + file);
+			}
+			/*
+			 * Read the header.
+			 */
+			long headerSize = read(indexPosition, 8).getLong();
+			ByteBuffer header = read(0, (int) headerSize);
+			XByteBufferDataInput in = new XByteBufferDataInput(header, 0);
+			XesBinaryParser parser = new XesBinaryParser(factory);
+			serializer = parser.readHeader(in);
+			XesBinaryParser.readLogHeader(in, serializer, log);
+			int numberOfTraces = in.readInt();
+			/*
+			 * Read the trace index (whose first entry is the end of the
+			 * header, and whose last entry is the end of the trace records).
+			 */
+			ByteBuffer indexBuffer = read(indexPosition,
+					8 * (numberOfTraces + 1));
+			long[] index = new long[numberOfTraces + 1];
+			indexBuffer.asLongBuffer().get(index);
+			/*
+			 * Map the trace records in segments.
+			 */
+			traceSegments = new int[numberOfTraces];
+			traceOffsets = new int[numberOfTraces];
+			List<ByteBuffer> mapped = new ArrayList<ByteBuffer>();
+			int first = 0;
+			while (first < numberOfTraces) {
+				int last = first + 1;
+				while (last < numberOfTraces
+						&& index[last + 1] - index[first] <= MAX_SEGMENT_SIZE) {
+					last++;
+				}
+				long segmentSize = index[last] - index[first];
+				if (segmentSize > Integer.MAX_VALUE) {
+					throw new IOException("Trace record too large to be mapped");
+				}
+				for (int t = first; t < last; t++) {
+					traceSegments[t] = mapped.size();
+					traceOffsets[t] = (int) (index[t] - index[first]);
+				}
+				mapped.add(channel.map(FileChannel.MapMode.READ_ONLY,
+						index[first], segmentSize));
+				first = last;
+			}
+			segments = mapped.toArray(new ByteBuffer[mapped.size()]);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	private ByteBuffer read(long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException();
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * @return The mapped file.
+	 */
+	File getFile() {
+		return file;
+	}
+
+	/**
+	 * @return The factory used for decoding.
+	 */
+	XFactory getFactory() {
+		return factory;
+	}
+
+	/**
+	 * @return The number of traces in the file.
+	 */
+	int getNumberOfTraces() {
+		return traceSegments.length;
+	}
+
+	/**
+	 * Returns the buffer holding the given trace record.
+	 */
+	ByteBuffer getSegment(int trace) {
+		return segments[traceSegments[trace]];
+	}
+
+	/**
+	 * Returns the position of the given trace record in its buffer.
+	 */
+	int getOffset(int trace) {
+		return traceOffsets[trace];
+	}
+
+	/**
+	 * Decodes an attribute map at the given position.
+	 */
+	XAttributeMap readAttributes(ByteBuffer segment, int position) {
+		try {
+			return serializer.deserialize(new XByteBufferDataInput(segment,
+					position));
+		} catch (IOException e) {
+			throw new IllegalStateException("Corrupt binary XES file: " + file, e);
+		}
+	}
+
+	/**
+	 * Decodes the attribute with the given key from the attribute map at the
+	 * given position, skipping the other attributes.
+	 * 
+	 * @return The attribute, or <code>null</code> if there is none.
+	 */
+	XAttribute readAttribute(ByteBuffer segment, int position, String key) {
+		try {
+			return serializer.deserializeAttribute(new XByteBufferDataInput(
+					segment, position), key);
+		} catch (IOException e) {
+			throw new IllegalStateException("Corrupt binary XES file: " + file, e);
+		}
+	}
+
+	/**
+	 * Decodes an event ID at the given position.
+	 */
+	XID readID(ByteBuffer segment, int position) {
+		return new XID(segment.getLong(position), segment.getLong(position + 8));
+	}
+
+	/**
+	 * Closes the underlying file. Mapped buffers stay valid until they are
+	 * garbage collected.
+	 * 
+	 * @throws IOException
+	 */
+	void close() throws IOException {
+		channel.close();
+	}
+
+}
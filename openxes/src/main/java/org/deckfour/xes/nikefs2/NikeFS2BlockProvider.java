@@ -277,8 +277,7 @@ public class NikeFS2BlockProvider {
 		if(mapped == true) {
 			MappedByteBuffer map = NikeFS2FileAccessMonitor.instance().requestMap(this);
 			map.position((int)pointer);
-			int result = map.get();
-			return result + 128;
+			return map.get() & 0xFF;
 		} else {
 			rafile.seek(pointer);
 			return rafile.read();
@@ -337,7 +336,7 @@ public class NikeFS2BlockProvider {
 		if(mapped == true) {
 			MappedByteBuffer map = NikeFS2FileAccessMonitor.instance().requestMap(this);
 			map.position((int)pointer);
-			map.put((byte)(value - 128));
+			map.put((byte)value);
 		} else {
 			rafile.seek(pointer);
 			rafile.write(value);
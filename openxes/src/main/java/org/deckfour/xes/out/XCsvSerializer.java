@@ -0,0 +1,468 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.out;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.info.XLogInfo;
+import org.deckfour.xes.info.XLogInfoFactory;
+import org.deckfour.xes.logging.XLogging;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XAttributeTimestamp;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+
+/**
+ * Serialization of logs into flat event tables in delimited text (CSV), with
+ * a header row and one row per event.
+ * 
+ * The first column, <code>case:concept:name</code>, holds the name of the
+ * trace (or its index, if it has none), followed by one column per further
+ * trace attribute, prefixed with <code>case:</code> and repeated for every
+ * event of the trace, and one column per event attribute. The columns are
+ * derived from the union of the attribute keys of the log info (see
+ * {@link XLogInfoFactory}). Timestamps are written in ISO 8601 format in UTC,
+ * all other attributes as their string representation; missing attributes
+ * yield empty fields. The output can be read back by
+ * {@link org.deckfour.xes.in.XCsvParser}.
+ * 
+ * Rows are encoded into reusable buffers. Optionally, batches of traces are
+ * encoded in parallel, and written in the order of the log.
+ * 
+ */
+public class XCsvSerializer implements XSerializer {
+
+	/**
+	 * Name of the column holding the trace names.
+	 */
+	public static final String CASE_COLUMN = "case:concept:name";
+
+	/**
+	 * Prefix of the columns holding trace attributes.
+	 */
+	public static final String CASE_PREFIX = "case:";
+
+	/**
+	 * Number of bytes after which a buffer is written to the output.
+	 */
+	private static final int FLUSH_SIZE = 64 * 1024;
+
+	/**
+	 * Number of traces encoded by one parallel task.
+	 */
+	private static final int BATCH_SIZE = 256;
+
+	private char delimiter = ',';
+	private int threads = 1;
+
+	/**
+	 * Sets the field delimiter, comma by default. Rows are encoded as UTF-8
+	 * and the delimiter is written as a single byte, so it must be an ASCII
+	 * character.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the delimiter is not an ASCII character.
+	 */
+	public void setDelimiter(char delimiter) {
+		if (delimiter > 0x7F) {
+			throw new IllegalArgumentException(
+					"Delimiter must be an ASCII character: " + delimiter);
+		}
+		this.delimiter = delimiter;
+	}
+
+	/**
+	 * Sets the number of threads encoding traces, 1 by default. The rows are
+	 * written in the order of the log regardless.
+	 */
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.out.XSerializer#getDescription()
+	 */
+	public String getDescription() {
+		return "Flat CSV event table serialization";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.out.XSerializer#getName()
+	 */
+	public String getName() {
+		return "CSV";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.out.XSerializer#getAuthor()
+	 */
+	public String getAuthor() {
+		return "Christian W. Günther";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.out.XSerializer#getSuffices()
+	 */
+	public String[] getSuffices() {
+		return new String[] { "csv" };
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.deckfour.xes.out.XSerializer#serialize(org.deckfour.xes.model.XLog,
+	 * java.io.OutputStream)
+	 */
+	public void serialize(final XLog log, OutputStream out) throws IOException {
+		XLogging.log("start serializing log to CSV", XLogging.Importance.DEBUG);
+		long start = System.currentTimeMillis();
+		XLogInfo info = XLogInfoFactory.createLogInfo(log);
+		final String[] traceKeys = getKeys(info.getTraceAttributeInfo()
+				.getAttributeKeys(), true);
+		final String[] eventKeys = getKeys(info.getEventAttributeInfo()
+				.getAttributeKeys(), false);
+		RowBuffer buffer = new RowBuffer(delimiter);
+		buffer.appendField(CASE_COLUMN);
+		for (String key : traceKeys) {
+			buffer.appendDelimiter();
+			buffer.appendField(CASE_PREFIX + key);
+		}
+		for (String key : eventKeys) {
+			buffer.appendDelimiter();
+			buffer.appendField(key);
+		}
+		buffer.appendNewline();
+		int batches = (log.size() + BATCH_SIZE - 1) / BATCH_SIZE;
+		if (threads == 1 || batches <= 1) {
+			for (int i = 0; i < log.size(); i++) {
+				encodeTrace(log.get(i), i, traceKeys, eventKeys, buffer);
+				if (buffer.size() >= FLUSH_SIZE) {
+					buffer.writeTo(out);
+				}
+			}
+			buffer.writeTo(out);
+		} else {
+			buffer.writeTo(out);
+			serializeParallel(log, traceKeys, eventKeys, batches, out);
+		}
+		out.flush();
+		String duration = " (" + (System.currentTimeMillis() - start)
+				+ " msec.)";
+		XLogging.log("finished serializing log" + duration,
+				XLogging.Importance.DEBUG);
+	}
+
+	/**
+	 * Encodes batches of traces in parallel, and writes them in order. At
+	 * most two batches per thread are in flight, and their buffers are
+	 * reused for subsequent batches.
+	 */
+	private void serializeParallel(final XLog log, final String[] traceKeys,
+			final String[] eventKeys, int batches, OutputStream out)
+			throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			Deque<Future<RowBuffer>> pending = new ArrayDeque<Future<RowBuffer>>();
+			Deque<RowBuffer> free = new ArrayDeque<RowBuffer>();
+			for (int batch = 0; batch < batches || !pending.isEmpty();) {
+				if (batch < batches && pending.size() < 2 * threads) {
+					final RowBuffer buffer = free.isEmpty() ? new RowBuffer(
+							delimiter) : free.pop();
+					final int from = batch * BATCH_SIZE;
+					final int to = Math.min(log.size(), from + BATCH_SIZE);
+					pending.add(executor.submit(new Callable<RowBuffer>() {
+						public RowBuffer call() {
+							for (int i = from; i < to; i++) {
+								encodeTrace(log.get(i), i, traceKeys,
+										eventKeys, buffer);
+							}
+							return buffer;
+						}
+					}));
+					batch++;
+				} else {
+					RowBuffer buffer = pending.poll().get();
+					buffer.writeTo(out);
+					free.push(buffer);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Returns the given attribute keys in column order: sorted, with the
+	 * name and timestamp first. For traces, the name is omitted, since it
+	 * is held by the case column.
+	 */
+	private String[] getKeys(Collection<String> keys, boolean trace) {
+		String name = XConceptExtension.KEY_NAME;
+		String time = XTimeExtension.KEY_TIMESTAMP;
+		List<String> result = new ArrayList<String>();
+		if (!trace && keys.contains(name)) {
+			result.add(name);
+		}
+		if (keys.contains(time)) {
+			result.add(time);
+		}
+		for (String key : new TreeSet<String>(keys)) {
+			if (!key.equals(name) && !key.equals(time)) {
+				result.add(key);
+			}
+		}
+		return result.toArray(new String[result.size()]);
+	}
+
+	/**
+	 * Appends the rows of the events of the given trace to the buffer.
+	 */
+	private void encodeTrace(XTrace trace, int index, String[] traceKeys,
+			String[] eventKeys, RowBuffer buffer) {
+		XAttributeMap traceAttributes = trace.getAttributes();
+		String name = XConceptExtension.instance().extractName(trace);
+		if (name == null) {
+			name = Integer.toString(index);
+		}
+		XAttribute[] traceValues = new XAttribute[traceKeys.length];
+		for (int i = 0; i < traceKeys.length; i++) {
+			traceValues[i] = traceAttributes.get(traceKeys[i]);
+		}
+		for (XEvent event : trace) {
+			buffer.appendField(name);
+			for (XAttribute attribute : traceValues) {
+				buffer.appendDelimiter();
+				buffer.appendValue(attribute);
+			}
+			XAttributeMap attributes = event.getAttributes();
+			for (String key : eventKeys) {
+				buffer.appendDelimiter();
+				buffer.appendValue(attributes.get(key));
+			}
+			buffer.appendNewline();
+		}
+	}
+
+	/**
+	 * Growable byte buffer encoding rows as UTF-8.
+	 */
+	private static class RowBuffer {
+
+		private final char delimiter;
+		private byte[] bytes = new byte[FLUSH_SIZE + 1024];
+		private int size = 0;
+
+		public RowBuffer(char delimiter) {
+			this.delimiter = delimiter;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public void writeTo(OutputStream out) throws IOException {
+			out.write(bytes, 0, size);
+			size = 0;
+		}
+
+		public void appendDelimiter() {
+			appendByte(delimiter);
+		}
+
+		public void appendNewline() {
+			appendByte('\n');
+		}
+
+		/**
+		 * Appends the given attribute value, or nothing for
+		 * <code>null</code>.
+		 */
+		public void appendValue(XAttribute attribute) {
+			if (attribute == null) {
+				return;
+			} else if (attribute instanceof XAttributeTimestamp) {
+				appendTimestamp(((XAttributeTimestamp) attribute)
+						.getValueMillis());
+			} else {
+				appendField(attribute.toString());
+			}
+		}
+
+		/**
+		 * Appends the given value, quoted if it contains the delimiter,
+		 * quotes or line breaks.
+		 */
+		public void appendField(String value) {
+			boolean quoted = false;
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c == delimiter || c == '"' || c == '\n' || c == '\r') {
+					quoted = true;
+					break;
+				}
+			}
+			if (quoted) {
+				appendByte('"');
+			}
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c < 0x80) {
+					if (c == '"') {
+						appendByte('"');
+					}
+					appendByte(c);
+				} else if (c < 0x800) {
+					appendByte(0xC0 | (c >> 6));
+					appendByte(0x80 | (c & 0x3F));
+				} else if (Character.isHighSurrogate(c)
+						&& i + 1 < value.length()
+						&& Character.isLowSurrogate(value.charAt(i + 1))) {
+					int cp = Character.toCodePoint(c, value.charAt(++i));
+					appendByte(0xF0 | (cp >> 18));
+					appendByte(0x80 | ((cp >> 12) & 0x3F));
+					appendByte(0x80 | ((cp >> 6) & 0x3F));
+					appendByte(0x80 | (cp & 0x3F));
+				} else if (Character.isSurrogate(c)) {
+					appendByte('?');
+				} else {
+					appendByte(0xE0 | (c >> 12));
+					appendByte(0x80 | ((c >> 6) & 0x3F));
+					appendByte(0x80 | (c & 0x3F));
+				}
+			}
+			if (quoted) {
+				appendByte('"');
+			}
+		}
+
+		/**
+		 * Appends the given time as ISO 8601 timestamp in UTC, with
+		 * milliseconds.
+		 */
+		public void appendTimestamp(long millis) {
+			long seconds = Math.floorDiv(millis, 1000L);
+			int ms = (int) Math.floorMod(millis, 1000L);
+			long days = Math.floorDiv(seconds, 86400L);
+			int secondOfDay = (int) Math.floorMod(seconds, 86400L);
+			// civil date from days since epoch (H. Hinnant)
+			long z = days + 719468;
+			long era = Math.floorDiv(z, 146097L);
+			int doe = (int) (z - era * 146097);
+			int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+			int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+			int mp = (5 * doy + 2) / 153;
+			int day = doy - (153 * mp + 2) / 5 + 1;
+			int month = mp < 10 ? mp + 3 : mp - 9;
+			long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+			if (year < 0 || year > 9999) {
+				appendField(Instant.ofEpochMilli(millis).toString());
+				return;
+			}
+			appendDigits((int) year, 4);
+			appendByte('-');
+			appendDigits(month, 2);
+			appendByte('-');
+			appendDigits(day, 2);
+			appendByte('T');
+			appendDigits(secondOfDay / 3600, 2);
+			appendByte(':');
+			appendDigits((secondOfDay / 60) % 60, 2);
+			appendByte(':');
+			appendDigits(secondOfDay % 60, 2);
+			appendByte('.');
+			appendDigits(ms, 3);
+			appendByte('Z');
+		}
+
+		private void appendDigits(int value, int digits) {
+			ensure(digits);
+			for (int i = digits - 1; i >= 0; i--) {
+				bytes[size + i] = (byte) ('0' + value % 10);
+				value /= 10;
+			}
+			size += digits;
+		}
+
+		private void appendByte(int b) {
+			ensure(1);
+			bytes[size++] = (byte) b;
+		}
+
+		private void ensure(int length) {
+			if (size + length > bytes.length) {
+				byte[] grown = new byte[Math.max(bytes.length * 2, size
+						+ length)];
+				System.arraycopy(bytes, 0, grown, 0, size);
+				bytes = grown;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,244 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.out;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Incremental writer for JSON documents. Separators are inserted
+ * automatically, based on the nesting of the written objects and arrays.
+ * 
+ */
+class XJsonWriter {
+
+	private final Writer writer;
+	private final char[] buffer = new char[16 * 1024];
+	private int count = 0;
+
+	/**
+	 * Per nesting level, whether the next element is the first one.
+	 */
+	private boolean[] first = new boolean[32];
+	private int depth = 0;
+	private boolean afterName = false;
+
+	/**
+	 * Creates a new writer.
+	 * 
+	 * @param writer
+	 *            Writer to write the document to.
+	 */
+	XJsonWriter(Writer writer) {
+		this.writer = writer;
+	}
+
+	XJsonWriter beginObject() throws IOException {
+		open('{');
+		return this;
+	}
+
+	XJsonWriter endObject() throws IOException {
+		close('}');
+		return this;
+	}
+
+	XJsonWriter beginArray() throws IOException {
+		open('[');
+		return this;
+	}
+
+	XJsonWriter endArray() throws IOException {
+		close(']');
+		return this;
+	}
+
+	/**
+	 * Writes the name of the next member of the current object.
+	 */
+	XJsonWriter name(String name) throws IOException {
+		separate();
+		writeString(name);
+		write(':');
+		afterName = true;
+		return this;
+	}
+
+	XJsonWriter value(String value) throws IOException {
+		separate();
+		if (value == null) {
+			write("null");
+		} else {
+			writeString(value);
+		}
+		return this;
+	}
+
+	XJsonWriter value(long value) throws IOException {
+		separate();
+		write(Long.toString(value));
+		return this;
+	}
+
+	/**
+	 * Writes the given number. Non-finite values, which JSON cannot
+	 * represent as number, are written as strings.
+	 */
+	XJsonWriter value(double value) throws IOException {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			return value(Double.toString(value));
+		}
+		separate();
+		write(Double.toString(value));
+		return this;
+	}
+
+	XJsonWriter value(boolean value) throws IOException {
+		separate();
+		write(value ? "true" : "false");
+		return this;
+	}
+
+	/**
+	 * Writes a line break between elements, for readability.
+	 */
+	XJsonWriter newline() throws IOException {
+		write('\n');
+		return this;
+	}
+
+	void flush() throws IOException {
+		writer.write(buffer, 0, count);
+		count = 0;
+		writer.flush();
+	}
+
+	private void open(char c) throws IOException {
+		separate();
+		write(c);
+		if (depth == first.length) {
+			boolean[] grown = new boolean[depth * 2];
+			System.arraycopy(first, 0, grown, 0, depth);
+			first = grown;
+		}
+		first[depth++] = true;
+	}
+
+	private void close(char c) throws IOException {
+		depth--;
+		write(c);
+	}
+
+	/**
+	 * Writes a comma, unless the next element is the first one of its
+	 * parent, or a member value.
+	 */
+	private void separate() throws IOException {
+		if (afterName) {
+			afterName = false;
+		} else if (depth > 0) {
+			if (first[depth - 1]) {
+				first[depth - 1] = false;
+			} else {
+				write(',');
+			}
+		}
+	}
+
+	private void write(char c) throws IOException {
+		if (count == buffer.length) {
+			writer.write(buffer, 0, count);
+			count = 0;
+		}
+		buffer[count++] = c;
+	}
+
+	private void write(String s) throws IOException {
+		write(s, 0, s.length());
+	}
+
+	private void write(String s, int offset, int length) throws IOException {
+		while (length > 0) {
+			if (count == buffer.length) {
+				writer.write(buffer, 0, count);
+				count = 0;
+			}
+			int chunk = Math.min(length, buffer.length - count);
+			s.getChars(offset, offset + chunk, buffer, count);
+			count += chunk;
+			offset += chunk;
+			length -= chunk;
+		}
+	}
+
+	private void writeString(String value) throws IOException {
+		write('"');
+		int last = 0;
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			String replacement;
+			if (c == '"') {
+				replacement = "\\\"";
+			} else if (c == '\\') {
+				replacement = "\\\\";
+			} else if (c == '\n') {
+				replacement = "\\n";
+			} else if (c == '\r') {
+				replacement = "\\r";
+			} else if (c == '\t') {
+				replacement = "\\t";
+			} else if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+				replacement = String.format("\\u%04x", (int) c);
+			} else {
+				continue;
+			}
+			if (last < i) {
+				write(value, last, i - last);
+			}
+			write(replacement);
+			last = i + 1;
+		}
+		if (last < length) {
+			write(value, last, length - last);
+		}
+		write('"');
+	}
+
+}
@@ -272,9 +272,9 @@ public class XMxmlSerializer implements XSerializer {
 			attributeTag.addAttribute("name", keyPrefix + attribute.getKey());
 			addModelReference(attribute, attributeTag);
 			attributeTag.addTextNode(attribute.toString());
-			Collection<XAttribute> subAttributes = attribute.getAttributes()
-					.values();
-			if (subAttributes.size() > 0) {
+			if (attribute.hasAttributes()) {
+				Collection<XAttribute> subAttributes = attribute.getAttributes()
+						.values();
 				String subKeyPrefix = attribute.getKey();
 				if (keyPrefix.length() > 0) {
 					subKeyPrefix = keyPrefix + ":" + subKeyPrefix;
@@ -295,6 +295,9 @@ public class XMxmlSerializer implements XSerializer {
 	 */
 	protected void addModelReference(XAttributable object, SXTag target)
 			throws IOException {
+		if (!object.hasAttributes()) {
+			return;
+		}
 		XAttributeLiteral modelRefAttr = (XAttributeLiteral) object
 				.getAttributes().get(XSemanticExtension.KEY_MODELREFERENCE);
 		if (modelRefAttr != null) {
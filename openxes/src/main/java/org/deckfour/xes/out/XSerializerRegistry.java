@@ -73,6 +73,9 @@ public class XSerializerRegistry extends XRegistry<XSerializer> {
 		register(new XMxmlSerializer());
 		register(new XMxmlGZIPSerializer());
 		register(new XesXmlSerializer());
+		register(new XesBinarySerializer());
+		register(new XCsvSerializer());
+		register(new XesJsonSerializer());
 		setCurrentDefault(new XesXmlGZIPSerializer());
 	}
 
@@ -0,0 +1,238 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.out;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.deckfour.xes.classification.XEventAttributeClassifier;
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.id.XID;
+import org.deckfour.xes.logging.XLogging;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.buffered.XAttributeMapPortableSerializerImpl;
+
+/**
+ * Binary serialization for XES logs.
+ * 
+ * The binary format is designed for fast loading, and for random access to
+ * traces and events. It consists of:
+ * <ol>
+ * <li>A header, containing the extension table, the log extensions,
+ * classifiers, global attributes, log attributes, and the number of
+ * traces.</li>
+ * <li>One record per trace, containing the number of events, the offsets of
+ * all events relative to the start of the trace record, the trace
+ * attributes, and the events themselves (ID and attributes).</li>
+ * <li>An index with the absolute positions of all trace records, followed by
+ * the position of the index itself.</li>
+ * </ol>
+ * Attributes are encoded as by {@link XAttributeMapPortableSerializerImpl}.
+ * 
+ */
+public class XesBinarySerializer implements XSerializer {
+
+	/**
+	 * Magic number identifying binary XES files ("XESB").
+	 */
+	public static final int MAGIC = 0x58455342;
+	/**
+	 * Version of the binary format written by this serializer.
+	 */
+	public static final int VERSION = 2;
+	/**
+	 * Size of the trailer, consisting of the index position and the magic
+	 * number.
+	 */
+	public static final int TRAILER_SIZE = 12;
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.out.XSerializer#getDescription()
+	 */
+	public String getDescription() {
+		return "XES Binary Serialization";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.out.XSerializer#getName()
+	 */
+	public String getName() {
+		return "XES Binary";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.out.XSerializer#getAuthor()
+	 */
+	public String getAuthor() {
+		return "Christian W. Günther";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.out.XSerializer#getSuffices()
+	 */
+	public String[] getSuffices() {
+		return new String[] { "xesb" };
+	}
+
+	/**
+	 * Serializes the given log to the given output stream. The stream is
+	 * flushed, but not closed.
+	 * 
+	 * @see org.deckfour.xes.out.XSerializer#serialize(org.deckfour.xes.model.XLog,
+	 *      java.io.OutputStream)
+	 */
+	public void serialize(XLog log, OutputStream out) throws IOException {
+		XLogging.log("start serializing log to XES binary",
+				XLogging.Importance.DEBUG);
+		long start = System.currentTimeMillis();
+		DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(
+				out, 65536));
+		XAttributeMapPortableSerializerImpl serializer = new XAttributeMapPortableSerializerImpl(
+				XFactoryRegistry.instance().currentDefault());
+		/*
+		 * Header and trace records are assembled in a buffer first, so that
+		 * record-relative event offsets and absolute trace positions are
+		 * known when writing.
+		 */
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream bos = new DataOutputStream(buffer);
+		bos.writeInt(MAGIC);
+		bos.writeInt(VERSION);
+		serializer.writeExtensionTable(bos);
+		bos.writeInt(log.getExtensions().size());
+		for (XExtension extension : log.getExtensions()) {
+			bos.writeUTF(extension.getUri().toString());
+		}
+		List<XEventAttributeClassifier> classifiers = new ArrayList<XEventAttributeClassifier>();
+		for (XEventClassifier classifier : log.getClassifiers()) {
+			if (classifier instanceof XEventAttributeClassifier) {
+				classifiers.add((XEventAttributeClassifier) classifier);
+			} else {
+				XLogging.log("classifier " + classifier.name()
+						+ " is not defined by attribute keys, not serialized",
+						XLogging.Importance.WARNING);
+			}
+		}
+		bos.writeInt(classifiers.size());
+		for (XEventAttributeClassifier classifier : classifiers) {
+			bos.writeUTF(classifier.name());
+			String[] keys = classifier.getDefiningAttributeKeys();
+			bos.writeInt(keys.length);
+			for (String key : keys) {
+				bos.writeUTF(key);
+			}
+		}
+		serializer.serialize(log.getGlobalTraceAttributes(), bos);
+		serializer.serialize(log.getGlobalEventAttributes(), bos);
+		serializer.serialize(log.getAttributes(), bos);
+		bos.writeInt(log.size());
+		bos.flush();
+		buffer.writeTo(dos);
+		long position = buffer.size();
+		long[] index = new long[log.size() + 1];
+		int traceIndex = 0;
+		ByteArrayOutputStream eventBuffer = new ByteArrayOutputStream();
+		DataOutputStream eos = new DataOutputStream(eventBuffer);
+		ByteArrayOutputStream attributeBuffer = new ByteArrayOutputStream();
+		DataOutputStream aos = new DataOutputStream(attributeBuffer);
+		for (XTrace trace : log) {
+			index[traceIndex++] = position;
+			buffer.reset();
+			eventBuffer.reset();
+			attributeBuffer.reset();
+			int[] offsets = new int[trace.size()];
+			int e = 0;
+			for (XEvent event : trace) {
+				offsets[e++] = eventBuffer.size();
+				XID.write(event.getID(), eos);
+				serializer.serialize(event.getAttributes(), eos);
+			}
+			/*
+			 * The trace attributes follow the event offsets, the events
+			 * follow the trace attributes.
+			 */
+			serializer.serialize(trace.getAttributes(), aos);
+			int eventsStart = 4 + 4 * offsets.length + attributeBuffer.size();
+			bos.writeInt(offsets.length);
+			for (int offset : offsets) {
+				bos.writeInt(eventsStart + offset);
+			}
+			attributeBuffer.writeTo(bos);
+			buffer.writeTo(dos);
+			eventBuffer.writeTo(dos);
+			position += buffer.size() + eventBuffer.size();
+		}
+		index[traceIndex] = position;
+		for (long offset : index) {
+			dos.writeLong(offset);
+		}
+		dos.writeLong(position);
+		dos.writeInt(MAGIC);
+		dos.flush();
+		String duration = " (" + (System.currentTimeMillis() - start)
+				+ " msec.)";
+		XLogging.log("finished serializing log" + duration,
+				XLogging.Importance.DEBUG);
+	}
+
+	/**
+	 * toString() defaults to getName().
+	 */
+	public String toString() {
+		return this.getName();
+	}
+
+}
@@ -0,0 +1,283 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.out;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+import org.deckfour.xes.classification.XEventAttributeClassifier;
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.logging.XLogging;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeBoolean;
+import org.deckfour.xes.model.XAttributeCollection;
+import org.deckfour.xes.model.XAttributeContainer;
+import org.deckfour.xes.model.XAttributeContinuous;
+import org.deckfour.xes.model.XAttributeDiscrete;
+import org.deckfour.xes.model.XAttributeID;
+import org.deckfour.xes.model.XAttributeList;
+import org.deckfour.xes.model.XAttributeLiteral;
+import org.deckfour.xes.model.XAttributeTimestamp;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.util.XRuntimeUtils;
+import org.deckfour.xes.util.XsDateTimeConversion;
+import org.deckfour.xes.util.XsDateTimeConversionJava7;
+
+/**
+ * JSON serialization for the XES format, mapping the elements of the XES XML
+ * serialization one-to-one:
+ * 
+ * <pre>
+ * {"xes.version": "...", "xes.features": "nested-attributes",
+ *  "openxes.version": "...",
+ *  "extensions": [{"name": "...", "prefix": "...", "uri": "..."}, ...],
+ *  "globals": {"trace": [attribute, ...], "event": [attribute, ...]},
+ *  "classifiers": [{"name": "...", "keys": ["...", ...]}, ...],
+ *  "attributes": [attribute, ...],
+ *  "traces": [{"attributes": [...], "events": [{"attributes": [...]}, ...]}, ...]}
+ * </pre>
+ * 
+ * where each attribute is an object like
+ * <code>{"key": "concept:name", "type": "string", "value": "A"}</code>, with
+ * the types of the XML serialization (<code>string</code>, <code>date</code>,
+ * <code>int</code>, <code>float</code>, <code>boolean</code>, <code>id</code>,
+ * <code>list</code>, <code>container</code>). Integers, floats and booleans
+ * are written as JSON numbers and booleans, dates in xs:dateTime format.
+ * Nested attributes, and the elements of lists and containers, are written
+ * as <code>attributes</code> member of their parent, which collections have
+ * instead of a value.
+ * 
+ * The document is written incrementally, one trace at a time, and can be
+ * read by {@link org.deckfour.xes.in.XesJsonParser}.
+ * 
+ */
+public class XesJsonSerializer implements XSerializer {
+
+	protected XsDateTimeConversion xsDateTimeConversion = new XsDateTimeConversionJava7();
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.out.XSerializer#getDescription()
+	 */
+	public String getDescription() {
+		return "XES JSON Serialization";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.out.XSerializer#getName()
+	 */
+	public String getName() {
+		return "XES JSON";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.out.XSerializer#getAuthor()
+	 */
+	public String getAuthor() {
+		return "Christian W. Günther";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.deckfour.xes.out.XSerializer#getSuffices()
+	 */
+	public String[] getSuffices() {
+		return new String[] { "json" };
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.deckfour.xes.out.XSerializer#serialize(org.deckfour.xes.model.XLog,
+	 * java.io.OutputStream)
+	 */
+	public void serialize(XLog log, OutputStream out) throws IOException {
+		XLogging.log("start serializing log to XES.JSON",
+				XLogging.Importance.DEBUG);
+		long start = System.currentTimeMillis();
+		XJsonWriter json = new XJsonWriter(new OutputStreamWriter(out,
+				StandardCharsets.UTF_8));
+		json.beginObject();
+		json.name("xes.version").value(XRuntimeUtils.XES_VERSION);
+		json.name("xes.features").value("nested-attributes");
+		json.name("openxes.version").value(XRuntimeUtils.OPENXES_VERSION);
+		// define extensions
+		json.name("extensions").beginArray();
+		for (XExtension extension : log.getExtensions()) {
+			json.beginObject();
+			json.name("name").value(extension.getName());
+			json.name("prefix").value(extension.getPrefix());
+			json.name("uri").value(extension.getUri().toString());
+			json.endObject();
+		}
+		json.endArray();
+		// define global attributes
+		json.name("globals").beginObject();
+		json.name("trace");
+		addAttributes(json, log.getGlobalTraceAttributes());
+		json.name("event");
+		addAttributes(json, log.getGlobalEventAttributes());
+		json.endObject();
+		// define classifiers
+		json.name("classifiers").beginArray();
+		for (XEventClassifier classifier : log.getClassifiers()) {
+			if (classifier instanceof XEventAttributeClassifier) {
+				XEventAttributeClassifier attrClass = (XEventAttributeClassifier) classifier;
+				json.beginObject();
+				json.name("name").value(attrClass.name());
+				json.name("keys").beginArray();
+				for (String key : attrClass.getDefiningAttributeKeys()) {
+					json.value(key);
+				}
+				json.endArray();
+				json.endObject();
+			}
+		}
+		json.endArray();
+		// add log attributes
+		json.name("attributes");
+		addAttributes(json, log.getAttributes().values());
+		json.name("traces").beginArray();
+		for (XTrace trace : log) {
+			json.newline();
+			json.beginObject();
+			json.name("attributes");
+			addAttributes(json, trace.getAttributes().values());
+			json.name("events").beginArray();
+			for (XEvent event : trace) {
+				json.beginObject();
+				json.name("attributes");
+				addAttributes(json, event.getAttributes().values());
+				json.endObject();
+			}
+			json.endArray();
+			json.endObject();
+		}
+		json.endArray();
+		json.endObject();
+		json.newline();
+		json.flush();
+		String duration = " (" + (System.currentTimeMillis() - start)
+				+ " msec.)";
+		XLogging.log("finished serializing log" + duration,
+				XLogging.Importance.DEBUG);
+	}
+
+	/**
+	 * Helper method, writes the given collection of attributes as array.
+	 * 
+	 * @param json
+	 *            Writer to write to.
+	 * @param attributes
+	 *            The attributes to write.
+	 */
+	private void addAttributes(XJsonWriter json,
+			Collection<XAttribute> attributes) throws IOException {
+		json.beginArray();
+		for (XAttribute attribute : attributes) {
+			json.beginObject();
+			json.name("key").value(attribute.getKey());
+			if (attribute instanceof XAttributeList) {
+				json.name("type").value("list");
+			} else if (attribute instanceof XAttributeContainer) {
+				json.name("type").value("container");
+			} else if (attribute instanceof XAttributeLiteral) {
+				json.name("type").value("string");
+				json.name("value").value(attribute.toString());
+			} else if (attribute instanceof XAttributeDiscrete) {
+				json.name("type").value("int");
+				json.name("value").value(
+						((XAttributeDiscrete) attribute).getValue());
+			} else if (attribute instanceof XAttributeContinuous) {
+				json.name("type").value("float");
+				json.name("value").value(
+						((XAttributeContinuous) attribute).getValue());
+			} else if (attribute instanceof XAttributeTimestamp) {
+				json.name("type").value("date");
+				json.name("value").value(
+						xsDateTimeConversion
+								.format(((XAttributeTimestamp) attribute)
+										.getValue()));
+			} else if (attribute instanceof XAttributeBoolean) {
+				json.name("type").value("boolean");
+				json.name("value").value(
+						((XAttributeBoolean) attribute).getValue());
+			} else if (attribute instanceof XAttributeID) {
+				json.name("type").value("id");
+				json.name("value").value(attribute.toString());
+			} else {
+				throw new IOException("Unknown attribute type!");
+			}
+			if (attribute instanceof XAttributeCollection) {
+				/*
+				 * Use order as specified by the collection.
+				 */
+				json.name("attributes");
+				addAttributes(json,
+						((XAttributeCollection) attribute).getCollection());
+			} else if (attribute.hasAttributes()) {
+				json.name("attributes");
+				addAttributes(json, attribute.getAttributes().values());
+			}
+			json.endObject();
+		}
+		json.endArray();
+	}
+
+	/**
+	 * toString() defaults to getName().
+	 */
+	public String toString() {
+		return this.getName();
+	}
+
+}
@@ -0,0 +1,583 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.out;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+
+import org.deckfour.xes.classification.XEventAttributeClassifier;
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.in.XesXmlParser;
+import org.deckfour.xes.logging.XLogging;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.util.XsDateTimeConversion;
+import org.deckfour.xes.util.XsDateTimeConversionJava7;
+
+/**
+ * Appends traces to an existing log in the XES XML serialization, without
+ * parsing or rewriting the traces already contained in the file.
+ * 
+ * The header of the target file (extensions, global attributes and
+ * classifiers) is read first and checked for compatibility with the header of
+ * the log whose traces are appended. For uncompressed files, the closing log
+ * tag is then located at the end of the file and overwritten by the new
+ * traces, followed by a new closing tag. Size hints written by
+ * {@link XesXmlSerializer#setWriteSizeHints(boolean)} (in a comment at the
+ * start of the log element) are updated in place where the new value fits,
+ * and blanked out otherwise. This happens after the traces have been written,
+ * so that the hints are lower bounds even if appending is interrupted.
+ * 
+ * Compressed files are supported if their closing log tag is stored in a gzip
+ * member of its own, as written by this class. This member is recognized by
+ * its decompressed content, so it may have been written by any gzip
+ * implementation. The new traces are then
+ * written as a new gzip member replacing the closing one. Other compressed
+ * files have to be converted once using {@link #makeAppendable(File)}. Size
+ * hints in compressed files are left unchanged, they are merely lower bounds
+ * afterwards.
+ * 
+ */
+public class XesXmlAppender {
+
+	/**
+	 * Closing tag of the log element.
+	 */
+	private static final String CLOSING_TAG = "</log>\n";
+	/**
+	 * Maximum distance of the closing log tag from the end of the file.
+	 */
+	private static final int MAX_TAIL = 1024 * 1024;
+	/**
+	 * Maximum size of a gzip member containing only the closing log tag.
+	 */
+	private static final int MAX_CLOSING_MEMBER = 1024;
+	/**
+	 * Maximum size of the document prolog and log start tag.
+	 */
+	private static final int MAX_HEAD = 64 * 1024;
+	/**
+	 * Log start tag, followed by the comment holding the size hints.
+	 */
+	private static final Pattern HINT_COMMENT = Pattern.compile(
+			"<log[\\s>][^>]*>\\s*<!--(.*?)-->", Pattern.DOTALL);
+	/**
+	 * Size hints in the comment, including the padding after the value.
+	 */
+	private static final Pattern SIZE_HINT = Pattern
+			.compile("openxes\\.(traces|events)=([0-9]+ *)");
+
+	protected XsDateTimeConversion xsDateTimeConversion = new XsDateTimeConversionJava7();
+
+	/**
+	 * Appends all traces of the given log to the given file, which has to
+	 * contain a log in the XES XML serialization, either uncompressed or
+	 * compressed in an appendable way.
+	 * 
+	 * @param file
+	 *            The file to append to.
+	 * @param log
+	 *            The log whose traces are appended. Its header has to be
+	 *            compatible with the one of the file.
+	 * @throws IOException
+	 *             If the file cannot be appended to, or if the headers are not
+	 *             compatible.
+	 */
+	public void append(File file, XLog log) throws IOException {
+		XLogging.log("start appending " + log.size() + " traces to "
+				+ file.getName(), XLogging.Importance.DEBUG);
+		long start = System.currentTimeMillis();
+		boolean compressed = isCompressed(file);
+		checkCompatibility(readHeader(file, compressed), log);
+		if (compressed) {
+			appendCompressed(file, log);
+		} else {
+			appendPlain(file, log);
+		}
+		String duration = " (" + (System.currentTimeMillis() - start)
+				+ " msec.)";
+		XLogging.log("finished appending traces" + duration,
+				XLogging.Importance.DEBUG);
+	}
+
+	/**
+	 * Checks whether the traces of the given log can be appended to a file
+	 * with the given header. This is the case if all extensions of the log are
+	 * declared by the file, if the log guarantees all global attributes of the
+	 * file, and if all classifiers of the log are defined by the file.
+	 * 
+	 * @param header
+	 *            Header of the file, as a log without traces.
+	 * @param log
+	 *            The log to be appended.
+	 * @throws IOException
+	 *             If the headers are not compatible.
+	 */
+	protected void checkCompatibility(XLog header, XLog log) throws IOException {
+		for (XExtension extension : log.getExtensions()) {
+			if (!header.getExtensions().contains(extension)) {
+				throw new IOException("Extension not declared in target log: "
+						+ extension.getUri());
+			}
+		}
+		checkGlobals("trace", header.getGlobalTraceAttributes(),
+				log.getGlobalTraceAttributes());
+		checkGlobals("event", header.getGlobalEventAttributes(),
+				log.getGlobalEventAttributes());
+		for (XEventClassifier classifier : log.getClassifiers()) {
+			if (classifier instanceof XEventAttributeClassifier
+					&& !isDefined((XEventAttributeClassifier) classifier,
+							header.getClassifiers())) {
+				throw new IOException("Classifier not defined in target log: "
+						+ classifier.name());
+			}
+		}
+	}
+
+	private void checkGlobals(String scope, List<XAttribute> required,
+			List<XAttribute> provided) throws IOException {
+		Set<String> keys = new HashSet<String>();
+		for (XAttribute attribute : provided) {
+			keys.add(attribute.getKey());
+		}
+		for (XAttribute attribute : required) {
+			if (!keys.contains(attribute.getKey())) {
+				throw new IOException("Global " + scope + " attribute "
+						+ attribute.getKey() + " of target log not guaranteed");
+			}
+		}
+	}
+
+	private boolean isDefined(XEventAttributeClassifier classifier,
+			List<XEventClassifier> classifiers) {
+		for (XEventClassifier candidate : classifiers) {
+			if (candidate instanceof XEventAttributeClassifier
+					&& candidate.name().equals(classifier.name())
+					&& Arrays.equals(
+							((XEventAttributeClassifier) candidate)
+									.getDefiningAttributeKeys(),
+							classifier.getDefiningAttributeKeys())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Converts the given compressed log file so that traces can be appended
+	 * to it, by moving its closing log tag into a gzip member of its own. This
+	 * requires a single pass over the file; files which already are
+	 * appendable, and uncompressed files, are left unchanged.
+	 * 
+	 * @param file
+	 *            The compressed log file to convert.
+	 */
+	public static void makeAppendable(File file) throws IOException {
+		if (!isCompressed(file) || findClosingMember(file) >= 0) {
+			return;
+		}
+		File temp = new File(file.getAbsoluteFile().getParentFile(),
+				file.getName() + ".tmp");
+		InputStream in = new GZIPInputStream(new FileInputStream(file), 65536);
+		OutputStream out = new FileOutputStream(temp);
+		try {
+			GZIPOutputStream gzos = new GZIPOutputStream(out, 65536);
+			/*
+			 * Copy all content, holding back a tail of the document which
+			 * contains the closing tag to be dropped.
+			 */
+			byte[] tail = new byte[2 * MAX_TAIL];
+			int tailSize = 0;
+			int read;
+			while ((read = in.read(tail, tailSize, tail.length - tailSize)) >= 0) {
+				tailSize += read;
+				if (tailSize == tail.length) {
+					gzos.write(tail, 0, MAX_TAIL);
+					System.arraycopy(tail, MAX_TAIL, tail, 0, MAX_TAIL);
+					tailSize = MAX_TAIL;
+				}
+			}
+			int position = findClosingTag(tail, tailSize);
+			if (position < 0) {
+				throw new IOException("No closing log tag found in "
+						+ file.getName());
+			}
+			gzos.write(tail, 0, position);
+			gzos.finish();
+			out.write(closingMember());
+		} catch (IOException e) {
+			out.close();
+			temp.delete();
+			throw e;
+		} finally {
+			in.close();
+		}
+		out.close();
+		Files.move(temp.toPath(), file.toPath(),
+				StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private void appendPlain(File file, XLog log) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			long length = raf.length();
+			int tailSize = (int) Math.min(length, MAX_TAIL);
+			byte[] tail = new byte[tailSize];
+			raf.seek(length - tailSize);
+			raf.readFully(tail);
+			int position = findClosingTag(tail, tailSize);
+			if (position < 0) {
+				throw new IOException("No closing log tag found in "
+						+ file.getName());
+			}
+			String prolog = readProlog(raf);
+			boolean writeSizeHints = findSizeHints(prolog) != null;
+			FileChannel channel = raf.getChannel();
+			channel.position(length - tailSize + position);
+			Writer writer = new BufferedWriter(new OutputStreamWriter(
+					Channels.newOutputStream(channel), StandardCharsets.UTF_8),
+					65536);
+			writeTraces(writer, log, writeSizeHints);
+			writer.write(CLOSING_TAG);
+			writer.flush();
+			raf.setLength(channel.position());
+			if (writeSizeHints) {
+				/*
+				 * Update the hints only after the traces are stored, so that
+				 * they are lower bounds at any time.
+				 */
+				channel.force(false);
+				updateSizeHints(raf, prolog, log);
+			}
+		} finally {
+			raf.close();
+		}
+	}
+
+	private void appendCompressed(File file, XLog log) throws IOException {
+		long position = findClosingMember(file);
+		if (position < 0) {
+			throw new IOException("Compressed log " + file.getName()
+					+ " is not appendable, convert it using makeAppendable()");
+		}
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			FileChannel channel = raf.getChannel();
+			channel.position(position);
+			OutputStream out = Channels.newOutputStream(channel);
+			GZIPOutputStream gzos = new GZIPOutputStream(out, 65536);
+			Writer writer = new BufferedWriter(new OutputStreamWriter(gzos,
+					StandardCharsets.UTF_8), 65536);
+			writeTraces(writer, log, false);
+			writer.flush();
+			gzos.finish();
+			out.write(closingMember());
+			raf.setLength(channel.position());
+		} finally {
+			raf.close();
+		}
+	}
+
+	private void writeTraces(Writer writer, XLog log, boolean writeSizeHints)
+			throws IOException {
+		XesXmlSerializer serializer = new XesXmlSerializer();
+		serializer.xsDateTimeConversion = xsDateTimeConversion;
+		XesXmlWriter xmlWriter = new XesXmlWriter(writer, serializer);
+		for (XTrace trace : log) {
+			xmlWriter.writeTrace(trace, writeSizeHints);
+		}
+	}
+
+	/**
+	 * Reads the document prolog and log start tag of an uncompressed file.
+	 * The bytes are decoded using a single-byte charset, so that string and
+	 * file positions coincide.
+	 */
+	private String readProlog(RandomAccessFile raf) throws IOException {
+		byte[] head = new byte[(int) Math.min(raf.length(), MAX_HEAD)];
+		raf.seek(0);
+		raf.readFully(head);
+		return new String(head, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Returns a matcher for the size hints in the comment at the start of the
+	 * log element, or <code>null</code> if the file contains no size hints.
+	 */
+	private Matcher findSizeHints(String prolog) {
+		Matcher comment = HINT_COMMENT.matcher(prolog);
+		if (!comment.find()) {
+			return null;
+		}
+		Matcher hint = SIZE_HINT.matcher(prolog);
+		hint.region(comment.start(1), comment.end(1));
+		if (!hint.find()) {
+			return null;
+		}
+		// resets the matcher
+		hint.region(comment.start(1), comment.end(1));
+		return hint;
+	}
+
+	/**
+	 * Updates the size hints at the start of the log element of an
+	 * uncompressed file.
+	 */
+	private void updateSizeHints(RandomAccessFile raf, String prolog, XLog log)
+			throws IOException {
+		long events = 0;
+		for (XTrace trace : log) {
+			events += trace.size();
+		}
+		Matcher hint = findSizeHints(prolog);
+		while (hint.find()) {
+			long added = hint.group(1).equals("traces") ? log.size() : events;
+			String value = null;
+			try {
+				value = Long.toString(Long.parseLong(hint.group(2).trim())
+						+ added);
+			} catch (NumberFormatException e) {
+				// malformed hint, remove
+			}
+			int start, end;
+			StringBuilder replacement = new StringBuilder();
+			if (value != null && value.length() <= hint.group(2).length()) {
+				start = hint.start(2);
+				end = hint.end(2);
+				replacement.append(value);
+			} else {
+				start = hint.start();
+				end = hint.end();
+			}
+			while (replacement.length() < end - start) {
+				replacement.append(' ');
+			}
+			raf.seek(start);
+			raf.write(replacement.toString().getBytes(
+					StandardCharsets.ISO_8859_1));
+		}
+	}
+
+	/**
+	 * Returns the position of the closing log tag in the given buffer, or -1
+	 * if it contains none.
+	 */
+	private static int findClosingTag(byte[] buffer, int size) {
+		String content = new String(buffer, 0, size,
+				StandardCharsets.ISO_8859_1);
+		int position = content.lastIndexOf("</log");
+		while (position >= 0) {
+			int i = position + 5;
+			while (i < size && Character.isWhitespace(content.charAt(i))) {
+				i++;
+			}
+			if (i < size && content.charAt(i) == '>') {
+				return position;
+			}
+			position = content.lastIndexOf("</log", position - 1);
+		}
+		return -1;
+	}
+
+	private static boolean isCompressed(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			return in.read() == 0x1f && in.read() == 0x8b;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Returns the position of the gzip member at the end of the given
+	 * compressed file, if this member contains only the closing log tag, and
+	 * -1 otherwise. Candidate members in the tail of the file are inflated,
+	 * so the member may have been compressed with any settings.
+	 */
+	private static long findClosingMember(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			byte[] tail = new byte[(int) Math.min(raf.length(),
+					MAX_CLOSING_MEMBER)];
+			raf.seek(raf.length() - tail.length);
+			raf.readFully(tail);
+			// the shortest candidate is checked first
+			for (int start = tail.length - 18; start >= 0; start--) {
+				if (isClosingMember(tail, start)) {
+					return raf.length() - tail.length + start;
+				}
+			}
+			return -1;
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Checks whether the given buffer holds, from the given start to its end,
+	 * exactly one gzip member whose content is the closing log tag.
+	 */
+	private static boolean isClosingMember(byte[] buffer, int start) {
+		if ((buffer[start] & 0xff) != 0x1f
+				|| (buffer[start + 1] & 0xff) != 0x8b || buffer[start + 2] != 8
+				|| (buffer[start + 3] & 0xe0) != 0) {
+			return false;
+		}
+		// skip the optional header fields
+		int flags = buffer[start + 3];
+		int position = start + 10;
+		if ((flags & 0x04) != 0) {
+			if (position + 2 > buffer.length) {
+				return false;
+			}
+			position += 2 + ((buffer[position] & 0xff)
+					| (buffer[position + 1] & 0xff) << 8);
+		}
+		for (int field = 0x08; field <= 0x10; field <<= 1) {
+			if ((flags & field) != 0) {
+				while (position < buffer.length && buffer[position] != 0) {
+					position++;
+				}
+				position++;
+			}
+		}
+		if ((flags & 0x02) != 0) {
+			position += 2;
+		}
+		if (position + 8 > buffer.length) {
+			return false;
+		}
+		byte[] expected = CLOSING_TAG.getBytes(StandardCharsets.UTF_8);
+		byte[] content = new byte[expected.length + 1];
+		int size = 0;
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(buffer, position, buffer.length - position);
+			while (!inflater.finished() && size < content.length) {
+				int inflated = inflater.inflate(content, size, content.length
+						- size);
+				if (inflated == 0) {
+					break;
+				}
+				size += inflated;
+			}
+			// the trailer has to follow the compressed data and end the file
+			if (!inflater.finished() || inflater.getRemaining() != 8
+					|| size != expected.length) {
+				return false;
+			}
+		} catch (DataFormatException e) {
+			return false;
+		} finally {
+			inflater.end();
+		}
+		CRC32 crc = new CRC32();
+		crc.update(content, 0, size);
+		int trailer = buffer.length - 8;
+		return Arrays.equals(Arrays.copyOf(content, size), expected)
+				&& readInt(buffer, trailer) == (int) crc.getValue()
+				&& readInt(buffer, trailer + 4) == size;
+	}
+
+	/**
+	 * Reads a little-endian integer, as used in gzip trailers.
+	 */
+	private static int readInt(byte[] buffer, int position) {
+		return (buffer[position] & 0xff) | (buffer[position + 1] & 0xff) << 8
+				| (buffer[position + 2] & 0xff) << 16
+				| (buffer[position + 3] & 0xff) << 24;
+	}
+
+	/**
+	 * Returns the gzip member containing the closing log tag.
+	 */
+	private static byte[] closingMember() throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		GZIPOutputStream gzos = new GZIPOutputStream(buffer);
+		gzos.write(CLOSING_TAG.getBytes(StandardCharsets.UTF_8));
+		gzos.close();
+		return buffer.toByteArray();
+	}
+
+	private static XLog readHeader(File file, boolean compressed)
+			throws IOException {
+		InputStream in = new FileInputStream(file);
+		if (compressed) {
+			in = new GZIPInputStream(in);
+		}
+		try {
+			return new XesXmlParser().parseHeader(in);
+		} catch (IOException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException("Cannot read log header of "
+					+ file.getName(), e);
+		} finally {
+			in.close();
+		}
+	}
+
+}
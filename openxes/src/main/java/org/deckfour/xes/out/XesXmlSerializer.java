@@ -38,12 +38,23 @@
  */
 package org.deckfour.xes.out;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.deckfour.spex.SXDocument;
 import org.deckfour.spex.SXTag;
@@ -63,8 +74,11 @@ import org.deckfour.xes.model.XAttributeLiteral;
 import org.deckfour.xes.model.XAttributeTimestamp;
 import org.deckfour.xes.model.XEvent;
 import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XSourceTracked;
 import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.util.XAttributeUtils;
 import org.deckfour.xes.util.XRuntimeUtils;
+import org.deckfour.xes.util.XSourceRange;
 import org.deckfour.xes.util.XTokenHelper;
 import org.deckfour.xes.util.XsDateTimeConversion;
 import org.deckfour.xes.util.XsDateTimeConversionJava7;
@@ -72,6 +86,22 @@ import org.deckfour.xes.util.XsDateTimeConversionJava7;
 /**
  * XES plain XML serialization for the XES format.
  * 
+ * If the traces of the log know their source range (see
+ * {@link org.deckfour.xes.in.XesXmlParser#setRecordSourceRanges(boolean)}),
+ * traces which have not been modified since parsing are copied verbatim from
+ * the source file, and only modified traces are encoded. Copying requires the
+ * global attributes of the log to be unchanged as well, since the source
+ * bytes may rely on their defaults.
+ * 
+ * Optionally, the serializer embeds size hints into the document: the number
+ * of traces and events in the log as a comment
+ * <code>&lt;!-- openxes.traces=... openxes.events=... --&gt;</code> at the
+ * start of the log element, and the number of events in a trace as a comment
+ * <code>&lt;!-- openxes.events=... --&gt;</code> at the start of each trace
+ * element. Being comments, they neither affect the validity of the document
+ * nor show up in the parsed log; {@link org.deckfour.xes.in.XesXmlParser}
+ * uses them to pre-size its collections.
+ * 
  * @author Christian W. Guenther (christian@deckfour.org)
  * 
  */
@@ -79,6 +109,58 @@ public class XesXmlSerializer implements XSerializer {
 
 	protected XsDateTimeConversion xsDateTimeConversion = new XsDateTimeConversionJava7();
 
+	/**
+	 * Whether size hints are written for the log and its traces.
+	 */
+	protected boolean writeSizeHints = false;
+
+	/**
+	 * Returns whether size hints are written for the log and its traces.
+	 */
+	public boolean isWriteSizeHints() {
+		return writeSizeHints;
+	}
+
+	/**
+	 * Sets whether size hints are written for the log and its traces. Off by
+	 * default.
+	 * 
+	 * @param writeSizeHints
+	 *            Whether to write size hints.
+	 */
+	public void setWriteSizeHints(boolean writeSizeHints) {
+		this.writeSizeHints = writeSizeHints;
+	}
+
+	/**
+	 * Whether trace and event attributes equal to their global default are
+	 * omitted.
+	 */
+	protected boolean elideGlobalDefaults = false;
+
+	/**
+	 * Returns whether trace and event attributes equal to their global
+	 * default are omitted.
+	 */
+	public boolean isElideGlobalDefaults() {
+		return elideGlobalDefaults;
+	}
+
+	/**
+	 * Sets whether trace and event attributes whose value equals the default
+	 * declared by the corresponding global attribute are omitted. Off by
+	 * default. Note that the resulting files rely on readers filling in
+	 * missing global attributes with their defaults, like
+	 * {@link org.deckfour.xes.in.XesXmlParser#setShareGlobalDefaults(boolean)}
+	 * does.
+	 * 
+	 * @param elideGlobalDefaults
+	 *            Whether to omit attributes equal to their global default.
+	 */
+	public void setElideGlobalDefaults(boolean elideGlobalDefaults) {
+		this.elideGlobalDefaults = elideGlobalDefaults;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -126,19 +208,53 @@ public class XesXmlSerializer implements XSerializer {
 		XLogging.log("start serializing log to XES.XML",
 				XLogging.Importance.DEBUG);
 		long start = System.currentTimeMillis();
+		if (hasSourceRanges(log)) {
+			serializeCopying(log, out);
+			String duration = " (" + (System.currentTimeMillis() - start)
+					+ " msec.)";
+			XLogging.log("finished serializing log" + duration,
+					XLogging.Importance.DEBUG);
+			return;
+		}
 		SXDocument doc = new SXDocument(out);
-		doc.addComment("This file has been generated with the OpenXES library. It conforms");
-		doc.addComment("to the XML serialization of the XES standard for log storage and");
-		doc.addComment("management.");
-		doc.addComment("XES standard version: " + XRuntimeUtils.XES_VERSION);
-		doc.addComment("OpenXES library version: "
-				+ XRuntimeUtils.OPENXES_VERSION);
-		doc.addComment("OpenXES is available from http://www.openxes.org/");
+		for (String comment : XesXmlWriter.headerComments()) {
+			doc.addComment(comment);
+		}
 		SXTag logTag = doc.addNode("log");
 		logTag.addAttribute("xes.version", XRuntimeUtils.XES_VERSION);
 		logTag.addAttribute("xes.features", "nested-attributes");
 		logTag.addAttribute("openxes.version", XRuntimeUtils.OPENXES_VERSION);
 //		logTag.addAttribute("xmlns", "http://www.xes-standard.org/");
+		if (writeSizeHints) {
+			logTag.addComment(XesXmlWriter.getSizeHint(log));
+		}
+		addHeader(logTag, log);
+		Map<String, XAttribute> traceDefaults = getDefaults(log
+				.getGlobalTraceAttributes());
+		Map<String, XAttribute> eventDefaults = getDefaults(log
+				.getGlobalEventAttributes());
+		for (XTrace trace : log) {
+			addTrace(logTag, trace, traceDefaults, eventDefaults,
+					writeSizeHints);
+		}
+		//
+		doc.close();
+		String duration = " (" + (System.currentTimeMillis() - start)
+				+ " msec.)";
+		XLogging.log("finished serializing log" + duration,
+				XLogging.Importance.DEBUG);
+	}
+
+	/**
+	 * Adds the header of the given log, i.e., its extensions, global
+	 * attributes, classifiers and log attributes, to the given log tag.
+	 * 
+	 * @param logTag
+	 *            Tag of the log element.
+	 * @param log
+	 *            The log whose header to add.
+	 */
+	protected void addHeader(SXTag logTag, XLog log) throws IOException {
 		// define extensions
 		for (XExtension extension : log.getExtensions()) {
 			SXTag extensionTag = logTag.addChildNode("extension");
@@ -162,20 +278,175 @@ public class XesXmlSerializer implements XSerializer {
 		}
 		// add log attributes
 		addAttributes(logTag, log.getAttributes().values());
+	}
+
+	/**
+	 * Adds the given trace to the given log tag, omitting trace and event
+	 * attributes equal to their default.
+	 * 
+	 * @param logTag
+	 *            Tag of the log element.
+	 * @param trace
+	 *            The trace to add.
+	 * @param traceDefaults
+	 *            Default trace attributes by key, may be <code>null</code>.
+	 * @param eventDefaults
+	 *            Default event attributes by key, may be <code>null</code>.
+	 * @param writeSizeHint
+	 *            Whether to add the number of events as a size hint.
+	 */
+	protected void addTrace(SXTag logTag, XTrace trace,
+			Map<String, XAttribute> traceDefaults,
+			Map<String, XAttribute> eventDefaults, boolean writeSizeHint)
+			throws IOException {
+		SXTag traceTag = logTag.addChildNode("trace");
+		if (writeSizeHint) {
+			traceTag.addComment(XesXmlWriter.getSizeHint(trace));
+		}
+		addAttributes(traceTag, trace.getAttributes().values(),
+				traceDefaults);
+		for (XEvent event : trace) {
+			SXTag eventTag = traceTag.addChildNode("event");
+			addAttributes(eventTag, event.getAttributes().values(),
+					eventDefaults);
+		}
+	}
+
+	/**
+	 * Checks whether any trace of the given log knows its source range.
+	 */
+	protected boolean hasSourceRanges(XLog log) {
 		for (XTrace trace : log) {
-			SXTag traceTag = logTag.addChildNode("trace");
-			addAttributes(traceTag, trace.getAttributes().values());
-			for (XEvent event : trace) {
-				SXTag eventTag = traceTag.addChildNode("event");
-				addAttributes(eventTag, event.getAttributes().values());
+			if (trace instanceof XSourceTracked
+					&& ((XSourceTracked) trace).getSourceRange() != null) {
+				return true;
 			}
 		}
-		//
-		doc.close();
-		String duration = " (" + (System.currentTimeMillis() - start)
-				+ " msec.)";
-		XLogging.log("finished serializing log" + duration,
-				XLogging.Importance.DEBUG);
+		return false;
+	}
+
+	/**
+	 * Serializes the given log, copying the source bytes of traces which have
+	 * not been modified since parsing, and encoding all other traces. Traces
+	 * are only copied if the source file is unchanged, and if their source
+	 * bytes mean the same under the header of this log (see
+	 * {@link XSourceRange#matchesGlobals(long, boolean)}).
+	 * 
+	 * @param log
+	 *            The log to serialize.
+	 * @param out
+	 *            The stream to serialize to, flushed but not closed.
+	 */
+	protected void serializeCopying(XLog log, OutputStream out)
+			throws IOException {
+		final BufferedOutputStream bos = new BufferedOutputStream(out, 65536);
+		/*
+		 * Flushing the writer before copying must not flush the underlying
+		 * stream each time.
+		 */
+		Writer writer = new OutputStreamWriter(new FilterOutputStream(bos) {
+			public void write(byte[] b, int off, int len) throws IOException {
+				bos.write(b, off, len);
+			}
+
+			public void flush() {
+			}
+		}, StandardCharsets.UTF_8);
+		XesXmlWriter xmlWriter = new XesXmlWriter(writer, this);
+		xmlWriter.setDefaults(getDefaults(log.getGlobalTraceAttributes()),
+				getDefaults(log.getGlobalEventAttributes()));
+		Map<File, FileChannel> sources = new HashMap<File, FileChannel>();
+		ByteBuffer buffer = ByteBuffer.allocate(65536);
+		long globalsFingerprint = XSourceRange.fingerprint(
+				log.getGlobalTraceAttributes(), log.getGlobalEventAttributes());
+		int copied = 0;
+		try {
+			xmlWriter.writeHeader(log, writeSizeHints);
+			for (XTrace trace : log) {
+				XSourceRange range = null;
+				if (trace instanceof XSourceTracked) {
+					range = ((XSourceTracked) trace).getSourceRange();
+				}
+				FileChannel source = null;
+				if (range != null
+						&& range.matchesGlobals(globalsFingerprint,
+								elideGlobalDefaults) && range.matches(trace)) {
+					source = openSource(range, sources);
+				}
+				if (source != null) {
+					writer.flush();
+					bos.write('\t');
+					long position = range.getStart();
+					while (position < range.getEnd()) {
+						buffer.clear();
+						buffer.limit((int) Math.min(buffer.capacity(),
+								range.getEnd() - position));
+						int read = source.read(buffer, position);
+						if (read < 0) {
+							throw new IOException("Source file truncated: "
+									+ range.getFile());
+						}
+						bos.write(buffer.array(), 0, read);
+						position += read;
+					}
+					bos.write('\n');
+					copied++;
+				} else {
+					xmlWriter.writeTrace(trace, writeSizeHints);
+				}
+			}
+			xmlWriter.writeFooter();
+			writer.flush();
+			bos.flush();
+		} finally {
+			for (FileChannel source : sources.values()) {
+				if (source != null) {
+					source.close();
+				}
+			}
+		}
+		XLogging.log("copied " + copied + " of " + log.size()
+				+ " traces from source", XLogging.Importance.DEBUG);
+	}
+
+	/**
+	 * Returns a channel on the source file of the given range, or
+	 * <code>null</code> if the file has changed since parsing or cannot be
+	 * opened. Channels are cached in the given map.
+	 */
+	private FileChannel openSource(XSourceRange range,
+			Map<File, FileChannel> sources) {
+		File file = range.getFile();
+		if (sources.containsKey(file)) {
+			return sources.get(file);
+		}
+		FileChannel channel = null;
+		if (range.isSourceUnchanged()) {
+			try {
+				channel = FileChannel.open(file.toPath(),
+						StandardOpenOption.READ);
+			} catch (IOException e) {
+				XLogging.log("Cannot open source file " + file + ": "
+						+ e.getMessage(), XLogging.Importance.WARNING);
+			}
+		}
+		sources.put(file, channel);
+		return channel;
+	}
+
+	/**
+	 * Returns the given global attributes by key if global defaults are to be
+	 * elided, and <code>null</code> otherwise.
+	 */
+	protected Map<String, XAttribute> getDefaults(List<XAttribute> globals) {
+		if (!elideGlobalDefaults || globals.isEmpty()) {
+			return null;
+		}
+		Map<String, XAttribute> defaults = new HashMap<String, XAttribute>();
+		for (XAttribute global : globals) {
+			defaults.put(global.getKey(), global);
+		}
+		return defaults;
 	}
 
 	/**
@@ -200,7 +471,30 @@ public class XesXmlSerializer implements XSerializer {
 	 */
 	protected void addAttributes(SXTag tag, Collection<XAttribute> attributes)
 			throws IOException {
+		addAttributes(tag, attributes, null);
+	}
+
+	/**
+	 * Helper method, adds the given collection of attributes to the given Tag,
+	 * omitting attributes equal to their default.
+	 * 
+	 * @param tag
+	 *            Tag to add attributes to.
+	 * @param attributes
+	 *            The attributes to add.
+	 * @param defaults
+	 *            Default attributes by key, may be <code>null</code>.
+	 */
+	protected void addAttributes(SXTag tag, Collection<XAttribute> attributes,
+			Map<String, XAttribute> defaults) throws IOException {
 		for (XAttribute attribute : attributes) {
+			if (defaults != null) {
+				XAttribute global = defaults.get(attribute.getKey());
+				if (global != null
+						&& XAttributeUtils.isGlobalDefault(attribute, global)) {
+					continue;
+				}
+			}
 			SXTag attributeTag;
 			if (attribute instanceof XAttributeList) {
 				attributeTag = tag.addChildNode("list");
@@ -0,0 +1,216 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.out;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+import org.deckfour.spex.SXTag;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.util.XRuntimeUtils;
+
+/**
+ * Writes elements of the XES XML serialization directly to a character
+ * stream, so that documents can be assembled piecewise. The elements are
+ * encoded by a {@link XesXmlSerializer}, which adds them to a stand-in for
+ * the log element, so the output matches the one of the serializer.
+ * 
+ */
+class XesXmlWriter {
+
+	/**
+	 * Stand-in for the log element, whose own tags are not written. Each
+	 * child is written to the output at the indentation of a child of the
+	 * log element, and closed when the next child is added or when this tag
+	 * is closed.
+	 */
+	private static class LogContent extends SXTag {
+
+		private final Writer writer;
+		private SXTag child;
+
+		LogContent(Writer writer) throws IOException {
+			super("log", Writer.nullWriter(), 0);
+			this.writer = writer;
+		}
+
+		@Override
+		public SXTag addChildNode(String name) throws IOException {
+			close();
+			child = new SXTag(name, writer, 1);
+			return child;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (child != null) {
+				child.close();
+				child = null;
+			}
+		}
+
+	}
+
+	private final Writer writer;
+	private final XesXmlSerializer serializer;
+	private Map<String, XAttribute> traceDefaults;
+	private Map<String, XAttribute> eventDefaults;
+
+	/**
+	 * Creates a new writer.
+	 * 
+	 * @param writer
+	 *            Character stream to write to.
+	 * @param serializer
+	 *            Serializer encoding the elements.
+	 */
+	XesXmlWriter(Writer writer, XesXmlSerializer serializer) {
+		this.writer = writer;
+		this.serializer = serializer;
+	}
+
+	/**
+	 * Sets the defaults of trace and event attributes, which are omitted when
+	 * writing traces.
+	 * 
+	 * @param traceDefaults
+	 *            Default trace attributes by key, may be <code>null</code>.
+	 * @param eventDefaults
+	 *            Default event attributes by key, may be <code>null</code>.
+	 */
+	void setDefaults(Map<String, XAttribute> traceDefaults,
+			Map<String, XAttribute> eventDefaults) {
+		this.traceDefaults = traceDefaults;
+		this.eventDefaults = eventDefaults;
+	}
+
+	/**
+	 * Returns the comments at the start of serialized documents.
+	 */
+	static String[] headerComments() {
+		return new String[] {
+				"This file has been generated with the OpenXES library. It conforms",
+				"to the XML serialization of the XES standard for log storage and",
+				"management.",
+				"XES standard version: " + XRuntimeUtils.XES_VERSION,
+				"OpenXES library version: " + XRuntimeUtils.OPENXES_VERSION,
+				"OpenXES is available from http://www.openxes.org/" };
+	}
+
+	/**
+	 * Returns the size hint comment of the given log, i.e., the text of the
+	 * comment at the start of the log element holding the number of its
+	 * traces and events.
+	 */
+	static String getSizeHint(XLog log) {
+		long events = 0;
+		for (XTrace trace : log) {
+			events += trace.size();
+		}
+		return "openxes.traces=" + log.size() + " openxes.events=" + events;
+	}
+
+	/**
+	 * Returns the size hint comment of the given trace, i.e., the text of the
+	 * comment at the start of the trace element holding the number of its
+	 * events.
+	 */
+	static String getSizeHint(XTrace trace) {
+		return "openxes.events=" + trace.size();
+	}
+
+	/**
+	 * Writes the start of a document for the given log, up to its first
+	 * trace. This comprises the XML declaration, the log start tag, the
+	 * extensions, global attributes, classifiers and log attributes.
+	 * 
+	 * @param log
+	 *            The log to write the header of.
+	 * @param writeSizeHints
+	 *            Whether to add the number of traces and events as size
+	 *            hints.
+	 */
+	void writeHeader(XLog log, boolean writeSizeHints) throws IOException {
+		writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n");
+		for (String comment : headerComments()) {
+			writer.write("<!-- ");
+			writer.write(comment);
+			writer.write(" -->\n");
+		}
+		writer.write("<log xes.version=\"");
+		writer.write(XRuntimeUtils.XES_VERSION);
+		writer.write("\" xes.features=\"nested-attributes\" openxes.version=\"");
+		writer.write(XRuntimeUtils.OPENXES_VERSION);
+		writer.write("\">\n");
+		if (writeSizeHints) {
+			writer.write("\t<!-- ");
+			writer.write(getSizeHint(log));
+			writer.write(" -->\n");
+		}
+		LogContent content = new LogContent(writer);
+		serializer.addHeader(content, log);
+		content.close();
+	}
+
+	/**
+	 * Writes the end of a document, i.e., the log end tag.
+	 */
+	void writeFooter() throws IOException {
+		writer.write("</log>\n");
+	}
+
+	/**
+	 * Writes the given trace as a child of the log element.
+	 * 
+	 * @param trace
+	 *            The trace to write.
+	 * @param writeSizeHint
+	 *            Whether to add the number of events as a size hint.
+	 */
+	void writeTrace(XTrace trace, boolean writeSizeHint) throws IOException {
+		LogContent content = new LogContent(writer);
+		serializer.addTrace(content, trace, traceDefaults, eventDefaults,
+				writeSizeHint);
+		content.close();
+	}
+
+}
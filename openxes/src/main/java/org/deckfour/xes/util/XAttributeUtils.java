@@ -49,6 +49,7 @@ import org.deckfour.xes.id.XID;
 import org.deckfour.xes.id.XIDFactory;
 import org.deckfour.xes.model.XAttribute;
 import org.deckfour.xes.model.XAttributeBoolean;
+import org.deckfour.xes.model.XAttributeCollection;
 import org.deckfour.xes.model.XAttributeContainer;
 import org.deckfour.xes.model.XAttributeContinuous;
 import org.deckfour.xes.model.XAttributeDiscrete;
@@ -56,6 +57,8 @@ import org.deckfour.xes.model.XAttributeID;
 import org.deckfour.xes.model.XAttributeList;
 import org.deckfour.xes.model.XAttributeLiteral;
 import org.deckfour.xes.model.XAttributeTimestamp;
+import org.deckfour.xes.model.impl.XAttributeImpl;
+import org.deckfour.xes.model.impl.XsDateTimeFormat;
 
 /**
  * Utilities for working with attributes.
@@ -200,11 +203,8 @@ public class XAttributeUtils {
 		} else if (type.equalsIgnoreCase("TIMESTAMP")) {
 			XAttributeTimestamp attr;
 			try {
-				synchronized (XAttributeTimestamp.FORMATTER) {
-					attr = factory.createAttributeTimestamp(key,
-							XAttributeTimestamp.FORMATTER.parseObject(value),
-							extension);
-				}
+				attr = factory.createAttributeTimestamp(key,
+						XsDateTimeFormat.parseMillis(value), extension);
 			} catch (ParseException e) {
 				throw new AssertionError(
 						"OpenXES: could not parse date-time attribute. Value: "
@@ -238,4 +238,48 @@ public class XAttributeUtils {
 		return extensions;
 	}
 
+	/**
+	 * Checks whether the given attribute carries the default value of the
+	 * given global attribute, i.e., whether both have the same key, type and
+	 * value, and neither has nested attributes. Collection attributes are
+	 * never considered defaults.
+	 * 
+	 * @param attribute
+	 *            The attribute to check.
+	 * @param global
+	 *            The global attribute declaring the default.
+	 * @return Whether the attribute equals the default.
+	 */
+	public static boolean isGlobalDefault(XAttribute attribute,
+			XAttribute global) {
+		if (attribute == global) {
+			return true;
+		}
+		if (attribute instanceof XAttributeCollection
+				|| global instanceof XAttributeCollection
+				|| attribute.hasAttributes() || global.hasAttributes()) {
+			return false;
+		}
+		return attribute.equals(global);
+	}
+
+	/**
+	 * Returns a modifiable version of the given attribute, i.e., a private
+	 * clone if the attribute is shared (see
+	 * {@link XAttributeImpl#isShared()}), and the attribute itself otherwise.
+	 * Readers use this before setting the meta-attributes of an attribute
+	 * created by a factory, which may hand out shared attributes.
+	 * 
+	 * @param attribute
+	 *            The attribute.
+	 * @return The attribute or its clone.
+	 */
+	public static XAttribute unshare(XAttribute attribute) {
+		if (attribute instanceof XAttributeImpl
+				&& ((XAttributeImpl) attribute).isShared()) {
+			return (XAttribute) attribute.clone();
+		}
+		return attribute;
+	}
+
 }
@@ -191,4 +191,14 @@ public class XRuntimeUtils {
 		extFolder.mkdirs();
 		return extFolder;
 	}
+	
+	/**
+	 * Retrieves the directory file of the platform-dependent OpenXES
+	 * log snapshot cache folder.
+	 */
+	public static File getSnapshotCacheFolder() {
+		File snapshotFolder = new File(getSupportFolder() + "SnapshotCache");
+		snapshotFolder.mkdirs();
+		return snapshotFolder;
+	}
 }
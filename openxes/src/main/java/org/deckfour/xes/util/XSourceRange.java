@@ -0,0 +1,268 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.util;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+
+import org.deckfour.xes.model.XAttributable;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeBoolean;
+import org.deckfour.xes.model.XAttributeCollection;
+import org.deckfour.xes.model.XAttributeContinuous;
+import org.deckfour.xes.model.XAttributeDiscrete;
+import org.deckfour.xes.model.XAttributeLiteral;
+import org.deckfour.xes.model.XAttributeTimestamp;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XTrace;
+
+/**
+ * Byte range of a trace element in a source file, together with a
+ * fingerprint of the trace content at parse time.
+ * 
+ * Dirty detection is based on the fingerprint rather than on intercepting
+ * modifications, since traces can be changed in many ways (list operations,
+ * attribute maps, mutable attributes). A trace is considered unmodified if
+ * its current fingerprint equals the recorded one, and if the source file has
+ * not changed since parsing.
+ * 
+ * The source bytes of a trace are only meaningful together with the global
+ * attributes declared in the source header, which may provide defaults for
+ * attributes omitted from the trace. Therefore, the range also records a
+ * fingerprint of these global attributes, and whether the parser filled in
+ * their defaults.
+ * 
+ */
+public final class XSourceRange {
+
+	private final File file;
+	private final long fileLength;
+	private final long fileModified;
+	private final long start;
+	private final long end;
+	private final long fingerprint;
+	private final long globalsFingerprint;
+	private final boolean globalDefaultsShared;
+
+	/**
+	 * Creates a new source range.
+	 * 
+	 * @param file
+	 *            The source file.
+	 * @param fileLength
+	 *            Length of the source file at parse time.
+	 * @param fileModified
+	 *            Modification time of the source file at parse time.
+	 * @param start
+	 *            Position of the first byte of the element.
+	 * @param end
+	 *            Position after the last byte of the element.
+	 * @param fingerprint
+	 *            Fingerprint of the parsed element.
+	 * @param globalsFingerprint
+	 *            Fingerprint of the global attributes of the source log (see
+	 *            {@link #fingerprint(List, List)}).
+	 * @param globalDefaultsShared
+	 *            Whether the parser filled in the defaults of the global
+	 *            attributes.
+	 */
+	public XSourceRange(File file, long fileLength, long fileModified,
+			long start, long end, long fingerprint, long globalsFingerprint,
+			boolean globalDefaultsShared) {
+		this.file = file;
+		this.fileLength = fileLength;
+		this.fileModified = fileModified;
+		this.start = start;
+		this.end = end;
+		this.fingerprint = fingerprint;
+		this.globalsFingerprint = globalsFingerprint;
+		this.globalDefaultsShared = globalDefaultsShared;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public long getStart() {
+		return start;
+	}
+
+	public long getEnd() {
+		return end;
+	}
+
+	public long getFingerprint() {
+		return fingerprint;
+	}
+
+	public long getGlobalsFingerprint() {
+		return globalsFingerprint;
+	}
+
+	public boolean isGlobalDefaultsShared() {
+		return globalDefaultsShared;
+	}
+
+	/**
+	 * Checks whether the source file is unchanged since parsing, based on its
+	 * length and modification time.
+	 */
+	public boolean isSourceUnchanged() {
+		return file.length() == fileLength
+				&& file.lastModified() == fileModified;
+	}
+
+	/**
+	 * Checks whether the given trace still has the recorded content.
+	 */
+	public boolean matches(XTrace trace) {
+		return fingerprint(trace) == fingerprint;
+	}
+
+	/**
+	 * Checks whether the source bytes of the trace can be copied into a log
+	 * with the given global attributes, such that reading the copy yields the
+	 * parsed trace. This requires the same global attributes as the source.
+	 * Moreover, if the parser filled in global defaults, the source may rely
+	 * on omitted attributes, so the copy is only equivalent if the output
+	 * omits attributes equal to their defaults as well.
+	 * 
+	 * @param globalsFingerprint
+	 *            Fingerprint of the global attributes of the output log (see
+	 *            {@link #fingerprint(List, List)}).
+	 * @param elideGlobalDefaults
+	 *            Whether the output omits attributes equal to their global
+	 *            default.
+	 */
+	public boolean matchesGlobals(long globalsFingerprint,
+			boolean elideGlobalDefaults) {
+		return globalsFingerprint == this.globalsFingerprint
+				&& (elideGlobalDefaults || !globalDefaultsShared);
+	}
+
+	/**
+	 * Computes a 64-bit fingerprint of the global trace and event attributes
+	 * of a log, in order.
+	 * 
+	 * @param globalTraceAttributes
+	 *            The global trace attributes.
+	 * @param globalEventAttributes
+	 *            The global event attributes.
+	 * @return The fingerprint.
+	 */
+	public static long fingerprint(List<XAttribute> globalTraceAttributes,
+			List<XAttribute> globalEventAttributes) {
+		long hash = fingerprint(mix(0, 'T'), globalTraceAttributes);
+		return fingerprint(mix(hash, 'E'), globalEventAttributes);
+	}
+
+	/**
+	 * Computes a 64-bit fingerprint of the serialized content of the given
+	 * trace, i.e., of its attributes and events, in order.
+	 * 
+	 * @param trace
+	 *            The trace to fingerprint.
+	 * @return The fingerprint.
+	 */
+	public static long fingerprint(XTrace trace) {
+		long hash = mix(0, trace.size());
+		hash = fingerprint(hash, trace);
+		for (XEvent event : trace) {
+			hash = fingerprint(mix(hash, 'E'), event);
+		}
+		return hash;
+	}
+
+	private static long fingerprint(long hash, XAttributable attributable) {
+		if (attributable.hasAttributes()) {
+			hash = fingerprint(hash, attributable.getAttributes().values());
+		}
+		return mix(hash, 'A');
+	}
+
+	private static long fingerprint(long hash, Collection<XAttribute> attributes) {
+		for (XAttribute attribute : attributes) {
+			hash = mix(hash, attribute.getKey());
+			/*
+			 * Collections need to precede Literal, as they extend Literal.
+			 */
+			if (attribute instanceof XAttributeCollection) {
+				hash = mix(hash, attribute.getClass().getName());
+				hash = fingerprint(hash,
+						((XAttributeCollection) attribute).getCollection());
+			} else if (attribute instanceof XAttributeLiteral) {
+				hash = mix(mix(hash, 's'),
+						((XAttributeLiteral) attribute).getValue());
+			} else if (attribute instanceof XAttributeDiscrete) {
+				hash = mix(mix(hash, 'i'),
+						((XAttributeDiscrete) attribute).getValue());
+			} else if (attribute instanceof XAttributeContinuous) {
+				hash = mix(mix(hash, 'f'), Double
+						.doubleToLongBits(((XAttributeContinuous) attribute)
+								.getValue()));
+			} else if (attribute instanceof XAttributeTimestamp) {
+				hash = mix(mix(hash, 'd'),
+						((XAttributeTimestamp) attribute).getValueMillis());
+			} else if (attribute instanceof XAttributeBoolean) {
+				hash = mix(mix(hash, 'b'),
+						((XAttributeBoolean) attribute).getValue() ? 1 : 0);
+			} else {
+				hash = mix(mix(hash, attribute.getClass().getName()),
+						attribute.toString());
+			}
+			hash = fingerprint(hash, attribute);
+		}
+		return mix(hash, 'C');
+	}
+
+	private static long mix(long hash, String value) {
+		hash = mix(hash, value.length());
+		for (int i = 0; i < value.length(); i++) {
+			hash = mix(hash, value.charAt(i));
+		}
+		return hash;
+	}
+
+	private static long mix(long hash, long value) {
+		hash = (hash ^ value) * 0x9E3779B97F4A7C15L;
+		return hash ^ (hash >>> 29);
+	}
+
+}
@@ -0,0 +1,269 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+package org.deckfour.xes.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeTimestamp;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+
+/**
+ * Sorts events by their timestamps, in bulk. The timestamps of all events are
+ * extracted once as primitive keys, and a permutation of the event indices is
+ * sorted stably by these keys. Traces then rewrite their events in a single
+ * pass (see {@link XTrace#sortByTimestamp()}).
+ * 
+ * Events without a timestamp keep the key of their predecessor, i.e., they
+ * stay behind the event they followed before. Events with equal timestamps
+ * keep their relative order.
+ * 
+ */
+public final class XTimestampSorter {
+
+	/**
+	 * Length of the runs sorted by insertion before merging.
+	 */
+	private static final int RUN_LENGTH = 32;
+
+	private XTimestampSorter() {
+	}
+
+	/**
+	 * Returns the sort key of the given event, i.e., its timestamp in
+	 * milliseconds.
+	 * 
+	 * @param event
+	 *            The event.
+	 * @param previous
+	 *            The key of the preceding event, returned if the event has
+	 *            no timestamp. Use {@link Long#MIN_VALUE} for the first event.
+	 * @return The sort key of the event.
+	 */
+	public static long keyOf(XEvent event, long previous) {
+		XAttribute attribute = event.getAttributes().get(
+				XTimeExtension.KEY_TIMESTAMP);
+		if (attribute instanceof XAttributeTimestamp) {
+			return ((XAttributeTimestamp) attribute).getValueMillis();
+		}
+		return previous;
+	}
+
+	/**
+	 * Returns the sort keys of the given events.
+	 * 
+	 * @param events
+	 *            The events.
+	 * @return The sort keys, by event index.
+	 */
+	public static long[] keysOf(List<XEvent> events) {
+		long[] keys = new long[events.size()];
+		long key = Long.MIN_VALUE;
+		int i = 0;
+		for (XEvent event : events) {
+			key = keyOf(event, key);
+			keys[i++] = key;
+		}
+		return keys;
+	}
+
+	/**
+	 * Sorts the indices of the given keys stably by key.
+	 * 
+	 * @param keys
+	 *            The sort keys.
+	 * @return The indices in key order, or <code>null</code> if the keys are
+	 *         in order already.
+	 */
+	public static int[] order(long[] keys) {
+		int n = keys.length;
+		int first = 1;
+		while (first < n && keys[first - 1] <= keys[first]) {
+			first++;
+		}
+		if (first >= n) {
+			return null;
+		}
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		for (int from = 0; from < n; from += RUN_LENGTH) {
+			insertionSort(order, keys, from, Math.min(n, from + RUN_LENGTH));
+		}
+		int[] buffer = new int[n];
+		for (int width = RUN_LENGTH; width < n; width <<= 1) {
+			for (int from = 0; from < n - width; from += width << 1) {
+				merge(order, buffer, keys, from, from + width,
+						Math.min(n, from + (width << 1)));
+			}
+		}
+		return order;
+	}
+
+	/**
+	 * Sorts the given events stably by timestamp, by setting each element
+	 * once. Traces use this unless they have a more efficient way.
+	 * 
+	 * @param events
+	 *            The events to sort.
+	 * @return Whether the order of the events has changed.
+	 */
+	public static boolean sort(List<XEvent> events) {
+		int[] order = order(keysOf(events));
+		if (order == null) {
+			return false;
+		}
+		XEvent[] sorted = new XEvent[order.length];
+		for (int i = 0; i < order.length; i++) {
+			sorted[i] = events.get(order[i]);
+		}
+		for (int i = 0; i < sorted.length; i++) {
+			events.set(i, sorted[i]);
+		}
+		return true;
+	}
+
+	/**
+	 * Sorts the events of all traces of the given log by timestamp, using one
+	 * thread per available processor.
+	 * 
+	 * @param log
+	 *            The log.
+	 * @return The number of traces whose order has changed.
+	 */
+	public static int sortByTimestamp(XLog log) throws InterruptedException {
+		return sortByTimestamp(log, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Sorts the events of all traces of the given log by timestamp, in
+	 * parallel.
+	 * 
+	 * @param log
+	 *            The log.
+	 * @param threads
+	 *            The number of threads sorting traces.
+	 * @return The number of traces whose order has changed.
+	 */
+	public static int sortByTimestamp(final XLog log, int threads)
+			throws InterruptedException {
+		final AtomicInteger next = new AtomicInteger();
+		final AtomicInteger changed = new AtomicInteger();
+		Runnable worker = new Runnable() {
+			public void run() {
+				for (int i = next.getAndIncrement(); i < log.size(); i = next
+						.getAndIncrement()) {
+					if (log.get(i).sortByTimestamp()) {
+						changed.incrementAndGet();
+					}
+				}
+			}
+		};
+		threads = Math.min(threads, log.size());
+		if (threads <= 1) {
+			worker.run();
+			return changed.get();
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(worker));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw (RuntimeException) cause;
+		} finally {
+			executor.shutdownNow();
+		}
+		return changed.get();
+	}
+
+	private static void insertionSort(int[] order, long[] keys, int from,
+			int to) {
+		for (int i = from + 1; i < to; i++) {
+			int index = order[i];
+			long key = keys[index];
+			int j = i - 1;
+			while (j >= from && keys[order[j]] > key) {
+				order[j + 1] = order[j];
+				j--;
+			}
+			order[j + 1] = index;
+		}
+	}
+
+	private static void merge(int[] order, int[] buffer, long[] keys,
+			int from, int middle, int to) {
+		if (keys[order[middle - 1]] <= keys[order[middle]]) {
+			// runs are in order already
+			return;
+		}
+		System.arraycopy(order, from, buffer, from, middle - from);
+		int left = from;
+		int right = middle;
+		int i = from;
+		while (left < middle && right < to) {
+			if (keys[order[right]] < keys[buffer[left]]) {
+				order[i++] = order[right++];
+			} else {
+				order[i++] = buffer[left++];
+			}
+		}
+		while (left < middle) {
+			order[i++] = buffer[left++];
+		}
+	}
+}
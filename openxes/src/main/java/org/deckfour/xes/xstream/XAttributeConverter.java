@@ -92,7 +92,7 @@ public class XAttributeConverter extends XConverter {
 					.toString());
 		}
 		// marshal meta-attributes
-		if (attribute.getAttributes().size() > 0) {
+		if (attribute.hasAttributes()) {
 			writer.startNode("XAttributeMap");
 			XAttribute oldParent = (XAttribute) context.get(PARENT);
 			context.put(PARENT, attribute); 
@@ -126,9 +126,6 @@ public class XAttributeConverter extends XConverter {
 		XAttribute attribute = XAttributeUtils.composeAttribute(factory, key,
 				value, type, extension);
 		XAttribute parent = (XAttribute) context.get(PARENT);
-		if (parent != null && parent instanceof XAttributeCollection) {
-			((XAttributeCollection) parent).addToCollection(attribute);
-		}
 		if (reader.hasMoreChildren()) {
 			reader.moveDown();
 			Object oldParent = context.get(PARENT);
@@ -138,7 +135,13 @@ public class XAttributeConverter extends XConverter {
 							XesXStreamPersistency.attributeMapConverter);
 			context.put(PARENT, oldParent);
 			reader.moveUp();
-			attribute.setAttributes(metaAttributes);
+			if (!metaAttributes.isEmpty()) {
+				attribute = XAttributeUtils.unshare(attribute);
+				attribute.setAttributes(metaAttributes);
+			}
+		}
+		if (parent != null && parent instanceof XAttributeCollection) {
+			((XAttributeCollection) parent).addToCollection(attribute);
 		}
 		return attribute;
 	}
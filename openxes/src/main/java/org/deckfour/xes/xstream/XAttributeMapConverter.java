@@ -46,6 +46,7 @@ import org.deckfour.xes.model.XAttributeMap;
 import org.deckfour.xes.model.buffered.XAttributeMapBufferedImpl;
 import org.deckfour.xes.model.impl.XAttributeMapImpl;
 import org.deckfour.xes.model.impl.XAttributeMapLazyImpl;
+import org.deckfour.xes.model.impl.XAttributeMapLazySuppliedImpl;
 
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.converters.MarshallingContext;
@@ -87,6 +88,8 @@ public class XAttributeMapConverter extends XConverter {
 					XAttributeMapBufferedImpl.class)) {
 				buffered = "true";
 			}
+		} else if (map instanceof XAttributeMapLazySuppliedImpl) {
+			lazy = "true";
 		} else if (map instanceof XAttributeMapBufferedImpl) {
 			buffered = "true";
 		}
@@ -126,8 +129,8 @@ public class XAttributeMapConverter extends XConverter {
 				map = new XAttributeMapLazyImpl<XAttributeMapBufferedImpl>(
 						XAttributeMapBufferedImpl.class);
 			} else {
-				map = new XAttributeMapLazyImpl<XAttributeMapImpl>(
-						XAttributeMapImpl.class);
+				map = new XAttributeMapLazySuppliedImpl<XAttributeMapImpl>(
+						XAttributeMapLazySuppliedImpl.HASHED);
 			}
 		} else if (buffered) {
 			map = new XAttributeMapBufferedImpl();
@@ -0,0 +1,161 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Date;
+
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeTimestamp;
+import org.deckfour.xes.model.impl.XAttributeLiteralImpl;
+import org.deckfour.xes.model.impl.XAttributeTimestampImpl;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests how attributes store their values, extension and meta-attributes:
+ * timestamps are kept as milliseconds, and never share a date with their
+ * callers.
+ */
+public class AttributeStorageTest {
+
+	@Test
+	public void testTimestampValue() throws Exception {
+		XExtension time = XTimeExtension.instance();
+		Date date = new Date(1000000L);
+		XAttributeTimestampImpl attribute = new XAttributeTimestampImpl(
+				"time:timestamp", date, time);
+		XAttributeTimestampImpl other = new XAttributeTimestampImpl(
+				"time:timestamp", date, time);
+
+		// neither the given nor the returned dates write through
+		date.setTime(0L);
+		assertEquals(1000000L, attribute.getValueMillis());
+		attribute.getValue().setTime(0L);
+		assertEquals(1000000L, attribute.getValueMillis());
+		assertEquals(new Date(1000000L), attribute.getValue());
+		assertNotSame(attribute.getValue(), attribute.getValue());
+
+		// attributes created from the same date are independent
+		attribute.setValueMillis(2000000L);
+		assertEquals(new Date(2000000L), attribute.getValue());
+		assertEquals(1000000L, other.getValueMillis());
+		Date value = new Date(3000000L);
+		attribute.setValue(value);
+		value.setTime(0L);
+		assertEquals(3000000L, attribute.getValueMillis());
+
+		XAttributeTimestamp clone = (XAttributeTimestamp) attribute.clone();
+		clone.setValueMillis(4000000L);
+		assertEquals(3000000L, attribute.getValueMillis());
+		assertEquals(new XAttributeTimestampImpl("time:timestamp", 3000000L,
+				time), attribute);
+		assertEquals(attribute.toString(), new XAttributeTimestampImpl(
+				"time:timestamp", new Date(3000000L)).toString());
+
+		XAttributeTimestamp copy = (XAttributeTimestamp) serialize(attribute);
+		assertEquals(3000000L, copy.getValueMillis());
+		assertEquals(time.getUri(), copy.getExtension().getUri());
+	}
+
+	@Test
+	public void testExtensionAndMeta() throws Exception {
+		for (XExtension extension : new XExtension[] { null,
+				XConceptExtension.instance() }) {
+			XAttribute attribute = new XAttributeLiteralImpl("concept:name",
+					"a", extension);
+			assertSame(extension, attribute.getExtension());
+			assertFalse(attribute.hasAttributes());
+			XAttribute copy = serialize(attribute);
+			assertEquals(extension == null ? null : extension.getUri(),
+					copy.getExtension() == null ? null : copy.getExtension()
+							.getUri());
+
+			// creating the meta-attributes keeps the extension
+			assertTrue(attribute.getAttributes().isEmpty());
+			assertSame(extension, attribute.getExtension());
+			XAttribute meta = new XAttributeLiteralImpl("meta", "m");
+			attribute.getAttributes().put(meta.getKey(), meta);
+			assertSame(extension, attribute.getExtension());
+			assertTrue(attribute.hasAttributes());
+			assertSame(meta, attribute.getAttributes().get("meta"));
+
+			// clones keep both
+			XAttribute clone = (XAttribute) attribute.clone();
+			assertSame(extension, clone.getExtension());
+			assertEquals(meta, clone.getAttributes().get("meta"));
+			clone.getAttributes().remove("meta");
+			assertTrue(attribute.hasAttributes());
+
+			// removing the meta-attributes keeps the extension
+			attribute.setAttributes(null);
+			assertSame(extension, attribute.getExtension());
+			assertFalse(attribute.hasAttributes());
+			assertNull(attribute.getAttributes().get("meta"));
+			assertSame(extension, attribute.getExtension());
+			assertSame(extension, clone.getExtension());
+		}
+	}
+
+	private static XAttribute serialize(XAttribute attribute) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(attribute);
+		out.close();
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(
+				bytes.toByteArray()));
+		try {
+			return (XAttribute) in.readObject();
+		} finally {
+			in.close();
+		}
+	}
+
+}
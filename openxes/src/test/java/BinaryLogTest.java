@@ -0,0 +1,220 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Date;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XCostExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.id.XIDFactory;
+import org.deckfour.xes.in.XesBinaryParser;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeCollection;
+import org.deckfour.xes.model.XAttributeList;
+import org.deckfour.xes.model.XAttributeLiteral;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.mapped.XLogMappedImpl;
+import org.deckfour.xes.out.XesBinarySerializer;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Round-trip test for the binary XES format, read by the streaming parser
+ * and as a memory-mapped log.
+ */
+public class BinaryLogTest {
+
+	@Test
+	public void test() throws Exception {
+		XLog log = createLog();
+		File file = File.createTempFile("binary", ".xesb");
+		file.deleteOnExit();
+		OutputStream out = new FileOutputStream(file);
+		new XesBinarySerializer().serialize(log, out);
+		out.close();
+
+		InputStream in = new FileInputStream(file);
+		XLog parsed = new XesBinaryParser().parse(in).get(0);
+		in.close();
+		assertLog(log, parsed);
+
+		XLogMappedImpl mapped = new XLogMappedImpl(file);
+		try {
+			assertLog(log, mapped);
+		} finally {
+			mapped.close();
+		}
+	}
+
+	@Test
+	public void testMappedReadOnly() throws Exception {
+		XLog log = createLog();
+		File file = File.createTempFile("binary", ".xesb");
+		file.deleteOnExit();
+		OutputStream out = new FileOutputStream(file);
+		new XesBinarySerializer().serialize(log, out);
+		out.close();
+
+		XLogMappedImpl mapped = new XLogMappedImpl(file);
+		try {
+			final XEvent event = mapped.get(3).get(1);
+			assertTrue(fails(new Runnable() {
+				public void run() {
+					XConceptExtension.instance().assignName(event, "renamed");
+				}
+			}));
+			assertTrue(fails(new Runnable() {
+				public void run() {
+					((XAttributeLiteral) event.getAttributes().get("concept:name")).setValue("renamed");
+				}
+			}));
+			assertTrue(fails(new Runnable() {
+				public void run() {
+					event.getAttributes().remove("concept:name");
+				}
+			}));
+			assertEquals("activity 1", XConceptExtension.instance().extractName(event));
+			assertNull(event.getAttributes().get("missing"));
+			assertFalse(event.getAttributes().containsKey("missing"));
+
+			// clones are modifiable copies
+			XEvent clone = (XEvent) event.clone();
+			XConceptExtension.instance().assignName(clone, "renamed");
+			assertEquals("renamed", XConceptExtension.instance().extractName(clone));
+			assertEquals("activity 1", XConceptExtension.instance().extractName(event));
+			XTrace trace = (XTrace) mapped.get(3).clone();
+			XConceptExtension.instance().assignName(trace, "renamed");
+			assertEquals("case 3", XConceptExtension.instance().extractName(mapped.get(3)));
+		} finally {
+			mapped.close();
+		}
+	}
+
+	private static boolean fails(Runnable runnable) {
+		try {
+			runnable.run();
+			return false;
+		} catch (UnsupportedOperationException e) {
+			return true;
+		}
+	}
+
+	private static XLog createLog() {
+		XFactory factory = XFactoryRegistry.instance().currentDefault();
+		XLog log = factory.createLog();
+		log.getExtensions().add(XConceptExtension.instance());
+		log.getExtensions().add(XTimeExtension.instance());
+		XConceptExtension.instance().assignName(log, "binary");
+		for (int t = 0; t < 10; t++) {
+			XTrace trace = factory.createTrace();
+			XConceptExtension.instance().assignName(trace, "case " + t);
+			for (int e = 0; e < 4; e++) {
+				XEvent event = factory.createEvent();
+				// meta-attributes and collections precede the name, so that
+				// the keyed lookup has to skip them
+				XAttributeList list = factory.createAttributeList("items", null);
+				list.addToCollection(factory.createAttributeDiscrete("item", e, null));
+				list.addToCollection(factory.createAttributeID("id", XIDFactory.instance().createId(), null));
+				event.getAttributes().put("items", list);
+				XAttributeLiteral resource = factory.createAttributeLiteral("resource", "r" + e, null);
+				resource.getAttributes().put("since", factory.createAttributeTimestamp("since", new Date(e), null));
+				event.getAttributes().put("resource", resource);
+				event.getAttributes().put("flag", factory.createAttributeBoolean("flag", e % 2 == 0, null));
+				XCostExtension.instance().assignTotal(event, 0.5 * e);
+				XConceptExtension.instance().assignName(event, "activity " + e);
+				XTimeExtension.instance().assignTimestamp(event, 1000L * t + e);
+				trace.add(event);
+			}
+			log.add(trace);
+		}
+		return log;
+	}
+
+	private static void assertLog(XLog expected, XLog log) {
+		assertEquals(XConceptExtension.instance().extractName(expected),
+				XConceptExtension.instance().extractName(log));
+		assertEquals(expected.size(), log.size());
+		for (int t = 0; t < expected.size(); t++) {
+			assertAttributes(expected.get(t).getAttributes(), log.get(t).getAttributes());
+			assertEquals(expected.get(t).size(), log.get(t).size());
+			for (int e = 0; e < expected.get(t).size(); e++) {
+				XEvent event = expected.get(t).get(e);
+				XEvent other = log.get(t).get(e);
+				assertEquals(event.getID(), other.getID());
+				assertAttributes(event.getAttributes(), other.getAttributes());
+			}
+		}
+	}
+
+	private static void assertAttributes(XAttributeMap expected, XAttributeMap attributes) {
+		assertEquals(expected.size(), attributes.size());
+		assertEquals(expected.keySet(), attributes.keySet());
+		for (XAttribute attribute : expected.values()) {
+			// keyed lookup and iteration agree
+			XAttribute other = attributes.get(attribute.getKey());
+			assertEquals(attribute, other);
+			assertEquals(attribute.toString(), other.toString());
+			assertEquals(attribute.getExtension(), other.getExtension());
+			if (attribute instanceof XAttributeCollection) {
+				assertEquals(((XAttributeCollection) attribute).getCollection().size(),
+						((XAttributeCollection) other).getCollection().size());
+			} else {
+				assertEquals(attribute.getAttributes().keySet(), other.getAttributes().keySet());
+			}
+		}
+		for (XAttribute attribute : attributes.values()) {
+			assertEquals(expected.get(attribute.getKey()), attribute);
+		}
+	}
+
+}
@@ -0,0 +1,255 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XCostExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryNaiveImpl;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeDiscrete;
+import org.deckfour.xes.model.XAttributeList;
+import org.deckfour.xes.model.XAttributeLiteral;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.impl.XAttributeCache;
+import org.deckfour.xes.model.impl.XAttributeImpl;
+import org.deckfour.xes.model.impl.XAttributeMapCompactImpl;
+import org.deckfour.xes.model.impl.XAttributeMapShapedImpl;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that clones of attribute maps, events and logs are isolated from
+ * their originals in both directions, and that reading them does not modify
+ * them. Clones copy their mutable attributes; only shared attributes and the
+ * key arrays of compact maps are referenced by both copies.
+ */
+public class CloneIsolationTest {
+
+	private final XFactory factory = new XFactoryNaiveImpl();
+
+	@Test
+	public void testCompactMap() {
+		testIsolation(new XAttributeMapCompactImpl());
+	}
+
+	@Test
+	public void testShapedMap() {
+		testIsolation(new XAttributeMapShapedImpl());
+	}
+
+	@Test
+	public void testLargeCompactMap() {
+		XAttributeMap map = new XAttributeMapCompactImpl();
+		for (int i = 0; i < 2 * XAttributeMapCompactImpl.HASH_THRESHOLD; i++) {
+			map.put("key" + i, factory.createAttributeDiscrete("key" + i, i, null));
+		}
+		XAttributeMap clone = (XAttributeMap) map.clone();
+		map.remove("key0");
+		clone.remove("key1");
+		((XAttributeDiscrete) map.get("key5")).setValue(-5);
+		assertEquals(5L, ((XAttributeDiscrete) clone.get("key5")).getValue());
+		assertTrue(clone.containsKey("key0"));
+		assertFalse(clone.containsKey("key1"));
+		assertTrue(map.containsKey("key1"));
+		int i = 1;
+		for (XAttribute attribute : map.values()) {
+			assertEquals("key" + i, attribute.getKey());
+			i++;
+		}
+	}
+
+	private void testIsolation(XAttributeMap map) {
+		XAttributeLiteral name = factory.createAttributeLiteral("concept:name", "a",
+				XConceptExtension.instance());
+		map.put(name.getKey(), name);
+		XAttributeLiteral resource = factory.createAttributeLiteral("org:resource", "r", null);
+		resource.getAttributes().put("role", factory.createAttributeLiteral("role", "clerk", null));
+		map.put(resource.getKey(), resource);
+		XAttributeList list = factory.createAttributeList("items", null);
+		list.addToCollection(factory.createAttributeLiteral("item", "x", null));
+		map.put(list.getKey(), list);
+
+		XAttributeMap clone = (XAttributeMap) map.clone();
+		// attributes retrieved before cloning stay those of the original
+		assertFalse(((XAttributeImpl) name).isShared());
+		assertFalse(((XAttributeImpl) resource).isShared());
+		assertSame(name, map.get("concept:name"));
+		resource.getAttributes().put("since", factory.createAttributeDiscrete("since", 2009, null));
+		name.setValue("b");
+		assertEquals("b", ((XAttributeLiteral) map.get("concept:name")).getValue());
+		assertEquals("a", ((XAttributeLiteral) clone.get("concept:name")).getValue());
+		assertEquals(2, map.get("org:resource").getAttributes().size());
+		assertEquals(1, clone.get("org:resource").getAttributes().size());
+
+		((XAttributeLiteral) map.get("concept:name")).setValue("c");
+		((XAttributeLiteral) clone.get("concept:name")).setValue("d");
+		assertEquals("c", ((XAttributeLiteral) map.get("concept:name")).getValue());
+		assertEquals("d", ((XAttributeLiteral) clone.get("concept:name")).getValue());
+
+		XCostExtension.instance().assignAmount(map.get("org:resource"), 10.0);
+		assertEquals(10.0, XCostExtension.instance().extractAmount(map.get("org:resource")), 0.0);
+		assertEquals(null, XCostExtension.instance().extractAmount(clone.get("org:resource")));
+		clone.get("org:resource").getAttributes().put("shift",
+				factory.createAttributeLiteral("shift", "late", null));
+		assertFalse(map.get("org:resource").getAttributes().containsKey("shift"));
+		assertTrue(clone.get("org:resource").getAttributes().containsKey("shift"));
+		assertTrue(map.get("org:resource").getAttributes().containsKey("since"));
+
+		((XAttributeList) clone.get("items")).addToCollection(factory.createAttributeLiteral("item", "y", null));
+		assertEquals(1, ((XAttributeList) map.get("items")).getCollection().size());
+		assertEquals(2, ((XAttributeList) clone.get("items")).getCollection().size());
+
+		// iteration hands out the same, private attributes
+		for (Map.Entry<String, XAttribute> entry : clone.entrySet()) {
+			assertNotSame(entry.getValue(), map.get(entry.getKey()));
+			assertSame(entry.getValue(), clone.get(entry.getKey()));
+		}
+		for (XAttribute attribute : map.values()) {
+			assertFalse(((XAttributeImpl) attribute).isShared());
+		}
+
+		clone.remove("items");
+		clone.put("extra", factory.createAttributeBoolean("extra", true, null));
+		assertEquals(3, map.size());
+		assertTrue(map.containsKey("items"));
+		assertFalse(map.containsKey("extra"));
+	}
+
+	@Test
+	public void testSharedAttributes() {
+		XAttributeCache cache = new XAttributeCache(16);
+		XAttributeLiteral shared = cache.share(factory.createAttributeLiteral("org:resource", "r", null));
+		assertTrue(((XAttributeImpl) shared).isShared());
+		XAttributeMap map = new XAttributeMapCompactImpl();
+		map.put(shared.getKey(), shared);
+		XAttributeMap clone = (XAttributeMap) map.clone();
+		// immutable attributes stay shared by both maps
+		assertSame(shared, map.get("org:resource"));
+		assertSame(shared, clone.get("org:resource"));
+	}
+
+	@Test
+	public void testConcurrentReads() throws Exception {
+		testConcurrentReads(new XAttributeMapCompactImpl());
+		testConcurrentReads(new XAttributeMapShapedImpl());
+	}
+
+	private void testConcurrentReads(final XAttributeMap map) throws Exception {
+		for (int i = 0; i < 2 * XAttributeMapCompactImpl.HASH_THRESHOLD; i++) {
+			map.put("key" + i, factory.createAttributeDiscrete("key" + i, i, null));
+		}
+		final XAttributeMap clone = (XAttributeMap) map.clone();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<List<XAttribute>>> reads = new ArrayList<Future<List<XAttribute>>>();
+			for (int t = 0; t < 8; t++) {
+				final XAttributeMap read = t % 2 == 0 ? map : clone;
+				reads.add(executor.submit(new Callable<List<XAttribute>>() {
+					public List<XAttribute> call() {
+						List<XAttribute> attributes = new ArrayList<XAttribute>();
+						for (int i = 0; i < read.size(); i++) {
+							attributes.add(read.get("key" + i));
+						}
+						for (Map.Entry<String, XAttribute> entry : read.entrySet()) {
+							attributes.add(entry.getValue());
+						}
+						return attributes;
+					}
+				}));
+			}
+			for (int t = 0; t < reads.size(); t++) {
+				XAttributeMap read = t % 2 == 0 ? map : clone;
+				List<XAttribute> attributes = reads.get(t).get();
+				assertEquals(2 * read.size(), attributes.size());
+				for (int i = 0; i < read.size(); i++) {
+					assertNotNull(attributes.get(i));
+					assertSame(read.get("key" + i), attributes.get(i));
+					assertSame(read.get("key" + i), attributes.get(read.size() + i));
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testLog() {
+		XLog log = factory.createLog();
+		for (int t = 0; t < 3; t++) {
+			XTrace trace = factory.createTrace();
+			XConceptExtension.instance().assignName(trace, "case " + t);
+			for (int e = 0; e < 4; e++) {
+				XEvent event = factory.createEvent();
+				XConceptExtension.instance().assignName(event, "a" + e);
+				XCostExtension.instance().assignTotal(event, (double) e);
+				trace.add(event);
+			}
+			log.add(trace);
+		}
+		XLog clone = (XLog) log.clone();
+		XEvent event = log.get(1).get(2);
+		XConceptExtension.instance().assignName(event, "changed");
+		XCostExtension.instance().assignTotal(clone.get(1).get(2), 42.0);
+		((XAttributeLiteral) log.get(0).getAttributes().get("concept:name")).setValue("first");
+
+		assertEquals("changed", XConceptExtension.instance().extractName(log.get(1).get(2)));
+		assertEquals("a2", XConceptExtension.instance().extractName(clone.get(1).get(2)));
+		assertEquals(2.0, XCostExtension.instance().extractTotal(log.get(1).get(2)), 0.0);
+		assertEquals(42.0, XCostExtension.instance().extractTotal(clone.get(1).get(2)), 0.0);
+		assertEquals("case 0", XConceptExtension.instance().extractName(clone.get(0)));
+		assertFalse(event.getID().equals(clone.get(1).get(2).getID()));
+	}
+
+}
@@ -0,0 +1,190 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.deckfour.xes.columnar.XColumn;
+import org.deckfour.xes.columnar.XColumnType;
+import org.deckfour.xes.columnar.XColumnarLogReader;
+import org.deckfour.xes.columnar.XColumnarLogWriter;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.model.XAttributeList;
+import org.deckfour.xes.model.XAttributeLiteral;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Round-trip test for the columnar log store.
+ */
+public class ColumnarLogStoreTest {
+
+	@Test
+	public void test() throws Exception {
+		XFactory factory = XFactoryRegistry.instance().currentDefault();
+		XLog log = factory.createLog();
+		log.getExtensions().add(XConceptExtension.instance());
+		log.getExtensions().add(XTimeExtension.instance());
+		XConceptExtension.instance().assignName(log, "columnar");
+		for (int t = 0; t < 100; t++) {
+			XTrace trace = factory.createTrace();
+			XConceptExtension.instance().assignName(trace, "case " + t);
+			for (int e = 0; e < t % 7; e++) {
+				XEvent event = factory.createEvent();
+				XConceptExtension.instance().assignName(event, "activity " + (e % 3));
+				XTimeExtension.instance().assignTimestamp(event, 1000L * t + e);
+				event.getAttributes().put("cost", factory.createAttributeContinuous("cost", 0.5 * e, null));
+				if (e % 2 == 0) {
+					event.getAttributes().put("rework", factory.createAttributeBoolean("rework", e % 4 == 0, null));
+				}
+				if (e == 3) {
+					XAttributeList list = factory.createAttributeList("items", null);
+					list.addToCollection(factory.createAttributeDiscrete("item", 42, null));
+					event.getAttributes().put("items", list);
+				}
+				trace.add(event);
+			}
+			log.add(trace);
+		}
+		File directory = Files.createTempDirectory("columnar").toFile();
+		try {
+			new XColumnarLogWriter().write(log, directory);
+
+			XColumnarLogReader reader = new XColumnarLogReader(directory);
+			assertEquals(100, reader.getNumberOfTraces());
+			assertEquals(XColumnType.TIMESTAMP, reader.getEventColumnType("time:timestamp"));
+			XColumn names = reader.readEventColumn("concept:name");
+			XColumn times = reader.readEventColumn("time:timestamp");
+			int[] offsets = reader.readTraceOffsets();
+			int row = 0;
+			for (int t = 0; t < log.size(); t++) {
+				assertEquals(row, offsets[t]);
+				for (XEvent event : log.get(t)) {
+					assertEquals(XConceptExtension.instance().extractName(event), names.getString(row));
+					assertEquals(XTimeExtension.instance().extractTimestamp(event).getTime(), times.getLong(row));
+					row++;
+				}
+			}
+
+			XLog copy = reader.readLog();
+			assertEquals(log.size(), copy.size());
+			for (int t = 0; t < log.size(); t++) {
+				assertEquals(log.get(t).getAttributes().keySet(), copy.get(t).getAttributes().keySet());
+				for (int e = 0; e < log.get(t).size(); e++) {
+					XEvent event = log.get(t).get(e);
+					XEvent other = copy.get(t).get(e);
+					assertEquals(event.getID(), other.getID());
+					assertEquals(event.getAttributes().keySet(), other.getAttributes().keySet());
+					for (String key : event.getAttributes().keySet()) {
+						assertEquals(event.getAttributes().get(key).toString(), other.getAttributes().get(key).toString());
+					}
+				}
+			}
+
+			XLog projection = reader.readLog(Arrays.asList("concept:name"));
+			for (XTrace trace : projection) {
+				for (XEvent event : trace) {
+					assertEquals(1, event.getAttributes().size());
+					assertTrue(event.getAttributes().containsKey("concept:name"));
+				}
+			}
+
+			// projections include the requested keys kept in residual columns
+			projection = reader.readLog(Arrays.asList("items"));
+			int lists = 0;
+			for (XTrace trace : projection) {
+				for (XEvent event : trace) {
+					if (event.getAttributes().containsKey("items")) {
+						assertEquals(1, event.getAttributes().size());
+						assertEquals(1, ((XAttributeList) event.getAttributes().get("items")).getCollection().size());
+						lists++;
+					} else {
+						assertTrue(event.getAttributes().isEmpty());
+					}
+				}
+			}
+			assertEquals(42, lists);
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	public void testLogsAreIndependent() throws Exception {
+		XFactory factory = XFactoryRegistry.instance().currentDefault();
+		XLog log = factory.createLog();
+		XConceptExtension.instance().assignName(log, "columnar");
+		log.getGlobalEventAttributes().add(factory.createAttributeLiteral("concept:name", "__INVALID__", null));
+		XTrace trace = factory.createTrace();
+		trace.add(factory.createEvent());
+		log.add(trace);
+		File directory = Files.createTempDirectory("columnar").toFile();
+		try {
+			new XColumnarLogWriter().write(log, directory);
+
+			XColumnarLogReader reader = new XColumnarLogReader(directory);
+			XLog first = reader.readLog();
+			XLog second = reader.readColumnarLog();
+			XConceptExtension.instance().assignName(first, "changed");
+			((XAttributeLiteral) first.getGlobalEventAttributes().get(0)).setValue("changed");
+			assertEquals("columnar", XConceptExtension.instance().extractName(second));
+			assertEquals("__INVALID__", ((XAttributeLiteral) second.getGlobalEventAttributes().get(0)).getValue());
+			assertEquals("columnar", XConceptExtension.instance().extractName(reader.readLog()));
+		} finally {
+			delete(directory);
+		}
+	}
+
+	private static void delete(File directory) {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+}
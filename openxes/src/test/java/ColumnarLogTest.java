@@ -0,0 +1,178 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.columnar.XLogColumnarImpl;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XLifecycleExtension;
+import org.deckfour.xes.extension.std.XOrganizationalExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeList;
+import org.deckfour.xes.model.XAttributeLiteral;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.out.XesXmlSerializer;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests the in-memory columnar log against its source log.
+ */
+public class ColumnarLogTest {
+
+	private final XFactory factory = XFactoryRegistry.instance().currentDefault();
+
+	@Test
+	public void testSerializesLikeSource() throws Exception {
+		XLog log = createLog();
+		XLog columnar = new XLogColumnarImpl(log, factory);
+		assertEquals(serialize(log), serialize(columnar));
+		assertEquals(serialize(log), serialize((XLog) columnar.clone()));
+	}
+
+	@Test
+	public void testReadOnlyAttributes() {
+		XLog log = createLog();
+		XLog columnar = new XLogColumnarImpl(log, factory);
+		XEvent event = columnar.get(1).get(2);
+		XAttributeMap attributes = event.getAttributes();
+		assertEquals(log.get(1).get(2).getAttributes().keySet(), attributes.keySet());
+		assertEquals("a2", ((XAttributeLiteral) attributes.get("concept:name")).getValue());
+		assertTrue(attributes.containsKey("cost"));
+		assertNull(attributes.get("missing"));
+		assertFalse(attributes.containsKey("missing"));
+
+		XAttribute name = factory.createAttributeLiteral("concept:name", "x", XConceptExtension.instance());
+		assertTrue(fails(() -> attributes.put("concept:name", name)));
+		assertTrue(fails(() -> attributes.remove("concept:name")));
+		assertTrue(fails(() -> attributes.clear()));
+		assertTrue(fails(() -> ((XAttributeLiteral) attributes.get("concept:name")).setValue("x")));
+		assertTrue(fails(() -> columnar.get(0).getAttributes().put("concept:name", name)));
+
+		// clones are modifiable copies
+		XAttributeMap copy = (XAttributeMap) attributes.clone();
+		copy.put("concept:name", name);
+		assertEquals("a2", ((XAttributeLiteral) event.getAttributes().get("concept:name")).getValue());
+		XEvent clone = (XEvent) event.clone();
+		XConceptExtension.instance().assignName(clone, "changed");
+		assertEquals("changed", XConceptExtension.instance().extractName(clone));
+	}
+
+	private XLog createLog() {
+		XLog log = factory.createLog();
+		log.getExtensions().add(XConceptExtension.instance());
+		log.getExtensions().add(XTimeExtension.instance());
+		log.getExtensions().add(XLifecycleExtension.instance());
+		log.getExtensions().add(XOrganizationalExtension.instance());
+		log.getClassifiers().add(new XEventNameClassifier());
+		log.getGlobalEventAttributes().add(
+				factory.createAttributeLiteral("concept:name", "__INVALID__", XConceptExtension.instance()));
+		XConceptExtension.instance().assignName(log, "columnar");
+		for (int t = 0; t < 5; t++) {
+			XTrace trace = factory.createTrace();
+			trace.getAttributes().put("priority", factory.createAttributeDiscrete("priority", t, null));
+			XConceptExtension.instance().assignName(trace, "case " + t);
+			for (int e = 0; e < 4; e++) {
+				XEvent event = factory.createEvent();
+				// the key order varies between events
+				if (e % 2 == 0) {
+					XConceptExtension.instance().assignName(event, "a" + e);
+					XTimeExtension.instance().assignTimestamp(event, new Date(1000L * t - 60000L * e));
+				} else {
+					XTimeExtension.instance().assignTimestamp(event, new Date(1000L * t + e));
+					XLifecycleExtension.instance().assignStandardTransition(event,
+							XLifecycleExtension.StandardModel.COMPLETE);
+					XConceptExtension.instance().assignName(event, "a" + e);
+				}
+				event.getAttributes().put("cost", factory.createAttributeContinuous("cost", e == 3 ? -0.0 : 0.5 * e, null));
+				if (e == 1) {
+					// residual attributes between column attributes
+					XAttributeList list = factory.createAttributeList("items", null);
+					list.addToCollection(factory.createAttributeDiscrete("item", t, null));
+					event.getAttributes().put("items", list);
+				}
+				if (t == 2 && e == 2) {
+					// values of another type, with meta-attributes, and of another extension
+					event.getAttributes().put("cost", factory.createAttributeLiteral("cost", "high", null));
+					XOrganizationalExtension.instance().assignResource(event, "r");
+					event.getAttributes().get("org:resource").getAttributes()
+							.put("role", factory.createAttributeLiteral("role", "clerk", null));
+				} else if (e == 2) {
+					XOrganizationalExtension.instance().assignResource(event, "r" + t);
+				}
+				if (t == 3 && e == 0) {
+					event.getAttributes().put("org:resource",
+							factory.createAttributeLiteral("org:resource", "other", null));
+				}
+				trace.add(event);
+			}
+			log.add(trace);
+		}
+		return log;
+	}
+
+	private static boolean fails(Runnable runnable) {
+		try {
+			runnable.run();
+			return false;
+		} catch (UnsupportedOperationException e) {
+			return true;
+		}
+	}
+
+	private static String serialize(XLog log) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new XesXmlSerializer().serialize(log, out);
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+}
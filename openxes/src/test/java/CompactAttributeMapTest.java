@@ -0,0 +1,249 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryNaiveImpl;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.impl.XAttributeMapCompactImpl;
+import org.deckfour.xes.model.impl.XAttributeMapImpl;
+import org.deckfour.xes.model.impl.XAttributeMapLazySuppliedImpl;
+import org.deckfour.xes.model.impl.XAttributeMapShapedImpl;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests the compact attribute map against the contract of
+ * <code>java.util.Map</code>, using a <code>HashMap</code> as reference, in
+ * both its small (linear) and large (hashed) representation.
+ */
+public class CompactAttributeMapTest {
+
+	private final XFactory factory = new XFactoryNaiveImpl();
+
+	@Test
+	public void testRandomOperations() {
+		Random random = new Random(42);
+		XAttributeMapCompactImpl map = new XAttributeMapCompactImpl();
+		Map<String, XAttribute> reference = new HashMap<String, XAttribute>();
+		int keys = 3 * XAttributeMapCompactImpl.HASH_THRESHOLD;
+		for (int step = 0; step < 20000; step++) {
+			String key = "key" + random.nextInt(keys);
+			int operation = random.nextInt(10);
+			if (operation < 5) {
+				XAttribute attribute = attribute(key, step);
+				assertSame(reference.put(key, attribute), map.put(key, attribute));
+			} else if (operation < 8) {
+				assertSame(reference.remove(key), map.remove(key));
+			} else if (operation < 9) {
+				assertSame(reference.get(key), map.get(key));
+				assertEquals(reference.containsKey(key), map.containsKey(key));
+			} else if (step % 50 == 9) {
+				// shrink back to the small representation now and then
+				map.clear();
+				reference.clear();
+			}
+			assertEquals(reference.size(), map.size());
+			if (step % 100 == 0) {
+				assertContent(reference, map);
+			}
+		}
+		assertContent(reference, map);
+	}
+
+	@Test
+	public void testGrowth() {
+		XAttributeMapCompactImpl map = new XAttributeMapCompactImpl();
+		Map<String, XAttribute> reference = new HashMap<String, XAttribute>();
+		// grow past the linear representation one by one, then shrink again
+		for (int i = 0; i < 4 * XAttributeMapCompactImpl.HASH_THRESHOLD; i++) {
+			XAttribute attribute = attribute("key" + i, i);
+			map.put(attribute.getKey(), attribute);
+			reference.put(attribute.getKey(), attribute);
+			assertContent(reference, map);
+		}
+		for (int i = 0; i < 4 * XAttributeMapCompactImpl.HASH_THRESHOLD; i += 2) {
+			assertSame(reference.remove("key" + i), map.remove("key" + i));
+			assertContent(reference, map);
+		}
+		assertNull(map.get(null));
+		assertNull(map.remove(null));
+		assertFalse(map.containsKey(null));
+		assertFalse(map.containsKey(Integer.valueOf(1)));
+		assertNull(map.get(Integer.valueOf(1)));
+		XAttributeMapCompactImpl presized = new XAttributeMapCompactImpl(100);
+		presized.putAll(reference);
+		assertContent(reference, presized);
+	}
+
+	@Test
+	public void testViews() {
+		for (int size : new int[] { 5, 3 * XAttributeMapCompactImpl.HASH_THRESHOLD }) {
+			XAttributeMapCompactImpl map = new XAttributeMapCompactImpl();
+			Map<String, XAttribute> reference = new HashMap<String, XAttribute>();
+			for (int i = 0; i < size; i++) {
+				XAttribute attribute = attribute("key" + i, i);
+				map.put(attribute.getKey(), attribute);
+				reference.put(attribute.getKey(), attribute);
+			}
+
+			// removal through the entry set iterator
+			Iterator<Map.Entry<String, XAttribute>> entries = map.entrySet().iterator();
+			while (entries.hasNext()) {
+				String key = entries.next().getKey();
+				if (key.endsWith("1")) {
+					entries.remove();
+					reference.remove(key);
+				}
+			}
+			assertContent(reference, map);
+
+			// removal through the key set, its iterator and the values
+			assertTrue(map.keySet().remove("key2"));
+			reference.remove("key2");
+			assertFalse(map.keySet().remove("key2"));
+			Iterator<String> keys = map.keySet().iterator();
+			String first = keys.next();
+			keys.remove();
+			reference.remove(first);
+			XAttribute value = reference.remove("key3");
+			assertTrue(map.values().remove(value));
+			assertContent(reference, map);
+
+			// entry values can be replaced
+			for (Map.Entry<String, XAttribute> entry : map.entrySet()) {
+				XAttribute replacement = attribute(entry.getKey(), -1);
+				assertSame(reference.get(entry.getKey()), entry.setValue(replacement));
+				reference.put(entry.getKey(), replacement);
+			}
+			assertContent(reference, map);
+
+			// iterators fail fast on structural changes
+			Iterator<String> failing = map.keySet().iterator();
+			failing.next();
+			map.put("added", attribute("added", 0));
+			try {
+				failing.next();
+				assertTrue(false);
+			} catch (ConcurrentModificationException e) {
+				// expected
+			}
+			map.remove("added");
+
+			map.keySet().clear();
+			assertTrue(map.isEmpty());
+			assertFalse(map.entrySet().iterator().hasNext());
+		}
+	}
+
+	@Test
+	public void testEquality() {
+		for (int size : new int[] { 0, 5, 3 * XAttributeMapCompactImpl.HASH_THRESHOLD }) {
+			List<XAttributeMap> maps = new ArrayList<XAttributeMap>();
+			maps.add(new XAttributeMapCompactImpl());
+			maps.add(new XAttributeMapImpl());
+			maps.add(new XAttributeMapShapedImpl());
+			maps.add(new XAttributeMapLazySuppliedImpl<XAttributeMapCompactImpl>(
+					XAttributeMapLazySuppliedImpl.COMPACT));
+			Map<String, XAttribute> reference = new HashMap<String, XAttribute>();
+			for (int i = size - 1; i >= 0; i--) {
+				XAttribute attribute = attribute("key" + i, i);
+				reference.put(attribute.getKey(), attribute);
+				for (XAttributeMap map : maps) {
+					map.put(attribute.getKey(), (XAttribute) attribute.clone());
+				}
+			}
+			for (XAttributeMap map : maps) {
+				assertEquals(reference, map);
+				assertEquals(map, reference);
+				assertEquals(reference.hashCode(), map.hashCode());
+				assertEquals(maps.get(0), map);
+				assertEquals(map, maps.get(0));
+				assertEquals(map, map.clone());
+			}
+			if (size > 0) {
+				maps.get(0).remove("key0");
+				assertFalse(maps.get(0).equals(maps.get(1)));
+				assertFalse(maps.get(1).equals(maps.get(0)));
+				maps.get(0).put("key0", attribute("key0", -1));
+				assertFalse(maps.get(0).equals(maps.get(1)));
+			}
+		}
+	}
+
+	private XAttribute attribute(String key, long value) {
+		return factory.createAttributeDiscrete(key, value, null);
+	}
+
+	private static void assertContent(Map<String, XAttribute> expected, XAttributeMap map) {
+		assertEquals(expected.size(), map.size());
+		assertEquals(expected.isEmpty(), map.isEmpty());
+		assertEquals(expected, map);
+		assertEquals(expected.hashCode(), map.hashCode());
+		assertEquals(expected.keySet(), map.keySet());
+		assertEquals(expected.entrySet(), map.entrySet());
+		assertEquals(new HashSet<XAttribute>(expected.values()),
+				new HashSet<XAttribute>(map.values()));
+		assertEquals(expected.size(), map.values().size());
+		int count = 0;
+		for (Map.Entry<String, XAttribute> entry : map.entrySet()) {
+			assertSame(expected.get(entry.getKey()), entry.getValue());
+			assertSame(entry.getValue(), map.get(entry.getKey()));
+			assertTrue(map.containsKey(entry.getKey()));
+			assertTrue(map.containsValue(entry.getValue()));
+			count++;
+		}
+		assertEquals(expected.size(), count);
+	}
+
+}
@@ -0,0 +1,169 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XOrganizationalExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.in.XCsvParser;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.out.XCsvSerializer;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Round-trip test for the CSV serializer and parser, including quoted fields
+ * with line breaks in a file large enough to be parsed in parallel chunks.
+ */
+public class CsvRoundTripTest {
+
+	@Test
+	public void test() throws Exception {
+		XFactory factory = XFactoryRegistry.instance().currentDefault();
+		XLog log = factory.createLog();
+		for (int t = 0; t < 30000; t++) {
+			XTrace trace = factory.createTrace();
+			XConceptExtension.instance().assignName(trace, "case " + t);
+			for (int e = 0; e < 4; e++) {
+				XEvent event = factory.createEvent();
+				XConceptExtension.instance().assignName(event, "activity, " + e);
+				XOrganizationalExtension.instance().assignResource(event,
+						"line one\nline \"two\"\r\nline " + (t + e));
+				XTimeExtension.instance().assignTimestamp(event, 1000L * t + e);
+				trace.add(event);
+			}
+			log.add(trace);
+		}
+		File file = File.createTempFile("roundtrip", ".csv");
+		file.deleteOnExit();
+		OutputStream out = new FileOutputStream(file);
+		new XCsvSerializer().serialize(log, out);
+		out.close();
+		// large enough for several chunks
+		assertTrue(file.length() > 8 * 1024 * 1024);
+
+		for (int threads : new int[] { 1, 4 }) {
+			XCsvParser parser = new XCsvParser();
+			parser.setThreads(threads);
+			XLog parsed = parser.parse(file).get(0);
+			assertEquals(log.size(), parsed.size());
+			for (int t = 0; t < log.size(); t++) {
+				XTrace trace = log.get(t);
+				XTrace other = parsed.get(t);
+				assertEquals(XConceptExtension.instance().extractName(trace),
+						XConceptExtension.instance().extractName(other));
+				assertEquals(trace.size(), other.size());
+				for (int e = 0; e < trace.size(); e++) {
+					XEvent event = trace.get(e);
+					XEvent otherEvent = other.get(e);
+					assertEquals(XConceptExtension.instance().extractName(event),
+							XConceptExtension.instance().extractName(otherEvent));
+					assertEquals(XOrganizationalExtension.instance().extractResource(event),
+							XOrganizationalExtension.instance().extractResource(otherEvent));
+					assertEquals(XTimeExtension.instance().extractTimestamp(event),
+							XTimeExtension.instance().extractTimestamp(otherEvent));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testDelimiter() throws Exception {
+		XFactory factory = XFactoryRegistry.instance().currentDefault();
+		XLog log = factory.createLog();
+		XTrace trace = factory.createTrace();
+		XConceptExtension.instance().assignName(trace, "case;1");
+		XEvent event = factory.createEvent();
+		XConceptExtension.instance().assignName(event, "caf\u00E9, \u00A7 ; \u20AC");
+		XTimeExtension.instance().assignTimestamp(event, 1000L);
+		trace.add(event);
+		log.add(trace);
+
+		XCsvSerializer serializer = new XCsvSerializer();
+		// the delimiter is written as a single byte
+		for (char delimiter : new char[] { '\u00A7', '\u20AC' }) {
+			boolean rejected = false;
+			try {
+				serializer.setDelimiter(delimiter);
+			} catch (IllegalArgumentException e) {
+				rejected = true;
+			}
+			assertTrue(rejected);
+		}
+		serializer.setDelimiter(';');
+		File file = File.createTempFile("delimiter", ".csv");
+		file.deleteOnExit();
+		OutputStream out = new FileOutputStream(file);
+		serializer.serialize(log, out);
+		out.close();
+
+		XCsvParser parser = new XCsvParser();
+		// the tokenizer matches the delimiter and quote as single bytes
+		boolean rejected = false;
+		try {
+			parser.setDelimiter('\u00A7');
+		} catch (IllegalArgumentException e) {
+			rejected = true;
+		}
+		assertTrue(rejected);
+		rejected = false;
+		try {
+			parser.setQuote('\u00AB');
+		} catch (IllegalArgumentException e) {
+			rejected = true;
+		}
+		assertTrue(rejected);
+		parser.setDelimiter(';');
+		XTrace parsed = parser.parse(file).get(0).get(0);
+		assertEquals("case;1", XConceptExtension.instance().extractName(parsed));
+		assertEquals(1, parsed.size());
+		assertEquals(XConceptExtension.instance().extractName(event),
+				XConceptExtension.instance().extractName(parsed.get(0)));
+	}
+
+}
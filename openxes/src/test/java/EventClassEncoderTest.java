@@ -0,0 +1,193 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Date;
+
+import org.deckfour.xes.classification.XEventAttributeClassifier;
+import org.deckfour.xes.classification.XEventClassEncoder;
+import org.deckfour.xes.classification.XEventClasses;
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryNaiveImpl;
+import org.deckfour.xes.id.XID;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests that event class encoders return the indices of the classes
+ * assigned by the event classes.
+ */
+public class EventClassEncoderTest {
+
+	private final XFactory factory = new XFactoryNaiveImpl();
+
+	@Test
+	public void testLiteral() {
+		assertParity(new XEventNameClassifier());
+	}
+
+	@Test
+	public void testDiscreteAndMissing() {
+		assertParity(new XEventAttributeClassifier("priority", "concept:name", "priority"));
+	}
+
+	@Test
+	public void testTimestamp() {
+		assertParity(new XEventAttributeClassifier("time", "time:timestamp"));
+	}
+
+	@Test
+	public void testSignedZero() {
+		XEventClassifier classifier = new XEventAttributeClassifier("cost", "cost");
+		assertParity(classifier);
+		// 0.0 and -0.0 are equal attributes of different classes
+		XLog log = createLog();
+		XEventClasses classes = XEventClasses.deriveEventClasses(classifier, log);
+		XEventClassEncoder encoder = classes.createEncoder();
+		XEvent positive = createEvent("a", 0.0);
+		XEvent negative = createEvent("a", -0.0);
+		assertEquals(positive.getAttributes().get("cost"), negative.getAttributes().get("cost"));
+		assertNotEquals(encoder.getClassIndex(positive), encoder.getClassIndex(negative));
+		assertEquals(classes.getClassOf(negative).getIndex(), encoder.getClassIndex(negative));
+	}
+
+	@Test
+	public void testOtherTypes() {
+		assertParity(new XEventAttributeClassifier("flags", "flag", "ref"));
+	}
+
+	@Test
+	public void testOverridingClassifier() {
+		// identities which are not a function of the attribute values
+		assertParity(new XEventAttributeClassifier("prefix", "concept:name") {
+			public String getClassIdentity(XEvent event) {
+				return super.getClassIdentity(event).substring(0, 1);
+			}
+		});
+	}
+
+	@Test
+	public void testUnknownClass() {
+		XEventClassifier classifier = new XEventNameClassifier();
+		XEventClasses classes = XEventClasses.deriveEventClasses(classifier, createLog());
+		XEventClassEncoder encoder = classes.createEncoder();
+		XEvent event = createEvent("unknown", 1.0);
+		assertNull(classes.getClassOf(event));
+		assertEquals(XEventClassEncoder.UNKNOWN, encoder.getClassIndex(event));
+		assertEquals(XEventClassEncoder.UNKNOWN, encoder.getClassIndex(event));
+	}
+
+	@Test
+	public void testClassRegisteredLater() {
+		XEventClassifier classifier = new XEventNameClassifier();
+		XEventClasses classes = XEventClasses.deriveEventClasses(classifier, createLog());
+		XEventClassEncoder encoder = classes.createEncoder();
+		XEvent event = createEvent("late", 1.0);
+		assertEquals(XEventClassEncoder.UNKNOWN, encoder.getClassIndex(event));
+		// the miss is not cached
+		classes.register(event);
+		int index = classes.getClassOf(event).getIndex();
+		assertNotEquals(XEventClassEncoder.UNKNOWN, index);
+		assertEquals(index, encoder.getClassIndex(event));
+		assertEquals(index, encoder.getClassIndex(createEvent("late", 2.0)));
+	}
+
+	private void assertParity(XEventClassifier classifier) {
+		XLog log = createLog();
+		XEventClasses classes = XEventClasses.deriveEventClasses(classifier, log);
+		XEventClassEncoder encoder = classes.createEncoder();
+		// the second pass hits the values cached by the first
+		for (int pass = 0; pass < 2; pass++) {
+			for (XTrace trace : log) {
+				for (XEvent event : trace) {
+					assertEquals(classes.getClassOf(event).getIndex(), encoder.getClassIndex(event),
+							classifier.getClassIdentity(event));
+				}
+			}
+		}
+		int[][] encoded = classes.createEncoder().encode(log);
+		for (int t = 0; t < log.size(); t++) {
+			for (int e = 0; e < log.get(t).size(); e++) {
+				assertEquals(classes.getClassOf(log.get(t).get(e)).getIndex(), encoded[t][e]);
+			}
+		}
+	}
+
+	private XLog createLog() {
+		XLog log = factory.createLog();
+		for (int t = 0; t < 10; t++) {
+			XTrace trace = factory.createTrace();
+			for (int e = 0; e < 12; e++) {
+				String name = (e % 2 == 0 ? "a" : "b") + (e % 5);
+				XEvent event = createEvent(name, e % 3 == 0 ? 0.0 : e % 3 == 1 ? -0.0 : 0.5 * e);
+				if (e % 4 != 0) {
+					event.getAttributes().put("priority", factory.createAttributeDiscrete("priority", e % 3, null));
+				}
+				if (e % 3 != 2) {
+					XTimeExtension.instance().assignTimestamp(event, new Date(1000L * (e % 4)));
+				}
+				event.getAttributes().put("flag", factory.createAttributeBoolean("flag", e % 2 == 0, null));
+				if (e % 5 != 0) {
+					event.getAttributes().put("ref",
+							factory.createAttributeID("ref", new XID(0L, (long) (e % 3)), null));
+				}
+				trace.add(event);
+			}
+			log.add(trace);
+		}
+		return log;
+	}
+
+	private XEvent createEvent(String name, double cost) {
+		XEvent event = factory.createEvent();
+		XConceptExtension.instance().assignName(event, name);
+		event.getAttributes().put("cost", factory.createAttributeContinuous("cost", cost, null));
+		return event;
+	}
+
+}
@@ -0,0 +1,126 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import org.deckfour.xes.classification.XEventAndClassifier;
+import org.deckfour.xes.classification.XEventClass;
+import org.deckfour.xes.classification.XEventClasses;
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.classification.XEventLifeTransClassifier;
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XLifecycleExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryNaiveImpl;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests that event classes derived with several threads equal those derived
+ * sequentially.
+ */
+public class EventClassesParallelTest {
+
+	private static final int[] THREADS = { 1, 2, 3, 8, 64 };
+
+	@Test
+	public void testParity() throws Exception {
+		XLog log = createLog(40);
+		XEventClassifier[] classifiers = { new XEventNameClassifier(),
+				new XEventAndClassifier(new XEventNameClassifier(), new XEventLifeTransClassifier()) };
+		for (XEventClassifier classifier : classifiers) {
+			XEventClasses expected = XEventClasses.deriveEventClasses(classifier, log);
+			for (int threads : THREADS) {
+				assertSameClasses(expected, XEventClasses.deriveEventClasses(classifier, log, threads), log);
+			}
+		}
+	}
+
+	@Test
+	public void testSmallLogs() throws Exception {
+		XEventClassifier classifier = new XEventNameClassifier();
+		for (int traces = 0; traces < 3; traces++) {
+			XLog log = createLog(traces);
+			XEventClasses expected = XEventClasses.deriveEventClasses(classifier, log);
+			for (int threads : THREADS) {
+				assertSameClasses(expected, XEventClasses.deriveEventClasses(classifier, log, threads), log);
+			}
+		}
+	}
+
+	private static void assertSameClasses(XEventClasses expected, XEventClasses actual, XLog log) {
+		assertEquals(expected.size(), actual.size());
+		for (XEventClass eventClass : expected.getClasses()) {
+			XEventClass other = actual.getByIdentity(eventClass.getId());
+			assertNotNull(other, eventClass.getId());
+			assertEquals(eventClass.getIndex(), other.getIndex(), eventClass.getId());
+			assertEquals(eventClass.size(), other.size(), eventClass.getId());
+			assertEquals(eventClass.getId(), actual.getByIndex(eventClass.getIndex()).getId());
+		}
+		for (XTrace trace : log) {
+			for (XEvent event : trace) {
+				assertEquals(expected.getClassOf(event).getIndex(), actual.getClassOf(event).getIndex());
+			}
+		}
+	}
+
+	private static XLog createLog(int traces) {
+		XFactory factory = new XFactoryNaiveImpl();
+		XLog log = factory.createLog();
+		for (int t = 0; t < traces; t++) {
+			XTrace trace = factory.createTrace();
+			for (int e = 0; e < t % 7; e++) {
+				XEvent event = factory.createEvent();
+				// later traces introduce classes of their own
+				XConceptExtension.instance().assignName(event, "a" + ((t * 3 + e) % (5 + t / 4)));
+				XLifecycleExtension.instance().assignStandardTransition(event,
+						e % 3 == 0 ? XLifecycleExtension.StandardModel.START
+								: XLifecycleExtension.StandardModel.COMPLETE);
+				trace.add(event);
+			}
+			log.add(trace);
+		}
+		return log;
+	}
+
+}
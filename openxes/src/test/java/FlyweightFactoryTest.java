@@ -0,0 +1,266 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Date;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XLifecycleExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryFlyweightImpl;
+import org.deckfour.xes.factory.XFactoryNaiveImpl;
+import org.deckfour.xes.in.XesBinaryParser;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeCollection;
+import org.deckfour.xes.model.XAttributeDiscrete;
+import org.deckfour.xes.model.XAttributeList;
+import org.deckfour.xes.model.XAttributeLiteral;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.impl.XAttributeCache;
+import org.deckfour.xes.model.impl.XAttributeImpl;
+import org.deckfour.xes.model.impl.XAttributeLiteralImpl;
+import org.deckfour.xes.model.mapped.XLogMappedImpl;
+import org.deckfour.xes.out.XesBinarySerializer;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests the flyweight factory and its attribute cache: value-identical
+ * attributes are shared, shared attributes cannot be modified, and logs read
+ * through the flyweight factory equal their source.
+ */
+public class FlyweightFactoryTest {
+
+	@Test
+	public void testReuse() {
+		XFactoryFlyweightImpl factory = new XFactoryFlyweightImpl();
+		XAttributeLiteral name = factory.createAttributeLiteral("concept:name", "a",
+				XConceptExtension.instance());
+		assertSame(name, factory.createAttributeLiteral("concept:name", "a",
+				XConceptExtension.instance()));
+		assertNotSame(name, factory.createAttributeLiteral("concept:name", "b",
+				XConceptExtension.instance()));
+		assertNotSame(name, factory.createAttributeLiteral("concept:name", "a", null));
+		assertSame(factory.createAttributeBoolean("flag", true, null),
+				factory.createAttributeBoolean("flag", true, null));
+		assertSame(factory.createAttributeDiscrete("count", 3, null),
+				factory.createAttributeDiscrete("count", 3, null));
+		assertSame(factory.createAttributeContinuous("cost", 0.5, null),
+				factory.createAttributeContinuous("cost", 0.5, null));
+		assertEquals(4, factory.getCache().getHits());
+
+		// lookups by an equal, private attribute find the shared instance
+		XAttributeCache cache = factory.getCache();
+		XAttributeLiteral copy = new XAttributeLiteralImpl("concept:name", "a",
+				XConceptExtension.instance());
+		assertSame(name, cache.get(copy));
+		copy.getAttributes().put("meta", new XAttributeLiteralImpl("meta", "m"));
+		assertNull(cache.get(copy));
+
+		// collections and attributes with meta-attributes are never shared
+		XAttributeList list = factory.createAttributeList("items", null);
+		assertSame(list, cache.share(list));
+		assertFalse(((XAttributeImpl) list).isShared());
+		assertSame(copy, cache.share(copy));
+		assertFalse(((XAttributeImpl) copy).isShared());
+	}
+
+	@Test
+	public void testImmutability() {
+		XFactoryFlyweightImpl factory = new XFactoryFlyweightImpl();
+		final XAttributeLiteral shared = factory.createAttributeLiteral("org:resource",
+				"alice", null);
+		assertTrue(((XAttributeImpl) shared).isShared());
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				shared.setValue("bob");
+			}
+		}));
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				shared.getAttributes().put("meta", new XAttributeLiteralImpl("meta", "m"));
+			}
+		}));
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				shared.setAttributes(new XFactoryNaiveImpl().createAttributeMap());
+			}
+		}));
+		final XAttributeDiscrete count = factory.createAttributeDiscrete("count", 1, null);
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				count.setValue(2);
+			}
+		}));
+		assertEquals("alice", shared.getValue());
+		assertTrue(shared.getAttributes().isEmpty());
+		assertFalse(shared.hasAttributes());
+
+		// clones are private, modifiable copies
+		XAttributeLiteral clone = (XAttributeLiteral) shared.clone();
+		assertFalse(((XAttributeImpl) clone).isShared());
+		assertEquals(shared, clone);
+		clone.setValue("bob");
+		clone.getAttributes().put("meta", new XAttributeLiteralImpl("meta", "m"));
+		assertEquals("alice", shared.getValue());
+		assertFalse(shared.hasAttributes());
+		assertSame(shared, factory.createAttributeLiteral("org:resource", "alice", null));
+
+		// events referencing the shared attribute modify their own copy
+		XEvent first = factory.createEvent();
+		XEvent second = factory.createEvent();
+		first.getAttributes().put("org:resource", shared);
+		second.getAttributes().put("org:resource", shared);
+		XEvent edited = (XEvent) first.clone();
+		edited.getAttributes().put("org:resource",
+				factory.createAttributeLiteral("org:resource", "bob", null));
+		assertSame(shared, second.getAttributes().get("org:resource"));
+		assertEquals("alice", ((XAttributeLiteral) first.getAttributes().get("org:resource")).getValue());
+	}
+
+	@Test
+	public void testBinaryRoundTrip() throws Exception {
+		XLog log = createLog(new XFactoryNaiveImpl());
+		File file = File.createTempFile("flyweight", ".xesb");
+		file.deleteOnExit();
+		OutputStream out = new FileOutputStream(file);
+		try {
+			new XesBinarySerializer().serialize(log, out);
+		} finally {
+			out.close();
+		}
+
+		XFactoryFlyweightImpl factory = new XFactoryFlyweightImpl();
+		InputStream in = new FileInputStream(file);
+		XLog parsed;
+		try {
+			parsed = new XesBinaryParser(factory).parse(in).get(0);
+		} finally {
+			in.close();
+		}
+		assertLog(log, parsed);
+		// value-identical attributes are read into one instance
+		assertSame(parsed.get(0).get(0).getAttributes().get("lifecycle:transition"),
+				parsed.get(1).get(1).getAttributes().get("lifecycle:transition"));
+		assertTrue(factory.getCache().getHits() > 0);
+
+		XLogMappedImpl mapped = new XLogMappedImpl(file, new XFactoryFlyweightImpl());
+		try {
+			assertLog(log, mapped);
+		} finally {
+			mapped.close();
+		}
+	}
+
+	private static boolean fails(Runnable runnable) {
+		try {
+			runnable.run();
+			return false;
+		} catch (UnsupportedOperationException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * Creates a log in which every event repeats the same transition, and
+	 * carries a resource with a meta-attribute.
+	 */
+	private static XLog createLog(XFactory factory) {
+		XLog log = factory.createLog();
+		XConceptExtension.instance().assignName(log, "flyweight");
+		for (int t = 0; t < 3; t++) {
+			XTrace trace = factory.createTrace();
+			XConceptExtension.instance().assignName(trace, "case " + t);
+			for (int e = 0; e < 3; e++) {
+				XEvent event = factory.createEvent();
+				XConceptExtension.instance().assignName(event, "activity " + e);
+				XLifecycleExtension.instance().assignStandardTransition(event,
+						XLifecycleExtension.StandardModel.COMPLETE);
+				XAttributeLiteral resource = factory.createAttributeLiteral("org:resource",
+						"r" + e, null);
+				resource.getAttributes().put("since",
+						factory.createAttributeTimestamp("since", new Date(e), null));
+				event.getAttributes().put("org:resource", resource);
+				XAttributeList list = factory.createAttributeList("items", null);
+				list.addToCollection(factory.createAttributeDiscrete("item", e, null));
+				event.getAttributes().put("items", list);
+				trace.add(event);
+			}
+			log.add(trace);
+		}
+		return log;
+	}
+
+	private static void assertLog(XLog expected, XLog log) {
+		assertEquals(expected.getAttributes(), log.getAttributes());
+		assertEquals(expected.size(), log.size());
+		for (int t = 0; t < expected.size(); t++) {
+			assertEquals(expected.get(t).getAttributes(), log.get(t).getAttributes());
+			assertEquals(expected.get(t).size(), log.get(t).size());
+			for (int e = 0; e < expected.get(t).size(); e++) {
+				XEvent event = expected.get(t).get(e);
+				XEvent other = log.get(t).get(e);
+				assertEquals(event.getAttributes().keySet(), other.getAttributes().keySet());
+				for (XAttribute attribute : event.getAttributes().values()) {
+					XAttribute read = other.getAttributes().get(attribute.getKey());
+					assertEquals(attribute, read);
+					if (attribute instanceof XAttributeCollection) {
+						assertEquals(((XAttributeCollection) attribute).getCollection().size(),
+								((XAttributeCollection) read).getCollection().size());
+					} else {
+						assertEquals(attribute.getAttributes().keySet(), read.getAttributes().keySet());
+					}
+				}
+			}
+		}
+	}
+
+}
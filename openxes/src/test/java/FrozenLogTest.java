@@ -0,0 +1,377 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XOrganizationalExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryNaiveImpl;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeCollection;
+import org.deckfour.xes.model.XAttributeContainer;
+import org.deckfour.xes.model.XAttributeList;
+import org.deckfour.xes.model.XAttributeLiteral;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.impl.XAttributeImpl;
+import org.deckfour.xes.model.impl.XAttributeMapFrozenImpl;
+import org.deckfour.xes.model.impl.XEventFrozenImpl;
+import org.deckfour.xes.model.impl.XLogFrozenImpl;
+import org.deckfour.xes.model.impl.XTraceFrozenImpl;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests frozen logs, traces, events and attribute maps: freezing keeps all
+ * content, every mutator throws, and clones are modifiable, equal copies.
+ */
+public class FrozenLogTest {
+
+	private final XFactory factory = new XFactoryNaiveImpl();
+
+	@Test
+	public void testContent() {
+		XLog log = createLog();
+		XLogFrozenImpl frozen = XLogFrozenImpl.freeze(log);
+		assertSame(frozen, XLogFrozenImpl.freeze(frozen));
+		assertLog(log, frozen);
+
+		// freezing copies, so later changes to the source do not show
+		XConceptExtension.instance().assignName(log.get(0).get(0), "changed");
+		log.get(1).remove(0);
+		assertEquals("a0", XConceptExtension.instance().extractName(frozen.get(0).get(0)));
+		assertEquals(4, frozen.get(1).size());
+	}
+
+	@Test
+	public void testReadOnly() {
+		final XLogFrozenImpl log = XLogFrozenImpl.freeze(createLog());
+		final XTrace trace = log.get(0);
+		final XEvent event = trace.get(0);
+		assertReadOnly(log.getAttributes());
+		assertReadOnly(trace.getAttributes());
+		assertReadOnly(event.getAttributes());
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				log.add(trace);
+			}
+		}));
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				log.remove(0);
+			}
+		}));
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				log.setAttributes(factory.createAttributeMap());
+			}
+		}));
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				log.getExtensions().add(XTimeExtension.instance());
+			}
+		}));
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				log.getClassifiers().clear();
+			}
+		}));
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				log.getGlobalEventAttributes().remove(0);
+			}
+		}));
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				((XAttributeLiteral) log.getGlobalEventAttributes().get(0)).setValue("b");
+			}
+		}));
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				trace.add(event);
+			}
+		}));
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				trace.set(0, event);
+			}
+		}));
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				trace.insertOrdered(event);
+			}
+		}));
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				trace.sortByTimestamp();
+			}
+		}));
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				trace.setAttributes(factory.createAttributeMap());
+			}
+		}));
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				event.setAttributes(factory.createAttributeMap());
+			}
+		}));
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				XConceptExtension.instance().assignName(event, "b");
+			}
+		}));
+
+		// nested attributes and meta-attributes are frozen as well
+		final XAttributeLiteral resource = (XAttributeLiteral) event.getAttributes()
+				.get("org:resource");
+		final XAttributeList list = (XAttributeList) event.getAttributes().get("items");
+		final XAttributeContainer container = (XAttributeContainer) event.getAttributes()
+				.get("box");
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				resource.setValue("bob");
+			}
+		}));
+		assertReadOnly(resource.getAttributes());
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				((XAttributeLiteral) resource.getAttributes().get("role")).setValue("boss");
+			}
+		}));
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				list.addToCollection(factory.createAttributeLiteral("item", "z", null));
+			}
+		}));
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				list.getCollection().clear();
+			}
+		}));
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				((XAttributeLiteral) list.getCollection().iterator().next()).setValue("z");
+			}
+		}));
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				container.addToCollection(factory.createAttributeLiteral("z", "z", null));
+			}
+		}));
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				((XAttributeLiteral) container.getAttributes().get("content")).setValue("z");
+			}
+		}));
+		assertLog(createLog(), log);
+	}
+
+	@Test
+	public void testClone() {
+		XLog log = createLog();
+		XLogFrozenImpl frozen = XLogFrozenImpl.freeze(log);
+		XLog clone = (XLog) frozen.clone();
+		assertFalse(clone instanceof XLogFrozenImpl);
+		assertLog(log, clone);
+
+		// the clone and its content are modifiable, the frozen log unchanged
+		XEvent event = clone.get(0).get(0);
+		XConceptExtension.instance().assignName(event, "changed");
+		((XAttributeLiteral) event.getAttributes().get("org:resource")).setValue("bob");
+		event.getAttributes().get("org:resource").getAttributes().put("shift",
+				factory.createAttributeLiteral("shift", "late", null));
+		((XAttributeList) event.getAttributes().get("items"))
+				.addToCollection(factory.createAttributeLiteral("item", "z", null));
+		clone.get(1).remove(0);
+		clone.remove(0);
+		clone.getGlobalEventAttributes().clear();
+		clone.getAttributes().remove("concept:name");
+		assertLog(createLog(), frozen);
+
+		// clones of frozen traces, events and maps are modifiable copies
+		XTrace trace = (XTrace) frozen.get(0).clone();
+		assertFalse(trace instanceof XTraceFrozenImpl);
+		assertEquals(frozen.get(0).getAttributes(), trace.getAttributes());
+		trace.add(factory.createEvent());
+		XEvent eventClone = (XEvent) frozen.get(0).get(0).clone();
+		assertFalse(eventClone instanceof XEventFrozenImpl);
+		assertEquals(frozen.get(0).get(0).getAttributes(), eventClone.getAttributes());
+		XConceptExtension.instance().assignName(eventClone, "changed");
+		XAttributeMap map = (XAttributeMap) frozen.getAttributes().clone();
+		assertFalse(map instanceof XAttributeMapFrozenImpl);
+		map.put("extra", factory.createAttributeBoolean("extra", true, null));
+		assertEquals(3, frozen.get(0).size());
+		assertEquals("a0", XConceptExtension.instance().extractName(frozen.get(0).get(0)));
+		assertFalse(frozen.getAttributes().containsKey("extra"));
+	}
+
+	private static boolean fails(Runnable runnable) {
+		try {
+			runnable.run();
+			return false;
+		} catch (UnsupportedOperationException e) {
+			return true;
+		}
+	}
+
+	private void assertReadOnly(final XAttributeMap map) {
+		assertTrue(fails(new Runnable() {
+			public void run() {
+				map.put("extra", factory.createAttributeBoolean("extra", true, null));
+			}
+		}));
+		if (!map.isEmpty()) {
+			final String key = map.keySet().iterator().next();
+			assertTrue(fails(new Runnable() {
+				public void run() {
+					map.remove(key);
+				}
+			}));
+			assertTrue(fails(new Runnable() {
+				public void run() {
+					map.clear();
+				}
+			}));
+			assertTrue(fails(new Runnable() {
+				public void run() {
+					Iterator<Map.Entry<String, XAttribute>> entries = map.entrySet().iterator();
+					entries.next();
+					entries.remove();
+				}
+			}));
+			assertTrue(fails(new Runnable() {
+				public void run() {
+					map.values().clear();
+				}
+			}));
+			assertTrue(fails(new Runnable() {
+				public void run() {
+					map.keySet().remove(key);
+				}
+			}));
+		}
+		for (XAttribute attribute : map.values()) {
+			assertTrue(((XAttributeImpl) attribute).isShared());
+		}
+	}
+
+	/**
+	 * Creates a log with extensions, a classifier, global attributes, and
+	 * events with nested and meta-attributes.
+	 */
+	private XLog createLog() {
+		XLog log = factory.createLog();
+		log.getExtensions().add(XConceptExtension.instance());
+		log.getExtensions().add(XOrganizationalExtension.instance());
+		log.getClassifiers().add(new XEventNameClassifier());
+		log.getGlobalTraceAttributes().add(
+				factory.createAttributeLiteral("concept:name", "", XConceptExtension.instance()));
+		log.getGlobalEventAttributes().add(
+				factory.createAttributeLiteral("concept:name", "", XConceptExtension.instance()));
+		XConceptExtension.instance().assignName(log, "frozen");
+		for (int t = 0; t < 3; t++) {
+			XTrace trace = factory.createTrace();
+			XConceptExtension.instance().assignName(trace, "case " + t);
+			for (int e = 0; e < 3 + t % 2; e++) {
+				XEvent event = factory.createEvent();
+				XConceptExtension.instance().assignName(event, "a" + e);
+				XTimeExtension.instance().assignTimestamp(event, new Date(1000L * e));
+				XAttributeLiteral resource = factory.createAttributeLiteral("org:resource",
+						"alice", XOrganizationalExtension.instance());
+				resource.getAttributes().put("role", factory.createAttributeLiteral("role",
+						"clerk", null));
+				event.getAttributes().put(resource.getKey(), resource);
+				XAttributeList list = factory.createAttributeList("items", null);
+				list.addToCollection(factory.createAttributeLiteral("item", "x" + e, null));
+				list.addToCollection(factory.createAttributeDiscrete("item", e, null));
+				event.getAttributes().put(list.getKey(), list);
+				XAttributeContainer container = factory.createAttributeContainer("box", null);
+				container.addToCollection(factory.createAttributeLiteral("content", "c" + e, null));
+				event.getAttributes().put(container.getKey(), container);
+				trace.add(event);
+			}
+			log.add(trace);
+		}
+		return log;
+	}
+
+	private static void assertLog(XLog expected, XLog log) {
+		assertEquals(expected.getExtensions(), log.getExtensions());
+		assertEquals(expected.getClassifiers(), log.getClassifiers());
+		assertEquals(expected.getGlobalTraceAttributes(), log.getGlobalTraceAttributes());
+		assertEquals(expected.getGlobalEventAttributes(), log.getGlobalEventAttributes());
+		assertAttributes(expected.getAttributes(), log.getAttributes());
+		assertEquals(expected.size(), log.size());
+		for (int t = 0; t < expected.size(); t++) {
+			assertAttributes(expected.get(t).getAttributes(), log.get(t).getAttributes());
+			assertEquals(expected.get(t).size(), log.get(t).size());
+			for (int e = 0; e < expected.get(t).size(); e++) {
+				assertAttributes(expected.get(t).get(e).getAttributes(),
+						log.get(t).get(e).getAttributes());
+			}
+		}
+	}
+
+	private static void assertAttributes(XAttributeMap expected, XAttributeMap attributes) {
+		assertEquals(expected, attributes);
+		for (XAttribute attribute : expected.values()) {
+			XAttribute other = attributes.get(attribute.getKey());
+			assertEquals(attribute.getExtension(), other.getExtension());
+			assertEquals(attribute.toString(), other.toString());
+			if (attribute instanceof XAttributeCollection) {
+				assertEquals(((XAttributeCollection) attribute).getCollection().toString(),
+						((XAttributeCollection) other).getCollection().toString());
+			}
+			assertAttributes(attribute.getAttributes(), other.getAttributes());
+		}
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.deckfour.xes.in.XesXmlParser;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeLiteral;
+import org.deckfour.xes.model.XLog;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests sharing global attribute defaults by the events of a parsed log.
+ */
+public class GlobalDefaultsTest {
+
+	private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
+			+ "<log xes.version=\"2.0\">\n"
+			+ "\t<global scope=\"event\">\n"
+			+ "\t\t<string key=\"org:resource\" value=\"nobody\"/>\n"
+			+ "\t</global>\n"
+			+ "\t<trace>\n"
+			+ "\t\t<event/>\n"
+			+ "\t\t<event>\n"
+			+ "\t\t\t<string key=\"org:resource\" value=\"nobody\"/>\n"
+			+ "\t\t</event>\n"
+			+ "\t\t<event>\n"
+			+ "\t\t\t<string key=\"org:resource\" value=\"alice\"/>\n"
+			+ "\t\t</event>\n"
+			+ "\t</trace>\n"
+			+ "</log>\n";
+
+	@Test
+	public void test() throws Exception {
+		XesXmlParser parser = new XesXmlParser();
+		parser.setShareGlobalDefaults(true);
+		XLog log = parser.parse(new ByteArrayInputStream(XML.getBytes(StandardCharsets.UTF_8))).get(0);
+		XAttribute first = log.get(0).get(0).getAttributes().get("org:resource");
+		XAttribute second = log.get(0).get(1).getAttributes().get("org:resource");
+		assertEquals("nobody", first.toString());
+		assertSame(first, second);
+		assertEquals("alice", log.get(0).get(2).getAttributes().get("org:resource").toString());
+
+		// events share a frozen copy, not the global attribute of the log
+		final XAttributeLiteral global = (XAttributeLiteral) log.getGlobalEventAttributes().get(0);
+		assertNotSame(global, first);
+		boolean failed = false;
+		try {
+			((XAttributeLiteral) first).setValue("changed");
+		} catch (UnsupportedOperationException e) {
+			failed = true;
+		}
+		assertTrue(failed);
+		global.setValue("somebody");
+		assertEquals("somebody", global.getValue());
+		assertEquals("nobody", first.toString());
+	}
+
+}
@@ -0,0 +1,179 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.id.XIDFactory;
+import org.deckfour.xes.in.XesJsonParser;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeList;
+import org.deckfour.xes.model.XAttributeLiteral;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.out.XesJsonSerializer;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Round-trip test for the JSON serializer and parser, including concurrent
+ * parses by a shared parser instance.
+ */
+public class JsonRoundTripTest {
+
+	@Test
+	public void test() throws Exception {
+		final XLog log = createLog(0);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new XesJsonSerializer().serialize(log, out);
+		XLog parsed = new XesJsonParser().parse(new ByteArrayInputStream(out.toByteArray())).get(0);
+		assertLog(log, parsed);
+		assertEquals(log.getExtensions(), parsed.getExtensions());
+		assertEquals(log.getClassifiers().size(), parsed.getClassifiers().size());
+		assertEquals(log.getGlobalEventAttributes(), parsed.getGlobalEventAttributes());
+	}
+
+	@Test
+	public void testConcurrent() throws Exception {
+		final XesJsonParser parser = new XesJsonParser();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+			for (int i = 0; i < 16; i++) {
+				final XLog log = createLog(i);
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				new XesJsonSerializer().serialize(log, out);
+				final byte[] json = out.toByteArray();
+				futures.add(executor.submit(new Callable<Boolean>() {
+					public Boolean call() throws Exception {
+						assertLog(log, parser.parse(new ByteArrayInputStream(json)).get(0));
+						return true;
+					}
+				}));
+			}
+			for (Future<Boolean> future : futures) {
+				assertEquals(Boolean.TRUE, future.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static XLog createLog(int variant) {
+		XFactory factory = XFactoryRegistry.instance().currentDefault();
+		XLog log = factory.createLog();
+		log.getExtensions().add(XConceptExtension.instance());
+		log.getExtensions().add(XTimeExtension.instance());
+		log.getClassifiers().add(new XEventNameClassifier());
+		log.getGlobalEventAttributes().add(factory.createAttributeLiteral("concept:name", "", XConceptExtension.instance()));
+		XConceptExtension.instance().assignName(log, "json \"" + variant + "\"\n");
+		for (int t = 0; t < 50; t++) {
+			XTrace trace = factory.createTrace();
+			XConceptExtension.instance().assignName(trace, "case " + t);
+			for (int e = 0; e < (t + variant) % 6; e++) {
+				XEvent event = factory.createEvent();
+				XConceptExtension.instance().assignName(event, "activity \\ " + e);
+				XTimeExtension.instance().assignTimestamp(event, new Date(1000L * t + e));
+				// vary the number of attributes between events and logs
+				for (int a = 0; a < (e + variant) % 4; a++) {
+					event.getAttributes().put("int" + a, factory.createAttributeDiscrete("int" + a, a, null));
+				}
+				event.getAttributes().put("flag", factory.createAttributeBoolean("flag", e % 2 == 0, null));
+				event.getAttributes().put("cost", factory.createAttributeContinuous("cost", 0.25 * e, null));
+				event.getAttributes().put("id", factory.createAttributeID("id", XIDFactory.instance().createId(), null));
+				if (e == 1) {
+					XAttributeList list = factory.createAttributeList("items", null);
+					list.addToCollection(factory.createAttributeLiteral("item", "x", null));
+					list.addToCollection(factory.createAttributeLiteral("item", "y", null));
+					event.getAttributes().put("items", list);
+					XAttributeLiteral meta = factory.createAttributeLiteral("resource", "r", null);
+					meta.getAttributes().put("role", factory.createAttributeLiteral("role", "clerk", null));
+					event.getAttributes().put("resource", meta);
+				}
+				trace.add(event);
+			}
+			log.add(trace);
+		}
+		return log;
+	}
+
+	private static void assertLog(XLog expected, XLog log) {
+		assertEquals(XConceptExtension.instance().extractName(expected),
+				XConceptExtension.instance().extractName(log));
+		assertEquals(expected.size(), log.size());
+		for (int t = 0; t < expected.size(); t++) {
+			assertAttributes(expected.get(t).getAttributes(), log.get(t).getAttributes());
+			assertEquals(expected.get(t).size(), log.get(t).size());
+			for (int e = 0; e < expected.get(t).size(); e++) {
+				assertAttributes(expected.get(t).get(e).getAttributes(), log.get(t).get(e).getAttributes());
+			}
+		}
+	}
+
+	private static void assertAttributes(XAttributeMap expected, XAttributeMap attributes) {
+		assertEquals(expected.keySet(), attributes.keySet());
+		for (XAttribute attribute : expected.values()) {
+			XAttribute other = attributes.get(attribute.getKey());
+			assertEquals(attribute, other);
+			if (attribute instanceof XAttributeList) {
+				// the parser also keeps the list items as meta-attributes
+				assertEquals(new ArrayList<XAttribute>(((XAttributeList) attribute).getCollection()),
+						new ArrayList<XAttribute>(((XAttributeList) other).getCollection()));
+			} else {
+				assertEquals(attribute.getAttributes(), other.getAttributes());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,173 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.function.Supplier;
+
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryNaiveImpl;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.impl.XAttributeMapCompactImpl;
+import org.deckfour.xes.model.impl.XAttributeMapImpl;
+import org.deckfour.xes.model.impl.XAttributeMapLazySuppliedImpl;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests that the supplied lazy attribute map only creates its backing store
+ * on the first insertion, and keeps being lazy when cloned.
+ */
+public class LazySuppliedAttributeMapTest {
+
+	private final XFactory factory = new XFactoryNaiveImpl();
+
+	@Test
+	public void testEmptyReads() {
+		CountingSupplier supplier = new CountingSupplier();
+		XAttributeMapLazySuppliedImpl<XAttributeMapCompactImpl> map = new XAttributeMapLazySuppliedImpl<XAttributeMapCompactImpl>(
+				supplier);
+		assertSame(supplier, map.getSupplier());
+		assertTrue(map.isEmpty());
+		assertEquals(0, map.size());
+		assertNull(map.get("concept:name"));
+		assertFalse(map.containsKey("concept:name"));
+		assertFalse(map.containsValue(attribute("concept:name", "a")));
+		assertNull(map.remove("concept:name"));
+		// shared empty views, rather than views of a new store
+		assertSame(Collections.emptySet(), map.keySet());
+		assertSame(Collections.emptySet(), map.entrySet());
+		assertSame(Collections.emptyList(), map.values());
+		assertEquals(new HashMap<String, XAttribute>(), map);
+		assertEquals(map, new XAttributeMapImpl());
+		assertEquals(0, map.hashCode());
+		assertEquals("{}", map.toString());
+		map.putAll(new HashMap<String, XAttribute>());
+		map.clear();
+		assertEquals(0, supplier.calls);
+	}
+
+	@Test
+	public void testFirstWrite() {
+		CountingSupplier supplier = new CountingSupplier();
+		XAttributeMapLazySuppliedImpl<XAttributeMapCompactImpl> map = new XAttributeMapLazySuppliedImpl<XAttributeMapCompactImpl>(
+				supplier);
+		XAttribute name = attribute("concept:name", "a");
+		assertNull(map.put(name.getKey(), name));
+		assertEquals(1, supplier.calls);
+		assertSame(name, map.get("concept:name"));
+		assertSame(name, map.put(name.getKey(), attribute("concept:name", "b")));
+		map.put("org:resource", attribute("org:resource", "r"));
+		map.remove("org:resource");
+		assertEquals(1, map.size());
+		assertEquals(1, supplier.calls);
+
+		// after clearing, the next write creates a new store
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertSame(Collections.emptySet(), map.keySet());
+		assertEquals(1, supplier.calls);
+		HashMap<String, XAttribute> attributes = new HashMap<String, XAttribute>();
+		attributes.put(name.getKey(), name);
+		map.putAll(attributes);
+		assertEquals(2, supplier.calls);
+		assertEquals(attributes, map);
+		assertEquals(attributes.hashCode(), map.hashCode());
+	}
+
+	@Test
+	public void testClone() {
+		CountingSupplier supplier = new CountingSupplier();
+		XAttributeMapLazySuppliedImpl<XAttributeMapCompactImpl> map = new XAttributeMapLazySuppliedImpl<XAttributeMapCompactImpl>(
+				supplier);
+
+		// a clone of an empty map stays lazy, with the same supplier
+		@SuppressWarnings("unchecked")
+		XAttributeMapLazySuppliedImpl<XAttributeMapCompactImpl> empty = (XAttributeMapLazySuppliedImpl<XAttributeMapCompactImpl>) map
+				.clone();
+		assertSame(supplier, empty.getSupplier());
+		assertTrue(empty.isEmpty());
+		assertSame(Collections.emptySet(), empty.keySet());
+		assertEquals(0, supplier.calls);
+		empty.put("concept:name", attribute("concept:name", "a"));
+		assertEquals(1, supplier.calls);
+		assertTrue(map.isEmpty());
+
+		// a clone of a filled map copies the store, without the supplier
+		map.put("concept:name", attribute("concept:name", "b"));
+		assertEquals(2, supplier.calls);
+		@SuppressWarnings("unchecked")
+		XAttributeMapLazySuppliedImpl<XAttributeMapCompactImpl> filled = (XAttributeMapLazySuppliedImpl<XAttributeMapCompactImpl>) map
+				.clone();
+		assertEquals(2, supplier.calls);
+		assertSame(supplier, filled.getSupplier());
+		assertEquals(map, filled);
+		assertNotSame(map.get("concept:name"), filled.get("concept:name"));
+		filled.put("org:resource", attribute("org:resource", "r"));
+		assertFalse(map.containsKey("org:resource"));
+		map.clear();
+		assertEquals(2, filled.size());
+		assertEquals(2, supplier.calls);
+	}
+
+	private XAttribute attribute(String key, String value) {
+		return factory.createAttributeLiteral(key, value, null);
+	}
+
+	/**
+	 * Supplier of compact maps, counting its calls.
+	 */
+	private static class CountingSupplier implements
+			Supplier<XAttributeMapCompactImpl> {
+
+		private int calls = 0;
+
+		public XAttributeMapCompactImpl get() {
+			calls++;
+			return new XAttributeMapCompactImpl();
+		}
+	}
+
+}
@@ -0,0 +1,216 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.deckfour.xes.classification.XEventAttributeClassifier;
+import org.deckfour.xes.classification.XEventClass;
+import org.deckfour.xes.classification.XEventClasses;
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XOrganizationalExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryNaiveImpl;
+import org.deckfour.xes.info.XAttributeInfo;
+import org.deckfour.xes.info.XLogInfo;
+import org.deckfour.xes.info.XTimeBounds;
+import org.deckfour.xes.info.impl.XAttributeInfoImpl;
+import org.deckfour.xes.info.impl.XLogInfoImpl;
+import org.deckfour.xes.model.XAttributable;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests that log summaries created with several threads equal those
+ * created sequentially.
+ */
+public class LogInfoParallelTest {
+
+	private static final int[] PARALLELISM = { 2, 3, 8, 64 };
+
+	private final XFactory factory = new XFactoryNaiveImpl();
+
+	private final List<XEventClassifier> classifiers = Arrays.<XEventClassifier> asList(
+			new XEventAttributeClassifier("value", "value"));
+
+	@Test
+	public void testParity() {
+		XLog log = createLog();
+		XLogInfo expected = new XLogInfoImpl(log, XLogInfoImpl.STANDARD_CLASSIFIER, classifiers);
+		for (int parallelism : PARALLELISM) {
+			XLogInfo actual = new XLogInfoImpl(log, XLogInfoImpl.STANDARD_CLASSIFIER, classifiers, parallelism);
+			assertSameInfo(expected, actual, log);
+		}
+	}
+
+	@Test
+	public void testOverriddenRegistration() {
+		XLog log = createLog();
+		XLogInfo expected = new FilteringLogInfo(log, 1);
+		assertFalse(expected.getEventAttributeInfo().getAttributeKeys().contains("value"));
+		assertFalse(expected.getMetaAttributeInfo().getAttributeKeys().contains("value"));
+		for (int parallelism : PARALLELISM) {
+			assertSameInfo(expected, new FilteringLogInfo(log, parallelism), log);
+		}
+	}
+
+	private void assertSameInfo(XLogInfo expected, XLogInfo actual, XLog log) {
+		assertEquals(expected.getNumberOfTraces(), actual.getNumberOfTraces());
+		assertEquals(expected.getNumberOfEvents(), actual.getNumberOfEvents());
+		assertSameBounds(expected.getLogTimeBoundaries(), actual.getLogTimeBoundaries());
+		for (XTrace trace : log) {
+			assertSameBounds(expected.getTraceTimeBoundaries(trace), actual.getTraceTimeBoundaries(trace));
+		}
+		assertSameAttributes(expected.getLogAttributeInfo(), actual.getLogAttributeInfo());
+		assertSameAttributes(expected.getTraceAttributeInfo(), actual.getTraceAttributeInfo());
+		assertSameAttributes(expected.getEventAttributeInfo(), actual.getEventAttributeInfo());
+		assertSameAttributes(expected.getMetaAttributeInfo(), actual.getMetaAttributeInfo());
+		assertEquals(expected.getEventClassifiers().size(), actual.getEventClassifiers().size());
+		for (XEventClassifier classifier : expected.getEventClassifiers()) {
+			assertSameClasses(expected.getEventClasses(classifier), actual.getEventClasses(classifier));
+		}
+	}
+
+	private static void assertSameBounds(XTimeBounds expected, XTimeBounds actual) {
+		assertEquals(expected.getStartDate(), actual.getStartDate());
+		assertEquals(expected.getEndDate(), actual.getEndDate());
+	}
+
+	private static void assertSameAttributes(XAttributeInfo expected, XAttributeInfo actual) {
+		assertEquals(new HashSet<String>(expected.getAttributeKeys()), new HashSet<String>(actual.getAttributeKeys()));
+		Map<String, XAttribute> prototypes = prototypes(actual.getAttributes());
+		for (XAttribute prototype : expected.getAttributes()) {
+			String key = prototype.getKey();
+			assertEquals(expected.getFrequency(key), actual.getFrequency(key), key);
+			// the prototype of a key is its first attribute in the log
+			XAttribute other = prototypes.get(key);
+			assertNotNull(other, key);
+			assertEquals(prototype.getClass(), other.getClass(), key);
+			assertEquals(prototype.toString(), other.toString(), key);
+		}
+	}
+
+	private static Map<String, XAttribute> prototypes(Collection<XAttribute> attributes) {
+		Map<String, XAttribute> prototypes = new HashMap<String, XAttribute>();
+		for (XAttribute attribute : attributes) {
+			prototypes.put(attribute.getKey(), attribute);
+		}
+		return prototypes;
+	}
+
+	private static void assertSameClasses(XEventClasses expected, XEventClasses actual) {
+		assertEquals(expected.size(), actual.size());
+		for (XEventClass eventClass : expected.getClasses()) {
+			XEventClass other = actual.getByIdentity(eventClass.getId());
+			assertNotNull(other, eventClass.getId());
+			assertEquals(eventClass.getIndex(), other.getIndex(), eventClass.getId());
+			assertEquals(eventClass.size(), other.size(), eventClass.getId());
+		}
+	}
+
+	private XLog createLog() {
+		XLog log = factory.createLog();
+		XConceptExtension.instance().assignName(log, "parallel");
+		for (int t = 0; t < 40; t++) {
+			XTrace trace = factory.createTrace();
+			XConceptExtension.instance().assignName(trace, "case " + t);
+			for (int e = 0; e < t % 6; e++) {
+				XEvent event = factory.createEvent();
+				XConceptExtension.instance().assignName(event, "a" + ((t + e) % 5));
+				if (e != 2) {
+					XTimeExtension.instance().assignTimestamp(event, new Date(86400000L * (t % 9) - 1000L * e));
+				}
+				XOrganizationalExtension.instance().assignResource(event, "r" + (t % 4));
+				// the type of this key depends on the trace; the first one is kept
+				XAttribute value;
+				if (t < 7) {
+					value = factory.createAttributeLiteral("value", "v" + e, null);
+				} else if (t % 2 == 0) {
+					value = factory.createAttributeDiscrete("value", e, null);
+				} else {
+					value = factory.createAttributeContinuous("value", 0.5 * e, null);
+				}
+				if (e == 1) {
+					XAttribute meta = t % 3 == 0 ? factory.createAttributeBoolean("value", true, null)
+							: factory.createAttributeLiteral("value", "meta", null);
+					value.getAttributes().put("value", meta);
+				}
+				event.getAttributes().put("value", value);
+				trace.add(event);
+			}
+			log.add(trace);
+		}
+		return log;
+	}
+
+	/**
+	 * Summary ignoring the attributes with key <code>value</code>.
+	 */
+	private static class FilteringLogInfo extends XLogInfoImpl {
+
+		private FilteringLogInfo(XLog log, int parallelism) {
+			super(log, XLogInfoImpl.STANDARD_CLASSIFIER, null, parallelism);
+		}
+
+		protected void registerAttributes(XAttributeInfoImpl attributeInfo, XAttributable attributable) {
+			if (attributable.hasAttributes() && attributable.getAttributes().containsKey("value")) {
+				XAttributeMap attributes = (XAttributeMap) attributable.getAttributes().clone();
+				attributes.remove("value");
+				attributable = new XFactoryNaiveImpl().createEvent(attributes);
+			}
+			super.registerAttributes(attributeInfo, attributable);
+		}
+	}
+
+}
@@ -0,0 +1,356 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.in.XLogSnapshotCache;
+import org.deckfour.xes.in.XesXmlParser;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.XVisitor;
+import org.deckfour.xes.out.XesXmlSerializer;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests loading logs from the snapshot cache, invalidating and evicting
+ * snapshots, and falling back to parsing for corrupt snapshots. The cache is
+ * directed to a temporary folder, and reset to its defaults afterwards.
+ */
+public class LogSnapshotCacheTest {
+
+	private final XFactory factory = XFactoryRegistry.instance().currentDefault();
+
+	@Test
+	public void test() throws Exception {
+		XLog log = createLog(20);
+		File folder = Files.createTempDirectory("snapshots").toFile();
+		File file = new File(folder, "log.xes");
+		serialize(log, file);
+
+		XLogSnapshotCache cache = enable(folder);
+		try {
+			XesXmlParser parser = new XesXmlParser(factory);
+			assertNull(cache.load(file, parser));
+			assertLog(log, parser.parse(file));
+			File snapshot = findSnapshot(folder);
+			assertNotNull(snapshot);
+			assertLog(log, cache.load(file, parser));
+
+			// corrupt the number of logs, which follows the header
+			int count = 4 + 4 + 2 + file.getCanonicalPath().length() + 8 + 8 + 2;
+			RandomAccessFile raf = new RandomAccessFile(snapshot, "rw");
+			raf.seek(count);
+			raf.writeInt(-1);
+			raf.close();
+			assertNull(cache.load(file, parser));
+			assertNull(findSnapshot(folder));
+			assertLog(log, parser.parse(file));
+			assertNotNull(findSnapshot(folder));
+		} finally {
+			reset(cache, folder);
+		}
+	}
+
+	@Test
+	public void testConfiguration() throws Exception {
+		XLog log = factory.createLog();
+		log.add(factory.createTrace());
+		File folder = Files.createTempDirectory("snapshots").toFile();
+		File file = new File(folder, "log.xes");
+		serialize(log, file);
+
+		XLogSnapshotCache cache = enable(folder);
+		try {
+			XesXmlParser parser = new XesXmlParser(factory);
+			parser.parse(file);
+			assertNotNull(cache.load(file, parser));
+			// snapshots are not shared between parser configurations
+			XesXmlParser sharing = new XesXmlParser(factory);
+			sharing.setShareGlobalDefaults(true);
+			assertNull(cache.load(file, sharing));
+			sharing.parse(file);
+			assertNotNull(cache.load(file, sharing));
+			assertNotNull(cache.load(file, parser));
+		} finally {
+			reset(cache, folder);
+		}
+	}
+
+	@Test
+	public void testInvalidation() throws Exception {
+		File folder = Files.createTempDirectory("snapshots").toFile();
+		File file = new File(folder, "log.xes");
+		serialize(createLog(3), file);
+
+		XLogSnapshotCache cache = enable(folder);
+		try {
+			XesXmlParser parser = new XesXmlParser(factory);
+			parser.parse(file);
+			assertNotNull(cache.load(file, parser));
+
+			// a changed size invalidates the snapshot
+			XLog changed = createLog(4);
+			serialize(changed, file);
+			assertNull(cache.load(file, parser));
+			assertNull(findSnapshot(folder));
+			assertLog(changed, parser.parse(file));
+			assertLog(changed, cache.load(file, parser));
+
+			// so does a changed modification time
+			assertTrue(file.setLastModified(file.lastModified() - 60000));
+			assertNull(cache.load(file, parser));
+			assertNull(findSnapshot(folder));
+			assertLog(changed, parser.parse(file));
+
+			// a snapshot of a file changed while parsing is not stored
+			cache.clear();
+			cache.store(file, file.length() - 1, file.lastModified(), parser,
+					Collections.singletonList(changed));
+			assertNull(findSnapshot(folder));
+			cache.store(file, file.length(), file.lastModified(), parser,
+					Collections.singletonList(changed));
+			assertNotNull(findSnapshot(folder));
+		} finally {
+			reset(cache, folder);
+		}
+	}
+
+	@Test
+	public void testContentHash() throws Exception {
+		File folder = Files.createTempDirectory("snapshots").toFile();
+		File file = new File(folder, "log.xes");
+		serialize(createLog(3), file);
+
+		XLogSnapshotCache cache = enable(folder);
+		try {
+			XesXmlParser parser = new XesXmlParser(factory);
+			parser.parse(file);
+
+			// rename a trace, keeping size and modification time
+			long lastModified = file.lastModified();
+			String xml = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+			assertTrue(xml.contains("case 1"));
+			Files.write(file.toPath(), xml.replace("case 1", "case 9").getBytes(StandardCharsets.UTF_8));
+			assertTrue(file.setLastModified(lastModified));
+
+			// without the content hash, the stale snapshot is used
+			assertEquals("case 1", XConceptExtension.instance().extractName(
+					cache.load(file, parser).get(0).get(1)));
+
+			cache.setUseContentHash(true);
+			cache.clear();
+			Files.write(file.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+			assertTrue(file.setLastModified(lastModified));
+			parser.parse(file);
+			assertNotNull(cache.load(file, parser));
+			Files.write(file.toPath(), xml.replace("case 1", "case 9").getBytes(StandardCharsets.UTF_8));
+			assertTrue(file.setLastModified(lastModified));
+			assertNull(cache.load(file, parser));
+			assertEquals("case 9", XConceptExtension.instance().extractName(
+					parser.parse(file).get(0).get(1)));
+		} finally {
+			reset(cache, folder);
+		}
+	}
+
+	@Test
+	public void testEviction() throws Exception {
+		File folder = Files.createTempDirectory("snapshots").toFile();
+		File first = new File(folder, "first.xes");
+		File second = new File(folder, "second.xes");
+		serialize(createLog(10), first);
+		serialize(createLog(10), second);
+
+		XLogSnapshotCache cache = enable(folder);
+		try {
+			XesXmlParser parser = new XesXmlParser(factory);
+			parser.parse(first);
+			File firstSnapshot = findSnapshot(folder);
+			parser.parse(second);
+			assertNotNull(cache.load(first, parser));
+			assertNotNull(cache.load(second, parser));
+
+			// the first snapshot has been used least recently
+			assertTrue(firstSnapshot.setLastModified(System.currentTimeMillis() - 60000));
+			cache.setMaxSize(firstSnapshot.length() + 1);
+			assertNull(cache.load(first, parser));
+			assertNotNull(cache.load(second, parser));
+
+			cache.setMaxSize(0);
+			assertNull(findSnapshot(folder));
+		} finally {
+			reset(cache, folder);
+		}
+	}
+
+	@Test
+	public void testUnstorableClassifier() throws Exception {
+		File folder = Files.createTempDirectory("snapshots").toFile();
+		File file = new File(folder, "log.xes");
+		XLog log = createLog(2);
+		serialize(log, file);
+
+		XLogSnapshotCache cache = enable(folder);
+		try {
+			log.getClassifiers().add(new FirstLetterClassifier());
+			cache.store(file, new XesXmlParser(factory), Collections.singletonList(log));
+			assertNull(findSnapshot(folder));
+		} finally {
+			reset(cache, folder);
+		}
+	}
+
+	/**
+	 * Classifier which is not defined by attribute keys, so that it cannot be
+	 * stored in a snapshot.
+	 */
+	private static class FirstLetterClassifier implements XEventClassifier {
+
+		public String name() {
+			return "First letter";
+		}
+
+		public void setName(String name) {
+		}
+
+		public boolean sameEventClass(XEvent eventA, XEvent eventB) {
+			return getClassIdentity(eventA).equals(getClassIdentity(eventB));
+		}
+
+		public String getClassIdentity(XEvent event) {
+			return XConceptExtension.instance().extractName(event).substring(0, 1);
+		}
+
+		public String[] getDefiningAttributeKeys() {
+			return new String[] { "concept:name" };
+		}
+
+		public void accept(XVisitor visitor, XLog log) {
+		}
+
+	}
+
+	private static XLogSnapshotCache enable(File folder) {
+		XLogSnapshotCache cache = XLogSnapshotCache.instance();
+		cache.setFolder(folder);
+		cache.setEnabled(true);
+		return cache;
+	}
+
+	/**
+	 * Resets the cache to its defaults, and deletes the given folder.
+	 */
+	private static void reset(XLogSnapshotCache cache, File folder) {
+		cache.setEnabled(false);
+		cache.setUseContentHash(false);
+		cache.setMaxSize(1024L * 1024L * 1024L);
+		cache.setFolder(null);
+		for (File file : folder.listFiles()) {
+			file.delete();
+		}
+		folder.delete();
+	}
+
+	private XLog createLog(int traces) {
+		XLog log = factory.createLog();
+		log.getExtensions().add(XConceptExtension.instance());
+		for (int t = 0; t < traces; t++) {
+			XTrace trace = factory.createTrace();
+			XConceptExtension.instance().assignName(trace, "case " + t);
+			for (int e = 0; e < 5; e++) {
+				XEvent event = factory.createEvent();
+				XConceptExtension.instance().assignName(event, "activity " + e);
+				trace.add(event);
+			}
+			log.add(trace);
+		}
+		return log;
+	}
+
+	private static void serialize(XLog log, File file) throws Exception {
+		OutputStream out = new FileOutputStream(file);
+		try {
+			new XesXmlSerializer().serialize(log, out);
+		} finally {
+			out.close();
+		}
+	}
+
+	private static File findSnapshot(File folder) {
+		for (File file : folder.listFiles()) {
+			if (file.getName().endsWith(".xsnap")) {
+				return file;
+			}
+		}
+		return null;
+	}
+
+	private static void assertLog(XLog expected, List<XLog> logs) {
+		assertEquals(1, logs.size());
+		XLog log = logs.get(0);
+		assertEquals(expected.size(), log.size());
+		for (int t = 0; t < expected.size(); t++) {
+			assertEquals(XConceptExtension.instance().extractName(expected.get(t)),
+					XConceptExtension.instance().extractName(log.get(t)));
+			assertEquals(expected.get(t).size(), log.get(t).size());
+			for (int e = 0; e < expected.get(t).size(); e++) {
+				assertEquals(XConceptExtension.instance().extractName(expected.get(t).get(e)),
+						XConceptExtension.instance().extractName(log.get(t).get(e)));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,224 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.columnar.XNpyExporter;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryNaiveImpl;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests the NPY export by reading the written arrays back, checking the
+ * header (magic, version, type, order, shape and alignment) and the
+ * little-endian data.
+ */
+public class NpyExportTest {
+
+	@Test
+	public void testRagged() throws Exception {
+		File directory = Files.createTempDirectory("npy").toFile();
+		try {
+			XNpyExporter exporter = new XNpyExporter(new XEventNameClassifier());
+			exporter.addAttribute("cost");
+			exporter.addAttribute("flag");
+			exporter.addAttribute("due");
+			exporter.addAttribute("note");
+			exporter.addAttribute("missing");
+			exporter.write(createLog(), directory);
+
+			ByteBuffer classes = read(directory, XNpyExporter.CLASSES_FILE, "<i4", "(5,)");
+			assertArrayEquals(new int[] { 0, 1, 1, 0, 2 }, ints(classes, 5));
+			assertEquals("a\nb\nc\n", new String(Files.readAllBytes(
+					new File(directory, XNpyExporter.CLASS_NAMES_FILE).toPath()),
+					StandardCharsets.UTF_8));
+			ByteBuffer timestamps = read(directory, XNpyExporter.TIMESTAMPS_FILE, "<f8", "(5,)");
+			assertArrayEquals(new double[] { 0, 1.5, Double.NaN, 0, 1.5 }, doubles(timestamps, 5));
+			ByteBuffer offsets = read(directory, XNpyExporter.OFFSETS_FILE, "<i8", "(4,)");
+			assertArrayEquals(new long[] { 0, 3, 3, 5 }, longs(offsets, 4));
+
+			assertArrayEquals(new double[] { 0, 0.5, 1, 1.5, 2 },
+					doubles(read(directory, "attribute.cost.npy", "<f8", "(5,)"), 5));
+			assertArrayEquals(new double[] { 1, 0, 1, 0, 1 },
+					doubles(read(directory, "attribute.flag.npy", "<f8", "(5,)"), 5));
+			assertArrayEquals(new double[] { 0, 1000, 2000, 0, 1000 },
+					doubles(read(directory, "attribute.due.npy", "<f8", "(5,)"), 5));
+			// literal attributes are not numeric
+			double[] nan = new double[5];
+			Arrays.fill(nan, Double.NaN);
+			assertArrayEquals(nan, doubles(read(directory, "attribute.note.npy", "<f8", "(5,)"), 5));
+			assertArrayEquals(nan, doubles(read(directory, "attribute.missing.npy", "<f8", "(5,)"), 5));
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	public void testPadded() throws Exception {
+		File directory = Files.createTempDirectory("npy").toFile();
+		try {
+			XNpyExporter exporter = new XNpyExporter(new XEventNameClassifier());
+			exporter.setPadded(true);
+			exporter.setThreads(1);
+			exporter.addAttribute("cost");
+			exporter.write(createLog(), directory);
+
+			ByteBuffer classes = read(directory, XNpyExporter.CLASSES_FILE, "<i4", "(3, 3)");
+			assertArrayEquals(new int[] { 0, 1, 1, -1, -1, -1, 0, 2, -1 }, ints(classes, 9));
+			ByteBuffer lengths = read(directory, XNpyExporter.LENGTHS_FILE, "<i4", "(3,)");
+			assertArrayEquals(new int[] { 3, 0, 2 }, ints(lengths, 3));
+			double n = Double.NaN;
+			assertArrayEquals(new double[] { 0, 0.5, 1, n, n, n, 1.5, 2, n },
+					doubles(read(directory, "attribute.cost.npy", "<f8", "(3, 3)"), 9));
+			assertFalse(new File(directory, XNpyExporter.OFFSETS_FILE).exists());
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	public void testAttributeFileName() {
+		assertEquals("attribute.org_resource.npy", XNpyExporter.getAttributeFileName("org:resource"));
+		assertEquals("attribute.a_b-c.d.npy", XNpyExporter.getAttributeFileName("a/b-c.d"));
+	}
+
+	/**
+	 * Reads an array file, checking its header, and returns its data.
+	 */
+	private static ByteBuffer read(File directory, String name, String descr, String shape)
+			throws Exception {
+		byte[] bytes = Files.readAllBytes(new File(directory, name).toPath());
+		ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		byte[] magic = new byte[8];
+		buffer.get(magic);
+		assertArrayEquals(new byte[] { (byte) 0x93, 'N', 'U', 'M', 'P', 'Y', 1, 0 }, magic);
+		int length = buffer.getShort() & 0xffff;
+		// the data is aligned to 64 bytes
+		assertEquals(0, (10 + length) % 64);
+		byte[] header = new byte[length];
+		buffer.get(header);
+		String dict = new String(header, StandardCharsets.US_ASCII);
+		assertTrue(dict.endsWith("\n"));
+		assertEquals("{'descr': '" + descr + "', 'fortran_order': False, 'shape': " + shape + ", }",
+				dict.trim());
+		return buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static int[] ints(ByteBuffer data, int size) {
+		assertEquals(4 * size, data.remaining());
+		int[] values = new int[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = data.getInt();
+		}
+		return values;
+	}
+
+	private static long[] longs(ByteBuffer data, int size) {
+		assertEquals(8 * size, data.remaining());
+		long[] values = new long[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = data.getLong();
+		}
+		return values;
+	}
+
+	private static double[] doubles(ByteBuffer data, int size) {
+		assertEquals(8 * size, data.remaining());
+		double[] values = new double[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = data.getDouble();
+		}
+		return values;
+	}
+
+	private static void delete(File directory) {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	/**
+	 * Creates a log of three traces, the second one empty, with events of
+	 * classes a, b, b / - / a, c.
+	 */
+	private static XLog createLog() {
+		XFactory factory = new XFactoryNaiveImpl();
+		XLog log = factory.createLog();
+		String[][] names = { { "a", "b", "b" }, {}, { "a", "c" } };
+		int e = 0;
+		for (String[] trace : names) {
+			XTrace t = factory.createTrace();
+			for (int i = 0; i < trace.length; i++) {
+				XEvent event = factory.createEvent();
+				XConceptExtension.instance().assignName(event, trace[i]);
+				// the third event has no timestamp
+				if (e != 2) {
+					XTimeExtension.instance().assignTimestamp(event, 10000L + 1500L * i);
+				}
+				event.getAttributes().put("cost", factory.createAttributeContinuous("cost", 0.5 * e, null));
+				event.getAttributes().put("flag", factory.createAttributeBoolean("flag", e % 2 == 0, null));
+				event.getAttributes().put("due", factory.createAttributeTimestamp("due", new Date(1000L * i), null));
+				event.getAttributes().put("note", factory.createAttributeLiteral("note", "1.5", null));
+				t.add(event);
+				e++;
+			}
+			log.add(t);
+		}
+		return log;
+	}
+
+}
@@ -0,0 +1,203 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryBufferedImpl;
+import org.deckfour.xes.factory.XFactoryNaiveImpl;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.buffered.XTraceBufferedImpl;
+import org.deckfour.xes.util.XTimestampSorter;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests sorting the events of traces by timestamp.
+ */
+public class TimestampSortTest {
+
+	private final XFactory factory = new XFactoryNaiveImpl();
+
+	@Test
+	public void testStability() {
+		// many equal timestamps, over several insertion sort runs
+		XTrace trace = factory.createTrace();
+		for (int i = 0; i < 500; i++) {
+			trace.add(createEvent("e" + i, (long) ((i * 7919) % 13)));
+		}
+		List<String> expected = sortedNames(trace);
+		assertTrue(trace.sortByTimestamp());
+		assertEquals(expected, names(trace));
+		assertFalse(trace.sortByTimestamp());
+		assertEquals(expected, names(trace));
+	}
+
+	@Test
+	public void testMissingTimestamps() {
+		XTrace trace = factory.createTrace();
+		trace.add(createEvent("first", null));
+		trace.add(createEvent("a", 50L));
+		trace.add(createEvent("after a", null));
+		trace.add(createEvent("b", 10L));
+		trace.add(createEvent("after b", null));
+		trace.add(createEvent("also after b", null));
+		trace.add(createEvent("c", 10L));
+		trace.add(createEvent("d", 30L));
+		assertTrue(trace.sortByTimestamp());
+		// events without a timestamp stay behind their predecessor
+		assertEquals(Arrays.asList("first", "b", "after b", "also after b", "c", "d", "a", "after a"),
+				names(trace));
+		assertNull(XTimeExtension.instance().extractTimestamp(trace.get(0)));
+	}
+
+	@Test
+	public void testOrder() {
+		long[] keys = { 3, 1, 2, 1, 3, 0 };
+		assertEquals(Arrays.toString(new int[] { 5, 1, 3, 2, 0, 4 }),
+				Arrays.toString(XTimestampSorter.order(keys)));
+		assertNull(XTimestampSorter.order(new long[] { 1, 1, 2, 5 }));
+		assertNull(XTimestampSorter.order(new long[0]));
+	}
+
+	@Test
+	public void testBufferedTrace() {
+		XFactory buffered = new XFactoryBufferedImpl();
+		XTrace trace = buffered.createTrace();
+		List<XEvent> reference = new ArrayList<XEvent>();
+		for (int i = 0; i < 100; i++) {
+			XEvent event = createEvent("e" + i, i % 3 == 0 ? null : (long) ((i * 37) % 11));
+			trace.add(event);
+			reference.add(event);
+		}
+		((XTraceBufferedImpl) trace).consolidate();
+		// overflow entries and holes are consolidated by sorting
+		for (int i = 0; i < 5; i++) {
+			XEvent event = createEvent("inserted" + i, (long) (7 - i));
+			trace.add(10 * i + 3, event);
+			reference.add(10 * i + 3, event);
+		}
+		for (int i = 0; i < 4; i++) {
+			trace.remove(20 * i + 1);
+			reference.remove(20 * i + 1);
+		}
+		List<String> expected = sortedNames(reference);
+		assertEquals(names(reference), names(trace));
+		assertTrue(trace.sortByTimestamp());
+		assertEquals(expected, names(trace));
+		assertFalse(trace.sortByTimestamp());
+		assertEquals(expected, names(trace));
+	}
+
+	@Test
+	public void testLog() throws Exception {
+		XLog log = factory.createLog();
+		List<List<String>> expected = new ArrayList<List<String>>();
+		for (int t = 0; t < 20; t++) {
+			XTrace trace = factory.createTrace();
+			for (int e = 0; e < 10; e++) {
+				trace.add(createEvent("e" + e, t % 2 == 0 ? (long) e : (long) ((e * 3) % 4)));
+			}
+			expected.add(sortedNames(trace));
+			log.add(trace);
+		}
+		assertEquals(10, XTimestampSorter.sortByTimestamp(log, 4));
+		for (int t = 0; t < log.size(); t++) {
+			assertEquals(expected.get(t), names(log.get(t)));
+		}
+		assertEquals(0, XTimestampSorter.sortByTimestamp(log, 64));
+	}
+
+	private XEvent createEvent(String name, Long millis) {
+		XEvent event = factory.createEvent();
+		XConceptExtension.instance().assignName(event, name);
+		if (millis != null) {
+			XTimeExtension.instance().assignTimestamp(event, new Date(millis));
+		}
+		return event;
+	}
+
+	/**
+	 * Sorts the names of the given events stably with the collections
+	 * framework, by the timestamp of the last event up to each event.
+	 */
+	private static List<String> sortedNames(List<XEvent> events) {
+		final List<long[]> keys = new ArrayList<long[]>();
+		long key = Long.MIN_VALUE;
+		for (int i = 0; i < events.size(); i++) {
+			Date date = XTimeExtension.instance().extractTimestamp(events.get(i));
+			if (date != null) {
+				key = date.getTime();
+			}
+			keys.add(new long[] { key, i });
+		}
+		Collections.sort(keys, new Comparator<long[]>() {
+			public int compare(long[] a, long[] b) {
+				return Long.compare(a[0], b[0]);
+			}
+		});
+		List<String> names = new ArrayList<String>();
+		for (long[] entry : keys) {
+			names.add(XConceptExtension.instance().extractName(events.get((int) entry[1])));
+		}
+		return names;
+	}
+
+	private static List<String> names(List<XEvent> events) {
+		List<String> names = new ArrayList<String>();
+		for (XEvent event : events) {
+			names.add(XConceptExtension.instance().extractName(event));
+		}
+		return names;
+	}
+
+}
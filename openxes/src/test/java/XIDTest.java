@@ -0,0 +1,237 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryNaiveImpl;
+import org.deckfour.xes.id.XID;
+import org.deckfour.xes.id.XIDFactory;
+import org.deckfour.xes.in.XesBinaryParser;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.out.XesBinarySerializer;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests parsing of XIDs against UUID, the ID strategies of the ID factory,
+ * and lazily assigned event IDs.
+ */
+public class XIDTest {
+
+	@Test
+	public void testParse() throws Exception {
+		Random random = new Random(42);
+		for (int i = 0; i < 1000; i++) {
+			UUID uuid = new UUID(random.nextLong(), random.nextLong());
+			XID id = XID.parse(uuid.toString());
+			assertEquals(uuid, id.toUUID());
+			assertEquals(uuid.hashCode(), id.hashCode());
+			assertEquals(uuid.toString().toUpperCase(), id.toString());
+			assertEquals(id, XID.parse(id.toString()));
+			assertParse(uuid.toString());
+			assertParse(uuid.toString().toUpperCase());
+
+			UUID other = new UUID(random.nextLong(), random.nextLong());
+			assertEquals(Integer.signum(uuid.compareTo(other)),
+					Integer.signum(id.compareTo(new XID(other))));
+
+			// binary form
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			XID.write(id, new DataOutputStream(bytes));
+			assertEquals(16, bytes.size());
+			assertEquals(id, XID.read(new DataInputStream(
+					new ByteArrayInputStream(bytes.toByteArray()))));
+		}
+		String[] inputs = { "00000000-0000-0000-0000-000000000000",
+				"FFFFFFFF-FFFF-FFFF-FFFF-FFFFFFFFFFFF",
+				"7fffffff-ffff-ffff-8000-000000000000",
+				"1-2-3-4-5",
+				"0001-0002-0003-0004-000000000005",
+				"00000000-0000-0000-0000-0000000000000",
+				"00000000-0000-0000-0000-00000000000",
+				"0000000g-0000-0000-0000-000000000000",
+				"00000000-0000-0000-0000-00000000000G",
+				"+0000000-0000-0000-0000-000000000000",
+				"00000000-0000-0000-0000-0000000000\u00E4\u00E4",
+				"00000000-0000-0000-0000-00000000000\u0661",
+				"00000000:0000-0000-0000-000000000000",
+				"000000000000-0000-0000-00000000-0000",
+				"00000000-0000-0000-0000-000000000000-",
+				"00000000-0000-0000-0000",
+				"not-a-uuid",
+				"",
+		};
+		for (String input : inputs) {
+			assertParse(input);
+		}
+	}
+
+	@Test
+	public void testStrategies() throws Exception {
+		XIDFactory factory = XIDFactory.instance();
+		XIDFactory.Strategy previous = factory.getStrategy();
+		try {
+			for (XIDFactory.Strategy strategy : new XIDFactory.Strategy[] {
+					XIDFactory.SECURE_RANDOM, XIDFactory.FAST_RANDOM,
+					XIDFactory.SEQUENTIAL }) {
+				factory.setStrategy(strategy);
+				assertSame(strategy, factory.getStrategy());
+				final Set<XID> ids = Collections.synchronizedSet(new HashSet<XID>());
+				List<Thread> threads = new ArrayList<Thread>();
+				for (int t = 0; t < 4; t++) {
+					threads.add(new Thread() {
+						public void run() {
+							for (int i = 0; i < 20000; i++) {
+								ids.add(XIDFactory.instance().createId());
+							}
+						}
+					});
+				}
+				for (Thread thread : threads) {
+					thread.start();
+				}
+				for (int i = 0; i < 20000; i++) {
+					ids.add(factory.createId());
+				}
+				for (Thread thread : threads) {
+					thread.join();
+				}
+				assertEquals(5 * 20000, ids.size());
+				for (XID id : ids) {
+					assertEquals(4, id.toUUID().version());
+					assertEquals(2, id.toUUID().variant());
+				}
+			}
+		} finally {
+			factory.setStrategy(previous);
+		}
+	}
+
+	@Test
+	public void testLazy() throws Exception {
+		XIDFactory idFactory = XIDFactory.instance();
+		boolean previous = idFactory.isLazy();
+		idFactory.setLazy(true);
+		try {
+			XFactory factory = new XFactoryNaiveImpl();
+			XLog log = factory.createLog();
+			XTrace trace = factory.createTrace();
+			log.add(trace);
+			XEvent first = factory.createEvent();
+			XEvent second = factory.createEvent();
+			trace.add(first);
+			trace.add(second);
+
+			// hash code and equality assign the ID once, and keep it
+			int hashCode = first.hashCode();
+			assertEquals(first, first);
+			assertFalse(first.equals(second));
+			XID id = first.getID();
+			assertEquals(id.hashCode(), hashCode);
+			assertEquals(hashCode, first.hashCode());
+			assertSame(id, first.getID());
+			XID secondId = second.getID();
+			assertSame(secondId, second.getID());
+			assertNotEquals(id, secondId);
+
+			// clones are assigned a new ID
+			XEvent clone = (XEvent) first.clone();
+			assertFalse(first.equals(clone));
+			assertNotEquals(id, clone.getID());
+			assertSame(id, first.getID());
+
+			// a serialized event keeps its ID, as does the original
+			XEvent third = factory.createEvent();
+			trace.add(third);
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			new XesBinarySerializer().serialize(log, bytes);
+			XID thirdId = third.getID();
+			XLog parsed = new XesBinaryParser().parse(
+					new ByteArrayInputStream(bytes.toByteArray())).get(0);
+			XTrace parsedTrace = parsed.get(0);
+			assertEquals(id, parsedTrace.get(0).getID());
+			assertEquals(secondId, parsedTrace.get(1).getID());
+			assertEquals(thirdId, parsedTrace.get(2).getID());
+			assertEquals(first, parsedTrace.get(0));
+			assertEquals(first.hashCode(), parsedTrace.get(0).hashCode());
+			assertSame(id, first.getID());
+			assertSame(thirdId, third.getID());
+		} finally {
+			idFactory.setLazy(previous);
+		}
+	}
+
+	/**
+	 * Asserts that parsing the given string has the same outcome as parsing
+	 * it with UUID.
+	 */
+	private static void assertParse(String input) {
+		UUID expected;
+		try {
+			expected = UUID.fromString(input);
+		} catch (IllegalArgumentException e) {
+			try {
+				XID.parse(input);
+			} catch (IllegalArgumentException f) {
+				assertEquals(e.getClass(), f.getClass());
+				return;
+			}
+			throw new AssertionError("parsed malformed " + input);
+		}
+		assertEquals(expected, XID.parse(input).toUUID());
+	}
+
+}
@@ -0,0 +1,252 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.in.XesXmlGZIPParser;
+import org.deckfour.xes.in.XesXmlParser;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.out.XesXmlAppender;
+import org.deckfour.xes.out.XesXmlGZIPSerializer;
+import org.deckfour.xes.out.XesXmlSerializer;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests appending traces to XES XML files.
+ */
+public class XmlAppendTest {
+
+	@Test
+	public void test() throws Exception {
+		XLog first = createLog(0, 3);
+		XLog second = createLog(3, 7);
+		XLog all = createLog(0, 7);
+		XesXmlSerializer serializer = new XesXmlSerializer();
+		serializer.setWriteSizeHints(true);
+		File file = File.createTempFile("append", ".xes");
+		file.deleteOnExit();
+		serialize(serializer, first, file);
+		new XesXmlAppender().append(file, second);
+
+		// appended traces are encoded like serialized ones, hints updated
+		File expected = File.createTempFile("expected", ".xes");
+		expected.deleteOnExit();
+		serialize(serializer, all, expected);
+		String xml = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		assertTrue(xml.contains("openxes.traces=7 openxes.events=10"));
+		// the hint values may take up the padding of the comment
+		assertEquals(stripHints(new String(Files.readAllBytes(expected.toPath()), StandardCharsets.UTF_8)),
+				stripHints(xml));
+
+		assertLog(all, new XesXmlParser().parse(file).get(0));
+	}
+
+	@Test
+	public void testCompressed() throws Exception {
+		File file = File.createTempFile("append", ".xes.gz");
+		file.deleteOnExit();
+		serialize(new XesXmlGZIPSerializer(), createLog(0, 3), file);
+		byte[] original = Files.readAllBytes(file.toPath());
+
+		// the closing tag shares its member with the traces
+		assertTrue(fails(new XesXmlAppender(), file, createLog(3, 5)));
+		assertArrayEquals(original, Files.readAllBytes(file.toPath()));
+
+		XesXmlAppender.makeAppendable(file);
+		assertEquals(decompress(original), decompress(Files.readAllBytes(file.toPath())));
+		byte[] appendable = Files.readAllBytes(file.toPath());
+		XesXmlAppender.makeAppendable(file);
+		assertArrayEquals(appendable, Files.readAllBytes(file.toPath()));
+
+		new XesXmlAppender().append(file, createLog(3, 5));
+		new XesXmlAppender().append(file, createLog(5, 7));
+		assertLog(createLog(0, 7), new XesXmlGZIPParser().parse(file).get(0));
+	}
+
+	@Test
+	public void testForeignClosingMember() throws Exception {
+		// the closing member is written by another compressor, with a file name
+		ByteArrayOutputStream xml = new ByteArrayOutputStream();
+		new XesXmlSerializer().serialize(createLog(0, 3), xml);
+		String content = new String(xml.toByteArray(), StandardCharsets.UTF_8);
+		int end = content.lastIndexOf("</log>");
+		File file = File.createTempFile("append", ".xes.gz");
+		file.deleteOnExit();
+		OutputStream out = new FileOutputStream(file);
+		try {
+			GZIPOutputStream gzos = new GZIPOutputStream(out);
+			gzos.write(content.substring(0, end).getBytes(StandardCharsets.UTF_8));
+			gzos.finish();
+			out.write(new byte[] { 0x1f, (byte) 0x8b, 8, 0x08, 0, 0, 0, 0, 0, 3,
+					'l', 'o', 'g', 0 });
+			Deflater deflater = new Deflater(Deflater.NO_COMPRESSION, true);
+			deflater.setInput(content.substring(end).getBytes(StandardCharsets.UTF_8));
+			deflater.finish();
+			byte[] deflated = new byte[256];
+			int size = deflater.deflate(deflated);
+			deflater.end();
+			out.write(deflated, 0, size);
+			CRC32 crc = new CRC32();
+			crc.update(content.substring(end).getBytes(StandardCharsets.UTF_8));
+			writeInt(out, (int) crc.getValue());
+			writeInt(out, content.length() - end);
+		} finally {
+			out.close();
+		}
+		assertLog(createLog(0, 3), new XesXmlGZIPParser().parse(file).get(0));
+
+		new XesXmlAppender().append(file, createLog(3, 7));
+		assertLog(createLog(0, 7), new XesXmlGZIPParser().parse(file).get(0));
+	}
+
+	@Test
+	public void testIncompatibleHeader() throws Exception {
+		File file = File.createTempFile("append", ".xes");
+		file.deleteOnExit();
+		XLog first = createLog(0, 3);
+		first.getGlobalTraceAttributes().add(XFactoryRegistry.instance().currentDefault()
+				.createAttributeLiteral("concept:name", "", XConceptExtension.instance()));
+		serialize(new XesXmlSerializer(), first, file);
+		byte[] original = Files.readAllBytes(file.toPath());
+
+		// an extension which is not declared by the file
+		XLog undeclared = createLog(3, 5);
+		undeclared.getExtensions().add(XTimeExtension.instance());
+		assertTrue(fails(new XesXmlAppender(), file, undeclared));
+		// a global attribute of the file which the log does not guarantee
+		assertTrue(fails(new XesXmlAppender(), file, createLog(3, 5)));
+		assertArrayEquals(original, Files.readAllBytes(file.toPath()));
+
+		XLog compatible = createLog(3, 5);
+		compatible.getGlobalTraceAttributes().addAll(first.getGlobalTraceAttributes());
+		new XesXmlAppender().append(file, compatible);
+		assertFalse(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8)
+				.equals(new String(original, StandardCharsets.UTF_8)));
+		assertLog(createLog(0, 5), new XesXmlParser().parse(file).get(0));
+	}
+
+	private static boolean fails(XesXmlAppender appender, File file, XLog log) {
+		try {
+			appender.append(file, log);
+			return false;
+		} catch (IOException e) {
+			return true;
+		}
+	}
+
+	private static void writeInt(OutputStream out, int value) throws IOException {
+		for (int i = 0; i < 4; i++) {
+			out.write(value >>> (8 * i));
+		}
+	}
+
+	private static String decompress(byte[] compressed) throws IOException {
+		InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed));
+		try {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void assertLog(XLog expected, XLog parsed) {
+		assertEquals(expected.size(), parsed.size());
+		for (int t = 0; t < expected.size(); t++) {
+			assertEquals(XConceptExtension.instance().extractName(expected.get(t)),
+					XConceptExtension.instance().extractName(parsed.get(t)));
+			assertEquals(expected.get(t).size(), parsed.get(t).size());
+			for (int e = 0; e < expected.get(t).size(); e++) {
+				assertEquals(XConceptExtension.instance().extractName(expected.get(t).get(e)),
+						XConceptExtension.instance().extractName(parsed.get(t).get(e)));
+			}
+		}
+	}
+
+	private static String stripHints(String xml) {
+		return xml.replaceAll("<!-- openxes\\.traces=[^>]*-->", "");
+	}
+
+	private static void serialize(XesXmlSerializer serializer, XLog log, File file) throws Exception {
+		OutputStream out = new FileOutputStream(file);
+		serializer.serialize(log, out);
+		out.close();
+	}
+
+	private static XLog createLog(int from, int to) {
+		XFactory factory = XFactoryRegistry.instance().currentDefault();
+		XLog log = factory.createLog();
+		log.getExtensions().add(XConceptExtension.instance());
+		XConceptExtension.instance().assignName(log, "append");
+		for (int t = from; t < to; t++) {
+			XTrace trace = factory.createTrace();
+			XConceptExtension.instance().assignName(trace, "case <" + t + "> & \"quoted\"");
+			for (int e = 0; e < 1 + t % 2; e++) {
+				XEvent event = factory.createEvent();
+				XConceptExtension.instance().assignName(event, "a & b < c " + e);
+				trace.add(event);
+			}
+			log.add(trace);
+		}
+		return log;
+	}
+
+}
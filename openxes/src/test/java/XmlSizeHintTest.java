@@ -0,0 +1,119 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.in.XesXmlParser;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.out.XesXmlSerializer;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests the size hints embedded into XES XML documents.
+ */
+public class XmlSizeHintTest {
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		XFactory factory = XFactoryRegistry.instance().currentDefault();
+		XLog log = factory.createLog();
+		log.getExtensions().add(XConceptExtension.instance());
+		for (int t = 0; t < 10; t++) {
+			XTrace trace = factory.createTrace();
+			XConceptExtension.instance().assignName(trace, "case " + t);
+			for (int e = 0; e < t; e++) {
+				trace.add(factory.createEvent());
+			}
+			log.add(trace);
+		}
+		XesXmlSerializer serializer = new XesXmlSerializer();
+		serializer.setWriteSizeHints(true);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		serializer.serialize(log, out);
+		String xml = new String(out.toByteArray(), StandardCharsets.UTF_8);
+		// hints are comments, not attributes of the log or trace elements
+		assertTrue(xml.contains("openxes.traces=10 openxes.events=45"));
+		assertFalse(xml.contains("openxes.traces=\""));
+		assertFalse(xml.contains("openxes.events=\""));
+
+		XLog parsed = new XesXmlParser().parse(
+				new ByteArrayInputStream(out.toByteArray())).get(0);
+		assertEquals(log.size(), parsed.size());
+		for (int t = 0; t < log.size(); t++) {
+			assertEquals(log.get(t).size(), parsed.get(t).size());
+			assertEquals(log.get(t).getAttributes().keySet(), parsed.get(t)
+					.getAttributes().keySet());
+		}
+	}
+
+	@Test
+	public void testHostileHints() throws Exception {
+		String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
+				+ "<log xes.version=\"2.0\">\n"
+				+ "\t<!-- openxes.traces=2147483647 openxes.events=99999999999 -->\n"
+				+ "\t<trace>\n"
+				+ "\t\t<!-- openxes.events=2147483647 -->\n"
+				+ "\t\t<event/>\n"
+				+ "\t</trace>\n"
+				+ "\t<trace>\n"
+				+ "\t\t<!-- openxes.events=-5 -->\n"
+				+ "\t</trace>\n"
+				+ "\t<trace>\n"
+				+ "\t\t<!-- openxes.events=x -->\n"
+				+ "\t</trace>\n"
+				+ "</log>\n";
+		XLog log = new XesXmlParser().parse(
+				new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)))
+				.get(0);
+		assertEquals(3, log.size());
+		assertEquals(1, log.get(0).size());
+		assertEquals(0, log.get(1).size());
+	}
+
+}
@@ -0,0 +1,271 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XOrganizationalExtension;
+import org.deckfour.xes.in.XesXmlParser;
+import org.deckfour.xes.model.XAttributeContainer;
+import org.deckfour.xes.model.XAttributeList;
+import org.deckfour.xes.model.XAttributeLiteral;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.out.XesXmlSerializer;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests copying unmodified traces verbatim when re-serializing a parsed XES
+ * file. The source traces carry comments, which the parser drops, so the
+ * output only contains them if a trace has been copied.
+ */
+public class XmlVerbatimCopyTest {
+
+	private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
+			+ "<log xes.version=\"2.0\">\n"
+			+ "\t<global scope=\"event\">\n"
+			+ "\t\t<string key=\"org:resource\" value=\"nobody\"/>\n"
+			+ "\t</global>\n"
+			+ "\t<trace>\n"
+			+ "\t\t<!-- source 0 -->\n"
+			+ "\t\t<event>\n"
+			+ "\t\t\t<string key=\"concept:name\" value=\"a\"/>\n"
+			+ "\t\t</event>\n"
+			+ "\t</trace>\n"
+			+ "\t<trace>\n"
+			+ "\t\t<!-- source 1 -->\n"
+			+ "\t\t<event>\n"
+			+ "\t\t\t<string key=\"concept:name\" value=\"b\"/>\n"
+			+ "\t\t</event>\n"
+			+ "\t\t<event>\n"
+			+ "\t\t\t<string key=\"concept:name\" value=\"c\"/>\n"
+			+ "\t\t\t<string key=\"org:resource\" value=\"alice\"/>\n"
+			+ "\t\t</event>\n"
+			+ "\t</trace>\n"
+			+ "</log>\n";
+
+	private static final String NESTED_XML = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
+			+ "<log xes.version=\"2.0\">\n"
+			+ "\t<trace>\n"
+			+ "\t\t<!-- source 0 -->\n"
+			+ "\t\t<event>\n"
+			+ "\t\t\t<list key=\"items\">\n"
+			+ "\t\t\t\t<values>\n"
+			+ "\t\t\t\t\t<string key=\"item\" value=\"first\"/>\n"
+			+ "\t\t\t\t</values>\n"
+			+ "\t\t\t</list>\n"
+			+ "\t\t</event>\n"
+			+ "\t</trace>\n"
+			+ "\t<trace>\n"
+			+ "\t\t<!-- source 1 -->\n"
+			+ "\t\t<event>\n"
+			+ "\t\t\t<container key=\"box\">\n"
+			+ "\t\t\t\t<string key=\"content\" value=\"second\"/>\n"
+			+ "\t\t\t</container>\n"
+			+ "\t\t</event>\n"
+			+ "\t</trace>\n"
+			+ "\t<trace>\n"
+			+ "\t\t<!-- source 2 -->\n"
+			+ "\t\t<event>\n"
+			+ "\t\t\t<string key=\"note\" value=\"third\">\n"
+			+ "\t\t\t\t<string key=\"meta\" value=\"fourth\"/>\n"
+			+ "\t\t\t</string>\n"
+			+ "\t\t</event>\n"
+			+ "\t</trace>\n"
+			+ "</log>\n";
+
+	@Test
+	public void testEditedAndUneditedTraces() throws Exception {
+		File file = createSource();
+		XLog log = parse(file, true);
+		XConceptExtension.instance().assignName(log.get(0).get(0), "edited");
+
+		String copy = serialize(log, true);
+		assertFalse(copy.contains("source 0"));
+		assertTrue(copy.contains("source 1"));
+		assertEquals("[edited/nobody], [b/nobody, c/alice]", describe(parse(copy, true)));
+	}
+
+	@Test
+	public void testChangedGlobals() throws Exception {
+		File file = createSource();
+		XLog log = parse(file, true);
+		((XAttributeLiteral) log.getGlobalEventAttributes().get(0)).setValue("somebody");
+
+		// the unedited traces rely on the old default, and are encoded
+		String copy = serialize(log, true);
+		assertFalse(copy.contains("source 1"));
+		assertEquals("[a/nobody], [b/nobody, c/alice]", describe(parse(copy, true)));
+
+		log.getGlobalEventAttributes().clear();
+		copy = serialize(log, true);
+		assertFalse(copy.contains("source 1"));
+		assertEquals("[a/nobody], [b/nobody, c/alice]", describe(parse(copy, false)));
+	}
+
+	@Test
+	public void testSharedDefaultsWithoutElision() throws Exception {
+		File file = createSource();
+		XLog log = parse(file, true);
+
+		// the output must not rely on defaults, so the traces are encoded
+		String copy = serialize(log, false);
+		assertFalse(copy.contains("source 0"));
+		assertEquals("[a/nobody], [b/nobody, c/alice]", describe(parse(copy, false)));
+
+		// without sharing, the parsed traces equal their source
+		log = parse(file, false);
+		copy = serialize(log, false);
+		assertTrue(copy.contains("source 0"));
+		assertTrue(copy.contains("source 1"));
+		assertEquals("[a/null], [b/null, c/alice]", describe(parse(copy, false)));
+	}
+
+	@Test
+	public void testChangedSourceFile() throws Exception {
+		File file = createSource();
+		XLog log = parse(file, true);
+		OutputStream out = new FileOutputStream(file, true);
+		try {
+			out.write("<!-- changed -->\n".getBytes(StandardCharsets.UTF_8));
+		} finally {
+			out.close();
+		}
+
+		String copy = serialize(log, true);
+		assertFalse(copy.contains("source 0"));
+		assertFalse(copy.contains("source 1"));
+		assertEquals("[a/nobody], [b/nobody, c/alice]", describe(parse(copy, true)));
+	}
+
+	@Test
+	public void testEditedNestedAttributes() throws Exception {
+		File file = createSource(NESTED_XML);
+		XLog log = parse(file, false);
+		String copy = serialize(log, false);
+		assertTrue(copy.contains("source 0"));
+		assertTrue(copy.contains("source 1"));
+		assertTrue(copy.contains("source 2"));
+
+		XEvent listed = log.get(0).get(0);
+		XAttributeList list = (XAttributeList) listed.getAttributes().get("items");
+		((XAttributeLiteral) list.getCollection().iterator().next()).setValue("edited list");
+		XEvent contained = log.get(1).get(0);
+		XAttributeContainer container = (XAttributeContainer) contained.getAttributes().get("box");
+		((XAttributeLiteral) container.getAttributes().get("content")).setValue("edited container");
+		XEvent annotated = log.get(2).get(0);
+		XAttributeLiteral note = (XAttributeLiteral) annotated.getAttributes().get("note");
+		((XAttributeLiteral) note.getAttributes().get("meta")).setValue("edited meta");
+
+		copy = serialize(log, false);
+		assertFalse(copy.contains("source 0"));
+		assertFalse(copy.contains("source 1"));
+		assertFalse(copy.contains("source 2"));
+		assertTrue(copy.contains("edited list"));
+		assertTrue(copy.contains("edited container"));
+		assertTrue(copy.contains("edited meta"));
+		assertFalse(copy.contains("first"));
+		assertFalse(copy.contains("second"));
+		assertFalse(copy.contains("fourth"));
+	}
+
+	private File createSource() throws Exception {
+		return createSource(XML);
+	}
+
+	private File createSource(String xml) throws Exception {
+		File file = File.createTempFile("verbatim", ".xes");
+		file.deleteOnExit();
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(xml.getBytes(StandardCharsets.UTF_8));
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	private XLog parse(File file, boolean shareGlobalDefaults) throws Exception {
+		XesXmlParser parser = new XesXmlParser();
+		parser.setRecordSourceRanges(true);
+		parser.setShareGlobalDefaults(shareGlobalDefaults);
+		return parser.parse(file).get(0);
+	}
+
+	private XLog parse(String xml, boolean shareGlobalDefaults) throws Exception {
+		XesXmlParser parser = new XesXmlParser();
+		parser.setShareGlobalDefaults(shareGlobalDefaults);
+		return parser.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))).get(0);
+	}
+
+	private String serialize(XLog log, boolean elideGlobalDefaults) throws Exception {
+		XesXmlSerializer serializer = new XesXmlSerializer();
+		serializer.setElideGlobalDefaults(elideGlobalDefaults);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		serializer.serialize(log, out);
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Lists the name and resource of each event, by trace.
+	 */
+	private String describe(XLog log) {
+		StringBuilder description = new StringBuilder();
+		for (int t = 0; t < log.size(); t++) {
+			description.append(t == 0 ? "[" : "], [");
+			for (int e = 0; e < log.get(t).size(); e++) {
+				description.append(e == 0 ? "" : ", ");
+				description.append(XConceptExtension.instance().extractName(log.get(t).get(e)));
+				description.append('/');
+				description.append(XOrganizationalExtension.instance().extractResource(log.get(t).get(e)));
+			}
+		}
+		return description.append(']').toString();
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+ * OpenXES
+ * 
+ * The reference implementation of the XES meta-model for event 
+ * log data management.
+ * 
+ * Copyright (c) 2021 Christian W. Guenther (christian@deckfour.org)
+ * 
+ * 
+ * LICENSE:
+ * 
+ * This code is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA
+ * 
+ * EXEMPTION:
+ * 
+ * The use of this software can also be conditionally licensed for
+ * other programs, which do not satisfy the specified conditions. This
+ * requires an exemption from the general license, which may be
+ * granted on a per-case basis.
+ * 
+ * If you want to license the use of this software with a program
+ * incompatible with the LGPL, please contact the author for an
+ * exemption at the following email address: 
+ * christian@deckfour.org
+ * 
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.deckfour.xes.model.impl.XsDateTimeFormat;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests formatting and parsing <code>xs:dateTime</code> values against the
+ * <code>java.time</code> API, and round trips in several time zones.
+ */
+public class XsDateTimeFormatTest {
+
+	private static final String[] ZONES = { "UTC", "GMT+05:30", "GMT-08:00", "Europe/Amsterdam",
+			"America/New_York", "Asia/Kathmandu", "Australia/Lord_Howe" };
+
+	private static final long[] MILLIS = { 0L, 1L, -1L, 999L, -999L, 1000L, -1000L, 86399999L, -86400000L,
+			951782400000L, // 2000-02-29
+			1700000000123L, 1700000000120L, 1700000000100L,
+			-14182940000L, // 1969-07-20
+			-2208988800000L, // 1900-01-01
+			-5364662400000L, // 1800-01-01
+			-12212553600000L, // 1583-01-01
+			-12219292800000L, // 1582-10-15, first Gregorian day
+			-12219292800001L, // Julian calendar
+			-62135596800000L, // 0001-01-01
+			253402300799999L, // 9999-12-31
+			253402300800000L, // 10000-01-01
+	};
+
+	@Test
+	public void testParseOffsets() throws Exception {
+		String[] values = { "2010-05-01T12:30:00Z", "2010-05-01T12:30:00+05:30", "2010-05-01T12:30:00-08:00",
+				"2010-05-01T00:15:00+14:00", "2010-05-01T23:45:00-12:00", "2010-05-01T12:30:00.1+01:00",
+				"2010-05-01T12:30:00.12-03:30", "2010-05-01T12:30:00.123Z", "2010-05-01T12:30:00.007+00:00",
+				"1969-12-31T23:59:59.999Z", "1969-12-31T23:59:59.999+01:00", "1969-07-20T20:17:40-04:00",
+				"1900-01-01T00:00:00Z", "1800-06-15T08:00:00.5+02:00", "1583-01-01T00:00:00Z",
+				"2000-02-29T23:59:59.999-00:30", "9999-12-31T23:59:59.999Z" };
+		for (String value : values) {
+			long expected = OffsetDateTime.parse(value).toInstant().toEpochMilli();
+			assertEquals(expected, XsDateTimeFormat.parseMillis(value), value);
+			assertEquals(expected, new XsDateTimeFormat().parseObject(value).getTime(), value);
+		}
+		// values without a zone are in UTC
+		assertEquals(OffsetDateTime.parse("1969-07-20T20:17:40Z").toInstant().toEpochMilli(),
+				XsDateTimeFormat.parseMillis("1969-07-20T20:17:40"));
+		assertEquals(OffsetDateTime.parse("2010-05-01T12:30:00.25Z").toInstant().toEpochMilli(),
+				XsDateTimeFormat.parseMillis("2010-05-01T12:30:00.25"));
+	}
+
+	@Test
+	public void testFormat() {
+		TimeZone zone = TimeZone.getDefault();
+		try {
+			for (String id : ZONES) {
+				TimeZone.setDefault(TimeZone.getTimeZone(id));
+				for (long millis : MILLIS) {
+					if (millis < -12219292800000L + 86400000L || millis >= 253402300800000L - 86400000L) {
+						// java.time uses the proleptic calendar, and 10000 is no xs:dateTime year
+						continue;
+					}
+					assertEquals(reference(millis), XsDateTimeFormat.formatMillis(millis), id + " " + millis);
+				}
+				for (long millis = -3000000000000L; millis < 3000000000000L; millis += 7777777777L) {
+					assertEquals(reference(millis), XsDateTimeFormat.formatMillis(millis), id + " " + millis);
+				}
+			}
+		} finally {
+			TimeZone.setDefault(zone);
+		}
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		TimeZone zone = TimeZone.getDefault();
+		try {
+			for (String id : ZONES) {
+				TimeZone.setDefault(TimeZone.getTimeZone(id));
+				XsDateTimeFormat format = new XsDateTimeFormat();
+				for (long millis : MILLIS) {
+					String formatted = XsDateTimeFormat.formatMillis(millis);
+					assertEquals(format.format(new Date(millis)), formatted, id + " " + millis);
+					if (TimeZone.getDefault().getOffset(millis) % 60000 != 0) {
+						// offsets of local mean time are written in whole minutes
+						continue;
+					}
+					assertEquals(millis, XsDateTimeFormat.parseMillis(formatted), id + " " + formatted);
+					assertEquals(millis, format.parseObject(formatted).getTime(), id + " " + formatted);
+				}
+			}
+		} finally {
+			TimeZone.setDefault(zone);
+		}
+	}
+
+	/**
+	 * Formats the given time with <code>java.time</code>, at the offset of
+	 * the default time zone.
+	 */
+	private static String reference(long millis) {
+		ZoneOffset offset = ZoneOffset.ofTotalSeconds(TimeZone.getDefault().getOffset(millis) / 1000);
+		OffsetDateTime time = Instant.ofEpochMilli(millis).atOffset(offset);
+		StringBuilder builder = new StringBuilder(String.format("%04d-%02d-%02dT%02d:%02d:%02d", time.getYear(),
+				time.getMonthValue(), time.getDayOfMonth(), time.getHour(), time.getMinute(), time.getSecond()));
+		int millisOfSecond = time.getNano() / 1000000;
+		if (millisOfSecond > 0) {
+			builder.append(String.format(".%03d", millisOfSecond));
+		}
+		int minutes = time.getOffset().getTotalSeconds() / 60;
+		if (minutes == 0) {
+			builder.append('Z');
+		} else {
+			builder.append(minutes < 0 ? '-' : '+');
+			builder.append(String.format("%02d:%02d", Math.abs(minutes) / 60, Math.abs(minutes) % 60));
+		}
+		return builder.toString();
+	}
+
+}